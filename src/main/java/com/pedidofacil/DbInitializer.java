@@ -1,9 +1,12 @@
 package com.pedidofacil;
 
 import com.pedidofacil.models.*;
+import com.pedidofacil.persistence.IWriteQueue;
 import com.pedidofacil.repositories.CustomerRepository;
 import com.pedidofacil.repositories.OrderRepository;
 import com.pedidofacil.repositories.ProductRepository;
+import com.pedidofacil.repositories.SalesSummaryRepository;
+import com.pedidofacil.services.IOrderNumberAllocator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
@@ -111,7 +114,9 @@ public class DbInitializer {
     }
 
     @Bean
-    CommandLineRunner seedOrdersPf(OrderRepository orderRepository, ProductRepository productRepository, CustomerRepository customerRepository) {
+    CommandLineRunner seedOrdersPf(OrderRepository orderRepository, ProductRepository productRepository, CustomerRepository customerRepository,
+                                   IOrderNumberAllocator orderNumberAllocator, IWriteQueue writeQueue,
+                                   SalesSummaryRepository salesSummary) {
         return args -> {
             long existing = orderRepository.count();
             if (existing >= 50) {
@@ -127,21 +132,14 @@ public class DbInitializer {
             }
 
             int toCreate = (int) Math.max(0, 60 - existing); // tenta chegar a ~60 pedidos
-            long maxNumber = 0L;
-            try {
-                Long max = orderRepository.findMaxNumber();
-                maxNumber = (max == null ? 0L : max);
-            } catch (Exception e) {
-                // em bancos vazios, a consulta pode falhar dependendo do dialeto; seguimos de 0
-                maxNumber = 0L;
-            }
 
             ThreadLocalRandom rnd = ThreadLocalRandom.current();
             LocalDate today = LocalDate.now();
 
             for (int i = 0; i < toCreate; i++) {
                 Order o = new Order();
-                o.setNumber(++maxNumber);
+                // Usa o mesmo alocador do checkout para não furar a sequência de números
+                o.setNumber(orderNumberAllocator.next());
 
                 // Datas nos últimos 60 dias
                 int minusDays = rnd.nextInt(0, 60);
@@ -173,7 +171,12 @@ public class DbInitializer {
                     o.addItem(item);
                 }
 
-                orderRepository.save(o);
+                // Mesmo caminho de escrita do checkout: o pedido e o resumo diário dos relatórios na mesma transação
+                writeQueue.execute(() -> {
+                    Order saved = orderRepository.save(o);
+                    salesSummary.record(saved);
+                    return saved;
+                });
             }
 
             log.info("[PF] Pedidos mockados adicionados: {} (total agora: {}).", toCreate, orderRepository.count());
@@ -0,0 +1,93 @@
+package com.pedidofacil.config;
+
+import com.pedidofacil.models.PaymentMethod;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Massa de dados sintética para testes de carga (perfil {@code dataset}). Com a mesma semente, a mesma data
+ * final e o mesmo banco de partida, o gerador produz exatamente os mesmos registros.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.dataset")
+public class DatasetSettings {
+
+    private long orders = 1_000_000;
+    private int customers = 5_000;
+    private int products = 2_000;
+    private long seed = 42;
+
+    // Pedidos distribuídos nos "days" dias que terminam em endDate (vazio = hoje)
+    private int days = 730;
+    private LocalDate endDate;
+
+    // Pesos: itens por pedido (1, 2, 3...), forma de pagamento, dia da semana (segunda a domingo),
+    // mês (janeiro a dezembro) e hora do dia (0 a 23)
+    private List<Integer> itemsPerOrder = List.of(35, 25, 15, 10, 7, 5, 3);
+    private Map<PaymentMethod, Integer> paymentMix = new EnumMap<>(Map.of(
+            PaymentMethod.CASH, 25, PaymentMethod.PIX, 35, PaymentMethod.DEBIT, 20,
+            PaymentMethod.CREDIT, 15, PaymentMethod.CREDITSALE, 5));
+    private List<Integer> weekdayWeights = List.of(14, 14, 14, 15, 17, 19, 7);
+    private List<Integer> monthWeights = List.of(8, 8, 9, 9, 9, 8, 8, 9, 9, 10, 10, 13);
+    private List<Integer> hourWeights = List.of(0, 0, 0, 0, 0, 0, 1, 4, 9, 11, 11, 10, 7, 8, 10, 10, 9, 6, 3, 1, 0, 0, 0, 0);
+
+    // Fração dos pedidos sem cliente (balcão)
+    private double anonymousShare = 0.3;
+
+    // Linhas por INSERT e pedidos por transação
+    private int rowsPerInsert = 500;
+    private int ordersPerCommit = 100_000;
+
+    // Remove os índices secundários durante a carga e os recria no fim (bem mais rápido que mantê-los linha a linha)
+    private boolean deferIndexes = true;
+
+    public long getOrders() { return orders; }
+    public void setOrders(long orders) { this.orders = orders; }
+
+    public int getCustomers() { return customers; }
+    public void setCustomers(int customers) { this.customers = customers; }
+
+    public int getProducts() { return products; }
+    public void setProducts(int products) { this.products = products; }
+
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    public int getDays() { return days; }
+    public void setDays(int days) { this.days = days; }
+
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    public List<Integer> getItemsPerOrder() { return itemsPerOrder; }
+    public void setItemsPerOrder(List<Integer> itemsPerOrder) { this.itemsPerOrder = itemsPerOrder; }
+
+    public Map<PaymentMethod, Integer> getPaymentMix() { return paymentMix; }
+    public void setPaymentMix(Map<PaymentMethod, Integer> paymentMix) { this.paymentMix = paymentMix; }
+
+    public List<Integer> getWeekdayWeights() { return weekdayWeights; }
+    public void setWeekdayWeights(List<Integer> weekdayWeights) { this.weekdayWeights = weekdayWeights; }
+
+    public List<Integer> getMonthWeights() { return monthWeights; }
+    public void setMonthWeights(List<Integer> monthWeights) { this.monthWeights = monthWeights; }
+
+    public List<Integer> getHourWeights() { return hourWeights; }
+    public void setHourWeights(List<Integer> hourWeights) { this.hourWeights = hourWeights; }
+
+    public double getAnonymousShare() { return anonymousShare; }
+    public void setAnonymousShare(double anonymousShare) { this.anonymousShare = anonymousShare; }
+
+    public int getRowsPerInsert() { return rowsPerInsert; }
+    public void setRowsPerInsert(int rowsPerInsert) { this.rowsPerInsert = rowsPerInsert; }
+
+    public int getOrdersPerCommit() { return ordersPerCommit; }
+    public void setOrdersPerCommit(int ordersPerCommit) { this.ordersPerCommit = ordersPerCommit; }
+
+    public boolean isDeferIndexes() { return deferIndexes; }
+    public void setDeferIndexes(boolean deferIndexes) { this.deferIndexes = deferIndexes; }
+}
@@ -0,0 +1,16 @@
+package com.pedidofacil.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.migration")
+public class MigrationSettings {
+
+    // Confere, a cada inicialização, se os scripts já aplicados continuam iguais aos registrados.
+    // Desligado, a inicialização com o banco em dia só lê o PRAGMA user_version
+    private boolean validate = false;
+
+    public boolean isValidate() { return validate; }
+    public void setValidate(boolean validate) { this.validate = validate; }
+}
@@ -0,0 +1,36 @@
+package com.pedidofacil.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.order-number")
+public class OrderNumberSettings {
+
+    public enum GapPolicy {
+        // Números não usados de um bloco viram lacunas ao encerrar o aplicativo
+        ALLOW_GAPS,
+        // No encerramento normal, devolve à sequência os números não usados do bloco atual
+        RELEASE_ON_SHUTDOWN
+    }
+
+    public enum Recovery {
+        // Confia na tabela de sequência; após uma queda, o restante do bloco reservado vira lacuna
+        TRUST_SEQUENCE,
+        // Na primeira reserva após a inicialização, realinha a sequência com max(number) + 1
+        RESYNC_ON_STARTUP
+    }
+
+    private int blockSize = 50;
+    private GapPolicy gapPolicy = GapPolicy.RELEASE_ON_SHUTDOWN;
+    private Recovery recovery = Recovery.TRUST_SEQUENCE;
+
+    public int getBlockSize() { return blockSize; }
+    public void setBlockSize(int blockSize) { this.blockSize = blockSize; }
+
+    public GapPolicy getGapPolicy() { return gapPolicy; }
+    public void setGapPolicy(GapPolicy gapPolicy) { this.gapPolicy = gapPolicy; }
+
+    public Recovery getRecovery() { return recovery; }
+    public void setRecovery(Recovery recovery) { this.recovery = recovery; }
+}
@@ -0,0 +1,23 @@
+package com.pedidofacil.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "app.order-store")
+public class OrderStoreSettings {
+
+    // false: relatórios sempre consultam o SQLite
+    private boolean enabled = false;
+
+    // Teto para as colunas em memória (pedidos e itens); acima disso o armazenamento é descartado e os
+    // relatórios voltam ao SQLite
+    private DataSize memoryBudget = DataSize.ofMegabytes(512);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public DataSize getMemoryBudget() { return memoryBudget; }
+    public void setMemoryBudget(DataSize memoryBudget) { this.memoryBudget = memoryBudget; }
+}
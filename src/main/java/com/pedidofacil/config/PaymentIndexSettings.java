@@ -0,0 +1,15 @@
+package com.pedidofacil.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.payment-index")
+public class PaymentIndexSettings {
+
+    // false: total por forma de pagamento e ticket médio somam o resumo diário no banco a cada consulta
+    private boolean enabled = true;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+}
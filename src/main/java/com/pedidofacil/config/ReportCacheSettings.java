@@ -0,0 +1,21 @@
+package com.pedidofacil.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.report-cache")
+public class ReportCacheSettings {
+
+    // false: todo relatório vai ao banco (comportamento antigo)
+    private boolean enabled = true;
+
+    // Resultados guardados (relatório x período x parâmetros); acima disso sai o usado há mais tempo
+    private int maxEntries = 256;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getMaxEntries() { return maxEntries; }
+    public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+}
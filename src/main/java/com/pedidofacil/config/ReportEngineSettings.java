@@ -0,0 +1,27 @@
+package com.pedidofacil.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.report-engine")
+public class ReportEngineSettings {
+
+    public enum Mode {
+        // Uma consulta por relatório, em paralelo no pool de leitura (passa pelo cache e pelo resumo diário)
+        QUERIES,
+        // Uma única leitura dos pedidos e itens do período alimenta todos os relatórios da tela
+        SINGLE_PASS
+    }
+
+    private Mode mode = Mode.QUERIES;
+
+    // Linhas pedidas ao driver por vez nas leituras em fluxo (leitura única e plano B das vendas por dia)
+    private int fetchSize = 10_000;
+
+    public Mode getMode() { return mode; }
+    public void setMode(Mode mode) { this.mode = mode; }
+
+    public int getFetchSize() { return fetchSize; }
+    public void setFetchSize(int fetchSize) { this.fetchSize = fetchSize; }
+}
@@ -0,0 +1,22 @@
+package com.pedidofacil.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+@Component
+@ConfigurationProperties(prefix = "app.sales-cube")
+public class SalesCubeSettings {
+
+    // false: o cubo não é carregado e IReportService.cube recusa as consultas
+    private boolean enabled = true;
+
+    // Teto para as células do cubo; acima disso ele é descartado e IReportService.cube passa a recusar as consultas
+    private DataSize memoryBudget = DataSize.ofMegabytes(256);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public DataSize getMemoryBudget() { return memoryBudget; }
+    public void setMemoryBudget(DataSize memoryBudget) { this.memoryBudget = memoryBudget; }
+}
@@ -0,0 +1,36 @@
+package com.pedidofacil.config;
+
+import com.pedidofacil.persistence.SqliteProfile;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.sqlite")
+public class SqliteSettings {
+
+    public enum Validation {
+        // Não inicia se algum PRAGMA ativo divergir do perfil (ex.: WAL recusado numa pasta de rede)
+        FAIL,
+        // Só registra a divergência no log e segue com os valores que o SQLite aceitou
+        WARN
+    }
+
+    private SqliteProfile profile = SqliteProfile.BALANCED;
+    private Validation validation = Validation.FAIL;
+
+    // Uma conexão para escrita (a fila de escrita já serializa tudo) e várias para leitura
+    private int writePoolSize = 1;
+    private int readPoolSize = 4;
+
+    public SqliteProfile getProfile() { return profile; }
+    public void setProfile(SqliteProfile profile) { this.profile = profile; }
+
+    public Validation getValidation() { return validation; }
+    public void setValidation(Validation validation) { this.validation = validation; }
+
+    public int getWritePoolSize() { return writePoolSize; }
+    public void setWritePoolSize(int writePoolSize) { this.writePoolSize = writePoolSize; }
+
+    public int getReadPoolSize() { return readPoolSize; }
+    public void setReadPoolSize(int readPoolSize) { this.readPoolSize = readPoolSize; }
+}
@@ -0,0 +1,21 @@
+package com.pedidofacil.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.ticket-digest")
+public class TicketDigestSettings {
+
+    // false: os percentis do ticket leem os totais dos pedidos do período no banco a cada consulta
+    private boolean enabled = true;
+
+    // Centroides por resumo (mínimo 10): mais centroides, percentis mais precisos e mais memória por dia
+    private int compression = 200;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getCompression() { return compression; }
+    public void setCompression(int compression) { this.compression = compression; }
+}
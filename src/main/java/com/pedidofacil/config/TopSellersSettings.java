@@ -0,0 +1,34 @@
+package com.pedidofacil.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.top-sellers")
+public class TopSellersSettings {
+
+    // true: top produtos e top clientes de todo o período saem aproximados do sketch, com o erro máximo na tela;
+    // false: exatos, somados no banco a cada consulta
+    private boolean approximate = false;
+
+    // Contadores por linha do sketch; o erro máximo é e/width do faturamento total (arredondado para potência de 2)
+    private int sketchWidth = 65_536;
+
+    // Linhas do sketch: a estimativa fica dentro do erro máximo com probabilidade 1 - e^-depth (1 a 8)
+    private int sketchDepth = 5;
+
+    // Produtos e clientes acompanhados pelo sketch; rankings maiores que isso são exatos
+    private int candidates = 100;
+
+    public boolean isApproximate() { return approximate; }
+    public void setApproximate(boolean approximate) { this.approximate = approximate; }
+
+    public int getSketchWidth() { return sketchWidth; }
+    public void setSketchWidth(int sketchWidth) { this.sketchWidth = sketchWidth; }
+
+    public int getSketchDepth() { return sketchDepth; }
+    public void setSketchDepth(int sketchDepth) { this.sketchDepth = sketchDepth; }
+
+    public int getCandidates() { return candidates; }
+    public void setCandidates(int candidates) { this.candidates = candidates; }
+}
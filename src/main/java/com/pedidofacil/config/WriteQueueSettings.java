@@ -0,0 +1,29 @@
+package com.pedidofacil.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.write-queue")
+public class WriteQueueSettings {
+
+    // false: cada escrita abre sua própria transação na thread de quem chamou (comportamento antigo)
+    private boolean enabled = true;
+
+    // Quanto o escritor espera por mais escritas antes de confirmar o grupo (0 = só o que já está na fila)
+    private Duration window = Duration.ofMillis(2);
+
+    // Máximo de escritas confirmadas em um mesmo commit
+    private int maxBatch = 64;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Duration getWindow() { return window; }
+    public void setWindow(Duration window) { this.window = window; }
+
+    public int getMaxBatch() { return maxBatch; }
+    public void setMaxBatch(int maxBatch) { this.maxBatch = maxBatch; }
+}
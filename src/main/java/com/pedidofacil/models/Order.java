@@ -1,5 +1,6 @@
 package com.pedidofacil.models;
 
+import com.pedidofacil.persistence.BlockId;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -11,7 +12,7 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @BlockId(blockSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -20,6 +21,13 @@ public class Order {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    // Chaves inteiras derivadas de createdAt (ver TimeKeys), usadas pelos relatórios por dia, mês e hora
+    @Column(name = "created_epoch", nullable = false)
+    private long createdEpoch;
+
+    @Column(name = "day_key", nullable = false)
+    private int dayKey;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PaymentMethod paymentMethod;
@@ -41,14 +49,23 @@ public class Order {
         if (createdAt == null) {
             createdAt = LocalDateTime.now();
         }
+        syncTimeKeys();
         recalcTotal();
     }
 
     @PreUpdate
     public void preUpdate() {
+        syncTimeKeys();
         recalcTotal();
     }
 
+    private void syncTimeKeys() {
+        if (createdAt != null) {
+            createdEpoch = TimeKeys.epochSecond(createdAt);
+            dayKey = TimeKeys.dayKey(createdAt.toLocalDate());
+        }
+    }
+
     public void addItem(OrderItem item) {
         item.setOrder(this);
         items.add(item);
@@ -78,6 +95,9 @@ public class Order {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
+    public long getCreatedEpoch() { return createdEpoch; }
+    public int getDayKey() { return dayKey; }
+
     public PaymentMethod getPaymentMethod() { return paymentMethod; }
     public void setPaymentMethod(PaymentMethod paymentMethod) { this.paymentMethod = paymentMethod; }
 
@@ -1,5 +1,6 @@
 package com.pedidofacil.models;
 
+import com.pedidofacil.persistence.BlockId;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -9,7 +10,7 @@ import java.math.RoundingMode;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @BlockId(blockSize = 200, idsPerWrite = 4)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -0,0 +1,39 @@
+package com.pedidofacil.models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * Chaves inteiras de tempo gravadas em cada pedido ({@code created_epoch} e {@code day_key}), para os
+ * relatórios agruparem por dia, mês e hora com aritmética inteira em vez de converter datas linha a linha.
+ * <p>
+ * O epoch é o do horário de parede local, contado como se fosse UTC: dia e hora saem dele por divisão,
+ * sem fuso no SQL, e batem com o {@link LocalDateTime} mostrado na tela.
+ */
+public final class TimeKeys {
+
+    public static final int SECONDS_PER_HOUR = 3600;
+    public static final int HOURS_PER_DAY = 24;
+
+    private TimeKeys() {}
+
+    public static long epochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    // yyyymmdd
+    public static int dayKey(LocalDate date) {
+        return date.getYear() * 10_000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    public static LocalDate day(int dayKey) {
+        return LocalDate.of(dayKey / 10_000, dayKey / 100 % 100, dayKey % 100);
+    }
+
+    // yyyymm, ou seja, dayKey / 100
+    public static YearMonth month(int monthKey) {
+        return YearMonth.of(monthKey / 100, monthKey % 100);
+    }
+}
@@ -0,0 +1,24 @@
+package com.pedidofacil.persistence;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id atribuído pela aplicação a partir de blocos reservados na tabela {@code order_sequences}.
+ * Diferente de IDENTITY, o id já é conhecido no persist e os INSERTs podem ir em lote (JDBC batch).
+ */
+@IdGeneratorType(BlockIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface BlockId {
+
+    // Quantidade de ids reservados por ida ao banco
+    int blockSize() default 100;
+
+    // Ids que uma escrita da fila costuma usar (ex.: itens por pedido): ficam reservados ids para um grupo inteiro
+    int idsPerWrite() default 1;
+}
@@ -0,0 +1,44 @@
+package com.pedidofacil.persistence;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.mapping.RootClass;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Member;
+import java.util.Map;
+
+/**
+ * Ids em blocos reservados pela {@link BlockIdSequence} na conexão da sequência ({@code sequenceDataSource}), fora
+ * da transação da sessão: a reserva fica confirmada mesmo que a transação que a pediu seja desfeita.
+ */
+public class BlockIdGenerator implements IdentifierGenerator {
+
+    // Propriedades do Hibernate preenchidas por SqliteDataSourceConfig
+    public static final String SEQUENCE_DATA_SOURCE = "pedidofacil.block-id.sequence-data-source";
+    public static final String WRITE_GROUP_SIZE = "pedidofacil.block-id.write-group-size";
+
+    private final BlockIdSequence sequence;
+
+    public BlockIdGenerator(BlockId config, Member member, CustomIdGeneratorCreationContext context) {
+        RootClass root = context.getRootClass();
+        Map<String, Object> settings =
+                context.getServiceRegistry().requireService(ConfigurationService.class).getSettings();
+        if (!(settings.get(SEQUENCE_DATA_SOURCE) instanceof DataSource dataSource)) {
+            throw new IllegalStateException("Conexão da sequência não configurada (" + SEQUENCE_DATA_SOURCE + ")");
+        }
+        // Reservados de antemão: ids para um grupo inteiro da fila de escrita
+        long lookahead = (long) ConfigurationHelper.getInt(WRITE_GROUP_SIZE, settings, 1)
+                * Math.max(1, config.idsPerWrite());
+        this.sequence = new BlockIdSequence(dataSource, root.getTable().getName(),
+                root.getIdentifier().getColumns().get(0).getName(), config.blockSize(), lookahead);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return sequence.next();
+    }
+}
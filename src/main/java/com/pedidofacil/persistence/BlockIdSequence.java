@@ -0,0 +1,157 @@
+package com.pedidofacil.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+
+/**
+ * Ids de uma tabela entregues a partir de blocos reservados na {@code order_sequences} ({@link BlockIdGenerator}).
+ * <p>
+ * Como na numeração de pedidos, cada reserva é confirmada na sua própria transação, numa conexão só dela: um
+ * bloco nunca volta à sequência quando a transação que o pediu é desfeita, então nenhum id já entregue a outra
+ * transação é entregue de novo; o que não foi gravado vira lacuna. Como o SQLite tem um único escritor, essa
+ * conexão esperaria por uma transação que já gravou algo; por isso ficam reservados ids para um grupo inteiro da
+ * fila de escrita, e a reserva é reposta quando a transação que os usou termina.
+ */
+final class BlockIdSequence {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockIdSequence.class);
+
+    private static final String SEQUENCE_TABLE = "order_sequences";
+
+    private final DataSource dataSource;
+    private final String sequenceName;
+    private final String tableName;
+    private final String idColumn;
+    private final int blockSize;
+    // Ids que devem estar reservados ao começar uma transação
+    private final long lookahead;
+
+    // Protegidos por "this": trecho em uso e os reservados depois dele, em ordem
+    private Range current;
+    private final ArrayDeque<Range> reserved = new ArrayDeque<>();
+
+    BlockIdSequence(DataSource dataSource, String tableName, String idColumn, int blockSize, long lookahead) {
+        this.dataSource = dataSource;
+        this.sequenceName = tableName + "." + idColumn;
+        this.tableName = tableName;
+        this.idColumn = idColumn;
+        this.blockSize = Math.max(1, blockSize);
+        this.lookahead = Math.max(this.blockSize, lookahead);
+    }
+
+    synchronized long next() {
+        while (current == null || current.next >= current.end) {
+            if (reserved.isEmpty()) {
+                // Reserva em atraso (ex.: a transação usou mais ids que os reservados para um grupo da fila)
+                reserve(blocksFor(lookahead));
+            }
+            current = reserved.poll();
+        }
+        long id = current.next++;
+        refillAfterTransaction();
+        return id;
+    }
+
+    private void refillAfterTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refill();
+            return;
+        }
+        // Dentro da transação o lock de escrita pode já ser dela: repõe só depois do commit ou rollback
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    refill();
+                } catch (RuntimeException e) {
+                    log.warn("Não foi possível repor a reserva de ids de {}: {}", tableName, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private synchronized void refill() {
+        long missing = lookahead - available();
+        if (missing > 0) {
+            reserve(blocksFor(missing));
+        }
+    }
+
+    private long available() {
+        long available = current == null ? 0 : Math.max(0, current.end - current.next);
+        for (Range range : reserved) {
+            available += range.end - range.next;
+        }
+        return available;
+    }
+
+    private int blocksFor(long ids) {
+        return (int) Math.max(1, (ids + blockSize - 1) / blockSize);
+    }
+
+    // Protegido por "this"
+    private void reserve(int blocks) {
+        long count = (long) blocks * blockSize;
+        long end;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                end = advance(connection, count);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Falha ao reservar ids de " + tableName, e);
+        }
+        reserved.add(new Range(end - count, end));
+        log.debug("Ids de {} reservados: {}..{}", tableName, end - count, end - 1);
+    }
+
+    private long advance(Connection connection, long count) throws SQLException {
+        try (PreparedStatement init = connection.prepareStatement(
+                "INSERT INTO " + SEQUENCE_TABLE + " (name, next_value) VALUES (?, 1) ON CONFLICT(name) DO NOTHING")) {
+            init.setString(1, sequenceName);
+            init.executeUpdate();
+        }
+        // max(id) numa chave INTEGER PRIMARY KEY é uma busca direta na árvore: realinhar a cada reserva
+        // protege contra ids gravados por fora (importações, versões antigas com IDENTITY)
+        try (PreparedStatement advance = connection.prepareStatement(
+                "UPDATE " + SEQUENCE_TABLE + " SET next_value = max(next_value, " +
+                "(SELECT coalesce(max(" + idColumn + "), 0) + 1 FROM " + tableName + ")) + ? WHERE name = ?")) {
+            advance.setLong(1, count);
+            advance.setString(2, sequenceName);
+            advance.executeUpdate();
+        }
+        try (PreparedStatement read = connection.prepareStatement(
+                "SELECT next_value FROM " + SEQUENCE_TABLE + " WHERE name = ?")) {
+            read.setString(1, sequenceName);
+            try (ResultSet rs = read.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static final class Range {
+        private long next;
+        private final long end;
+
+        private Range(long next, long end) {
+            this.next = next;
+            this.end = end;
+        }
+    }
+}
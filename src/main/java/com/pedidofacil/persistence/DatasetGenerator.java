@@ -0,0 +1,433 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.DatasetSettings;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.TimeKeys;
+import com.pedidofacil.repositories.SalesSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Gera uma massa de clientes, produtos, pedidos e itens direto no JDBC, com INSERTs de várias linhas, para
+ * reproduzir bancos de milhões de pedidos. Ativado pelo perfil {@code dataset}
+ * ({@code --spring.profiles.active=dataset --app.dataset.orders=10000000}); as distribuições vêm de
+ * {@link DatasetSettings}.
+ * <p>
+ * Os ids de pedidos e itens e os números de pedido são reservados em {@code order_sequences} pelo mesmo
+ * protocolo de {@link BlockIdGenerator} e do alocador de números, então a aplicação continua a numeração depois
+ * da massa gerada.
+ */
+@Component
+@Profile("dataset")
+public class DatasetGenerator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    private static final String[] FIRST_NAMES = {"João", "Maria", "José", "Ana", "Carlos", "Francisca", "Paulo",
+            "Antônia", "Lucas", "Adriana", "Marcos", "Juliana", "Luís", "Márcia", "Gabriel", "Fernanda", "Rafael",
+            "Patrícia", "Daniel", "Aline", "Marcelo", "Sandra", "Bruno", "Camila", "Eduardo", "Letícia"};
+    private static final String[] LAST_NAMES = {"Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira",
+            "Alves", "Pereira", "Lima", "Gomes", "Costa", "Ribeiro", "Martins", "Carvalho", "Araújo", "Melo",
+            "Barbosa", "Cardoso", "Conceição", "Rocha", "Dias", "Nascimento", "Andrade", "Moreira", "Nunes", "Assunção"};
+    private static final String[] PRODUCT_TYPES = {"Cimento", "Areia", "Brita", "Tijolo", "Argamassa", "Tinta Acrílica",
+            "Cano PVC", "Joelho PVC", "Registro", "Torneira", "Fio Elétrico", "Disjuntor", "Interruptor", "Tomada",
+            "Parafuso", "Prego", "Bucha", "Telha", "Caixa d'Água", "Vergalhão", "Piso Cerâmico", "Rejunte",
+            "Impermeabilizante", "Lixa", "Pincel", "Rolo de Pintura", "Massa Corrida", "Selador", "Verniz", "Chuveiro"};
+    private static final String[] SPECS = {"50kg", "20kg", "18L", "3,6L", "20mm", "25mm", "32mm", "2,5mm²", "6mm²",
+            "10A", "20A", "branco", "cinza", "marfim", "m³", "milheiro", "100un", "1/2\"", "3/4\"", "500L", "1000L"};
+    private static final String[] BRANDS = {"", "Votoran", "Itaú", "Quartzolit", "Suvinil", "Coral", "Tigre", "Amanco",
+            "Docol", "Pial", "Eternit", "Gerdau", "Portobello", "Lorenzetti", "Vedacit", "Fortlev"};
+    private static final String[] UNITS = {"un", "saco", "m³", "m", "cx", "lata", "milheiro", "kg"};
+
+    private final DataSource dataSource;
+    private final DatasetSettings settings;
+
+    public DatasetGenerator(@Qualifier("writeDataSource") DataSource dataSource, DatasetSettings settings) {
+        this.dataSource = dataSource;
+        this.settings = settings;
+    }
+
+    @Override
+    public void run(String... args) throws SQLException {
+        generate();
+    }
+
+    /**
+     * Linhas gravadas por tabela e o tempo total, índices recriados incluídos.
+     */
+    public record Result(int customers, int products, long orders, long items, Duration elapsed) {
+
+        public long rows() {
+            return customers + products + orders + items;
+        }
+
+        public long rowsPerSecond() {
+            return Math.round(rows() / Math.max(0.001, elapsed.toNanos() / 1e9));
+        }
+    }
+
+    public Result generate() throws SQLException {
+        validate();
+        long started = System.nanoTime();
+        LocalDate end = settings.getEndDate() != null ? settings.getEndDate() : LocalDate.now();
+        log.info("Gerando {} pedidos em {} dias até {} (semente {})", settings.getOrders(), settings.getDays(), end, settings.getSeed());
+        SplittableRandom random = new SplittableRandom(settings.getSeed());
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            Map<String, String> indexes = settings.isDeferIndexes() ? dropIndexes(connection) : Map.of();
+            connection.commit();
+            try {
+                long customerBase = max(connection, "SELECT coalesce(max(id), 0) FROM customers");
+                long productBase = max(connection, "SELECT coalesce(max(id), 0) FROM products");
+                insertCustomers(connection, customerBase, random);
+                long[] prices = insertProducts(connection, productBase, random);
+                connection.commit();
+
+                // Faixas reservadas e confirmadas antes da carga: se ela parar no meio, sobram só lacunas.
+                // O total de itens só se sabe no fim; a faixa deles começa na sequência e é fechada depois
+                long orderIds = reserve(connection, "orders.id", "orders", "id", settings.getOrders());
+                long numbers = reserve(connection, "orders", "orders", "number", settings.getOrders());
+                long itemIds = reserve(connection, "order_items.id", "order_items", "id", 0);
+                connection.commit();
+
+                long items = insertOrders(connection, end, random, customerBase, productBase, prices, orderIds, numbers, itemIds);
+                reserve(connection, "order_items.id", "order_items", "id", 0);
+                connection.commit();
+                recreate(connection, indexes);
+                indexes = Map.of();
+                connection.commit();
+                rebuildSummary(connection);
+                connection.commit();
+
+                Result result = new Result(settings.getCustomers(), settings.getProducts(), settings.getOrders(), items,
+                        Duration.ofNanos(System.nanoTime() - started));
+                log.info("Massa gerada: {} clientes, {} produtos, {} pedidos, {} itens em {} s ({} linhas/s)",
+                        result.customers(), result.products(), result.orders(), result.items(),
+                        result.elapsed().toSeconds(), result.rowsPerSecond());
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                // Mesmo com falha o banco não pode ficar sem os índices das consultas
+                if (!indexes.isEmpty()) {
+                    recreate(connection, indexes);
+                    connection.commit();
+                }
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void validate() {
+        require(settings.getWeekdayWeights(), 7, "weekday-weights");
+        require(settings.getMonthWeights(), 12, "month-weights");
+        require(settings.getHourWeights(), 24, "hour-weights");
+        if (settings.getItemsPerOrder().isEmpty() || settings.getCustomers() < 1 || settings.getProducts() < 1
+                || settings.getDays() < 1 || settings.getRowsPerInsert() < 1) {
+            throw new IllegalStateException("app.dataset: itens por pedido, clientes, produtos, dias e linhas por INSERT devem ser positivos");
+        }
+    }
+
+    private static void require(List<Integer> weights, int size, String name) {
+        if (weights.size() != size || weights.stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalStateException("app.dataset." + name + " precisa de " + size + " pesos com soma positiva");
+        }
+    }
+
+    private void insertCustomers(Connection connection, long base, SplittableRandom random) throws SQLException {
+        try (MultiRowInsert insert = new MultiRowInsert(connection, "INSERT INTO customers (id, name, phone) VALUES ", 3,
+                settings.getRowsPerInsert())) {
+            for (int c = 1; c <= settings.getCustomers(); c++) {
+                String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " +
+                        LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                String phone = String.format("(%02d) 9%04d-%04d", 11 + random.nextInt(89), random.nextInt(10_000), random.nextInt(10_000));
+                insert.add(base + c, name, phone);
+            }
+        }
+    }
+
+    // Devolve o preço de cada produto em centavos (índice 0 = primeiro produto gerado)
+    private long[] insertProducts(Connection connection, long base, SplittableRandom random) throws SQLException {
+        long[] prices = new long[settings.getProducts()];
+        try (MultiRowInsert insert = new MultiRowInsert(connection,
+                "INSERT INTO products (id, name, brand, unit, price) VALUES ", 5, settings.getRowsPerInsert())) {
+            for (int p = 0; p < prices.length; p++) {
+                String name = PRODUCT_TYPES[random.nextInt(PRODUCT_TYPES.length)] + " " + SPECS[random.nextInt(SPECS.length)] +
+                        " " + (p + 1);
+                prices[p] = 100 + random.nextInt(99_900);
+                insert.add(base + p + 1, name, BRANDS[random.nextInt(BRANDS.length)], UNITS[random.nextInt(UNITS.length)],
+                        BigDecimal.valueOf(prices[p], 2));
+            }
+        }
+        return prices;
+    }
+
+    private long insertOrders(Connection connection, LocalDate end, SplittableRandom random, long customerBase,
+                              long productBase, long[] prices, long orderIds, long numbers, long itemIds) throws SQLException {
+        WeightedChoice itemCount = new WeightedChoice(settings.getItemsPerOrder());
+        WeightedChoice hours = new WeightedChoice(settings.getHourWeights());
+        PaymentMethod[] methods = PaymentMethod.values();
+        WeightedChoice payments = new WeightedChoice(Arrays.stream(methods)
+                .map(m -> settings.getPaymentMix().getOrDefault(m, 0)).toList());
+        LocalDate first = end.minusDays(settings.getDays() - 1L);
+        long[] perDay = ordersPerDay(first);
+
+        long written = 0;
+        long items = 0;
+        long lastCommit = 0;
+        long reportStarted = System.nanoTime();
+        try (MultiRowInsert orders = new MultiRowInsert(connection, "INSERT INTO orders (id, number, created_at, " +
+                     "created_epoch, day_key, payment_method, total, customer_id) VALUES ", 8, settings.getRowsPerInsert());
+             MultiRowInsert orderItems = new MultiRowInsert(connection, "INSERT INTO order_items (id, order_id, " +
+                     "product_id, quantity, unit_price, subtotal) VALUES ", 6, settings.getRowsPerInsert())) {
+            for (int d = 0; d < perDay.length; d++) {
+                LocalDate day = first.plusDays(d);
+                int dayKey = TimeKeys.dayKey(day);
+                // Horários do dia em ordem: ids e números crescem junto com created_at, como no uso real
+                int[] seconds = new int[(int) perDay[d]];
+                for (int i = 0; i < seconds.length; i++) {
+                    seconds[i] = hours.next(random) * TimeKeys.SECONDS_PER_HOUR + random.nextInt(TimeKeys.SECONDS_PER_HOUR);
+                }
+                Arrays.sort(seconds);
+                for (int second : seconds) {
+                    LocalDateTime createdAt = day.atStartOfDay().plusSeconds(second);
+                    long orderId = orderIds + written;
+                    PaymentMethod method = methods[payments.next(random)];
+                    // Fiado exige cliente, como no OrderService: só os outros pagamentos podem ser de balcão
+                    Long customer = method != PaymentMethod.CREDITSALE && random.nextDouble() < settings.getAnonymousShare()
+                            ? null : customerBase + 1 + random.nextInt(settings.getCustomers());
+                    int count = itemCount.next(random) + 1;
+                    long total = 0;
+                    for (int i = 0; i < count; i++) {
+                        int product = random.nextInt(prices.length);
+                        int quantity = 1 + random.nextInt(5);
+                        long subtotal = prices[product] * quantity;
+                        total += subtotal;
+                        orderItems.add(itemIds + items++, orderId, productBase + product + 1, quantity,
+                                BigDecimal.valueOf(prices[product], 2), BigDecimal.valueOf(subtotal, 2));
+                    }
+                    orders.add(orderId, numbers + written, Timestamp.valueOf(createdAt).getTime(),
+                            TimeKeys.epochSecond(createdAt), dayKey, method.name(), BigDecimal.valueOf(total, 2), customer);
+                    written++;
+
+                    if (written - lastCommit >= settings.getOrdersPerCommit()) {
+                        orders.flush();
+                        orderItems.flush();
+                        connection.commit();
+                        double elapsed = (System.nanoTime() - reportStarted) / 1e9;
+                        log.info("{}/{} pedidos ({} pedidos/s, {} linhas/s)", written, settings.getOrders(),
+                                Math.round(written / elapsed), Math.round((written + items) / elapsed));
+                        lastCommit = written;
+                    }
+                }
+            }
+        }
+        return items;
+    }
+
+    // Pedidos de cada dia proporcionais ao peso do dia da semana e do mês; as sobras do arredondamento
+    // vão para os dias de maior fração, então a soma bate com o total pedido
+    long[] ordersPerDay(LocalDate first) {
+        double[] weights = new double[settings.getDays()];
+        double sum = 0;
+        for (int d = 0; d < weights.length; d++) {
+            LocalDate day = first.plusDays(d);
+            weights[d] = settings.getWeekdayWeights().get(day.getDayOfWeek().getValue() - 1)
+                    * (double) settings.getMonthWeights().get(day.getMonthValue() - 1);
+            sum += weights[d];
+        }
+        long[] counts = new long[weights.length];
+        Integer[] byFraction = new Integer[weights.length];
+        long assigned = 0;
+        for (int d = 0; d < weights.length; d++) {
+            double exact = settings.getOrders() * weights[d] / sum;
+            counts[d] = (long) exact;
+            assigned += counts[d];
+            weights[d] = exact - counts[d];
+            byFraction[d] = d;
+        }
+        Arrays.sort(byFraction, (a, b) -> Double.compare(weights[b], weights[a]));
+        for (int i = 0; assigned < settings.getOrders(); i++, assigned++) {
+            counts[byFraction[i]]++;
+        }
+        return counts;
+    }
+
+    // Mesmo protocolo de BlockIdSequence: realinha com o maior valor gravado e avança "count" de uma vez
+    private static long reserve(Connection connection, String sequence, String table, String column, long count) throws SQLException {
+        try (PreparedStatement init = connection.prepareStatement(
+                "INSERT INTO order_sequences (name, next_value) VALUES (?, 1) ON CONFLICT(name) DO NOTHING")) {
+            init.setString(1, sequence);
+            init.executeUpdate();
+        }
+        try (PreparedStatement advance = connection.prepareStatement("UPDATE order_sequences SET next_value = " +
+                "max(next_value, (SELECT coalesce(max(" + column + "), 0) + 1 FROM " + table + ")) + ? WHERE name = ?")) {
+            advance.setLong(1, count);
+            advance.setString(2, sequence);
+            advance.executeUpdate();
+        }
+        return max(connection, "SELECT next_value FROM order_sequences WHERE name = '" + sequence + "'") - count;
+    }
+
+    private static long max(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static Map<String, String> dropIndexes(Connection connection) throws SQLException {
+        Map<String, String> indexes = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT name, sql FROM sqlite_master WHERE type = 'index' AND sql IS NOT NULL " +
+                     "AND tbl_name IN ('customers', 'products', 'orders', 'order_items')")) {
+            while (rs.next()) {
+                indexes.put(rs.getString(1), rs.getString(2));
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String name : indexes.keySet()) {
+                statement.execute("DROP INDEX " + name);
+            }
+        }
+        return indexes;
+    }
+
+    private static void recreate(Connection connection, Map<String, String> indexes) throws SQLException {
+        long started = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : indexes.values()) {
+                statement.execute(sql);
+            }
+        }
+        if (!indexes.isEmpty()) {
+            log.info("{} índices recriados em {} ms", indexes.size(), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    // A carga grava direto nas tabelas, sem passar pelo OrderService: o resumo dos relatórios é recalculado no fim
+    private static void rebuildSummary(Connection connection) throws SQLException {
+        long started = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SalesSummaryRepository.REBUILD) {
+                statement.executeUpdate(sql);
+            }
+        }
+        log.info("Resumo de vendas recalculado em {} ms", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Sorteio por pesos inteiros: busca binária na soma acumulada
+    private static final class WeightedChoice {
+        private final long[] cumulative;
+
+        WeightedChoice(List<Integer> weights) {
+            cumulative = new long[weights.size()];
+            long sum = 0;
+            for (int i = 0; i < cumulative.length; i++) {
+                sum += Math.max(0, weights.get(i));
+                cumulative[i] = sum;
+            }
+            if (sum <= 0) {
+                throw new IllegalStateException("app.dataset: pesos sem nenhum valor positivo: " + weights);
+            }
+        }
+
+        int next(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextLong(cumulative[cumulative.length - 1]) + 1);
+            if (index < 0) {
+                return -index - 1;
+            }
+            // Pesos zero repetem a soma acumulada: a primeira posição com esse valor é a de peso positivo
+            while (index > 0 && cumulative[index - 1] == cumulative[index]) {
+                index--;
+            }
+            return index;
+        }
+    }
+
+    // INSERT de várias linhas: acumula os valores e executa a cada "rows" linhas
+    private static final class MultiRowInsert implements AutoCloseable {
+        private final Connection connection;
+        private final String insert;
+        private final int columns;
+        private final int rows;
+        private final Object[] values;
+        private PreparedStatement full;
+        private int pending;
+
+        MultiRowInsert(Connection connection, String insert, int columns, int rows) {
+            this.connection = connection;
+            this.insert = insert;
+            this.columns = columns;
+            this.rows = rows;
+            this.values = new Object[columns * rows];
+        }
+
+        void add(Object... row) throws SQLException {
+            System.arraycopy(row, 0, values, pending * columns, columns);
+            if (++pending == rows) {
+                if (full == null) {
+                    full = connection.prepareStatement(sql(rows));
+                }
+                execute(full);
+            }
+        }
+
+        void flush() throws SQLException {
+            if (pending > 0) {
+                try (PreparedStatement partial = connection.prepareStatement(sql(pending))) {
+                    execute(partial);
+                }
+            }
+        }
+
+        private void execute(PreparedStatement statement) throws SQLException {
+            for (int i = 0; i < pending * columns; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.executeUpdate();
+            pending = 0;
+        }
+
+        private String sql(int count) {
+            String row = "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+            return insert + String.join(", ", Collections.nCopies(count, row));
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+            } finally {
+                if (full != null) {
+                    full.close();
+                }
+            }
+        }
+    }
+}
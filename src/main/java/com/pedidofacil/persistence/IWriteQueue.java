@@ -0,0 +1,13 @@
+package com.pedidofacil.persistence;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public interface IWriteQueue {
+
+    // Enfileira uma escrita; o future completa depois do commit do grupo em que ela entrou
+    <T> CompletableFuture<T> submit(Supplier<T> work);
+
+    // Versão bloqueante de submit: devolve o resultado ou relança a exceção da escrita
+    <T> T execute(Supplier<T> work);
+}
@@ -0,0 +1,26 @@
+package com.pedidofacil.persistence;
+
+// Valor de um PRAGMA num pool: o que o perfil pede e o que a conexão efetivamente usa
+public class PragmaStatus {
+
+    private final String pool;
+    private final String name;
+    private final String expected;
+    private final String actual;
+
+    public PragmaStatus(String pool, String name, String expected, String actual) {
+        this.pool = pool;
+        this.name = name;
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    public String getPool() { return pool; }
+    public String getName() { return name; }
+    public String getExpected() { return expected; }
+    public String getActual() { return actual; }
+
+    public boolean isMatching() {
+        return expected.equalsIgnoreCase(actual);
+    }
+}
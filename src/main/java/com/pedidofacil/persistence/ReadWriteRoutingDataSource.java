@@ -0,0 +1,19 @@
+package com.pedidofacil.persistence;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Escolhe o pool pela transação corrente: {@code @Transactional(readOnly = true)} vai para o pool de
+ * leitura, todo o resto para o de escrita. Precisa ficar atrás de um LazyConnectionDataSourceProxy,
+ * porque o Hibernate pede a conexão antes de o Spring marcar a transação como somente leitura.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { READ, WRITE }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.READ : Route.WRITE;
+    }
+}
@@ -0,0 +1,24 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.MigrationSettings;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class SchemaMigrationConfig {
+
+    @Bean(initMethod = "migrate")
+    public SchemaMigrator schemaMigrator(@Qualifier("writeDataSource") DataSource writeDataSource, MigrationSettings settings) {
+        return new SchemaMigrator(writeDataSource, settings, SchemaMigrator.load(SchemaMigrator.LOCATION));
+    }
+
+    // O Hibernate (e com ele os repositórios) só sobe depois das migrações
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnSchemaMigrator() {
+        return new EntityManagerFactoryDependsOnPostProcessor("schemaMigrator");
+    }
+}
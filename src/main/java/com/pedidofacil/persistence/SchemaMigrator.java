@@ -0,0 +1,207 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.MigrationSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Aplica os scripts de {@code db/migration} ({@code V<n>__descricao.sql}) na inicialização, antes do Hibernate.
+ * Os pendentes rodam numa única transação: ou o banco chega à última versão, ou fica como estava.
+ * <p>
+ * A versão aplicada fica também no {@code PRAGMA user_version}. Se ela já é a do último script, a inicialização
+ * para aí, sem ler o esquema nem o histórico em {@code schema_migrations}.
+ */
+public class SchemaMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    static final String LOCATION = "classpath*:db/migration/V*__*.sql";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private final DataSource dataSource;
+    private final MigrationSettings settings;
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(DataSource dataSource, MigrationSettings settings, List<Migration> migrations) {
+        this.dataSource = dataSource;
+        this.settings = settings;
+        this.migrations = migrations.stream().sorted(Comparator.comparingInt(Migration::version)).toList();
+    }
+
+    public int latestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version();
+    }
+
+    public void migrate() {
+        long started = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            int current = userVersion(connection);
+            if (current == latestVersion() && !settings.isValidate()) {
+                return;
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                List<Migration> applied = migrate(connection);
+                connection.commit();
+                if (!applied.isEmpty()) {
+                    log.info("Banco migrado da versão {} para {} ({} script(s) em {} ms)", current, latestVersion(),
+                            applied.size(), (System.nanoTime() - started) / 1_000_000);
+                }
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Falha ao migrar o banco: " + e.getMessage(), e);
+        }
+    }
+
+    private List<Migration> migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_migrations (version integer not null, " +
+                    "description varchar(200) not null, checksum bigint not null, applied_at timestamp not null, primary key (version))");
+        }
+        Map<Integer, Long> checksums = appliedChecksums(connection);
+        if (settings.isValidate()) {
+            validate(checksums);
+        }
+        List<Migration> pending = migrations.stream().filter(m -> !checksums.containsKey(m.version())).toList();
+        for (Migration migration : pending) {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements(migration.script())) {
+                    statement.execute(sql);
+                }
+            } catch (SQLException e) {
+                throw new SQLException("V" + migration.version() + "__" + migration.description() + ": " + e.getMessage(), e);
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO schema_migrations (version, description, checksum, applied_at) VALUES (?, ?, ?, ?)")) {
+                insert.setInt(1, migration.version());
+                insert.setString(2, migration.description());
+                insert.setLong(3, migration.checksum());
+                insert.setLong(4, System.currentTimeMillis());
+                insert.executeUpdate();
+            }
+        }
+        int newest = checksums.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        if (newest > latestVersion()) {
+            log.warn("Banco na versão {}, mais nova que a da aplicação ({})", newest, latestVersion());
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA user_version = " + Math.max(newest, latestVersion()));
+        }
+        return pending;
+    }
+
+    private void validate(Map<Integer, Long> checksums) {
+        for (Migration migration : migrations) {
+            Long recorded = checksums.get(migration.version());
+            if (recorded != null && recorded != migration.checksum()) {
+                throw new IllegalStateException("Script V" + migration.version() + "__" + migration.description() +
+                        " foi alterado depois de aplicado; crie uma nova migração em vez de editá-lo");
+            }
+        }
+    }
+
+    private static Map<Integer, Long> appliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, Long> result = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) {
+                result.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return result;
+    }
+
+    static int userVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    static List<Migration> load(String location) {
+        try {
+            List<Migration> result = new ArrayList<>();
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location)) {
+                Matcher matcher = FILE_NAME.matcher(resource.getFilename() == null ? "" : resource.getFilename());
+                if (!matcher.matches()) {
+                    throw new IllegalStateException("Nome de migração inválido: " + resource.getFilename());
+                }
+                result.add(new Migration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), resource));
+            }
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Comandos separados por ';' no fim da linha; linhas iniciadas por "--" são comentários.
+    // Em CREATE TRIGGER o comando só termina no "END;"
+    static List<String> statements(String script) {
+        List<String> result = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(trimmed).append(' ');
+            boolean trigger = current.toString().toUpperCase(Locale.ROOT).startsWith("CREATE TRIGGER");
+            if (trimmed.endsWith(";") && (!trigger || trimmed.equalsIgnoreCase("END;"))) {
+                result.add(current.substring(0, current.lastIndexOf(";")).trim());
+                current.setLength(0);
+            }
+        }
+        if (!current.isEmpty()) {
+            result.add(current.toString().trim());
+        }
+        return result;
+    }
+
+    /**
+     * Um script de migração. O checksum ignora a diferença de fim de linha entre Windows e Linux.
+     */
+    public record Migration(int version, String description, Resource resource) {
+
+        String script() {
+            try (InputStream in = resource.getInputStream()) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        long checksum() {
+            CRC32 crc = new CRC32();
+            crc.update(script().replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            return crc.getValue();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.SqliteSettings;
+import com.pedidofacil.config.WriteQueueSettings;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+@Configuration
+public class SqliteDataSourceConfig {
+
+    // Mesmo pool que o Spring Boot criaria, com o perfil de PRAGMAs passado ao driver: o sqlite-jdbc
+    // os aplica ao abrir cada conexão, então toda conexão do pool nasce configurada
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource writeDataSource(DataSourceProperties properties, SqliteSettings settings) {
+        HikariDataSource dataSource = pool(properties, settings);
+        dataSource.setPoolName("sqlite-write");
+        dataSource.setMaximumPoolSize(Math.max(1, settings.getWritePoolSize()));
+        return dataSource;
+    }
+
+    // Relatórios e histórico: várias conexões que, com WAL, leem sem esperar o commit do balcão.
+    // query_only garante que nada gravado por engano passe por aqui
+    @Bean
+    public HikariDataSource readDataSource(DataSourceProperties properties, SqliteSettings settings) {
+        HikariDataSource dataSource = pool(properties, settings);
+        dataSource.setPoolName("sqlite-read");
+        dataSource.setMaximumPoolSize(Math.max(1, settings.getReadPoolSize()));
+        dataSource.setConnectionInitSql("PRAGMA query_only = 1");
+        return dataSource;
+    }
+
+    // Reserva de números de pedido e de blocos de ids: conexão só dela, para que o bloco reservado seja confirmado
+    // na sua própria transação e não seja desfeito junto com o grupo de escritas que o pediu
+    @Bean
+    public HikariDataSource sequenceDataSource(DataSourceProperties properties, SqliteSettings settings) {
+        HikariDataSource dataSource = pool(properties, settings);
+        dataSource.setPoolName("sqlite-sequence");
+        dataSource.setMaximumPoolSize(1);
+        return dataSource;
+    }
+
+    // Os geradores de id (BlockIdGenerator) não são beans: recebem a conexão da sequência e o tamanho do grupo da
+    // fila de escrita pelas propriedades do Hibernate
+    @Bean
+    public HibernatePropertiesCustomizer blockIdProperties(
+            @Qualifier("sequenceDataSource") DataSource sequenceDataSource, WriteQueueSettings writeQueueSettings) {
+        return properties -> {
+            properties.put(BlockIdGenerator.SEQUENCE_DATA_SOURCE, sequenceDataSource);
+            properties.put(BlockIdGenerator.WRITE_GROUP_SIZE, Math.max(1, writeQueueSettings.getMaxBatch()));
+        };
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                                 @Qualifier("readDataSource") DataSource readDataSource) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.WRITE, writeDataSource,
+                ReadWriteRoutingDataSource.Route.READ, readDataSource));
+        routing.setDefaultTargetDataSource(writeDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private HikariDataSource pool(DataSourceProperties properties, SqliteSettings settings) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        settings.getProfile().pragmas().forEach(dataSource::addDataSourceProperty);
+        return dataSource;
+    }
+}
@@ -0,0 +1,112 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.SqliteSettings;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Lê os PRAGMAs ativos numa conexão de cada pool (escrita e leitura) e compara com o perfil configurado.
+ */
+@Component
+public class SqliteDiagnostics {
+
+    private static final Logger log = LoggerFactory.getLogger(SqliteDiagnostics.class);
+
+    // O SQLite devolve alguns PRAGMAs como número; o perfil usa os nomes
+    private static final Map<String, List<String>> NAMED_VALUES = Map.of(
+            "synchronous", List.of("OFF", "NORMAL", "FULL", "EXTRA"),
+            "temp_store", List.of("DEFAULT", "FILE", "MEMORY"),
+            "query_only", List.of("OFF", "ON"));
+
+    static final String WRITE_POOL = "escrita";
+    static final String READ_POOL = "leitura";
+
+    private final DataSource writeDataSource;
+    private final DataSource readDataSource;
+    private final SqliteSettings settings;
+
+    public SqliteDiagnostics(@Qualifier("writeDataSource") DataSource writeDataSource,
+                             @Qualifier("readDataSource") DataSource readDataSource,
+                             SqliteSettings settings) {
+        this.writeDataSource = writeDataSource;
+        this.readDataSource = readDataSource;
+        this.settings = settings;
+    }
+
+    public SqliteProfile getProfile() {
+        return settings.getProfile();
+    }
+
+    public List<PragmaStatus> check() {
+        List<PragmaStatus> result = new ArrayList<>();
+        Map<String, String> expected = settings.getProfile().pragmas();
+        check(WRITE_POOL, writeDataSource, expected, result);
+        Map<String, String> readOnly = new LinkedHashMap<>(expected);
+        readOnly.put("query_only", "ON");
+        check(READ_POOL, readDataSource, readOnly, result);
+        return result;
+    }
+
+    private void check(String pool, DataSource dataSource, Map<String, String> expected, List<PragmaStatus> result) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> pragma : expected.entrySet()) {
+                try (ResultSet rs = statement.executeQuery("PRAGMA " + pragma.getKey())) {
+                    String actual = rs.next() ? describe(pragma.getKey(), rs.getString(1)) : "";
+                    result.add(new PragmaStatus(pool, pragma.getKey(), pragma.getValue(), actual));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Não foi possível ler os PRAGMAs do pool de " + pool + ": " + e.getMessage(), e);
+        }
+    }
+
+    @PostConstruct
+    void validate() {
+        List<PragmaStatus> mismatches = check().stream().filter(p -> !p.isMatching()).toList();
+        if (mismatches.isEmpty()) {
+            log.info("Perfil SQLite {} ativo: {}", settings.getProfile(), settings.getProfile().pragmas());
+            return;
+        }
+        String detail = mismatches.stream()
+                .map(p -> p.getPool() + "." + p.getName() + " = " + p.getActual() + " (esperado " + p.getExpected() + ")")
+                .collect(Collectors.joining(", "));
+        if (settings.getValidation() == SqliteSettings.Validation.FAIL) {
+            throw new IllegalStateException("Perfil SQLite " + settings.getProfile() + " não aplicado: " + detail);
+        }
+        log.warn("Perfil SQLite {} aplicado parcialmente: {}", settings.getProfile(), detail);
+    }
+
+    static String describe(String pragma, String raw) {
+        if (raw == null) {
+            return "";
+        }
+        List<String> names = NAMED_VALUES.get(pragma);
+        if (names != null) {
+            try {
+                int index = Integer.parseInt(raw.trim());
+                if (index >= 0 && index < names.size()) {
+                    return names.get(index);
+                }
+            } catch (NumberFormatException ignored) {
+                // já veio como nome
+            }
+        }
+        return raw.trim().toUpperCase(Locale.ROOT);
+    }
+}
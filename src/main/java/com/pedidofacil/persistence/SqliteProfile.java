@@ -0,0 +1,48 @@
+package com.pedidofacil.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Perfis de PRAGMA aplicados em toda conexão do pool. Os nomes das chaves são os mesmos aceitos
+ * pelo driver sqlite-jdbc como propriedades de conexão.
+ */
+public enum SqliteProfile {
+
+    // Padrões do driver (journal DELETE): leitura e escrita se bloqueiam; útil só para comparação
+    LEGACY("DELETE", "FULL", -2_000, 0, "DEFAULT", 3_000),
+    // WAL com fsync em todo commit: nenhum pedido confirmado se perde nem em queda de energia
+    DURABLE("WAL", "FULL", -16_000, 64L << 20, "MEMORY", 5_000),
+    // WAL com fsync só no checkpoint: uma queda de energia pode perder os últimos commits, sem corromper o banco
+    BALANCED("WAL", "NORMAL", -32_000, 256L << 20, "MEMORY", 5_000),
+    // Sem fsync: apenas para cargas descartáveis (geração de dados, benchmarks)
+    FAST("WAL", "OFF", -64_000, 256L << 20, "MEMORY", 5_000);
+
+    private final String journalMode;
+    private final String synchronous;
+    private final int cacheSize;
+    private final long mmapSize;
+    private final String tempStore;
+    private final int busyTimeout;
+
+    SqliteProfile(String journalMode, String synchronous, int cacheSize, long mmapSize, String tempStore, int busyTimeout) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+        this.busyTimeout = busyTimeout;
+    }
+
+    // cache_size negativo é em KiB (-32000 = ~32 MB); mmap_size em bytes; busy_timeout em ms
+    public Map<String, String> pragmas() {
+        Map<String, String> pragmas = new LinkedHashMap<>();
+        pragmas.put("journal_mode", journalMode);
+        pragmas.put("synchronous", synchronous);
+        pragmas.put("cache_size", String.valueOf(cacheSize));
+        pragmas.put("mmap_size", String.valueOf(mmapSize));
+        pragmas.put("temp_store", tempStore);
+        pragmas.put("busy_timeout", String.valueOf(busyTimeout));
+        return pragmas;
+    }
+}
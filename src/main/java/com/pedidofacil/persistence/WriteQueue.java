@@ -0,0 +1,216 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.WriteQueueSettings;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Escritor único do SQLite: todas as escritas passam por uma thread só, que junta as que chegam
+ * dentro da janela configurada e as confirma num único commit (group commit). Assim não há
+ * disputa pelo lock de escrita e o custo do fsync é dividido pelo grupo.
+ * <p>
+ * Se o grupo falhar, cada escrita é repetida na sua própria transação para que só a culpada
+ * receba o erro; por isso o trabalho enviado deve poder ser executado de novo a partir das entradas.
+ */
+@Component
+public class WriteQueue implements IWriteQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteQueue.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final WriteQueueSettings settings;
+    private final BlockingQueue<Task<?>> pending = new LinkedBlockingQueue<>();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    public WriteQueue(PlatformTransactionManager transactionManager, WriteQueueSettings settings) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = settings;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (!settings.isEnabled() || running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::writeLoop, "sqlite-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread current;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            current = writer;
+        }
+        try {
+            // O escritor esvazia a fila antes de sair
+            current.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Task<?> left;
+        while ((left = pending.poll()) != null) {
+            left.fail(new IllegalStateException("Fila de escrita encerrada"));
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        if (runsInline()) {
+            try {
+                return CompletableFuture.completedFuture(runInTransaction(work));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (!running) {
+            return CompletableFuture.supplyAsync(() -> runInTransaction(work));
+        }
+        Task<T> task = new Task<>(work);
+        pending.add(task);
+        if (!running && pending.remove(task)) {
+            task.fail(new IllegalStateException("Fila de escrita encerrada"));
+        }
+        return task.future;
+    }
+
+    @Override
+    public <T> T execute(Supplier<T> work) {
+        if (runsInline() || !running) {
+            return runInTransaction(work);
+        }
+        try {
+            return submit(work).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Número de commits feitos pelo escritor e de escritas confirmadas neles
+    public long getCommits() { return commits.get(); }
+    public long getWrites() { return writes.get(); }
+
+    private boolean runsInline() {
+        // Dentro do escritor ou de uma transação já aberta, a escrita participa dela: enfileirar
+        // aqui travaria esperando o próprio grupo terminar
+        return Thread.currentThread() == writer || TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    private <T> T runInTransaction(Supplier<T> work) {
+        return transactionTemplate.execute(status -> work.get());
+    }
+
+    private void writeLoop() {
+        int maxBatch = Math.max(1, settings.getMaxBatch());
+        long windowNanos = settings.getWindow() == null ? 0 : Math.max(0, settings.getWindow().toNanos());
+        while (running || !pending.isEmpty()) {
+            List<Task<?>> batch = new ArrayList<>();
+            try {
+                Task<?> first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch, maxBatch, windowNanos);
+                commit(batch);
+            } catch (InterruptedException e) {
+                // Só o encerramento interrompe; o laço termina de esvaziar a fila
+                running = false;
+            } catch (Throwable t) {
+                log.error("Falha inesperada no escritor do banco", t);
+                batch.forEach(task -> task.fail(t));
+            }
+        }
+    }
+
+    private void collect(List<Task<?>> batch, int maxBatch, long windowNanos) throws InterruptedException {
+        pending.drainTo(batch, maxBatch - batch.size());
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatch) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Task<?> next = pending.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            pending.drainTo(batch, maxBatch - batch.size());
+        }
+    }
+
+    private void commit(List<Task<?>> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(Task::run));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).fail(e);
+                return;
+            }
+            log.warn("Grupo de {} escritas desfeito ({}); repetindo uma a uma", batch.size(), e.getMessage());
+            for (Task<?> task : batch) {
+                commit(List.of(task));
+            }
+            return;
+        }
+        commits.incrementAndGet();
+        writes.addAndGet(batch.size());
+        if (batch.size() > 1) {
+            log.debug("Grupo de {} escritas confirmado em um commit", batch.size());
+        }
+        batch.forEach(Task::complete);
+    }
+
+    private static final class Task<T> {
+        private final Supplier<T> work;
+        // Dependentes sem *Async rodam na thread do escritor: prefira thenXxxAsync ou join()
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+
+        private Task(Supplier<T> work) {
+            this.work = work;
+        }
+
+        private void run() {
+            result = work.get();
+        }
+
+        private void complete() {
+            future.complete(result);
+        }
+
+        private void fail(Throwable error) {
+            future.completeExceptionally(error);
+        }
+    }
+}
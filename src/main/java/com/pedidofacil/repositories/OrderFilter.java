@@ -0,0 +1,59 @@
+package com.pedidofacil.repositories;
+
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monta o WHERE das consultas de pedidos só com os filtros informados. Escrito como
+ * "(:x is null or campo >= :x)", o filtro opcional impede o SQLite de usar o índice; aqui cada
+ * combinação de filtros vira predicados simples que o planejador transforma em busca por intervalo.
+ */
+final class OrderFilter {
+
+    private final List<String> conditions = new ArrayList<>();
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    // Condição fixa, sem parâmetro
+    OrderFilter condition(String condition) {
+        conditions.add(condition);
+        return this;
+    }
+
+    OrderFilter atLeast(String path, Object value) {
+        return compare(path, ">=", value);
+    }
+
+    OrderFilter atMost(String path, Object value) {
+        return compare(path, "<=", value);
+    }
+
+    OrderFilter equalTo(String path, Object value) {
+        return compare(path, "=", value);
+    }
+
+    private OrderFilter compare(String path, String operator, Object value) {
+        if (value != null) {
+            String name = "p" + (parameters.size() + 1);
+            conditions.add(path + " " + operator + " :" + name);
+            parameters.put(name, value);
+        }
+        return this;
+    }
+
+    String where() {
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    <Q extends Query> Q bind(Q query) {
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    Map<String, Object> parameters() {
+        return parameters;
+    }
+}
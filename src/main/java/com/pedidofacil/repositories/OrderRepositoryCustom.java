@@ -0,0 +1,51 @@
+package com.pedidofacil.repositories;
+
+import com.pedidofacil.models.Customer;
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.MonthlySalesView;
+import com.pedidofacil.repositories.projections.OrderPaymentTotal;
+import com.pedidofacil.repositories.projections.OrderTotal;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import com.pedidofacil.repositories.projections.ProductSalesView;
+import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TopCustomerView;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Consultas de histórico e relatórios com filtros opcionais (null = sem filtro). São montadas em
+ * {@link OrderRepositoryImpl} só com os filtros informados, para o SQLite usar os índices de período.
+ */
+public interface OrderRepositoryCustom {
+
+    // customer precisa estar salvo (com id): um cliente novo lança IllegalArgumentException
+    List<Order> findHistory(LocalDateTime start, LocalDateTime end, Customer customer);
+
+    List<PaymentDistributionView> sumByPaymentMethod(LocalDateTime start, LocalDateTime end);
+
+    List<TicketAverageView> ticketAverageByPayment(LocalDateTime start, LocalDateTime end);
+
+    List<TopCustomerView> topCustomers(LocalDateTime start, LocalDateTime end, PaymentMethod method, Pageable pageable);
+
+    // Agrupadas pelas chaves inteiras day_key/created_epoch; o período é em dias inteiros
+    List<DailySalesView> dailySales(LocalDate start, LocalDate end);
+
+    List<MonthlySalesView> monthlySales(LocalDate start, LocalDate end);
+
+    List<HourlySalesView> hourlySales(LocalDate start, LocalDate end);
+
+    // Data e total de cada pedido, lidos do driver em lotes de fetchSize; feche o stream (try-with-resources)
+    Stream<OrderTotal> streamOrderTotals(LocalDateTime start, LocalDateTime end, int fetchSize);
+
+    // Forma de pagamento e total de cada pedido, em fluxo como streamOrderTotals; filtra por day_key, em dias inteiros
+    Stream<OrderPaymentTotal> streamPaymentTotals(LocalDate start, LocalDate end, int fetchSize);
+
+    List<ProductSalesView> productSales(LocalDateTime start, LocalDateTime end, Pageable pageable);
+}
@@ -0,0 +1,170 @@
+package com.pedidofacil.repositories;
+
+import com.pedidofacil.models.Customer;
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.TimeKeys;
+import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.MonthlySalesView;
+import com.pedidofacil.repositories.projections.OrderPaymentTotal;
+import com.pedidofacil.repositories.projections.OrderTotal;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import com.pedidofacil.repositories.projections.ProductSalesView;
+import com.pedidofacil.repositories.projections.Projections;
+import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TopCustomerView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Fragmento de OrderRepository: o Spring Data liga esta classe pelo sufixo "Impl"
+class OrderRepositoryImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static OrderFilter period(String path, LocalDateTime start, LocalDateTime end) {
+        return new OrderFilter()
+                .atLeast(path, start)
+                .atMost(path, end);
+    }
+
+    private static OrderFilter days(LocalDate start, LocalDate end) {
+        return new OrderFilter()
+                .atLeast("o.dayKey", start == null ? null : TimeKeys.dayKey(start))
+                .atMost("o.dayKey", end == null ? null : TimeKeys.dayKey(end));
+    }
+
+    @Override
+    public List<Order> findHistory(LocalDateTime start, LocalDateTime end, Customer customer) {
+        // Sem id o filtro sumiria e o histórico traria os pedidos de todos os clientes
+        if (customer != null && customer.getId() == null) {
+            throw new IllegalArgumentException("Cliente ainda não salvo: " + customer.getName());
+        }
+        OrderFilter filter = period("o.createdAt", start, end)
+                .equalTo("o.customer.id", customer == null ? null : customer.getId());
+        return filter.bind(entityManager.createQuery(
+                "select o from Order o left join fetch o.customer" + filter.where() + " order by o.createdAt desc",
+                Order.class)).getResultList();
+    }
+
+    @Override
+    public List<PaymentDistributionView> sumByPaymentMethod(LocalDateTime start, LocalDateTime end) {
+        OrderFilter filter = period("o.createdAt", start, end);
+        return project(PaymentDistributionView.class,
+                "select o.paymentMethod as paymentMethod, sum(o.total) as total from Order o" + filter.where() +
+                " group by o.paymentMethod", filter, null);
+    }
+
+    @Override
+    public List<TicketAverageView> ticketAverageByPayment(LocalDateTime start, LocalDateTime end) {
+        OrderFilter filter = period("o.createdAt", start, end);
+        return project(TicketAverageView.class,
+                "select o.paymentMethod as paymentMethod, count(o) as orders, avg(o.total) as average from Order o" +
+                filter.where() + " group by o.paymentMethod", filter, null);
+    }
+
+    @Override
+    public List<TopCustomerView> topCustomers(LocalDateTime start, LocalDateTime end, PaymentMethod method, Pageable pageable) {
+        OrderFilter filter = period("o.createdAt", start, end)
+                .condition("o.customer is not null")
+                .equalTo("o.paymentMethod", method);
+        return project(TopCustomerView.class,
+                "select o.customer.id as customerId, o.customer.name as customerName, sum(o.total) as total from Order o" +
+                filter.where() + " group by o.customer.id, o.customer.name order by sum(o.total) desc", filter, pageable);
+    }
+
+    @Override
+    public List<DailySalesView> dailySales(LocalDate start, LocalDate end) {
+        OrderFilter filter = days(start, end);
+        List<Tuple> rows = filter.bind(entityManager.createQuery(
+                "select o.dayKey, sum(o.total) from Order o" + filter.where() +
+                " group by o.dayKey order by o.dayKey", Tuple.class)).getResultList();
+        return rows.stream().map(row -> Projections.of(DailySalesView.class, Map.of(
+                "day", TimeKeys.day(row.get(0, Integer.class)).toString(),
+                "total", row.get(1)))).toList();
+    }
+
+    @Override
+    public List<MonthlySalesView> monthlySales(LocalDate start, LocalDate end) {
+        OrderFilter filter = days(start, end);
+        List<Tuple> rows = filter.bind(entityManager.createQuery(
+                "select o.dayKey / 100, sum(o.total) from Order o" + filter.where() +
+                " group by o.dayKey / 100 order by o.dayKey / 100", Tuple.class)).getResultList();
+        return rows.stream().map(row -> Projections.of(MonthlySalesView.class, Map.of(
+                "month", TimeKeys.month(row.get(0, Integer.class)).toString(),
+                "total", row.get(1)))).toList();
+    }
+
+    @Override
+    public List<HourlySalesView> hourlySales(LocalDate start, LocalDate end) {
+        OrderFilter filter = days(start, end);
+        String hour = "mod(o.createdEpoch / " + TimeKeys.SECONDS_PER_HOUR + ", " + TimeKeys.HOURS_PER_DAY + ")";
+        return project(HourlySalesView.class,
+                "select " + hour + " as hour, count(o) as orders, sum(o.total) as total from Order o" + filter.where() +
+                " group by " + hour + " order by " + hour, filter, null);
+    }
+
+    @Override
+    public Stream<OrderTotal> streamOrderTotals(LocalDateTime start, LocalDateTime end, int fetchSize) {
+        OrderFilter filter = period("o.createdAt", start, end);
+        // Projeção por construtor: nada entra no contexto de persistência, a memória não cresce com o período
+        return filter.bind(entityManager.createQuery(
+                        "select new " + OrderTotal.class.getName() + "(o.createdAt, o.total) from Order o" + filter.where(),
+                        OrderTotal.class))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public Stream<OrderPaymentTotal> streamPaymentTotals(LocalDate start, LocalDate end, int fetchSize) {
+        OrderFilter filter = days(start, end);
+        return filter.bind(entityManager.createQuery(
+                        "select new " + OrderPaymentTotal.class.getName() + "(o.paymentMethod, o.total) from Order o" + filter.where(),
+                        OrderPaymentTotal.class))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public List<ProductSalesView> productSales(LocalDateTime start, LocalDateTime end, Pageable pageable) {
+        OrderFilter filter = period("o.createdAt", start, end);
+        return project(ProductSalesView.class,
+                "select p.id as productId, concat(p.name, coalesce(concat(' (', p.brand, ')'), '')) as productName, " +
+                "sum(oi.quantity) as quantity, sum(oi.subtotal) as total " +
+                "from OrderItem oi join oi.order o join oi.product p" + filter.where() +
+                " group by p.id, p.name, p.brand order by sum(oi.subtotal) desc", filter, pageable);
+    }
+
+    private <T> List<T> project(Class<T> type, String jpql, OrderFilter filter, Pageable pageable) {
+        TypedQuery<Tuple> query = filter.bind(entityManager.createQuery(jpql, Tuple.class));
+        if (pageable != null && pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList().stream().map(row -> projection(type, row)).toList();
+    }
+
+    // Mesmas projeções por interface que o Spring Data gera para as consultas com @Query
+    private <T> T projection(Class<T> type, Tuple row) {
+        Map<String, Object> values = new HashMap<>();
+        for (TupleElement<?> element : row.getElements()) {
+            values.put(element.getAlias(), row.get(element));
+        }
+        return Projections.of(type, values);
+    }
+}
@@ -0,0 +1,184 @@
+package com.pedidofacil.repositories;
+
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.OrderItem;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.TimeKeys;
+import com.pedidofacil.repositories.projections.DailyPaymentTotal;
+import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import com.pedidofacil.repositories.projections.ProductSalesView;
+import com.pedidofacil.repositories.projections.Projections;
+import com.pedidofacil.repositories.projections.TicketAverageView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.BasicTypeReference;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Resumo diário de vendas ({@code daily_payment_summary} e {@code daily_product_summary}, ver migração V4).
+ * {@link #record(Order)} roda na transação do checkout; as consultas agregam só as linhas dos dias do período.
+ */
+@Repository
+public class SalesSummaryRepository {
+
+    // Recalcula o resumo inteiro a partir de orders e order_items
+    public static final List<String> REBUILD = List.of(
+            "DELETE FROM daily_payment_summary",
+            "DELETE FROM daily_product_summary",
+            "INSERT INTO daily_payment_summary (day_key, payment_method, orders, total, last_order_id) " +
+            "SELECT day_key, payment_method, count(*), sum(total), max(id) FROM orders " +
+            "GROUP BY day_key, payment_method",
+            "INSERT INTO daily_product_summary (day_key, payment_method, product_id, quantity, total) " +
+            "SELECT o.day_key, o.payment_method, i.product_id, sum(i.quantity), sum(i.subtotal) " +
+            "FROM order_items i JOIN orders o ON o.id = i.order_id GROUP BY o.day_key, o.payment_method, i.product_id");
+
+    private static final String ADD_ORDER =
+            "INSERT INTO daily_payment_summary (day_key, payment_method, orders, total, last_order_id) " +
+            "VALUES (?, ?, 1, ?, ?) ON CONFLICT (day_key, payment_method) DO UPDATE SET orders = orders + 1, " +
+            "total = total + excluded.total, last_order_id = max(last_order_id, excluded.last_order_id)";
+    private static final String ADD_ITEM =
+            "INSERT INTO daily_product_summary (day_key, payment_method, product_id, quantity, total) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (day_key, payment_method, product_id) DO UPDATE SET quantity = quantity + excluded.quantity, " +
+            "total = total + excluded.total";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Soma o pedido ao resumo. Deve rodar na transação que grava o pedido: se ela for desfeita, o resumo também é.
+     */
+    public void record(Order order) {
+        // JDBC direto na conexão da transação: uma consulta nativa do Hibernate forçaria o flush da sessão a cada pedido
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement addOrder = connection.prepareStatement(ADD_ORDER)) {
+                addOrder.setInt(1, order.getDayKey());
+                addOrder.setString(2, order.getPaymentMethod().name());
+                addOrder.setBigDecimal(3, order.getTotal());
+                addOrder.setLong(4, order.getId());
+                addOrder.executeUpdate();
+            }
+            if (order.getItems().isEmpty()) {
+                return;
+            }
+            try (PreparedStatement addItem = connection.prepareStatement(ADD_ITEM)) {
+                for (OrderItem item : order.getItems()) {
+                    addItem.setInt(1, order.getDayKey());
+                    addItem.setString(2, order.getPaymentMethod().name());
+                    addItem.setLong(3, item.getProduct().getId());
+                    addItem.setBigDecimal(4, item.getQuantity());
+                    addItem.setBigDecimal(5, item.getSubtotal());
+                    addItem.addBatch();
+                }
+                addItem.executeBatch();
+            }
+        });
+    }
+
+    public void rebuild() {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : REBUILD) {
+                    statement.executeUpdate(sql);
+                }
+            }
+        });
+    }
+
+    private static OrderFilter days(LocalDate start, LocalDate end) {
+        return new OrderFilter()
+                .atLeast("s.day_key", start == null ? null : TimeKeys.dayKey(start))
+                .atMost("s.day_key", end == null ? null : TimeKeys.dayKey(end));
+    }
+
+    public List<DailySalesView> dailySales(LocalDate start, LocalDate end) {
+        OrderFilter filter = days(start, end);
+        return rows("SELECT s.day_key AS day, sum(s.total) AS total FROM daily_payment_summary s" + filter.where() +
+                " GROUP BY s.day_key ORDER BY s.day_key", filter, null,
+                "day", StandardBasicTypes.INTEGER, "total", StandardBasicTypes.BIG_DECIMAL).stream()
+                .map(row -> Projections.of(DailySalesView.class,
+                        "day", TimeKeys.day((Integer) row[0]).toString(),
+                        "total", row[1]))
+                .toList();
+    }
+
+    public List<PaymentDistributionView> sumByPaymentMethod(LocalDate start, LocalDate end) {
+        OrderFilter filter = days(start, end);
+        return rows("SELECT s.payment_method AS method, sum(s.total) AS total FROM daily_payment_summary s" + filter.where() +
+                " GROUP BY s.payment_method", filter, null,
+                "method", StandardBasicTypes.STRING, "total", StandardBasicTypes.BIG_DECIMAL).stream()
+                .map(row -> Projections.of(PaymentDistributionView.class,
+                        "paymentMethod", PaymentMethod.valueOf((String) row[0]),
+                        "total", row[1]))
+                .toList();
+    }
+
+    public List<TicketAverageView> ticketAverageByPayment(LocalDate start, LocalDate end) {
+        OrderFilter filter = days(start, end);
+        return rows("SELECT s.payment_method AS method, sum(s.orders) AS orders, sum(s.total) AS total " +
+                "FROM daily_payment_summary s" + filter.where() + " GROUP BY s.payment_method",
+                filter, null, "method", StandardBasicTypes.STRING, "orders", StandardBasicTypes.LONG,
+                "total", StandardBasicTypes.DOUBLE).stream()
+                .map(row -> Projections.of(TicketAverageView.class,
+                        "paymentMethod", PaymentMethod.valueOf((String) row[0]),
+                        "orders", row[1],
+                        "average", (Double) row[2] / (Long) row[1]))
+                .toList();
+    }
+
+    // O resumo de formas de pagamento inteiro, em ordem de dia (poucas linhas por dia, qualquer que seja o movimento),
+    // com o maior id de pedido somado em cada linha
+    public List<DailyPaymentTotal> dailyPaymentTotals() {
+        return rows("SELECT s.day_key AS day, s.payment_method AS method, s.orders AS orders, s.total AS total, " +
+                "s.last_order_id AS last_id FROM daily_payment_summary s ORDER BY s.day_key", new OrderFilter(), null,
+                "day", StandardBasicTypes.INTEGER, "method", StandardBasicTypes.STRING,
+                "orders", StandardBasicTypes.LONG, "total", StandardBasicTypes.BIG_DECIMAL,
+                "last_id", StandardBasicTypes.LONG).stream()
+                .map(row -> new DailyPaymentTotal((Integer) row[0], PaymentMethod.valueOf((String) row[1]),
+                        (Long) row[2], (BigDecimal) row[3], (Long) row[4]))
+                .toList();
+    }
+
+    public List<ProductSalesView> productSales(LocalDate start, LocalDate end, Pageable pageable) {
+        OrderFilter filter = days(start, end);
+        // Agrupa só por product_id; o nome é buscado por produto do resultado, não a cada linha do resumo
+        return rows("SELECT s.product_id AS id, (SELECT p.name || coalesce(' (' || p.brand || ')', '') FROM products p " +
+                "WHERE p.id = s.product_id) AS name, sum(s.quantity) AS quantity, sum(s.total) AS total " +
+                "FROM daily_product_summary s" + filter.where() + " GROUP BY s.product_id ORDER BY sum(s.total) DESC",
+                filter, pageable, "id", StandardBasicTypes.LONG, "name", StandardBasicTypes.STRING,
+                "quantity", StandardBasicTypes.BIG_DECIMAL, "total", StandardBasicTypes.BIG_DECIMAL).stream()
+                .map(row -> Projections.of(ProductSalesView.class,
+                        "productId", row[0],
+                        "productName", row[1],
+                        "quantity", row[2],
+                        "total", row[3]))
+                .toList();
+    }
+
+    // Tipos declarados por coluna: o driver do SQLite informa o tipo pela primeira linha lida, e uma soma
+    // como 92.5 chegaria truncada como inteiro ou arredondada como float
+    private List<Object[]> rows(String sql, OrderFilter filter, Pageable pageable, Object... aliasesAndTypes) {
+        NativeQuery<?> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+        for (int i = 0; i < aliasesAndTypes.length; i += 2) {
+            query.addScalar((String) aliasesAndTypes[i], (BasicTypeReference<?>) aliasesAndTypes[i + 1]);
+        }
+        filter.bind(query);
+        if (pageable != null && pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = (List<Object[]>) query.getResultList();
+        return rows;
+    }
+}
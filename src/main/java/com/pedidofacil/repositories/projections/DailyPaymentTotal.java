@@ -0,0 +1,11 @@
+package com.pedidofacil.repositories.projections;
+
+import com.pedidofacil.models.PaymentMethod;
+
+import java.math.BigDecimal;
+
+// Uma linha do resumo diário por forma de pagamento (daily_payment_summary); dayKey no formato yyyymmdd e
+// lastOrderId o maior id de pedido somado na linha
+public record DailyPaymentTotal(int dayKey, PaymentMethod paymentMethod, long orders, BigDecimal total,
+                                long lastOrderId) {
+}
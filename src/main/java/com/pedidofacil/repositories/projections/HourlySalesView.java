@@ -0,0 +1,9 @@
+package com.pedidofacil.repositories.projections;
+
+import java.math.BigDecimal;
+
+public interface HourlySalesView {
+    Integer getHour(); // 0 a 23
+    Long getOrders();
+    BigDecimal getTotal();
+}
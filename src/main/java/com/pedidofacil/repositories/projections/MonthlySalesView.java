@@ -0,0 +1,8 @@
+package com.pedidofacil.repositories.projections;
+
+import java.math.BigDecimal;
+
+public interface MonthlySalesView {
+    String getMonth(); // yyyy-MM
+    BigDecimal getTotal();
+}
@@ -0,0 +1,9 @@
+package com.pedidofacil.repositories.projections;
+
+import com.pedidofacil.models.PaymentMethod;
+
+import java.math.BigDecimal;
+
+// Só forma de pagamento e total do pedido: lido em fluxo, sem carregar a entidade Order
+public record OrderPaymentTotal(PaymentMethod paymentMethod, BigDecimal total) {
+}
@@ -0,0 +1,8 @@
+package com.pedidofacil.repositories.projections;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Só data e total do pedido: lido em fluxo, sem carregar a entidade Order
+public record OrderTotal(LocalDateTime createdAt, BigDecimal total) {
+}
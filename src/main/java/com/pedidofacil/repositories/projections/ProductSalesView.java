@@ -7,4 +7,6 @@ public interface ProductSalesView {
     String getProductName();
     BigDecimal getQuantity();
     BigDecimal getTotal();
+    // null quando exato; no ranking aproximado, quanto o total pode passar do real
+    BigDecimal getErrorBound();
 }
@@ -0,0 +1,32 @@
+package com.pedidofacil.repositories.projections;
+
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Instâncias das interfaces de projeção a partir de nome e valor de cada propriedade, para os relatórios que não
+ * saem de um método de consulta do Spring Data (SQL nativo, leitura em fluxo ou estruturas em memória).
+ */
+public final class Projections {
+
+    // Sem estado por chamada: uma fábrica serve a aplicação toda
+    private static final ProjectionFactory FACTORY = new SpelAwareProxyProjectionFactory();
+
+    private Projections() {}
+
+    public static <T> T of(Class<T> type, Map<String, Object> values) {
+        return FACTORY.createProjection(type, values);
+    }
+
+    // Pares nome, valor: of(View.class, "total", total, "orders", orders)
+    public static <T> T of(Class<T> type, Object... namesAndValues) {
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            values.put((String) namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return of(type, values);
+    }
+}
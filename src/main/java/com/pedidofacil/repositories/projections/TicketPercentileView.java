@@ -0,0 +1,12 @@
+package com.pedidofacil.repositories.projections;
+
+import com.pedidofacil.models.PaymentMethod;
+
+// Percentis do valor dos pedidos (em reais), estimados por t-digest; p50 é a mediana
+public interface TicketPercentileView {
+    PaymentMethod getPaymentMethod();
+    Long getOrders();
+    Double getP50();
+    Double getP90();
+    Double getP99();
+}
@@ -6,4 +6,6 @@ public interface TopCustomerView {
     Long getCustomerId();
     String getCustomerName();
     BigDecimal getTotal();
+    // null quando exato; no ranking aproximado, quanto o total pode passar do real
+    BigDecimal getErrorBound();
 }
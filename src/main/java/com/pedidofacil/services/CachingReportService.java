@@ -0,0 +1,177 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportCacheSettings;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.MonthlySalesView;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import com.pedidofacil.repositories.projections.ProductSalesView;
+import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TicketPercentileView;
+import com.pedidofacil.repositories.projections.TopCustomerView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Guarda os resultados dos relatórios por relatório, período e parâmetros (LRU de tamanho fixo).
+ * Um pedido novo descarta só os resultados cujo período inclui o dia dele: meses fechados continuam
+ * em memória e "hoje" é recalculado depois de cada venda.
+ * <p>
+ * Nomes de produto e cliente ficam como estavam quando o resultado foi calculado; o recálculo do
+ * resumo de vendas limpa tudo.
+ */
+@Service
+@Primary
+public class CachingReportService implements IReportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingReportService.class);
+
+    private final IReportService delegate;
+    private final ReportCacheSettings settings;
+
+    private final Map<Key, List<?>> entries;
+    // Incrementado a cada descarte: consulta que começou antes dele não guarda o resultado (pode não ter o pedido novo)
+    private long generation;
+    private long hits;
+    private long misses;
+
+    public CachingReportService(@Qualifier("reportService") IReportService delegate, ReportCacheSettings settings) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<?>> eldest) {
+                return size() > settings.getMaxEntries();
+            }
+        };
+    }
+
+    // Período normalizado: sem início ou sem fim vira intervalo aberto, para a mesma consulta cair na mesma chave
+    private record Key(String report, LocalDate start, LocalDate end, Object parameter) {
+
+        Key {
+            start = start == null ? LocalDate.MIN : start;
+            end = end == null ? LocalDate.MAX : end;
+        }
+
+        boolean includes(LocalDate day) {
+            return !day.isBefore(start) && !day.isAfter(end);
+        }
+    }
+
+    private <T> List<T> cached(String report, LocalDate start, LocalDate end, Object parameter, Supplier<List<T>> query) {
+        if (!settings.isEnabled()) {
+            return query.get();
+        }
+        Key key = new Key(report, start, end, parameter);
+        long seen;
+        synchronized (this) {
+            @SuppressWarnings("unchecked")
+            List<T> hit = (List<T>) entries.get(key);
+            if (hit != null) {
+                hits++;
+                return hit;
+            }
+            misses++;
+            seen = generation;
+        }
+        // Fora do lock: consultas de chaves diferentes rodam em paralelo
+        List<T> result = List.copyOf(query.get());
+        synchronized (this) {
+            if (generation == seen) {
+                entries.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<ProductSalesView> topProducts(LocalDate start, LocalDate end, int limit) {
+        return cached("topProducts", start, end, limit, () -> delegate.topProducts(start, end, limit));
+    }
+
+    @Override
+    public List<PaymentDistributionView> paymentDistribution(LocalDate start, LocalDate end) {
+        return cached("paymentDistribution", start, end, null, () -> delegate.paymentDistribution(start, end));
+    }
+
+    @Override
+    public List<TicketAverageView> ticketAverage(LocalDate start, LocalDate end) {
+        return cached("ticketAverage", start, end, null, () -> delegate.ticketAverage(start, end));
+    }
+
+    @Override
+    public List<TicketPercentileView> ticketPercentiles(LocalDate start, LocalDate end) {
+        return cached("ticketPercentiles", start, end, null, () -> delegate.ticketPercentiles(start, end));
+    }
+
+    @Override
+    public List<TopCustomerView> topCustomers(LocalDate start, LocalDate end, PaymentMethod method, int limit) {
+        return cached("topCustomers", start, end, List.of(String.valueOf(method), limit),
+                () -> delegate.topCustomers(start, end, method, limit));
+    }
+
+    @Override
+    public List<DailySalesView> dailySales(LocalDate start, LocalDate end) {
+        return cached("dailySales", start, end, null, () -> delegate.dailySales(start, end));
+    }
+
+    @Override
+    public List<MonthlySalesView> monthlySales(LocalDate start, LocalDate end) {
+        return cached("monthlySales", start, end, null, () -> delegate.monthlySales(start, end));
+    }
+
+    @Override
+    public List<HourlySalesView> hourlySales(LocalDate start, LocalDate end) {
+        return cached("hourlySales", start, end, null, () -> delegate.hourlySales(start, end));
+    }
+
+    // O cubo já está em memória e acompanha cada pedido; guardar a resposta só a deixaria velha
+    @Override
+    public List<CubeRow> cube(CubeQuery query) {
+        return delegate.cube(query);
+    }
+
+    @Override
+    public void rebuildSummary() {
+        delegate.rebuildSummary();
+        clear();
+    }
+
+    // Após o commit do grupo; se ele for desfeito o evento não chega, e a nova tentativa publica outro.
+    // Publicado fora de transação, o evento é tratado na hora
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        LocalDate day = event.order().getCreatedAt() == null ? null : event.order().getCreatedAt().toLocalDate();
+        synchronized (this) {
+            generation++;
+            int before = entries.size();
+            if (day == null) {
+                entries.clear();
+            } else {
+                entries.keySet().removeIf(key -> key.includes(day));
+            }
+            log.debug("Pedido em {}: {} relatório(s) descartado(s) do cache", day, before - entries.size());
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+}
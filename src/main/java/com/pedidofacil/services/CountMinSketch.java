@@ -0,0 +1,76 @@
+package com.pedidofacil.services;
+
+/**
+ * Somas aproximadas por chave em memória fixa ({@code depth} linhas de {@code width} contadores), qualquer que
+ * seja o número de chaves. A estimativa de uma chave nunca fica abaixo da soma real e, com probabilidade de
+ * pelo menos {@link #confidence()}, passa dela em no máximo {@link #errorBound()} (e/width do total somado).
+ * Só aceita pesos não negativos. Não é thread-safe.
+ */
+final class CountMinSketch {
+
+    // Multiplicador e deslocamento ímpares por linha (hash multiplica-desloca, uma função por linha)
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xBF58476D1CE4E5B9L, 0x94D049BB133111EBL, 0xD6E8FEB86659FD93L,
+            0xA0761D6478BD642FL, 0xE7037ED1A0B428DBL, 0x8EBC6AF09C88C6E3L, 0x589965CC75374CC3L};
+
+    private final int width;
+    private final int depth;
+    private final int shift;
+    private final long[] counts;
+    private long total;
+
+    /**
+     * @param width contadores por linha, arredondado para cima até potência de 2
+     * @param depth linhas (funções de hash), de 1 a 8
+     */
+    CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("Sketch inválido: largura " + width + ", profundidade " + depth);
+        }
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.shift = 64 - Integer.numberOfTrailingZeros(this.width);
+        this.counts = new long[this.width * depth];
+    }
+
+    void add(long key, long weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Peso negativo: " + weight);
+        }
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + column(key, row)] += weight;
+        }
+        total += weight;
+    }
+
+    // O menor dos contadores da chave: todos somam a chave e, às vezes, outras que caíram no mesmo contador
+    long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row * width + column(key, row)]);
+        }
+        return estimate;
+    }
+
+    long total() {
+        return total;
+    }
+
+    // Quanto uma estimativa pode passar da soma real (e/width do total), arredondado para cima
+    long errorBound() {
+        return (long) Math.ceil(Math.E * total / width);
+    }
+
+    // Probabilidade de a estimativa ficar dentro de errorBound: 1 - e^-depth
+    double confidence() {
+        return 1 - Math.exp(-depth);
+    }
+
+    long bytes() {
+        return (long) counts.length * Long.BYTES;
+    }
+
+    private int column(long key, int row) {
+        return width == 1 ? 0 : (int) ((key * SEEDS[row] + SEEDS[SEEDS.length - 1 - row]) >>> shift);
+    }
+}
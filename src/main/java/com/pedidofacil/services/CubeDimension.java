@@ -0,0 +1,34 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.models.PaymentMethod;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Dimensões do cubo de vendas ({@link IReportService#cube(CubeQuery)}). {@code type} é o tipo dos valores da
+ * dimensão nas chaves de {@link CubeRow} e nos filtros de {@link CubeQuery#where}.
+ */
+public enum CubeDimension {
+    DAY(LocalDate.class),
+    MONTH(YearMonth.class),
+    // 0 a 23
+    HOUR(Integer.class),
+    PAYMENT_METHOD(PaymentMethod.class),
+    // Id do produto
+    PRODUCT(Long.class),
+    // Marca do produto no cadastro atual; null para produto sem marca
+    BRAND(String.class),
+    // Id do cliente; null para pedido sem cliente
+    CUSTOMER(Long.class);
+
+    private final Class<?> type;
+
+    CubeDimension(Class<?> type) {
+        this.type = type;
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+}
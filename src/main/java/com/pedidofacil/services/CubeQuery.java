@@ -0,0 +1,71 @@
+package com.pedidofacil.services;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Consulta ao cubo de vendas: período (sem início ou fim = aberto), dimensões agrupadas, filtros por valor e,
+ * opcionalmente, só as {@code limit} linhas de maior total. Imutável; {@link #where} e {@link #top} devolvem cópias.
+ * <pre>CubeQuery.of(inicio, fim, CubeDimension.BRAND, CubeDimension.HOUR).where(CubeDimension.PAYMENT_METHOD, PaymentMethod.PIX)</pre>
+ */
+public record CubeQuery(LocalDate start,
+                        LocalDate end,
+                        List<CubeDimension> groupBy,
+                        Map<CubeDimension, Set<Object>> filters,
+                        int limit) {
+
+    public CubeQuery {
+        groupBy = List.copyOf(groupBy);
+        if (new HashSet<>(groupBy).size() != groupBy.size()) {
+            throw new IllegalArgumentException("Dimensão repetida no agrupamento: " + groupBy);
+        }
+        Map<CubeDimension, Set<Object>> copy = new EnumMap<>(CubeDimension.class);
+        filters.forEach((dimension, values) -> {
+            for (Object value : values) {
+                // null só faz sentido onde a dimensão tem "sem valor" (produto sem marca, pedido sem cliente)
+                if (value == null ? dimension != CubeDimension.BRAND && dimension != CubeDimension.CUSTOMER
+                        : !dimension.type().isInstance(value)) {
+                    throw new IllegalArgumentException("Valor " + value + " inválido para " + dimension
+                            + " (esperado " + dimension.type().getSimpleName() + ")");
+                }
+            }
+            copy.put(dimension, Collections.unmodifiableSet(new HashSet<>(values)));
+        });
+        filters = Collections.unmodifiableMap(copy);
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit negativo: " + limit);
+        }
+    }
+
+    public static CubeQuery of(LocalDate start, LocalDate end, CubeDimension... groupBy) {
+        return new CubeQuery(start, end, List.of(groupBy), Map.of(), 0);
+    }
+
+    // Mantém só as linhas cujo valor na dimensão é um dos informados (substitui um filtro anterior na mesma dimensão)
+    public CubeQuery where(CubeDimension dimension, Object... values) {
+        Map<CubeDimension, Set<Object>> next = new EnumMap<>(CubeDimension.class);
+        next.putAll(filters);
+        next.put(dimension, new HashSet<>(Arrays.asList(values)));
+        return new CubeQuery(start, end, groupBy, next, limit);
+    }
+
+    // Só as {@code limit} linhas de maior total, da maior para a menor; 0 = todas, em ordem das chaves
+    public CubeQuery top(int limit) {
+        return new CubeQuery(start, end, groupBy, filters, limit);
+    }
+
+    // Dimensões que a consulta usa, agrupadas ou filtradas
+    public Set<CubeDimension> dimensions() {
+        Set<CubeDimension> used = EnumSet.noneOf(CubeDimension.class);
+        used.addAll(groupBy);
+        used.addAll(filters.keySet());
+        return used;
+    }
+}
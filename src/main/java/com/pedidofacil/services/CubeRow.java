@@ -0,0 +1,23 @@
+package com.pedidofacil.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Uma linha do resultado do cubo. {@code key} traz o valor de cada dimensão agrupada, na ordem de
+ * {@link CubeQuery#groupBy()} e com o tipo de {@link CubeDimension#type()}; {@code labels} traz o texto para
+ * exibir cada uma (nome do produto e do cliente em vez do id).
+ * <p>
+ * Agrupando ou filtrando por produto ou marca, {@code orders} conta os pedidos que tiveram o produto (um pedido com
+ * dois produtos entra nos dois) e {@code quantity}/{@code total} somam só os itens do produto.
+ */
+public record CubeRow(List<Object> key, List<String> labels, long orders, BigDecimal quantity, BigDecimal total) {
+
+    public CubeRow {
+        // List.copyOf recusa null, e produto sem marca ou pedido sem cliente têm chave null
+        key = Collections.unmodifiableList(new ArrayList<>(key));
+        labels = Collections.unmodifiableList(new ArrayList<>(labels));
+    }
+}
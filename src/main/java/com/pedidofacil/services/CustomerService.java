@@ -1,6 +1,7 @@
 package com.pedidofacil.services;
 
 import com.pedidofacil.models.Customer;
+import com.pedidofacil.persistence.IWriteQueue;
 import com.pedidofacil.repositories.CustomerRepository;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -9,20 +10,23 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @Service
 public class CustomerService implements ICustomerService {
 
     private final CustomerRepository repository;
+    private final IWriteQueue writeQueue;
 
-    public CustomerService(CustomerRepository repository) {
+    public CustomerService(CustomerRepository repository, IWriteQueue writeQueue) {
         this.repository = repository;
+        this.writeQueue = writeQueue;
     }
 
+    // Escritas passam pela fila de escrita, que abre (e agrupa) as transações
     @Override
-    @Transactional
     public Customer save(Customer c) {
-        return repository.save(c);
+        return writeQueue.execute(upsert(c));
     }
 
     @Override
@@ -32,9 +36,11 @@ public class CustomerService implements ICustomerService {
     }
 
     @Override
-    @Transactional
     public void delete(Customer c) {
-        repository.delete(c);
+        writeQueue.execute(() -> {
+            repository.delete(c);
+            return null;
+        });
     }
 
     @Override
@@ -43,9 +49,8 @@ public class CustomerService implements ICustomerService {
     }
 
     @Override
-    @Async
     public CompletableFuture<Customer> saveAsync(Customer c) {
-        return CompletableFuture.supplyAsync(() -> save(c));
+        return writeQueue.submit(upsert(c));
     }
 
     @Override
@@ -55,8 +60,20 @@ public class CustomerService implements ICustomerService {
     }
 
     @Override
-    @Async
     public CompletableFuture<Void> deleteAsync(Customer c) {
-        return CompletableFuture.runAsync(() -> delete(c));
+        return writeQueue.submit(() -> {
+            repository.delete(c);
+            return null;
+        });
+    }
+
+    // Se o grupo for desfeito, a fila repete a escrita com o cliente ainda trazendo o id gerado na tentativa
+    // desfeita; cada tentativa volta ao id que ele tinha ao ser enfileirado
+    private Supplier<Customer> upsert(Customer c) {
+        Long id = c.getId();
+        return () -> {
+            c.setId(id);
+            return repository.save(c);
+        };
     }
 }
@@ -0,0 +1,70 @@
+package com.pedidofacil.services;
+
+/**
+ * Somas de prefixo (árvore de Fenwick) sobre posições 0..size-1: somar num ponto e somar um intervalo
+ * custam O(log size). Não é thread-safe; quem usa sincroniza.
+ */
+final class FenwickTree {
+
+    // 1-based: tree[i] guarda a soma das (i & -i) posições que terminam em i
+    private final long[] tree;
+
+    FenwickTree(int size) {
+        tree = new long[size + 1];
+    }
+
+    // Monta a partir dos valores de cada posição em O(size)
+    static FenwickTree of(long[] values) {
+        FenwickTree fenwick = new FenwickTree(values.length);
+        long[] tree = fenwick.tree;
+        System.arraycopy(values, 0, tree, 1, values.length);
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        return fenwick;
+    }
+
+    int size() {
+        return tree.length - 1;
+    }
+
+    void add(int index, long delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Soma das posições 0..index (0 se index < 0)
+    long prefix(int index) {
+        if (index < 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = index >= size() ? size() : index + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // Soma das posições from..to, inclusive; limites fora da árvore são cortados
+    long sum(int from, int to) {
+        return from > to ? 0 : prefix(to) - (from <= 0 ? 0 : prefix(from - 1));
+    }
+
+    // Valor de cada posição, em O(size) (desfaz a montagem de of)
+    long[] values() {
+        long[] values = tree.clone();
+        for (int i = values.length - 1; i > 0; i--) {
+            int parent = i + (i & -i);
+            if (parent < values.length) {
+                values[parent] -= values[i];
+            }
+        }
+        long[] result = new long[size()];
+        System.arraycopy(values, 1, result, 0, result.length);
+        return result;
+    }
+}
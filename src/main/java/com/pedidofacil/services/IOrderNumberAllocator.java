@@ -0,0 +1,13 @@
+package com.pedidofacil.services;
+
+public interface IOrderNumberAllocator {
+
+    // Entrega o próximo número de pedido, único mesmo sob chamadas concorrentes
+    long next();
+
+    // Próximo número que seria entregue, sem consumi-lo (apenas para exibição)
+    long peek();
+
+    // Devolve à sequência os números ainda não usados do bloco atual, se a política permitir
+    void release();
+}
@@ -11,13 +11,11 @@ public interface IProductService {
     List<Product> findAll();
     void delete(Product p);
 
-    // Async versions
-    @Async
+    // Async versions (escritas já são assíncronas pela fila de escrita, sem @Async)
     CompletableFuture<Product> saveAsync(Product p);
 
     @Async
     CompletableFuture<List<Product>> findAllAsync();
 
-    @Async
     CompletableFuture<Void> deleteAsync(Product p);
 }
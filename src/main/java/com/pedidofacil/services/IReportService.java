@@ -3,9 +3,12 @@ package com.pedidofacil.services;
 import com.pedidofacil.models.Customer;
 import com.pedidofacil.models.PaymentMethod;
 import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.MonthlySalesView;
 import com.pedidofacil.repositories.projections.PaymentDistributionView;
 import com.pedidofacil.repositories.projections.ProductSalesView;
 import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TicketPercentileView;
 import com.pedidofacil.repositories.projections.TopCustomerView;
 
 import java.time.LocalDate;
@@ -15,6 +18,22 @@ public interface IReportService {
     List<ProductSalesView> topProducts(LocalDate start, LocalDate end, int limit);
     List<PaymentDistributionView> paymentDistribution(LocalDate start, LocalDate end);
     List<TicketAverageView> ticketAverage(LocalDate start, LocalDate end);
+    // Mediana, p90 e p99 do valor dos pedidos por forma de pagamento (aproximados, t-digest)
+    List<TicketPercentileView> ticketPercentiles(LocalDate start, LocalDate end);
     List<TopCustomerView> topCustomers(LocalDate start, LocalDate end, PaymentMethod method, int limit);
     List<DailySalesView> dailySales(LocalDate start, LocalDate end);
+    List<MonthlySalesView> monthlySales(LocalDate start, LocalDate end);
+    List<HourlySalesView> hourlySales(LocalDate start, LocalDate end);
+
+    /**
+     * Pedidos, quantidade e total agrupados e filtrados pelas dimensões de {@link CubeQuery}, a partir do cubo de
+     * vendas em memória ({@link SalesCube}).
+     *
+     * @throws IllegalArgumentException se a combinação de dimensões não é suportada (ex.: produto e cliente juntos)
+     * @throws IllegalStateException se o cubo ainda não foi carregado ou está desligado
+     */
+    List<CubeRow> cube(CubeQuery query);
+
+    // Recalcula do zero o resumo diário usado pelos relatórios
+    void rebuildSummary();
 }
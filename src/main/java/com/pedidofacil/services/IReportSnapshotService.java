@@ -0,0 +1,10 @@
+package com.pedidofacil.services;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+public interface IReportSnapshotService {
+
+    // Dispara as consultas dos relatórios em paralelo; o future completa quando todas terminam
+    CompletableFuture<ReportSnapshot> loadAsync(LocalDate start, LocalDate end, int limit);
+}
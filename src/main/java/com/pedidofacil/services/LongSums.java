@@ -0,0 +1,141 @@
+package com.pedidofacil.services;
+
+import java.util.Arrays;
+
+/**
+ * Somas por chave {@code long} (produto, cliente, dia) guardadas em arrays primitivos com endereçamento aberto:
+ * somar uma linha não cria objeto nenhum, nem para a chave nem para o valor. Cada chave tem {@code columns}
+ * somas (ex.: quantidade e total).
+ * <p>
+ * Não é thread-safe: uma instância por leitura, ou publicada para várias threads só depois da última soma.
+ */
+final class LongSums {
+
+    // Nenhuma chave usada (ids, yyyymmdd) chega perto disso
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    // Recebe cada chave com suas somas em sums[offset] .. sums[offset + columns - 1]; o array é o interno, só leitura
+    interface Cells {
+        void accept(long key, long[] sums, int offset);
+    }
+
+    private final int columns;
+    private long[] keys;
+    private long[] sums;
+    private int size;
+
+    LongSums(int columns, int expected) {
+        this.columns = columns;
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.sums = new long[capacity * columns];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    void add(long key, int column, long amount) {
+        // slot() pode trocar o array ao crescer: o índice vem antes de ler o campo
+        int slot = slot(key);
+        sums[slot * columns + column] += amount;
+    }
+
+    long get(long key, int column) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return sums[i * columns + column];
+            }
+        }
+        return 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Cópia independente, para publicar uma versão só leitura enquanto esta continua recebendo somas
+    LongSums copy() {
+        LongSums copy = new LongSums(columns, 1);
+        copy.keys = keys.clone();
+        copy.sums = sums.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    // Memória dos arrays (chaves e somas), incluindo os slots vazios
+    long bytes() {
+        return (long) keys.length * Long.BYTES * (1 + columns);
+    }
+
+    // Chaves em ordem crescente
+    long[] keys() {
+        long[] used = new long[size];
+        int n = 0;
+        for (long key : keys) {
+            if (key != EMPTY) {
+                used[n++] = key;
+            }
+        }
+        Arrays.sort(used);
+        return used;
+    }
+
+    // Percorre as chaves sem ordem definida e sem copiar nada
+    void forEach(Cells cells) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                cells.accept(keys[i], sums, i * columns);
+            }
+        }
+    }
+
+    // As {@code limit} chaves de maior soma na coluna, da maior para a menor (empate: menor chave primeiro);
+    // heap de tamanho limit, sem ordenar todas as chaves
+    long[] top(int column, int limit) {
+        TopKHeap top = new TopKHeap(limit);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                top.offer(keys[i], sums[i * columns + column]);
+            }
+        }
+        return top.keys();
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        if ((size + 1) * 3 > keys.length * 2) {
+            grow();
+            return slot(key);
+        }
+        keys[i] = key;
+        size++;
+        return i;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldSums = sums;
+        keys = new long[oldKeys.length * 2];
+        sums = new long[keys.length * columns];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int target = slot(oldKeys[i]);
+                System.arraycopy(oldSums, i * columns, sums, target * columns, columns);
+            }
+        }
+    }
+
+    // Ids e datas sequenciais cairiam em slots vizinhos; o embaralhamento espalha as sondagens (também no TopKHeap)
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
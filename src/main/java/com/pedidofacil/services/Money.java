@@ -0,0 +1,30 @@
+package com.pedidofacil.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Valores em reais como inteiros de centavos (ou de outra escala), para as estruturas em memória dos relatórios
+ * somarem sem {@link BigDecimal} e sem erro de arredondamento acumulado.
+ */
+final class Money {
+
+    private Money() {}
+
+    static long cents(BigDecimal value) {
+        return scaled(value, 2);
+    }
+
+    // Colunas REAL do SQLite, lidas como double
+    static long cents(double value) {
+        return Math.round(value * 100);
+    }
+
+    static long scaled(BigDecimal value, int scale) {
+        return value == null ? 0 : value.movePointRight(scale).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    static BigDecimal of(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
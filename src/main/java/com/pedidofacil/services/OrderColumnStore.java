@@ -0,0 +1,596 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.OrderStoreSettings;
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.models.Customer;
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.OrderItem;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.Product;
+import com.pedidofacil.models.TimeKeys;
+import com.pedidofacil.repositories.CustomerRepository;
+import com.pedidofacil.repositories.ProductRepository;
+import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.MonthlySalesView;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import com.pedidofacil.repositories.projections.ProductSalesView;
+import com.pedidofacil.repositories.projections.Projections;
+import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TopCustomerView;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cópia em memória, por colunas, dos pedidos e itens, para os relatórios filtrarem e somarem em laços sobre
+ * arrays primitivos em vez de ir ao SQLite a cada troca de filtro (opcional, {@code app.order-store.enabled}).
+ * <p>
+ * Carrega em segundo plano quando a aplicação termina de subir; enquanto isso os relatórios seguem no SQLite.
+ * Pedidos novos entram após o commit ({@link OrderCreatedEvent}). Quem lê pega o instantâneo publicado em
+ * {@link #columns} e não bloqueia quem acrescenta: o acréscimo escreve além do fim visível e só então publica
+ * o instantâneo com a nova contagem.
+ * <p>
+ * Se as colunas passarem de {@code app.order-store.memory-budget}, o armazenamento é descartado.
+ */
+@Service
+public class OrderColumnStore {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderColumnStore.class);
+
+    public enum State { DISABLED, LOADING, READY, OVER_BUDGET, FAILED }
+
+    // id, dia, hora, forma de pagamento, cliente, total e início dos itens
+    static final int ORDER_BYTES = 8 + 4 + 1 + 1 + 8 + 8 + 4;
+    // produto, quantidade e subtotal
+    static final int ITEM_BYTES = 8 + 8 + 8;
+
+    private static final String COUNTS = "SELECT (SELECT count(*) FROM orders), (SELECT count(*) FROM order_items)";
+    // Pela chave primária: pedidos em ordem de id, itens de cada pedido juntos (ver SinglePassReportEngine).
+    // Também usado pela carga do SalesCube
+    static final String LOAD =
+            "SELECT o.id, o.created_epoch, o.payment_method, o.customer_id, o.total, i.product_id, i.quantity, i.subtotal " +
+            "FROM orders o LEFT JOIN order_items i ON i.order_id = o.id ORDER BY o.id";
+
+    private static final int SECONDS_PER_DAY = TimeKeys.SECONDS_PER_HOUR * TimeKeys.HOURS_PER_DAY;
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+    // Pedido sem cliente; ids gerados começam em 1
+    private static final long NO_CUSTOMER = 0;
+
+    private final DataSource readDataSource;
+    private final OrderStoreSettings settings;
+    private final ReportEngineSettings engineSettings;
+    private final ProductRepository productRepository;
+    private final CustomerRepository customerRepository;
+
+    private final Object lock = new Object();
+    private volatile Columns columns;
+    private volatile State state = State.DISABLED;
+    // Pedidos confirmados durante a carga; aplicados no fim, exceto os que a carga já leu
+    private List<Row> pending;
+    private volatile Thread loader;
+
+    public OrderColumnStore(@Qualifier("readDataSource") DataSource readDataSource, OrderStoreSettings settings,
+                            ReportEngineSettings engineSettings, ProductRepository productRepository,
+                            CustomerRepository customerRepository) {
+        this.readDataSource = readDataSource;
+        this.settings = settings;
+        this.engineSettings = engineSettings;
+        this.productRepository = productRepository;
+        this.customerRepository = customerRepository;
+    }
+
+    // Um pedido já convertido para as colunas; montado fora do lock
+    record Row(long id, int day, byte hour, byte method, long customer, long total,
+               long[] products, long[] quantities, long[] subtotals) {
+
+        static Row of(Order order) {
+            long epoch = order.getCreatedEpoch();
+            List<OrderItem> items = order.getItems();
+            long[] products = new long[items.size()];
+            long[] quantities = new long[items.size()];
+            long[] subtotals = new long[items.size()];
+            for (int i = 0; i < items.size(); i++) {
+                OrderItem item = items.get(i);
+                products[i] = item.getProduct().getId();
+                quantities[i] = Money.scaled(item.getQuantity(), 3);
+                subtotals[i] = Money.scaled(item.getSubtotal(), 2);
+            }
+            return new Row(order.getId(), (int) Math.floorDiv(epoch, SECONDS_PER_DAY), hourOf(epoch),
+                    (byte) order.getPaymentMethod().ordinal(),
+                    order.getCustomer() == null ? NO_CUSTOMER : order.getCustomer().getId(),
+                    Money.scaled(order.getTotal(), 2), products, quantities, subtotals);
+        }
+    }
+
+    /**
+     * Instantâneo das colunas: os arrays podem ter espaço além de {@code orders}/{@code items}, onde o próximo
+     * acréscimo escreve; quem lê nunca passa da contagem do seu instantâneo. Os itens do pedido {@code i}
+     * vão de {@code firstItem[i]} a {@code firstItem[i + 1]}.
+     */
+    private static final class Columns {
+        final long[] ids;
+        final int[] days;
+        final byte[] hours;
+        final byte[] methods;
+        final long[] customers;
+        final long[] totals;
+        final int[] firstItem;
+        final long[] products;
+        final long[] quantities;
+        final long[] subtotals;
+        final int orders;
+        final int items;
+
+        Columns(int orderCapacity, int itemCapacity) {
+            this(new long[orderCapacity], new int[orderCapacity], new byte[orderCapacity], new byte[orderCapacity],
+                    new long[orderCapacity], new long[orderCapacity], new int[orderCapacity + 1],
+                    new long[itemCapacity], new long[itemCapacity], new long[itemCapacity], 0, 0);
+        }
+
+        private Columns(long[] ids, int[] days, byte[] hours, byte[] methods, long[] customers, long[] totals,
+                        int[] firstItem, long[] products, long[] quantities, long[] subtotals, int orders, int items) {
+            this.ids = ids;
+            this.days = days;
+            this.hours = hours;
+            this.methods = methods;
+            this.customers = customers;
+            this.totals = totals;
+            this.firstItem = firstItem;
+            this.products = products;
+            this.quantities = quantities;
+            this.subtotals = subtotals;
+            this.orders = orders;
+            this.items = items;
+        }
+
+        static long bytes(long orderCapacity, long itemCapacity) {
+            return orderCapacity * ORDER_BYTES + itemCapacity * ITEM_BYTES;
+        }
+
+        long bytes() {
+            return bytes(ids.length, products.length);
+        }
+
+        // Novo instantâneo com o pedido no fim; null se crescer passaria do orçamento
+        Columns with(Row row, long budget) {
+            Columns target = this;
+            int newItems = items + row.products().length;
+            if (orders == ids.length || newItems > products.length) {
+                target = grow(Math.max(orders + 1, ids.length + ids.length / 2),
+                        Math.max(newItems, products.length + products.length / 2), budget);
+                if (target == null) {
+                    return null;
+                }
+            }
+            target.ids[orders] = row.id();
+            target.days[orders] = row.day();
+            target.hours[orders] = row.hour();
+            target.methods[orders] = row.method();
+            target.customers[orders] = row.customer();
+            target.totals[orders] = row.total();
+            System.arraycopy(row.products(), 0, target.products, items, row.products().length);
+            System.arraycopy(row.quantities(), 0, target.quantities, items, row.quantities().length);
+            System.arraycopy(row.subtotals(), 0, target.subtotals, items, row.subtotals().length);
+            target.firstItem[orders + 1] = newItems;
+            return new Columns(target.ids, target.days, target.hours, target.methods, target.customers, target.totals,
+                    target.firstItem, target.products, target.quantities, target.subtotals, orders + 1, newItems);
+        }
+
+        private Columns grow(int orderCapacity, int itemCapacity, long budget) {
+            if (bytes(orderCapacity, itemCapacity) > budget) {
+                return null;
+            }
+            return new Columns(Arrays.copyOf(ids, orderCapacity), Arrays.copyOf(days, orderCapacity),
+                    Arrays.copyOf(hours, orderCapacity), Arrays.copyOf(methods, orderCapacity),
+                    Arrays.copyOf(customers, orderCapacity), Arrays.copyOf(totals, orderCapacity),
+                    Arrays.copyOf(firstItem, orderCapacity + 1), Arrays.copyOf(products, itemCapacity),
+                    Arrays.copyOf(quantities, itemCapacity), Arrays.copyOf(subtotals, itemCapacity), orders, items);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        Thread thread = new Thread(this::load, "order-store-loader");
+        thread.setDaemon(true);
+        loader = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = loader;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Lê todos os pedidos e itens do banco numa transação somente leitura e passa a responder por eles.
+     * Síncrono; na subida roda na thread {@code order-store-loader}.
+     */
+    public synchronized void load() {
+        long started = System.nanoTime();
+        synchronized (lock) {
+            columns = null;
+            state = State.LOADING;
+            pending = new ArrayList<>();
+        }
+        long budget = settings.getMemoryBudget().toBytes();
+        Columns loaded;
+        try {
+            loaded = read(budget);
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Falha ao carregar os pedidos em memória; relatórios seguem no SQLite", e);
+            finish(null, State.FAILED, 0);
+            return;
+        }
+        if (loaded == null) {
+            log.warn("Pedidos em memória passariam de {}; relatórios seguem no SQLite", settings.getMemoryBudget());
+            finish(null, State.OVER_BUDGET, 0);
+            return;
+        }
+        Columns ready = finish(loaded, State.READY, budget);
+        if (ready != null) {
+            log.info("{} pedidos e {} itens em memória ({} MB) em {} ms", ready.orders, ready.items,
+                    ready.bytes() / (1024 * 1024), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    // Aplica o que chegou durante a carga e publica o resultado
+    private Columns finish(Columns loaded, State result, long budget) {
+        synchronized (lock) {
+            List<Row> arrived = pending;
+            pending = null;
+            if (loaded != null) {
+                int loadedOrders = loaded.orders;
+                for (Row row : arrived) {
+                    // Confirmado antes da leitura começar: a carga já trouxe (ids da carga estão em ordem)
+                    if (Arrays.binarySearch(loaded.ids, 0, loadedOrders, row.id()) >= 0) {
+                        continue;
+                    }
+                    loaded = loaded.with(row, budget);
+                    if (loaded == null) {
+                        result = State.OVER_BUDGET;
+                        break;
+                    }
+                }
+            }
+            columns = result == State.READY ? loaded : null;
+            state = result;
+            return columns;
+        }
+    }
+
+    private Columns read(long budget) throws SQLException {
+        try (Connection connection = readDataSource.getConnection()) {
+            // Uma transação: contagem e linhas do mesmo instante do banco
+            connection.setAutoCommit(false);
+            try {
+                long orders;
+                long items;
+                try (PreparedStatement statement = connection.prepareStatement(COUNTS);
+                     ResultSet rs = statement.executeQuery()) {
+                    rs.next();
+                    orders = rs.getLong(1);
+                    items = rs.getLong(2);
+                }
+                // Folga para os pedidos do dia sem realocar logo no primeiro
+                long orderCapacity = orders + Math.max(1024, orders / 8);
+                long itemCapacity = items + Math.max(4096, items / 8);
+                if (Columns.bytes(orderCapacity, itemCapacity) > budget || orderCapacity >= Integer.MAX_VALUE
+                        || itemCapacity >= Integer.MAX_VALUE) {
+                    return null;
+                }
+                return fill(connection, new Columns((int) orderCapacity, (int) itemCapacity), budget);
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    private Columns fill(Connection connection, Columns columns, long budget) throws SQLException {
+        int orders = 0;
+        int items = 0;
+        try (PreparedStatement statement = connection.prepareStatement(LOAD)) {
+            statement.setFetchSize(engineSettings.getFetchSize());
+            try (ResultSet rs = statement.executeQuery()) {
+                long current = Long.MIN_VALUE;
+                while (rs.next()) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IllegalStateException("Carga interrompida");
+                    }
+                    long id = rs.getLong(1);
+                    if (id != current) {
+                        current = id;
+                        if (orders == columns.ids.length) {
+                            // Contagem e leitura são da mesma transação; só por segurança
+                            columns = columns.grow(orders + Math.max(1024, orders / 8), columns.products.length, budget);
+                            if (columns == null) {
+                                return null;
+                            }
+                        }
+                        long epoch = rs.getLong(2);
+                        columns.ids[orders] = id;
+                        columns.days[orders] = (int) Math.floorDiv(epoch, SECONDS_PER_DAY);
+                        columns.hours[orders] = hourOf(epoch);
+                        columns.methods[orders] = (byte) PaymentMethod.valueOf(rs.getString(3)).ordinal();
+                        long customer = rs.getLong(4);
+                        columns.customers[orders] = rs.wasNull() ? NO_CUSTOMER : customer;
+                        columns.totals[orders] = Money.cents(rs.getDouble(5));
+                        orders++;
+                    }
+                    long product = rs.getLong(6);
+                    if (!rs.wasNull()) {
+                        if (items == columns.products.length) {
+                            columns = columns.grow(columns.ids.length, items + Math.max(4096, items / 8), budget);
+                            if (columns == null) {
+                                return null;
+                            }
+                        }
+                        columns.products[items] = product;
+                        columns.quantities[items] = Math.round(rs.getDouble(7) * 1000);
+                        columns.subtotals[items] = Money.cents(rs.getDouble(8));
+                        items++;
+                    }
+                    columns.firstItem[orders] = items;
+                }
+            }
+        }
+        return new Columns(columns.ids, columns.days, columns.hours, columns.methods, columns.customers, columns.totals,
+                columns.firstItem, columns.products, columns.quantities, columns.subtotals, orders, items);
+    }
+
+    // Antes do cache dos relatórios: quando ele descarta o período, o pedido já está aqui
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        if (!settings.isEnabled() || event.order().getId() == null) {
+            return;
+        }
+        Row row = Row.of(event.order());
+        synchronized (lock) {
+            if (pending != null) {
+                pending.add(row);
+                return;
+            }
+            if (state != State.READY) {
+                return;
+            }
+            Columns next = columns.with(row, settings.getMemoryBudget().toBytes());
+            if (next == null) {
+                log.warn("Pedidos em memória passaram de {}; relatórios voltam ao SQLite", settings.getMemoryBudget());
+                columns = null;
+                state = State.OVER_BUDGET;
+                return;
+            }
+            columns = next;
+        }
+    }
+
+    public State getState() { return state; }
+
+    public boolean isReady() { return state == State.READY; }
+
+    public int getOrderCount() {
+        Columns c = columns;
+        return c == null ? 0 : c.orders;
+    }
+
+    public long getMemoryBytes() {
+        Columns c = columns;
+        return c == null ? 0 : c.bytes();
+    }
+
+    // ---- Relatórios: mesmos resultados do ReportService, a partir das colunas ----
+
+    private Columns snapshot() {
+        Columns c = columns;
+        if (c == null) {
+            throw new IllegalStateException("Pedidos em memória indisponíveis (" + state + ")");
+        }
+        return c;
+    }
+
+    private static int from(LocalDate start) {
+        return start == null ? Integer.MIN_VALUE : (int) start.toEpochDay();
+    }
+
+    private static int to(LocalDate end) {
+        return end == null ? Integer.MAX_VALUE : (int) end.toEpochDay();
+    }
+
+    // [pedidos, centavos] por forma de pagamento
+    private static long[][] byPayment(Columns c, int from, int to) {
+        long[] orders = new long[METHODS.length];
+        long[] totals = new long[METHODS.length];
+        int[] days = c.days;
+        for (int i = 0; i < c.orders; i++) {
+            int day = days[i];
+            if (day >= from && day <= to) {
+                orders[c.methods[i]]++;
+                totals[c.methods[i]] += c.totals[i];
+            }
+        }
+        return new long[][] {orders, totals};
+    }
+
+    public List<PaymentDistributionView> paymentDistribution(LocalDate start, LocalDate end) {
+        long[][] sums = byPayment(snapshot(), from(start), to(end));
+        List<PaymentDistributionView> views = new ArrayList<>();
+        for (PaymentMethod method : METHODS) {
+            if (sums[0][method.ordinal()] > 0) {
+                views.add(Projections.of(PaymentDistributionView.class,
+                        "paymentMethod", method,
+                        "total", Money.of(sums[1][method.ordinal()])));
+            }
+        }
+        return views;
+    }
+
+    public List<TicketAverageView> ticketAverage(LocalDate start, LocalDate end) {
+        long[][] sums = byPayment(snapshot(), from(start), to(end));
+        List<TicketAverageView> views = new ArrayList<>();
+        for (PaymentMethod method : METHODS) {
+            long orders = sums[0][method.ordinal()];
+            if (orders > 0) {
+                views.add(Projections.of(TicketAverageView.class,
+                        "paymentMethod", method,
+                        "orders", orders,
+                        "average", sums[1][method.ordinal()] / 100.0 / orders));
+            }
+        }
+        return views;
+    }
+
+    public List<TopCustomerView> topCustomers(LocalDate start, LocalDate end, PaymentMethod method, int limit) {
+        Columns c = snapshot();
+        int from = from(start);
+        int to = to(end);
+        int only = method == null ? -1 : method.ordinal();
+        LongSums sums = new LongSums(1, 1024);
+        for (int i = 0; i < c.orders; i++) {
+            int day = c.days[i];
+            if (day >= from && day <= to && c.customers[i] != NO_CUSTOMER && (only < 0 || c.methods[i] == only)) {
+                sums.add(c.customers[i], 0, c.totals[i]);
+            }
+        }
+        long[] top = sums.top(0, limit);
+        Map<Long, String> names = new HashMap<>();
+        for (Customer customer : customerRepository.findAllById(ids(top))) {
+            names.put(customer.getId(), customer.getName());
+        }
+        List<TopCustomerView> views = new ArrayList<>(top.length);
+        for (long id : top) {
+            views.add(Projections.of(TopCustomerView.class,
+                    "customerId", id,
+                    "customerName", names.get(id),
+                    "total", Money.of(sums.get(id, 0))));
+        }
+        return views;
+    }
+
+    public List<ProductSalesView> topProducts(LocalDate start, LocalDate end, int limit) {
+        Columns c = snapshot();
+        int from = from(start);
+        int to = to(end);
+        LongSums sums = new LongSums(2, 1024);
+        for (int i = 0; i < c.orders; i++) {
+            int day = c.days[i];
+            if (day >= from && day <= to) {
+                for (int k = c.firstItem[i]; k < c.firstItem[i + 1]; k++) {
+                    sums.add(c.products[k], 0, c.quantities[k]);
+                    sums.add(c.products[k], 1, c.subtotals[k]);
+                }
+            }
+        }
+        long[] top = sums.top(1, limit);
+        Map<Long, String> names = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids(top))) {
+            names.put(product.getId(), product.getBrand() == null ? product.getName()
+                    : product.getName() + " (" + product.getBrand() + ")");
+        }
+        List<ProductSalesView> views = new ArrayList<>(top.length);
+        for (long id : top) {
+            views.add(Projections.of(ProductSalesView.class,
+                    "productId", id,
+                    "productName", names.get(id),
+                    "quantity", BigDecimal.valueOf(sums.get(id, 0), 3),
+                    "total", Money.of(sums.get(id, 1))));
+        }
+        return views;
+    }
+
+    // Centavos por dia (epoch day) do período
+    private static LongSums byDay(Columns c, int from, int to) {
+        LongSums sums = new LongSums(1, 512);
+        for (int i = 0; i < c.orders; i++) {
+            int day = c.days[i];
+            if (day >= from && day <= to) {
+                sums.add(day, 0, c.totals[i]);
+            }
+        }
+        return sums;
+    }
+
+    public List<DailySalesView> dailySales(LocalDate start, LocalDate end) {
+        LongSums sums = byDay(snapshot(), from(start), to(end));
+        List<DailySalesView> views = new ArrayList<>(sums.size());
+        for (long day : sums.keys()) {
+            views.add(Projections.of(DailySalesView.class,
+                    "day", LocalDate.ofEpochDay(day).toString(),
+                    "total", Money.of(sums.get(day, 0))));
+        }
+        return views;
+    }
+
+    public List<MonthlySalesView> monthlySales(LocalDate start, LocalDate end) {
+        LongSums sums = byDay(snapshot(), from(start), to(end));
+        LongSums months = new LongSums(1, 32);
+        for (long day : sums.keys()) {
+            months.add(TimeKeys.dayKey(LocalDate.ofEpochDay(day)) / 100, 0, sums.get(day, 0));
+        }
+        List<MonthlySalesView> views = new ArrayList<>(months.size());
+        for (long month : months.keys()) {
+            views.add(Projections.of(MonthlySalesView.class,
+                    "month", TimeKeys.month((int) month).toString(),
+                    "total", Money.of(months.get(month, 0))));
+        }
+        return views;
+    }
+
+    public List<HourlySalesView> hourlySales(LocalDate start, LocalDate end) {
+        Columns c = snapshot();
+        int from = from(start);
+        int to = to(end);
+        long[] orders = new long[TimeKeys.HOURS_PER_DAY];
+        long[] totals = new long[TimeKeys.HOURS_PER_DAY];
+        for (int i = 0; i < c.orders; i++) {
+            int day = c.days[i];
+            if (day >= from && day <= to) {
+                orders[c.hours[i]]++;
+                totals[c.hours[i]] += c.totals[i];
+            }
+        }
+        List<HourlySalesView> views = new ArrayList<>();
+        for (int hour = 0; hour < TimeKeys.HOURS_PER_DAY; hour++) {
+            if (orders[hour] > 0) {
+                views.add(Projections.of(HourlySalesView.class,
+                        "hour", hour,
+                        "orders", orders[hour],
+                        "total", Money.of(totals[hour])));
+            }
+        }
+        return views;
+    }
+
+    private static byte hourOf(long epoch) {
+        return (byte) Math.floorMod(epoch / TimeKeys.SECONDS_PER_HOUR, TimeKeys.HOURS_PER_DAY);
+    }
+
+    private static List<Long> ids(long[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+}
@@ -0,0 +1,7 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.models.Order;
+
+// Publicado pelo checkout dentro da transação do pedido; os ouvintes transacionais só o recebem após o commit
+public record OrderCreatedEvent(Order order) {
+}
@@ -0,0 +1,297 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.OrderNumberSettings;
+import com.pedidofacil.config.WriteQueueSettings;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numeração de pedidos por blocos: reserva {@code blockSize} números na tabela
+ * {@code order_sequences} e os entrega a partir de um contador em memória.
+ * <p>
+ * Cada reserva é confirmada na sua própria transação, numa conexão só dela: um número entregue nunca volta à
+ * sequência quando o pedido, ou o grupo de escritas da fila, é desfeito; vira só uma lacuna. Como o SQLite tem um
+ * único escritor, essa conexão esperaria por uma transação que já gravou algo; por isso o alocador mantém
+ * reservados números para um grupo inteiro da fila e repõe a reserva quando a transação que os usou termina.
+ */
+@Service
+public class OrderNumberAllocator implements IOrderNumberAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderNumberAllocator.class);
+
+    static final String SEQUENCE_NAME = "orders";
+
+    private static final String MAX_NUMBER = "SELECT coalesce(max(number), 0) FROM orders";
+
+    private final DataSource dataSource;
+    private final OrderNumberSettings settings;
+    // Números que devem estar reservados ao começar uma transação: o maior grupo da fila de escrita
+    private final int lookahead;
+
+    private volatile Block block;
+
+    // Protegidos por "this": blocos reservados depois do atual, em ordem, e o realinhamento da primeira reserva
+    private final ArrayDeque<Block> reserved = new ArrayDeque<>();
+    private boolean startupResyncPending;
+
+    public OrderNumberAllocator(@Qualifier("sequenceDataSource") DataSource dataSource,
+                                OrderNumberSettings settings,
+                                WriteQueueSettings writeQueueSettings) {
+        this.dataSource = dataSource;
+        this.settings = settings;
+        this.lookahead = Math.max(blockSize(), writeQueueSettings.getMaxBatch());
+        this.startupResyncPending = settings.getRecovery() == OrderNumberSettings.Recovery.RESYNC_ON_STARTUP;
+    }
+
+    /**
+     * Reserva os primeiros blocos antes do primeiro pedido, fora de qualquer transação de escrita.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reserveAhead() {
+        try {
+            refill();
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível reservar números de pedido na inicialização: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public long next() {
+        long number = take();
+        refillAfterTransaction();
+        return number;
+    }
+
+    @Override
+    public long peek() {
+        Block current = block;
+        if (current != null && current.cursor.get() < current.end) {
+            return current.cursor.get();
+        }
+        synchronized (this) {
+            Block following = reserved.peek();
+            if (following != null) {
+                return following.start;
+            }
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            Long stored = nextValue(connection);
+            return stored != null ? stored : queryLong(connection, MAX_NUMBER) + 1;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Não foi possível ler a sequência de pedidos", e);
+        }
+    }
+
+    @Override
+    @PreDestroy
+    public synchronized void release() {
+        List<Block> unused = new ArrayList<>();
+        if (block != null) {
+            unused.add(block);
+        }
+        unused.addAll(reserved);
+        block = null;
+        reserved.clear();
+        if (unused.isEmpty() || settings.getGapPolicy() != OrderNumberSettings.GapPolicy.RELEASE_ON_SHUTDOWN) {
+            return;
+        }
+        // Devolve o trecho final contíguo ainda não entregue: o resto do bloco atual e os blocos de reserva
+        long end = unused.get(unused.size() - 1).end;
+        long from = end;
+        for (int i = unused.size() - 1; i >= 0 && unused.get(i).end == from; i--) {
+            Block candidate = unused.get(i);
+            from = Math.min(Math.max(candidate.cursor.get(), candidate.start), candidate.end);
+        }
+        if (from >= end) {
+            return;
+        }
+        long value = from;
+        try {
+            // Só devolve se ninguém reservou outro bloco depois destes
+            int updated = inTransaction(connection -> update(connection,
+                    "UPDATE order_sequences SET next_value = ? WHERE next_value = ? AND name = ?", value, end));
+            if (updated > 0) {
+                log.info("Números de pedido {}..{} devolvidos à sequência", value, end - 1);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível devolver os números não usados à sequência: {}", e.getMessage());
+        }
+    }
+
+    private long take() {
+        while (true) {
+            Block current = block;
+            if (current != null) {
+                long n = current.cursor.getAndIncrement();
+                if (n < current.end) {
+                    return n;
+                }
+            }
+            synchronized (this) {
+                // Só uma thread troca de bloco; as demais voltam ao caminho rápido
+                if (block == current) {
+                    if (reserved.isEmpty()) {
+                        // Reserva em atraso (ex.: a transação tem mais pedidos que um grupo da fila)
+                        reserve(blocksFor(lookahead));
+                    }
+                    block = reserved.poll();
+                }
+            }
+        }
+    }
+
+    private void refillAfterTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refill();
+            return;
+        }
+        // Dentro da transação o lock de escrita pode já ser dela: repõe só depois do commit ou rollback
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    refill();
+                } catch (RuntimeException e) {
+                    log.warn("Não foi possível repor a reserva de números de pedido: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    private synchronized void refill() {
+        long missing = lookahead - available();
+        if (missing > 0) {
+            reserve(blocksFor(missing));
+        }
+    }
+
+    private long available() {
+        long available = 0;
+        Block current = block;
+        if (current != null) {
+            available += Math.max(0, current.end - current.cursor.get());
+        }
+        for (Block next : reserved) {
+            available += next.end - next.start;
+        }
+        return available;
+    }
+
+    private int blocksFor(long numbers) {
+        int size = blockSize();
+        return (int) Math.max(1, (numbers + size - 1) / size);
+    }
+
+    private int blockSize() {
+        return Math.max(1, settings.getBlockSize());
+    }
+
+    // Protegido por "this"
+    private void reserve(int blocks) {
+        int size = blockSize();
+        long count = (long) blocks * size;
+        boolean startupResync = startupResyncPending;
+        long end = inTransaction(connection -> {
+            // Primeira execução: a sequência começa depois do maior número já gravado
+            update(connection, "INSERT INTO order_sequences (next_value, name) SELECT coalesce(max(number), 0) + 1, ? "
+                    + "FROM orders WHERE true ON CONFLICT(name) DO NOTHING");
+            if (startupResync) {
+                // Recupera as lacunas deixadas por uma queda: nenhum número foi entregue ainda neste processo
+                update(connection, "UPDATE order_sequences SET next_value = (SELECT coalesce(max(number), 0) + 1 "
+                        + "FROM orders) WHERE name = ?");
+            }
+            update(connection, "UPDATE order_sequences SET next_value = next_value + ? WHERE name = ?", count);
+            Long next = nextValue(connection);
+            if (next == null) {
+                throw new IllegalStateException("Sequência de pedidos não encontrada");
+            }
+            return next;
+        });
+        startupResyncPending = false;
+        for (long start = end - count; start < end; start += size) {
+            reserved.add(new Block(start, start + size));
+        }
+        log.debug("Números de pedido reservados: {}..{}", end - count, end - 1);
+    }
+
+    private <T> T inTransaction(SqlWork<T> work) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Falha ao atualizar a sequência de pedidos", e);
+        }
+    }
+
+    // O nome da sequência é o último parâmetro de toda instrução; os valores vêm antes dele
+    private static int update(Connection connection, String sql, long... values) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < values.length; i++) {
+                statement.setLong(i + 1, values[i]);
+            }
+            statement.setString(values.length + 1, SEQUENCE_NAME);
+            return statement.executeUpdate();
+        }
+    }
+
+    private static Long nextValue(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT next_value FROM order_sequences WHERE name = ?")) {
+            statement.setString(1, SEQUENCE_NAME);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    private static final class Block {
+        private final long start;
+        private final long end;
+        private final AtomicLong cursor;
+
+        private Block(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.cursor = new AtomicLong(start);
+        }
+    }
+}
@@ -4,10 +4,13 @@ import com.pedidofacil.models.Customer;
 import com.pedidofacil.models.Order;
 import com.pedidofacil.models.OrderItem;
 import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.persistence.IWriteQueue;
 import com.pedidofacil.repositories.OrderRepository;
+import com.pedidofacil.repositories.SalesSummaryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,37 +32,62 @@ public class OrderService implements IOrderService {
     private static final Logger log = LoggerFactory.getLogger(OrderService.class);
 
     private final OrderRepository orderRepository;
+    private final IOrderNumberAllocator orderNumberAllocator;
+    private final IWriteQueue writeQueue;
+    private final SalesSummaryRepository salesSummary;
+    private final ApplicationEventPublisher events;
 
     @Value("${user.home}")
     private String userHome;
 
-    public OrderService(OrderRepository orderRepository) {
+    public OrderService(OrderRepository orderRepository, IOrderNumberAllocator orderNumberAllocator, IWriteQueue writeQueue,
+                        SalesSummaryRepository salesSummary, ApplicationEventPublisher events) {
         this.orderRepository = orderRepository;
+        this.orderNumberAllocator = orderNumberAllocator;
+        this.writeQueue = writeQueue;
+        this.salesSummary = salesSummary;
+        this.events = events;
     }
 
     @Override
-    @Transactional
     public Order createOrder(List<OrderItem> items, PaymentMethod paymentMethod, Customer customer) {
+        validate(paymentMethod, customer);
+        return writeQueue.execute(() -> insertOrder(items, paymentMethod, customer));
+    }
+
+    private void validate(PaymentMethod paymentMethod, Customer customer) {
+        // Validado antes de enfileirar: um pedido inválido não desfaz o grupo de outros pedidos
         if (paymentMethod == PaymentMethod.CREDITSALE && customer == null) {
             throw new IllegalArgumentException("Cliente é obrigatório para venda a prazo (Fiado)");
         }
+    }
+
+    // Executado pela fila de escrita, já dentro da transação do grupo
+    private Order insertOrder(List<OrderItem> items, PaymentMethod paymentMethod, Customer customer) {
         Order order = new Order();
-        order.setNumber(nextOrderNumber());
+        order.setNumber(orderNumberAllocator.next());
         order.setPaymentMethod(paymentMethod);
         order.setCustomer(customer);
         if (items != null) {
             for (OrderItem it : items) {
+                // Se o grupo for desfeito e o pedido repetido, o item ainda traz o id da tentativa anterior
+                it.setId(null);
                 order.addItem(it);
             }
         }
-        return orderRepository.save(order);
+        Order saved = orderRepository.save(order);
+        // Mesma transação: se o grupo for desfeito, o resumo dos relatórios também é
+        salesSummary.record(saved);
+        // O cache de relatórios só descarta os períodos do dia do pedido, e só depois do commit
+        events.publishEvent(new OrderCreatedEvent(saved));
+        return saved;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Long nextOrderNumber() {
-        Long max = orderRepository.findMaxNumber();
-        return (max == null ? 0L : max) + 1L;
+        // Apenas para exibição: não consome o número nem consulta max(number) a cada venda
+        return orderNumberAllocator.peek();
     }
 
     @Override
@@ -97,9 +125,13 @@ public class OrderService implements IOrderService {
 
     // Async wrappers
     @Override
-    @Async
     public CompletableFuture<Order> createOrderAsync(List<OrderItem> items, PaymentMethod paymentMethod, Customer customer) {
-        return CompletableFuture.supplyAsync(() -> createOrder(items, paymentMethod, customer));
+        try {
+            validate(paymentMethod, customer);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return writeQueue.submit(() -> insertOrder(items, paymentMethod, customer));
     }
 
     @Override
@@ -0,0 +1,234 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.PaymentIndexSettings;
+import com.pedidofacil.config.WriteQueueSettings;
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.TimeKeys;
+import com.pedidofacil.repositories.SalesSummaryRepository;
+import com.pedidofacil.repositories.projections.DailyPaymentTotal;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import com.pedidofacil.repositories.projections.Projections;
+import com.pedidofacil.repositories.projections.TicketAverageView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Total e número de pedidos por dia de cada forma de pagamento, em somas de prefixo ({@link FenwickTree},
+ * posição = dia desde {@link #firstDay}): o total por forma de pagamento e o ticket médio de qualquer período
+ * saem em O(log dias), sem ir ao banco.
+ * <p>
+ * Montado a partir do resumo diário na subida e de novo a cada recálculo do resumo; pedidos novos entram após
+ * o commit ({@link OrderCreatedEvent}), se o id for maior que o último somado no resumo lido. Isso supõe ids
+ * confirmados em ordem, o que só vale com todas as escritas na fila de escrita: sem ela
+ * ({@code app.write-queue.enabled=false}) o índice fica desligado e os relatórios somam o resumo no banco.
+ */
+@Service
+public class PaymentRangeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentRangeIndex.class);
+
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+    // Dias reservados além do último com vendas (ou de hoje), para os pedidos dos próximos dias não realocarem
+    private static final int HEADROOM_DAYS = 366;
+
+    private final SalesSummaryRepository salesSummary;
+    private final PaymentIndexSettings settings;
+    private final WriteQueueSettings writeQueueSettings;
+
+    // Tudo abaixo é guardado por this
+    private int firstDay;
+    // Centavos e pedidos por forma de pagamento (ordinal); null enquanto não montado
+    private FenwickTree[] totals;
+    private FenwickTree[] orders;
+    // Pedidos até este id já estavam no resumo lido pela última montagem
+    private long lastOrderId;
+    // Pedidos confirmados durante a montagem; aplicados no fim, exceto os que o resumo lido já tinha. Cada
+    // montagem tem a sua lista: se outra começou depois, a lista já é outra e a mais antiga não publica nada
+    private List<Order> pending;
+
+    public PaymentRangeIndex(SalesSummaryRepository salesSummary, PaymentIndexSettings settings,
+                             WriteQueueSettings writeQueueSettings) {
+        this.salesSummary = salesSummary;
+        this.settings = settings;
+        this.writeQueueSettings = writeQueueSettings;
+    }
+
+    /**
+     * Lê o resumo de formas de pagamento, com o maior id de pedido somado nele, e passa a responder por ele. Se a leitura falhar, os relatórios seguem no resumo do banco. Montagens sobrepostas
+     * (subida e recálculo do resumo) são seguras: só a última a começar publica.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled()) {
+            if (settings.isEnabled()) {
+                log.info("Índice de formas de pagamento desligado: requer a fila de escrita (app.write-queue.enabled)");
+            }
+            return;
+        }
+        long started = System.nanoTime();
+        List<Order> arrived = new ArrayList<>();
+        synchronized (this) {
+            // Os pedidos da lista de uma montagem anterior já estão no banco que esta vai ler
+            pending = arrived;
+        }
+        List<DailyPaymentTotal> rows;
+        try {
+            rows = salesSummary.dailyPaymentTotals();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao montar o índice de formas de pagamento; relatórios seguem no resumo do banco", e);
+            synchronized (this) {
+                if (pending == arrived) {
+                    totals = null;
+                    orders = null;
+                    pending = null;
+                }
+            }
+            return;
+        }
+
+        int today = (int) LocalDate.now().toEpochDay();
+        int first = rows.isEmpty() ? today : Math.min(today, epochDay(rows.get(0).dayKey()));
+        int last = rows.isEmpty() ? today : Math.max(today, epochDay(rows.get(rows.size() - 1).dayKey()));
+        int size = last - first + 1 + HEADROOM_DAYS;
+        long[][] cents = new long[METHODS.length][size];
+        long[][] counts = new long[METHODS.length][size];
+        // A marca vem das próprias linhas lidas: um pedido gravado em orders mas fora do resumo não é dado como somado
+        long maxId = 0;
+        for (DailyPaymentTotal row : rows) {
+            maxId = Math.max(maxId, row.lastOrderId());
+            int position = epochDay(row.dayKey()) - first;
+            cents[row.paymentMethod().ordinal()][position] += Money.cents(row.total());
+            counts[row.paymentMethod().ordinal()][position] += row.orders();
+        }
+
+        synchronized (this) {
+            if (pending != arrived) {
+                return;
+            }
+            firstDay = first;
+            totals = new FenwickTree[METHODS.length];
+            orders = new FenwickTree[METHODS.length];
+            for (int m = 0; m < METHODS.length; m++) {
+                totals[m] = FenwickTree.of(cents[m]);
+                orders[m] = FenwickTree.of(counts[m]);
+            }
+            lastOrderId = maxId;
+            pending = null;
+            for (Order order : arrived) {
+                add(order);
+            }
+        }
+        log.info("Índice de formas de pagamento montado: {} dias a partir de {} em {} ms", size,
+                LocalDate.ofEpochDay(first), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderCreated(OrderCreatedEvent event) {
+        Order order = event.order();
+        if (order.getId() == null || order.getPaymentMethod() == null) {
+            return;
+        }
+        if (pending != null) {
+            pending.add(order);
+        } else if (totals != null) {
+            add(order);
+        }
+    }
+
+    private void add(Order order) {
+        if (order.getId() <= lastOrderId) {
+            return;
+        }
+        int day = epochDay(order.getDayKey());
+        if (day < firstDay || day - firstDay >= totals[0].size()) {
+            cover(day);
+        }
+        int method = order.getPaymentMethod().ordinal();
+        totals[method].add(day - firstDay, Money.cents(order.getTotal()));
+        orders[method].add(day - firstDay, 1);
+    }
+
+    // Remonta as árvores para incluir o dia (pedido com data fora do intervalo reservado)
+    private void cover(int day) {
+        int first = Math.min(firstDay, day);
+        int size = Math.max(firstDay + totals[0].size(), day + 1 + HEADROOM_DAYS) - first;
+        int shift = firstDay - first;
+        for (int m = 0; m < METHODS.length; m++) {
+            totals[m] = moved(totals[m], shift, size);
+            orders[m] = moved(orders[m], shift, size);
+        }
+        firstDay = first;
+    }
+
+    private static FenwickTree moved(FenwickTree tree, int shift, int size) {
+        long[] values = new long[size];
+        long[] old = tree.values();
+        System.arraycopy(old, 0, values, shift, old.length);
+        return FenwickTree.of(values);
+    }
+
+    public synchronized boolean isReady() {
+        return enabled() && totals != null;
+    }
+
+    private boolean enabled() {
+        return settings.isEnabled() && writeQueueSettings.isEnabled();
+    }
+
+    public synchronized List<PaymentDistributionView> paymentDistribution(LocalDate start, LocalDate end) {
+        int from = from(start);
+        int to = to(end);
+        List<PaymentDistributionView> views = new ArrayList<>();
+        for (PaymentMethod method : METHODS) {
+            if (orders[method.ordinal()].sum(from, to) > 0) {
+                views.add(Projections.of(PaymentDistributionView.class,
+                        "paymentMethod", method,
+                        "total", Money.of(totals[method.ordinal()].sum(from, to))));
+            }
+        }
+        return views;
+    }
+
+    public synchronized List<TicketAverageView> ticketAverage(LocalDate start, LocalDate end) {
+        int from = from(start);
+        int to = to(end);
+        List<TicketAverageView> views = new ArrayList<>();
+        for (PaymentMethod method : METHODS) {
+            long count = orders[method.ordinal()].sum(from, to);
+            if (count > 0) {
+                views.add(Projections.of(TicketAverageView.class,
+                        "paymentMethod", method,
+                        "orders", count,
+                        "average", totals[method.ordinal()].sum(from, to) / 100.0 / count));
+            }
+        }
+        return views;
+    }
+
+    // Posições da árvore; períodos abertos ou além do intervalo são cortados pela própria árvore
+    private int from(LocalDate start) {
+        return start == null ? 0 : (int) Math.max(Integer.MIN_VALUE, start.toEpochDay() - firstDay);
+    }
+
+    private int to(LocalDate end) {
+        return end == null ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, end.toEpochDay() - firstDay);
+    }
+
+    private static int epochDay(int dayKey) {
+        return (int) TimeKeys.day(dayKey).toEpochDay();
+    }
+}
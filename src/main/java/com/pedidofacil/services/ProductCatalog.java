@@ -0,0 +1,169 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.models.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Catálogo de produtos compartilhado pelas telas: uma cópia imutável e numerada ({@link Snapshot}) lida uma vez
+ * do banco e trocada por inteiro (copy-on-write) a cada produto salvo ou removido, após o commit
+ * ({@link ProductChangedEvent}). As telas leem a cópia atual sem ir ao banco e são avisadas de cada troca.
+ */
+@Service
+public class ProductCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCatalog.class);
+
+    /**
+     * Produtos em ordem de id, imutáveis junto com o índice por id. A versão cresce a cada troca: quem guardou
+     * uma cópia sabe se ela ficou velha comparando versões. {@code changedId} é o produto salvo ou removido na
+     * troca que gerou esta cópia em relação à versão anterior (null numa leitura completa do banco): quem mantém
+     * estruturas derivadas do catálogo atualiza só esse produto.
+     */
+    public record Snapshot(long version, List<Product> products, Map<Long, Product> byId, Long changedId) {
+
+        public static final Snapshot EMPTY = new Snapshot(0, List.of(), Map.of());
+
+        public Snapshot(long version, List<Product> products, Map<Long, Product> byId) {
+            this(version, products, byId, null);
+        }
+
+        public Product find(Long id) {
+            return id == null ? null : byId.get(id);
+        }
+
+        public int size() {
+            return products.size();
+        }
+    }
+
+    private final IProductService productService;
+    private final CopyOnWriteArrayList<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+
+    // Lido sem lock pelas telas; trocado só sob o lock de this
+    private volatile Snapshot snapshot;
+
+    public ProductCatalog(IProductService productService) {
+        this.productService = productService;
+    }
+
+    // A janela principal só abre depois da subida: a leitura do banco fica fora da thread do JavaFX
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        Snapshot loaded;
+        synchronized (this) {
+            Snapshot current = snapshot;
+            loaded = snapshot(current == null ? 1 : current.version() + 1, productService.findAll(), null);
+            snapshot = loaded;
+        }
+        log.info("Catálogo de produtos carregado em {} ms: {} produtos",
+                (System.nanoTime() - started) / 1_000_000, loaded.size());
+        notifyListeners(loaded);
+    }
+
+    /**
+     * A cópia atual do catálogo. Antes da subida terminar (testes, ferramentas), carrega na primeira chamada.
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = snapshot(1, productService.findAll(), null);
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    public long version() {
+        Snapshot current = snapshot;
+        return current == null ? 0 : current.version();
+    }
+
+    // Antes dos demais ouvintes: quem reage ao evento já encontra o catálogo novo
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Product product = event.product();
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        Snapshot changed;
+        synchronized (this) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                // Ainda não carregado: a primeira leitura já traz a mudança
+                return;
+            }
+            // Substituir ou remover pelo id é idempotente: uma mudança que a carga já leu não duplica
+            List<Product> products = new ArrayList<>(current.products().size() + 1);
+            boolean replaced = false;
+            for (Product p : current.products()) {
+                if (!product.getId().equals(p.getId())) {
+                    products.add(p);
+                } else if (!event.deleted()) {
+                    products.add(product);
+                    replaced = true;
+                }
+            }
+            if (!event.deleted() && !replaced) {
+                // Ids novos são sempre os maiores: o fim da lista mantém a ordem por id
+                products.add(product);
+            }
+            changed = snapshot(current.version() + 1, products, product.getId());
+            snapshot = changed;
+        }
+        notifyListeners(changed);
+    }
+
+    /**
+     * Registra quem deve ser avisado de cada troca do catálogo (uma vez por ouvinte, mesmo se registrado de novo).
+     * O aviso chega na thread de quem gravou o produto: telas JavaFX repassam com {@code Platform.runLater} e
+     * descartam cópias de versão menor que a já aplicada.
+     */
+    public void addListener(Consumer<Snapshot> listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Consumer<Snapshot> listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners(Snapshot changed) {
+        for (Consumer<Snapshot> listener : listeners) {
+            try {
+                listener.accept(changed);
+            } catch (RuntimeException e) {
+                // Uma tela com defeito não impede as outras nem desfaz a gravação, já confirmada
+                log.warn("Falha ao avisar a troca do catálogo de produtos", e);
+            }
+        }
+    }
+
+    private static Snapshot snapshot(long version, List<Product> products, Long changedId) {
+        Map<Long, Product> byId = new HashMap<>(products.size() * 2);
+        for (Product p : products) {
+            if (p.getId() != null) {
+                byId.put(p.getId(), p);
+            }
+        }
+        return new Snapshot(version, Collections.unmodifiableList(new ArrayList<>(products)),
+                Collections.unmodifiableMap(byId), changedId);
+    }
+}
@@ -0,0 +1,7 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.models.Product;
+
+// Publicado pelo cadastro de produtos dentro da transação da escrita; o catálogo em memória só o recebe após o commit
+public record ProductChangedEvent(Product product, boolean deleted) {
+}
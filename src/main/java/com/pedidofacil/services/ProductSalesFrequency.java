@@ -0,0 +1,194 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.OrderItem;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Quantas vezes cada produto já foi vendido (itens de pedido), para a busca do seletor de produtos pôr os mais
+ * vendidos na frente entre os que casam igualmente bem com o texto digitado.
+ * <p>
+ * Carregado em segundo plano na subida (uma contagem pelo índice de {@code order_items} por produto); pedidos
+ * novos entram após o commit ({@link OrderCreatedEvent}). Um contador atômico por id de produto: o pedido soma no
+ * lugar, sem copiar nada, e a busca lê sem lock. Até a carga terminar, todo produto conta zero.
+ */
+@Service
+public class ProductSalesFrequency {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSalesFrequency.class);
+
+    private static final String MAX_ID = "SELECT coalesce(max(id), 0) FROM orders";
+    // Só o índice por produto, sem ler a tabela (o produto repetido num pedido conta cada item)
+    private static final String COUNTS = "SELECT product_id, count(*) FROM order_items GROUP BY product_id";
+
+    // Ids do IDENTITY começam em 1 e são densos; acima deste o produto fica sem contagem em vez de alocar o array
+    static final int MAX_PRODUCT_ID = 1 << 22;
+
+    private final DataSource readDataSource;
+
+    // Itens por id de produto, lidos sem lock; trocado por um array maior (sob this) quando aparece um id além do fim
+    private volatile AtomicLongArray counts = new AtomicLongArray(0);
+    // Guardados por this
+    private boolean loaded;
+    private long lastOrderId;
+    // Pedidos confirmados durante a carga; aplicados no fim, exceto os que a leitura já trouxe
+    private List<Order> pending;
+    private volatile Thread loader;
+
+    public ProductSalesFrequency(@Qualifier("readDataSource") DataSource readDataSource) {
+        this.readDataSource = readDataSource;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        Thread thread = new Thread(this::load, "product-frequency-loader");
+        thread.setDaemon(true);
+        loader = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = loader;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Conta os itens de pedido de cada produto numa transação somente leitura. Síncrono; na subida roda na thread
+     * {@code product-frequency-loader}.
+     */
+    public void load() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            loaded = false;
+            pending = new ArrayList<>();
+        }
+        LongSums read = new LongSums(1, 1024);
+        long maxId;
+        try {
+            maxId = read(read);
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Falha ao contar as vendas por produto; a busca de produtos ordena só pelo texto", e);
+            synchronized (this) {
+                pending = null;
+            }
+            return;
+        }
+        synchronized (this) {
+            long[] products = read.keys();
+            int size = products.length == 0 ? 0 : slots(products[products.length - 1]);
+            AtomicLongArray table = new AtomicLongArray(size);
+            for (long product : products) {
+                if (product > 0 && product < MAX_PRODUCT_ID) {
+                    table.set((int) product, read.get(product, 0));
+                }
+            }
+            counts = table;
+            lastOrderId = maxId;
+            loaded = true;
+            for (Order order : pending) {
+                add(order);
+            }
+            pending = null;
+        }
+        log.info("Vendas por produto contadas em {} ms: {} produtos",
+                (System.nanoTime() - started) / 1_000_000, read.size());
+    }
+
+    private static int slots(long maxProductId) {
+        return (int) Math.min(MAX_PRODUCT_ID, maxProductId + 1);
+    }
+
+    private long read(LongSums loaded) throws SQLException {
+        try (Connection connection = readDataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                // Mesma transação: os itens contados são exatamente os dos pedidos até o último id
+                long maxId;
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery(MAX_ID)) {
+                    rs.next();
+                    maxId = rs.getLong(1);
+                }
+                try (PreparedStatement statement = connection.prepareStatement(COUNTS)) {
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            if (Thread.currentThread().isInterrupted()) {
+                                throw new IllegalStateException("Carga interrompida");
+                            }
+                            loaded.add(rs.getLong(1), 0, rs.getLong(2));
+                        }
+                    }
+                }
+                return maxId;
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderCreated(OrderCreatedEvent event) {
+        Order order = event.order();
+        if (order.getId() == null) {
+            return;
+        }
+        if (pending != null) {
+            pending.add(order);
+        } else if (loaded) {
+            add(order);
+        }
+    }
+
+    // Soma os itens do pedido, exceto se a carga já o trouxe
+    private void add(Order order) {
+        if (order.getId() <= lastOrderId) {
+            return;
+        }
+        for (OrderItem item : order.getItems()) {
+            Long product = item.getProduct() == null ? null : item.getProduct().getId();
+            if (product == null || product <= 0 || product >= MAX_PRODUCT_ID) {
+                continue;
+            }
+            AtomicLongArray table = counts;
+            if (product >= table.length()) {
+                // Produto novo além do fim: só aqui há cópia, e o array dobra para as próximas
+                AtomicLongArray grown = new AtomicLongArray(slots(Math.max(product, 2L * table.length())));
+                for (int i = 0; i < table.length(); i++) {
+                    grown.set(i, table.get(i));
+                }
+                counts = table = grown;
+            }
+            table.incrementAndGet(product.intValue());
+        }
+    }
+
+    /**
+     * Quantos itens de pedido o produto tem (zero se nunca vendido ou antes da carga terminar).
+     */
+    public long count(long productId) {
+        AtomicLongArray table = counts;
+        return productId > 0 && productId < table.length() ? table.get((int) productId) : 0;
+    }
+}
@@ -0,0 +1,75 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.models.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Busca de produtos do seletor da tela de pedido, sobre o {@link ProductSearchIndex} da cópia atual do
+ * {@link ProductCatalog}. O índice é montado quando o catálogo carrega na subida (ou na primeira busca, o que vier
+ * antes) e, a cada troca do catálogo, atualizado só com os produtos que mudaram; as buscas leem o índice
+ * publicado sem lock. Entre produtos que casam igualmente bem, os mais vendidos ({@link ProductSalesFrequency})
+ * vêm primeiro.
+ */
+@Service
+public class ProductSearch {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearch.class);
+
+    private final ProductCatalog catalog;
+    private final ProductSalesFrequency sales;
+
+    // Lido sem lock pelas buscas; trocado só sob o lock de this
+    private volatile ProductSearchIndex index;
+
+    public ProductSearch(ProductCatalog catalog, ProductSalesFrequency sales) {
+        this.catalog = catalog;
+        this.sales = sales;
+        catalog.addListener(this::onCatalogChanged);
+    }
+
+    /**
+     * Os até {@code limit} produtos que casam com a busca, do melhor para o pior (ver
+     * {@link ProductSearchIndex#search(String, int, java.util.function.LongUnaryOperator)}), com erros de digitação
+     * tolerados e os mais vendidos à frente nos empates.
+     */
+    public List<Product> search(String query, int limit) {
+        return index().find(query, limit, sales::count);
+    }
+
+    public ProductSearchIndex index() {
+        ProductSearchIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                if (index == null) {
+                    index = build(catalog.snapshot());
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    // Na carga do catálogo ou na thread de quem gravou o produto, após o commit; cópias mais velhas são ignoradas
+    synchronized void onCatalogChanged(ProductCatalog.Snapshot snapshot) {
+        if (index == null) {
+            index = build(snapshot);
+            return;
+        }
+        long started = System.nanoTime();
+        index = index.update(snapshot);
+        log.debug("Índice de busca de produtos atualizado para a versão {} em {} µs",
+                index.version(), (System.nanoTime() - started) / 1_000);
+    }
+
+    private static ProductSearchIndex build(ProductCatalog.Snapshot snapshot) {
+        long started = System.nanoTime();
+        ProductSearchIndex built = ProductSearchIndex.build(snapshot);
+        log.info("Índice de busca de produtos montado em {} ms: {} produtos",
+                (System.nanoTime() - started) / 1_000_000, built.size());
+        return built;
+    }
+}
@@ -0,0 +1,843 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.models.Product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongUnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Índice de busca do seletor de produtos sobre uma cópia do catálogo ({@link ProductCatalog.Snapshot}).
+ * As palavras do nome e da marca formam um vocabulário; cada palavra tem a lista dos produtos em que aparece.
+ * Uma tabela das palavras em ordem alfabética acha, por busca binária, as que começam com o texto digitado, e
+ * listas de trigramas (três letras seguidas) acham as que o contêm no meio. Cada palavra da busca precisa casar
+ * com o produto. Palavras digitadas com erro ("argamasa") casam, com menos pontos, com as do vocabulário a
+ * uma ou duas edições de distância, achadas numa BK-tree. A ordem é pela qualidade do casamento, depois pelas
+ * vendas do produto (quando informadas) e depois pelo nome.
+ * <p>
+ * As palavras são guardadas já sem acento e em minúsculas ({@link #fold}), calculadas uma vez quando o produto
+ * entra no índice; a cada busca só o texto digitado é normalizado, e "itau" acha "Cimento Itaú".
+ * <p>
+ * Produtos sem id (ainda não salvos) ficam de fora. Imutável: a cópia seguinte do catálogo gera, por
+ * {@link #update}, um índice novo que só reindexa o produto que mudou e reaproveita as demais listas.
+ */
+public final class ProductSearchIndex {
+
+    // Pontos de cada palavra da busca: igual a uma palavra do produto, começo de palavra, trecho do meio e, com
+    // erro de digitação, FUZZY a uma edição de distância e FUZZY - 1 a duas
+    static final int EXACT = 8;
+    static final int PREFIX = 6;
+    static final int SUBSTRING = 4;
+    static final int FUZZY = 2;
+
+    private static final int TRIGRAM = 3;
+    // Palavras da busca com menos letras que isso não são corrigidas; a partir de TWO_EDITS, até duas edições
+    private static final int ONE_EDIT = 4;
+    private static final int TWO_EDITS = 7;
+    // Palavras novas fora da BK-tree, conferidas uma a uma, antes de a árvore ser refeita numa atualização
+    private static final int UNTREED = 256;
+
+    private static final LongUnaryOperator NO_SALES = id -> 0;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Vetores de trabalho da busca, por thread, reaproveitados entre buscas (limpos ao fim de cada uma)
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final ProductCatalog.Snapshot catalog;
+    // Por posição, em ordem de id: produto (null nas posições liberadas), id, palavras normalizadas (nome e depois
+    // marca, separadas por espaço) e os quatro primeiros chars delas, para desempatar sem comparar strings
+    private final Product[] products;
+    private final long[] ids;
+    private final String[] texts;
+    private final long[] sortKeys;
+    private final int holes;
+    // Vocabulário: palavra e posições (crescentes) por número da palavra; números em ordem alfabética da palavra
+    private final String[] terms;
+    private final int[][] postings;
+    private final int[] lexical;
+    // Trigrama (três chars num long) → números das palavras que o contêm, crescentes
+    private final Map<Long, int[]> trigrams;
+    // Distância de edição entre as palavras de número menor que tree.size; as demais são conferidas uma a uma
+    private final BkTree tree;
+
+    private ProductSearchIndex(ProductCatalog.Snapshot catalog, Product[] products, long[] ids, String[] texts,
+                               long[] sortKeys, int holes, String[] terms, int[][] postings, int[] lexical,
+                               Map<Long, int[]> trigrams, BkTree tree) {
+        this.catalog = catalog;
+        this.products = products;
+        this.ids = ids;
+        this.texts = texts;
+        this.sortKeys = sortKeys;
+        this.holes = holes;
+        this.terms = terms;
+        this.postings = postings;
+        this.lexical = lexical;
+        this.trigrams = trigrams;
+        this.tree = tree;
+    }
+
+    /**
+     * Indexa todos os produtos da cópia.
+     */
+    public static ProductSearchIndex build(ProductCatalog.Snapshot catalog) {
+        Product[] products = catalog.products().stream()
+                .filter(p -> p.getId() != null)
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .toArray(Product[]::new);
+        int size = products.length;
+        long[] ids = new long[size];
+        String[] texts = new String[size];
+        long[] sortKeys = new long[size];
+        Map<String, Integer> vocabulary = new HashMap<>();
+        List<IntList> lists = new ArrayList<>();
+        for (int position = 0; position < size; position++) {
+            String[] keys = keys(products[position]);
+            ids[position] = products[position].getId();
+            texts[position] = String.join(" ", keys);
+            sortKeys[position] = sortKey(texts[position]);
+            for (String key : keys) {
+                Integer term = vocabulary.get(key);
+                if (term == null) {
+                    term = lists.size();
+                    vocabulary.put(key, term);
+                    lists.add(new IntList());
+                }
+                // Posições crescentes: cada lista já sai ordenada
+                lists.get(term).add(position);
+            }
+        }
+        String[] terms = new String[lists.size()];
+        vocabulary.forEach((key, term) -> terms[term] = key);
+        int[][] postings = new int[terms.length][];
+        for (int term = 0; term < terms.length; term++) {
+            postings[term] = lists.get(term).toArray();
+        }
+        int[] lexical = IntStream.range(0, terms.length).boxed()
+                .sorted((a, b) -> terms[a].compareTo(terms[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        Map<Long, IntList> grams = new HashMap<>();
+        for (int term = 0; term < terms.length; term++) {
+            for (long trigram : trigrams(terms[term])) {
+                grams.computeIfAbsent(trigram, t -> new IntList()).add(term);
+            }
+        }
+        Map<Long, int[]> trigrams = new HashMap<>(grams.size() * 2);
+        grams.forEach((trigram, list) -> trigrams.put(trigram, list.toArray()));
+        return new ProductSearchIndex(catalog, products, ids, texts, sortKeys, 0, terms, postings, lexical, trigrams,
+                BkTree.build(terms));
+    }
+
+    /**
+     * O índice de uma cópia mais nova do catálogo. Se ela é a versão seguinte a esta, só o produto que mudou
+     * ({@link ProductCatalog.Snapshot#changedId()}) é reindexado: saem as posições dele das listas das palavras
+     * antigas e entram nas das novas. Saltos de versão comparam as duas cópias produto a produto; mudanças
+     * demais, ids fora de ordem ou posições liberadas demais refazem o índice inteiro.
+     */
+    public ProductSearchIndex update(ProductCatalog.Snapshot next) {
+        if (next.version() <= catalog.version()) {
+            return this;
+        }
+        List<Long> changed;
+        if (next.version() == catalog.version() + 1 && next.changedId() != null) {
+            changed = List.of(next.changedId());
+        } else {
+            changed = changedIds(next);
+            if (changed == null) {
+                return build(next);
+            }
+        }
+        Builder builder = new Builder(next);
+        for (long id : changed) {
+            if (!builder.apply(id)) {
+                return build(next);
+            }
+        }
+        if (builder.holes * 4 > Math.max(builder.products.length, 64)) {
+            return build(next);
+        }
+        return builder.build();
+    }
+
+    // Ids incluídos, alterados (outra instância) ou removidos entre esta cópia e next; null se forem muitos
+    private List<Long> changedIds(ProductCatalog.Snapshot next) {
+        int limit = Math.max(size(), 64) / 8;
+        List<Long> changed = new ArrayList<>();
+        for (Product product : next.products()) {
+            if (product.getId() != null && catalog.find(product.getId()) != product) {
+                changed.add(product.getId());
+            }
+        }
+        for (Product product : catalog.products()) {
+            if (product.getId() != null && next.find(product.getId()) == null) {
+                changed.add(product.getId());
+            }
+        }
+        return changed.size() > limit ? null : changed;
+    }
+
+    public long version() {
+        return catalog.version();
+    }
+
+    public ProductCatalog.Snapshot catalog() {
+        return catalog;
+    }
+
+    public int size() {
+        return products.length - holes;
+    }
+
+    /**
+     * Ids dos até {@code limit} produtos que casam com todas as palavras da busca, do melhor para o pior:
+     * mais pontos (palavra igual, começo de palavra, trecho com três letras ou mais, palavra com erro de
+     * digitação), depois nome em ordem alfabética. Busca em branco devolve vazio.
+     */
+    public long[] search(String query, int limit) {
+        return search(query, limit, NO_SALES);
+    }
+
+    /**
+     * Como {@link #search(String, int)}, mas entre produtos com os mesmos pontos vêm antes os de mais vendas
+     * ({@code sales} recebe o id do produto), e só então o nome.
+     */
+    public long[] search(String query, int limit, LongUnaryOperator sales) {
+        int[] ranked = rank(query, limit, sales);
+        long[] found = new long[ranked.length];
+        for (int i = 0; i < ranked.length; i++) {
+            found[i] = ids[ranked[i]];
+        }
+        return found;
+    }
+
+    /**
+     * Os produtos de {@link #search(String, int)}, na mesma ordem.
+     */
+    public List<Product> find(String query, int limit) {
+        return find(query, limit, NO_SALES);
+    }
+
+    /**
+     * Os produtos de {@link #search(String, int, LongUnaryOperator)}, na mesma ordem.
+     */
+    public List<Product> find(String query, int limit, LongUnaryOperator sales) {
+        int[] ranked = rank(query, limit, sales);
+        List<Product> found = new ArrayList<>(ranked.length);
+        for (int position : ranked) {
+            found.add(products[position]);
+        }
+        return found;
+    }
+
+    private int[] rank(String query, int limit, LongUnaryOperator sales) {
+        String[] words = new LinkedHashSet<>(Arrays.asList(words(query))).toArray(new String[0]);
+        if (words.length == 0 || limit <= 0) {
+            return new int[0];
+        }
+        // Palavras do vocabulário que casam com cada palavra da busca; a de listas mais curtas vai primeiro
+        long[][] matches = new long[words.length][];
+        long[] costs = new long[words.length];
+        for (int i = 0; i < words.length; i++) {
+            matches[i] = matchTerms(words[i]);
+            if (matches[i].length == 0) {
+                return new int[0];
+            }
+            for (long match : matches[i]) {
+                costs[i] += postings[term(match)].length;
+            }
+        }
+        Integer[] order = new Integer[words.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(costs[a], costs[b]));
+
+        Scratch scratch = SCRATCH.get().ensure(products.length);
+        int candidates = 0;
+        try {
+            for (int step = 1; step <= order.length; step++) {
+                for (long match : matches[order[step - 1]]) {
+                    int points = points(match);
+                    for (int position : postings[term(match)]) {
+                        int level = scratch.levels[position];
+                        if (level == step - 1) {
+                            // Primeira palavra do vocabulário desta palavra da busca a casar com o produto
+                            if (step == 1) {
+                                scratch.candidates[candidates++] = position;
+                            }
+                            scratch.levels[position] = step;
+                            scratch.scores[position] += points;
+                            scratch.added[position] = (byte) points;
+                        } else if (level == step && points > scratch.added[position]) {
+                            scratch.scores[position] += points - scratch.added[position];
+                            scratch.added[position] = (byte) points;
+                        }
+                    }
+                }
+            }
+            return select(scratch, candidates, order.length, limit, sales);
+        } finally {
+            for (int i = 0; i < candidates; i++) {
+                int position = scratch.candidates[i];
+                scratch.levels[position] = 0;
+                scratch.scores[position] = 0;
+                scratch.added[position] = 0;
+            }
+        }
+    }
+
+    // Os melhores candidatos que casaram com todas as palavras, sem ordenar todos: heap com o pior no topo
+    private int[] select(Scratch scratch, int candidates, int words, int limit, LongUnaryOperator sales) {
+        int[] heap = new int[Math.min(limit, candidates)];
+        int size = 0;
+        for (int i = 0; i < candidates; i++) {
+            int position = scratch.candidates[i];
+            if (scratch.levels[position] != words) {
+                continue;
+            }
+            // Uma consulta por candidato; as comparações do heap leem daqui
+            scratch.sales[position] = sales.applyAsLong(ids[position]);
+            if (size < heap.length) {
+                heap[size] = position;
+                siftUp(scratch, heap, size++);
+            } else if (compareRank(scratch, position, heap[0]) < 0) {
+                heap[0] = position;
+                siftDown(scratch, heap, size);
+            }
+        }
+        int[] ranked = new int[size];
+        while (size > 0) {
+            ranked[size - 1] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(scratch, heap, size);
+        }
+        return ranked;
+    }
+
+    private void siftUp(Scratch scratch, int[] heap, int at) {
+        while (at > 0) {
+            int parent = (at - 1) >>> 1;
+            if (compareRank(scratch, heap[at], heap[parent]) <= 0) {
+                return;
+            }
+            swap(heap, at, parent);
+            at = parent;
+        }
+    }
+
+    private void siftDown(Scratch scratch, int[] heap, int size) {
+        int at = 0;
+        while (true) {
+            int worst = at;
+            for (int child = 2 * at + 1; child <= 2 * at + 2 && child < size; child++) {
+                if (compareRank(scratch, heap[child], heap[worst]) > 0) {
+                    worst = child;
+                }
+            }
+            if (worst == at) {
+                return;
+            }
+            swap(heap, at, worst);
+            at = worst;
+        }
+    }
+
+    // Menor é melhor: mais pontos, mais vendas, depois palavras (nome) em ordem alfabética, depois id
+    private int compareRank(Scratch scratch, int a, int b) {
+        int byScore = Integer.compare(scratch.scores[b], scratch.scores[a]);
+        if (byScore != 0) {
+            return byScore;
+        }
+        int bySales = Long.compare(scratch.sales[b], scratch.sales[a]);
+        if (bySales != 0) {
+            return bySales;
+        }
+        int byKey = Long.compareUnsigned(sortKeys[a], sortKeys[b]);
+        if (byKey != 0) {
+            return byKey;
+        }
+        int byText = texts[a].compareTo(texts[b]);
+        return byText != 0 ? byText : Integer.compare(a, b);
+    }
+
+    // Palavras do vocabulário que casam com a da busca, (número << 8 | pontos)
+    private long[] matchTerms(String word) {
+        int from = lowerBound(word);
+        int to = lowerBound(word + Character.MAX_VALUE);
+        long[] found = new long[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            found[count++] = match(lexical[i], terms[lexical[i]].length() == word.length() ? EXACT : PREFIX);
+        }
+        if (word.length() >= TRIGRAM) {
+            // Palavras que têm todos os trigramas da busca: começa pela lista mais curta e confere o trecho
+            int[] candidates = null;
+            for (long trigram : trigrams(word)) {
+                int[] list = trigrams.get(trigram);
+                if (list == null) {
+                    candidates = new int[0];
+                    break;
+                }
+                candidates = candidates == null || list.length < candidates.length
+                        ? intersect(list, candidates) : intersect(candidates, list);
+            }
+            if (candidates != null && candidates.length > 0) {
+                found = Arrays.copyOf(found, count + candidates.length);
+                for (int term : candidates) {
+                    String candidate = terms[term];
+                    if (!candidate.startsWith(word) && candidate.contains(word)) {
+                        found[count++] = match(term, SUBSTRING);
+                    }
+                }
+            }
+        }
+        if (word.length() >= ONE_EDIT && letters(word)) {
+            long[] fuzzy = fuzzyTerms(word, word.length() >= TWO_EDITS ? 2 : 1);
+            if (fuzzy.length > 0) {
+                found = Arrays.copyOf(found, count + fuzzy.length);
+                System.arraycopy(fuzzy, 0, found, count, fuzzy.length);
+                count += fuzzy.length;
+            }
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    // Palavras a até maxEdits edições da busca que não a contêm (essas já casaram acima), (número << 8 | pontos)
+    private long[] fuzzyTerms(String word, int maxEdits) {
+        int[] row = new int[word.length() + 1];
+        LongList found = new LongList();
+        tree.search(terms, word, maxEdits, row, (term, edits) -> {
+            if (!terms[term].contains(word)) {
+                found.add(match(term, FUZZY + 1 - edits));
+            }
+        });
+        for (int term = tree.size(); term < terms.length; term++) {
+            int edits = distance(word, terms[term], row);
+            if (edits <= maxEdits && !terms[term].contains(word)) {
+                found.add(match(term, FUZZY + 1 - edits));
+            }
+        }
+        return found.toArray();
+    }
+
+    // Números e medidas ("100mm") não são corrigidos: 100mm a uma edição de 150mm é outro produto
+    private static boolean letters(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isLetter(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Distância de Levenshtein (inserções, remoções e trocas de um char) entre a e b; {@code row} tem ao menos
+     * {@code a.length() + 1} posições e é só área de trabalho.
+     */
+    static int distance(String a, String b, int[] row) {
+        int n = a.length();
+        for (int i = 0; i <= n; i++) {
+            row[i] = i;
+        }
+        for (int j = 1; j <= b.length(); j++) {
+            char c = b.charAt(j - 1);
+            int diagonal = row[0];
+            row[0] = j;
+            for (int i = 1; i <= n; i++) {
+                int above = row[i];
+                row[i] = Math.min(Math.min(row[i] + 1, row[i - 1] + 1), diagonal + (a.charAt(i - 1) == c ? 0 : 1));
+                diagonal = above;
+            }
+        }
+        return row[n];
+    }
+
+    // Interseção de duas listas crescentes; b null é "tudo"
+    private static int[] intersect(int[] a, int[] b) {
+        if (b == null) {
+            return a;
+        }
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // Primeira posição da tabela alfabética com palavra >= key
+    private int lowerBound(String key) {
+        return lowerBound(terms, lexical, key);
+    }
+
+    private static int lowerBound(String[] terms, int[] lexical, String key) {
+        int low = 0;
+        int high = lexical.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[lexical[mid]].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long match(int term, int points) {
+        return ((long) term << 8) | points;
+    }
+
+    private static int term(long match) {
+        return (int) (match >>> 8);
+    }
+
+    private static int points(long match) {
+        return (int) (match & 0xFF);
+    }
+
+    private static void swap(int[] values, int a, int b) {
+        int value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+    }
+
+    // Os quatro primeiros chars, em ordem: comparados sem sinal, ordenam como as strings
+    private static long sortKey(String text) {
+        long key = 0;
+        for (int i = 0; i < 4; i++) {
+            key = (key << 16) | (i < text.length() ? text.charAt(i) : 0);
+        }
+        return key;
+    }
+
+    // Palavras de busca do produto: nome e depois marca, sem repetir
+    static String[] keys(Product product) {
+        Set<String> keys = new LinkedHashSet<>(Arrays.asList(words(product.getName())));
+        keys.addAll(Arrays.asList(words(product.getBrand())));
+        return keys.toArray(new String[0]);
+    }
+
+    // Sem acento e em minúsculas, separadas em tudo o que não é letra ou dígito
+    static String[] words(String text) {
+        if (text == null || text.isBlank()) {
+            return new String[0];
+        }
+        return Arrays.stream(SPLIT.split(fold(text)))
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * A forma do texto usada nas comparações: decomposto (NFD), sem as marcas de acento e com caixa dobrada,
+     * de modo que "Itaú", "ITAU" e "itau" ficam iguais e "Sifão" vira "sifao". Texto só ASCII não passa pela
+     * decomposição.
+     */
+    static String fold(String text) {
+        if (!ascii(text)) {
+            text = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean ascii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Trigramas distintos da palavra, cada um com os três chars num long
+    private static Set<Long> trigrams(String word) {
+        Set<Long> codes = new LinkedHashSet<>();
+        for (int i = 0; i + TRIGRAM <= word.length(); i++) {
+            codes.add(((long) word.charAt(i) << 32) | ((long) word.charAt(i + 1) << 16) | word.charAt(i + 2));
+        }
+        return codes;
+    }
+
+    private static int[] remove(int[] list, int value) {
+        int at = Arrays.binarySearch(list, value);
+        if (at < 0) {
+            return list;
+        }
+        int[] result = new int[list.length - 1];
+        System.arraycopy(list, 0, result, 0, at);
+        System.arraycopy(list, at + 1, result, at, list.length - at - 1);
+        return result;
+    }
+
+    private static int[] insert(int[] list, int value) {
+        int at = Arrays.binarySearch(list, value);
+        if (at >= 0) {
+            return list;
+        }
+        at = -at - 1;
+        int[] result = new int[list.length + 1];
+        System.arraycopy(list, 0, result, 0, at);
+        result[at] = value;
+        System.arraycopy(list, at, result, at + 1, list.length - at);
+        return result;
+    }
+
+    // Cópias dos vetores deste índice, alteradas produto a produto até virar o índice de next
+    private final class Builder {
+        final ProductCatalog.Snapshot next;
+        Product[] products = ProductSearchIndex.this.products.clone();
+        long[] ids = ProductSearchIndex.this.ids.clone();
+        String[] texts = ProductSearchIndex.this.texts.clone();
+        long[] sortKeys = ProductSearchIndex.this.sortKeys.clone();
+        int holes = ProductSearchIndex.this.holes;
+        String[] terms = ProductSearchIndex.this.terms;
+        int[][] postings = ProductSearchIndex.this.postings.clone();
+        int[] lexical = ProductSearchIndex.this.lexical;
+        Map<Long, int[]> trigrams = ProductSearchIndex.this.trigrams;
+        // Palavras novas copiam o mapa de trigramas uma vez por atualização
+        boolean trigramsCopied;
+
+        Builder(ProductCatalog.Snapshot next) {
+            this.next = next;
+        }
+
+        // false se o id não cabe na ordem das posições (id novo menor que o maior já indexado)
+        boolean apply(long id) {
+            int position = Arrays.binarySearch(ids, id);
+            if (position >= 0 && products[position] != null) {
+                for (String key : split(texts[position])) {
+                    int term = find(key);
+                    postings[term] = remove(postings[term], position);
+                }
+                products[position] = null;
+                texts[position] = "";
+                holes++;
+            }
+            Product product = next.find(id);
+            if (product == null) {
+                return true;
+            }
+            if (position < 0) {
+                if (ids.length > 0 && id < ids[ids.length - 1]) {
+                    return false;
+                }
+                position = ids.length;
+                products = Arrays.copyOf(products, position + 1);
+                ids = Arrays.copyOf(ids, position + 1);
+                texts = Arrays.copyOf(texts, position + 1);
+                sortKeys = Arrays.copyOf(sortKeys, position + 1);
+                ids[position] = id;
+            } else {
+                holes--;
+            }
+            String[] keys = keys(product);
+            products[position] = product;
+            texts[position] = String.join(" ", keys);
+            sortKeys[position] = sortKey(texts[position]);
+            for (String key : keys) {
+                int term = find(key);
+                if (term < 0) {
+                    term = add(key);
+                }
+                postings[term] = insert(postings[term], position);
+            }
+            return true;
+        }
+
+        private String[] split(String text) {
+            return text.isEmpty() ? new String[0] : text.split(" ");
+        }
+
+        private int find(String key) {
+            int at = lowerBound(terms, lexical, key);
+            return at < lexical.length && terms[lexical[at]].equals(key) ? lexical[at] : -1;
+        }
+
+        // Palavra nova: número no fim do vocabulário, lista vazia e os trigramas dela
+        private int add(String key) {
+            if (!trigramsCopied) {
+                trigrams = new HashMap<>(trigrams);
+                trigramsCopied = true;
+            }
+            int term = terms.length;
+            terms = Arrays.copyOf(terms, term + 1);
+            terms[term] = key;
+            postings = Arrays.copyOf(postings, term + 1);
+            postings[term] = new int[0];
+            int at = lowerBound(terms, lexical, key);
+            int[] grown = new int[lexical.length + 1];
+            System.arraycopy(lexical, 0, grown, 0, at);
+            grown[at] = term;
+            System.arraycopy(lexical, at, grown, at + 1, lexical.length - at);
+            lexical = grown;
+            for (long trigram : trigrams(key)) {
+                int[] list = trigrams.get(trigram);
+                trigrams.put(trigram, list == null ? new int[]{term} : insert(list, term));
+            }
+            return term;
+        }
+
+        ProductSearchIndex build() {
+            // Palavras novas demais para conferir uma a uma: a árvore é refeita com todas
+            BkTree bkTree = terms.length - tree.size() > UNTREED ? BkTree.build(terms) : tree;
+            return new ProductSearchIndex(next, products, ids, texts, sortKeys, holes, terms, postings, lexical,
+                    trigrams, bkTree);
+        }
+    }
+
+    /**
+     * BK-tree das palavras do vocabulário: cada palavra fica abaixo da outra pela distância de edição entre as
+     * duas, e a desigualdade triangular deixa a busca descer só pelos ramos que podem ter palavras a até
+     * {@code maxEdits} edições. Em arrays por número da palavra; a raiz é a palavra 0.
+     */
+    private static final class BkTree {
+
+        interface Hits {
+            void accept(int term, int edits);
+        }
+
+        // Primeiro filho, próximo irmão e distância até o pai, por número da palavra (-1: nenhum)
+        private final int[] child;
+        private final int[] sibling;
+        private final int[] edge;
+
+        private BkTree(int size) {
+            child = new int[size];
+            sibling = new int[size];
+            edge = new int[size];
+            Arrays.fill(child, -1);
+            Arrays.fill(sibling, -1);
+        }
+
+        static BkTree build(String[] terms) {
+            BkTree tree = new BkTree(terms.length);
+            int[] row = new int[1];
+            for (int term = 1; term < terms.length; term++) {
+                if (row.length <= terms[term].length()) {
+                    row = new int[terms[term].length() + 1];
+                }
+                int node = 0;
+                while (true) {
+                    int edits = distance(terms[term], terms[node], row);
+                    int next = tree.child[node];
+                    while (next >= 0 && tree.edge[next] != edits) {
+                        next = tree.sibling[next];
+                    }
+                    if (next < 0) {
+                        tree.edge[term] = edits;
+                        tree.sibling[term] = tree.child[node];
+                        tree.child[node] = term;
+                        break;
+                    }
+                    node = next;
+                }
+            }
+            return tree;
+        }
+
+        // Palavras da árvore
+        int size() {
+            return child.length;
+        }
+
+        // Cada palavra a até maxEdits edições de word (exceto ela mesma); row tem word.length() + 1 posições
+        void search(String[] terms, String word, int maxEdits, int[] row, Hits hits) {
+            if (child.length == 0) {
+                return;
+            }
+            int[] stack = new int[16];
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                int edits = distance(word, terms[node], row);
+                if (edits > 0 && edits <= maxEdits) {
+                    hits.accept(node, edits);
+                }
+                for (int next = child[node]; next >= 0; next = sibling[next]) {
+                    if (Math.abs(edge[next] - edits) <= maxEdits) {
+                        if (top == stack.length) {
+                            stack = Arrays.copyOf(stack, top * 2);
+                        }
+                        stack[top++] = next;
+                    }
+                }
+            }
+        }
+    }
+
+    // Lista de longs que cresce conforme a busca
+    private static final class LongList {
+        long[] values = new long[8];
+        int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    // Lista de ints que cresce conforme a montagem
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class Scratch {
+        int[] levels = new int[0];
+        int[] scores = new int[0];
+        byte[] added = new byte[0];
+        int[] candidates = new int[0];
+        long[] sales = new long[0];
+
+        Scratch ensure(int size) {
+            if (levels.length < size) {
+                levels = new int[size];
+                scores = new int[size];
+                added = new byte[size];
+                candidates = new int[size];
+                sales = new long[size];
+            }
+            return this;
+        }
+    }
+}
@@ -1,27 +1,34 @@
 package com.pedidofacil.services;
 
 import com.pedidofacil.models.Product;
+import com.pedidofacil.persistence.IWriteQueue;
 import com.pedidofacil.repositories.ProductRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @Service
 public class ProductService implements IProductService {
 
     private final ProductRepository repository;
+    private final IWriteQueue writeQueue;
+    private final ApplicationEventPublisher events;
 
-    public ProductService(ProductRepository repository) {
+    public ProductService(ProductRepository repository, IWriteQueue writeQueue, ApplicationEventPublisher events) {
         this.repository = repository;
+        this.writeQueue = writeQueue;
+        this.events = events;
     }
 
+    // Escritas passam pela fila de escrita, que abre (e agrupa) as transações
     @Override
-    @Transactional
     public Product save(Product p) {
-        return repository.save(p);
+        return writeQueue.execute(insertOrUpdate(p));
     }
 
     @Override
@@ -31,15 +38,13 @@ public class ProductService implements IProductService {
     }
 
     @Override
-    @Transactional
     public void delete(Product p) {
-        repository.delete(p);
+        writeQueue.execute(() -> remove(p));
     }
 
     @Override
-    @Async
     public CompletableFuture<Product> saveAsync(Product p) {
-        return CompletableFuture.completedFuture(save(p));
+        return writeQueue.submit(insertOrUpdate(p));
     }
 
     @Override
@@ -49,9 +54,26 @@ public class ProductService implements IProductService {
     }
 
     @Override
-    @Async
     public CompletableFuture<Void> deleteAsync(Product p) {
-        delete(p);
-        return CompletableFuture.completedFuture(null);
+        return writeQueue.submit(() -> remove(p));
+    }
+
+    // Executados pela fila de escrita, já dentro da transação do grupo; o catálogo só vê a mudança após o commit.
+    // Se o grupo for desfeito, a repetição volta ao id que o produto tinha ao ser enfileirado, não ao gerado na
+    // tentativa desfeita
+    private Supplier<Product> insertOrUpdate(Product p) {
+        Long id = p.getId();
+        return () -> {
+            p.setId(id);
+            Product saved = repository.save(p);
+            events.publishEvent(new ProductChangedEvent(saved, false));
+            return saved;
+        };
+    }
+
+    private Void remove(Product p) {
+        repository.delete(p);
+        events.publishEvent(new ProductChangedEvent(p, true));
+        return null;
     }
 }
@@ -1,35 +1,70 @@
 package com.pedidofacil.services;
 
-import com.pedidofacil.models.Customer;
-import com.pedidofacil.models.Order;
+import com.pedidofacil.config.ReportEngineSettings;
 import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.TimeKeys;
+import com.pedidofacil.persistence.IWriteQueue;
 import com.pedidofacil.repositories.OrderRepository;
+import com.pedidofacil.repositories.SalesSummaryRepository;
 import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.MonthlySalesView;
+import com.pedidofacil.repositories.projections.OrderPaymentTotal;
+import com.pedidofacil.repositories.projections.OrderTotal;
 import com.pedidofacil.repositories.projections.PaymentDistributionView;
 import com.pedidofacil.repositories.projections.ProductSalesView;
 import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TicketPercentileView;
 import com.pedidofacil.repositories.projections.TopCustomerView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.stream.Stream;
+
+// Somente leitura: as consultas vão para o pool de leitura e não disputam a conexão do balcão.
+// Vendas por dia, formas de pagamento, ticket médio e produtos saem do resumo diário (SalesSummaryRepository),
+// que cresce com o número de dias do período, não com o de pedidos.
+// Total por forma de pagamento e ticket médio saem das somas de prefixo em memória (PaymentRangeIndex) quando montadas.
+// Com os pedidos em memória carregados (OrderColumnStore, opcional), os demais relatórios saem de lá.
+// Agrupamentos livres (marca, cliente, hora...) saem do cubo de vendas (SalesCube), também em memória.
+// Top produtos e clientes de todo o período podem sair do TopSellersSketch (app.top-sellers.approximate), com erro.
+// Percentis do ticket saem dos resumos por dia (TicketDigests), ou de um resumo montado em fluxo enquanto não carregam.
 @Service
+@Transactional(readOnly = true)
 public class ReportService implements IReportService {
 
     private static final Logger log = LoggerFactory.getLogger(ReportService.class);
     private final OrderRepository orderRepository;
-
-    public ReportService(OrderRepository orderRepository) {
+    private final SalesSummaryRepository salesSummary;
+    private final IWriteQueue writeQueue;
+    private final ReportEngineSettings engineSettings;
+    private final OrderColumnStore orderStore;
+    private final PaymentRangeIndex paymentIndex;
+    private final SalesCube salesCube;
+    private final TopSellersSketch topSellers;
+    private final TicketDigests ticketDigests;
+
+    public ReportService(OrderRepository orderRepository, SalesSummaryRepository salesSummary, IWriteQueue writeQueue,
+                         ReportEngineSettings engineSettings, OrderColumnStore orderStore, PaymentRangeIndex paymentIndex,
+                         SalesCube salesCube, TopSellersSketch topSellers, TicketDigests ticketDigests) {
         this.orderRepository = orderRepository;
+        this.salesSummary = salesSummary;
+        this.writeQueue = writeQueue;
+        this.engineSettings = engineSettings;
+        this.orderStore = orderStore;
+        this.paymentIndex = paymentIndex;
+        this.salesCube = salesCube;
+        this.topSellers = topSellers;
+        this.ticketDigests = ticketDigests;
     }
 
     private LocalDateTime startOf(LocalDate d) {
@@ -40,68 +75,112 @@ public class ReportService implements IReportService {
         return d == null ? null : d.atTime(LocalTime.MAX);
     }
 
+    private static boolean allTime(LocalDate start, LocalDate end) {
+        return start == null && end == null;
+    }
+
     @Override
     public List<ProductSalesView> topProducts(LocalDate start, LocalDate end, int limit) {
-        return orderRepository.productSales(startOf(start), endOf(end), PageRequest.of(0, limit));
+        if (orderStore.isReady()) {
+            return orderStore.topProducts(start, end, limit);
+        }
+        if (allTime(start, end) && topSellers.canRank(limit)) {
+            return topSellers.topProducts(limit);
+        }
+        return salesSummary.productSales(start, end, PageRequest.of(0, limit));
     }
 
     @Override
     public List<PaymentDistributionView> paymentDistribution(LocalDate start, LocalDate end) {
-        return orderRepository.sumByPaymentMethod(startOf(start), endOf(end));
+        if (paymentIndex.isReady()) {
+            return paymentIndex.paymentDistribution(start, end);
+        }
+        if (orderStore.isReady()) {
+            return orderStore.paymentDistribution(start, end);
+        }
+        return salesSummary.sumByPaymentMethod(start, end);
     }
 
     @Override
     public List<TicketAverageView> ticketAverage(LocalDate start, LocalDate end) {
-        return orderRepository.ticketAverageByPayment(startOf(start), endOf(end));
+        if (paymentIndex.isReady()) {
+            return paymentIndex.ticketAverage(start, end);
+        }
+        if (orderStore.isReady()) {
+            return orderStore.ticketAverage(start, end);
+        }
+        return salesSummary.ticketAverageByPayment(start, end);
+    }
+
+    @Override
+    public List<TicketPercentileView> ticketPercentiles(LocalDate start, LocalDate end) {
+        if (ticketDigests.isReady()) {
+            return ticketDigests.ticketPercentiles(start, end);
+        }
+        // Sem ordenar os totais: um resumo por forma de pagamento, alimentado pelos pedidos lidos em fluxo
+        try (Stream<OrderPaymentTotal> totals = orderRepository.streamPaymentTotals(start, end,
+                engineSettings.getFetchSize())) {
+            return ticketDigests.ticketPercentiles(totals.iterator());
+        }
     }
 
     @Override
     public List<TopCustomerView> topCustomers(LocalDate start, LocalDate end, PaymentMethod method, int limit) {
+        if (orderStore.isReady()) {
+            return orderStore.topCustomers(start, end, method, limit);
+        }
+        if (allTime(start, end) && method == null && topSellers.canRank(limit)) {
+            return topSellers.topCustomers(limit);
+        }
         return orderRepository.topCustomers(startOf(start), endOf(end), method, PageRequest.of(0, limit));
     }
 
     @Override
     public List<DailySalesView> dailySales(LocalDate start, LocalDate end) {
+        if (orderStore.isReady()) {
+            return orderStore.dailySales(start, end);
+        }
         log.info("Buscando vendas diárias de {} até {}", start, end);
         try {
-            // Tenta primeiro a query nativa
-            List<DailySalesView> nativeResult = orderRepository.dailySales(startOf(start), endOf(end));
-            log.info("Query nativa retornou {} resultados", nativeResult.size());
-            if (!nativeResult.isEmpty()) {
-                log.debug("Usando resultado da query nativa para vendas diárias");
-                return nativeResult;
+            // Tenta primeiro o resumo diário
+            List<DailySalesView> summaryResult = salesSummary.dailySales(start, end);
+            log.info("Resumo diário retornou {} dias", summaryResult.size());
+            if (!summaryResult.isEmpty()) {
+                log.debug("Usando o resumo diário para vendas diárias");
+                return summaryResult;
             }
         } catch (Exception e) {
-            log.warn("Query nativa falhou, usando processamento manual: {}", e.getMessage());
+            log.warn("Leitura do resumo diário falhou, somando os pedidos do período em fluxo: {}", e.getMessage());
         }
 
-        // Fallback: processa manualmente os pedidos
-        List<Order> orders = orderRepository.findOrdersInPeriod(startOf(start), endOf(end));
-        log.info("Fallback encontrou {} pedidos no período", orders.size());
-        
-        if (orders.isEmpty()) {
-            log.info("Nenhum pedido encontrado no período");
-            return Collections.emptyList();
+        // Fallback: soma data e total de cada pedido em fluxo, sem carregar as entidades; a memória fica em
+        // uma soma por dia (em centavos), qualquer que seja o tamanho do período
+        LongSums centsByDay = new LongSums(1, 64);
+        long orders = 0;
+        try (Stream<OrderTotal> totals = orderRepository.streamOrderTotals(startOf(start), endOf(end),
+                engineSettings.getFetchSize())) {
+            for (Iterator<OrderTotal> it = totals.iterator(); it.hasNext(); ) {
+                OrderTotal order = it.next();
+                orders++;
+                if (order.createdAt() != null && order.total() != null) {
+                    centsByDay.add(TimeKeys.dayKey(order.createdAt().toLocalDate()), 0,
+                            Money.cents(order.total()));
+                }
+            }
         }
+        log.info("Soma em fluxo leu {} pedidos no período", orders);
 
-        // Agrupa por data
-        Map<LocalDate, BigDecimal> salesByDay = new TreeMap<>();
-        
-        for (Order order : orders) {
-            if (order.getCreatedAt() != null && order.getTotal() != null) {
-                LocalDate day = order.getCreatedAt().toLocalDate();
-                salesByDay.merge(day, order.getTotal(), BigDecimal::add);
-            }
+        if (centsByDay.size() == 0) {
+            log.info("Nenhum pedido encontrado no período");
+            return Collections.emptyList();
         }
 
-        // Converte para o formato esperado
-        List<DailySalesView> result = new ArrayList<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE;
-        
-        for (Map.Entry<LocalDate, BigDecimal> entry : salesByDay.entrySet()) {
+        // Converte para o formato esperado, em ordem de dia
+        List<DailySalesView> result = new ArrayList<>(centsByDay.size());
+        for (long day : centsByDay.keys()) {
             result.add(new DailySalesViewImpl(
-                entry.getKey().format(formatter),
-                entry.getValue()
+                TimeKeys.day((int) day).toString(),
+                Money.of(centsByDay.get(day, 0))
             ));
         }
 
@@ -109,6 +188,42 @@ public class ReportService implements IReportService {
         return result;
     }
 
+    @Override
+    public List<MonthlySalesView> monthlySales(LocalDate start, LocalDate end) {
+        if (orderStore.isReady()) {
+            return orderStore.monthlySales(start, end);
+        }
+        return orderRepository.monthlySales(start, end);
+    }
+
+    @Override
+    public List<HourlySalesView> hourlySales(LocalDate start, LocalDate end) {
+        if (orderStore.isReady()) {
+            return orderStore.hourlySales(start, end);
+        }
+        return orderRepository.hourlySales(start, end);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<CubeRow> cube(CubeQuery query) {
+        return salesCube.query(query);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void rebuildSummary() {
+        // Pela fila de escrita: o recálculo não concorre com o checkout e nenhum pedido fica de fora
+        long started = System.nanoTime();
+        writeQueue.execute(() -> {
+            salesSummary.rebuild();
+            return null;
+        });
+        log.info("Resumo de vendas recalculado em {} ms", (System.nanoTime() - started) / 1_000_000);
+        paymentIndex.rebuild();
+        topSellers.startLoading();
+    }
+
     // Implementação interna da interface DailySalesView
     private static class DailySalesViewImpl implements DailySalesView {
         private final String day;
@@ -0,0 +1,56 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.MonthlySalesView;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import com.pedidofacil.repositories.projections.ProductSalesView;
+import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TicketPercentileView;
+import com.pedidofacil.repositories.projections.TopCustomerView;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Todos os relatórios de um período, carregados juntos. Imutável: pode sair da thread das consultas
+ * para a da tela sem cópia. {@code timings} guarda quanto cada consulta levou, na ordem em que foram disparadas.
+ */
+public record ReportSnapshot(LocalDate start,
+                             LocalDate end,
+                             List<ProductSalesView> productSales,
+                             List<PaymentDistributionView> paymentDistribution,
+                             List<TicketAverageView> ticketAverages,
+                             List<TicketPercentileView> ticketPercentiles,
+                             List<TopCustomerView> topCustomers,
+                             List<DailySalesView> dailySales,
+                             List<MonthlySalesView> monthlySales,
+                             List<HourlySalesView> hourlySales,
+                             Map<String, Duration> timings,
+                             Duration elapsed) {
+
+    public ReportSnapshot {
+        productSales = List.copyOf(productSales);
+        paymentDistribution = List.copyOf(paymentDistribution);
+        ticketAverages = List.copyOf(ticketAverages);
+        ticketPercentiles = List.copyOf(ticketPercentiles);
+        topCustomers = List.copyOf(topCustomers);
+        dailySales = List.copyOf(dailySales);
+        monthlySales = List.copyOf(monthlySales);
+        hourlySales = List.copyOf(hourlySales);
+        // Map.copyOf perderia a ordem
+        timings = Collections.unmodifiableMap(new LinkedHashMap<>(timings));
+    }
+
+    // A consulta que mais demorou: com as consultas em paralelo, é ela que define o tempo total
+    public String slowest() {
+        return timings.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+}
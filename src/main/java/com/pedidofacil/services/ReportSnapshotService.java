@@ -0,0 +1,115 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.config.SqliteSettings;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Roda as consultas dos relatórios ao mesmo tempo, cada uma na sua transação somente leitura (pool de leitura).
+ * O número de threads é o tamanho do pool de leitura: nenhuma consulta fica parada esperando conexão, e o
+ * tempo total passa a ser o da consulta mais lenta em vez da soma de todas.
+ * <p>
+ * Com {@code app.report-engine.mode=SINGLE_PASS} os relatórios saem de uma leitura só ({@link SinglePassReportEngine}).
+ */
+@Service
+public class ReportSnapshotService implements IReportSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportSnapshotService.class);
+
+    private static final List<String> QUERIES = List.of(
+            "topProducts", "paymentDistribution", "ticketAverage", "ticketPercentiles", "topCustomers", "dailySales", "monthlySales",
+            "hourlySales");
+
+    private final IReportService reportService;
+    private final SinglePassReportEngine engine;
+    private final ReportEngineSettings engineSettings;
+    private final ExecutorService executor;
+
+    @Autowired
+    public ReportSnapshotService(IReportService reportService, SinglePassReportEngine engine,
+                                 ReportEngineSettings engineSettings, SqliteSettings sqliteSettings) {
+        this(reportService, engine, engineSettings, newExecutor(Math.max(1, sqliteSettings.getReadPoolSize())));
+    }
+
+    ReportSnapshotService(IReportService reportService, ExecutorService executor) {
+        this(reportService, null, new ReportEngineSettings(), executor);
+    }
+
+    ReportSnapshotService(IReportService reportService, SinglePassReportEngine engine,
+                          ReportEngineSettings engineSettings, ExecutorService executor) {
+        this.reportService = reportService;
+        this.engine = engine;
+        this.engineSettings = engineSettings;
+        this.executor = executor;
+    }
+
+    private static ExecutorService newExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, work -> {
+            Thread thread = new Thread(work, "report-query-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<ReportSnapshot> loadAsync(LocalDate start, LocalDate end, int limit) {
+        if (engineSettings.getMode() == ReportEngineSettings.Mode.SINGLE_PASS) {
+            return CompletableFuture.supplyAsync(() -> engine.snapshot(start, end, limit), executor);
+        }
+        long started = System.nanoTime();
+        Map<String, Duration> timings = new ConcurrentHashMap<>();
+        var products = timed("topProducts", timings, () -> reportService.topProducts(start, end, limit));
+        var payments = timed("paymentDistribution", timings, () -> reportService.paymentDistribution(start, end));
+        var tickets = timed("ticketAverage", timings, () -> reportService.ticketAverage(start, end));
+        var percentiles = timed("ticketPercentiles", timings, () -> reportService.ticketPercentiles(start, end));
+        var customers = timed("topCustomers", timings, () -> reportService.topCustomers(start, end, null, limit));
+        var daily = timed("dailySales", timings, () -> reportService.dailySales(start, end));
+        var monthly = timed("monthlySales", timings, () -> reportService.monthlySales(start, end));
+        var hourly = timed("hourlySales", timings, () -> reportService.hourlySales(start, end));
+
+        return CompletableFuture.allOf(products, payments, tickets, percentiles, customers, daily, monthly, hourly).thenApply(done -> {
+            Map<String, Duration> ordered = new LinkedHashMap<>();
+            QUERIES.forEach(name -> ordered.put(name, timings.get(name)));
+            ReportSnapshot snapshot = new ReportSnapshot(start, end, products.join(), payments.join(), tickets.join(),
+                    percentiles.join(), customers.join(), daily.join(), monthly.join(), hourly.join(), ordered,
+                    Duration.ofNanos(System.nanoTime() - started));
+            log.info("Relatórios de {} a {} em {} ms; mais lento: {} ({} ms)", start, end, snapshot.elapsed().toMillis(),
+                    snapshot.slowest(), ordered.get(snapshot.slowest()).toMillis());
+            log.debug("Tempo por consulta: {}", ordered);
+            return snapshot;
+        });
+    }
+
+    private <T> CompletableFuture<List<T>> timed(String name, Map<String, Duration> timings, Supplier<List<T>> query) {
+        return CompletableFuture.supplyAsync(() -> {
+            long started = System.nanoTime();
+            try {
+                return query.get();
+            } finally {
+                timings.put(name, Duration.ofNanos(System.nanoTime() - started));
+            }
+        }, executor);
+    }
+}
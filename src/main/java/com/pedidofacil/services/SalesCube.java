@@ -0,0 +1,680 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.config.SalesCubeSettings;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.TimeKeys;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+import static com.pedidofacil.services.CubeDimension.*;
+
+/**
+ * Cubo de vendas em memória: pedidos, quantidade e total agregados por dia, hora, forma de pagamento, produto e
+ * cliente, para {@link IReportService#cube(CubeQuery)} agrupar e filtrar em qualquer combinação suportada sem
+ * consultar os pedidos.
+ * <p>
+ * O cubo completo teria quase uma célula por item; em vez dele ficam três agregados esparsos (ver {@link Cuboid}),
+ * cada um com chaves {@code long} empacotadas em {@link LongSums}. A consulta usa o menor agregado que tem todas as
+ * dimensões pedidas, e o custo depende do número de células do período, não do de pedidos. Marca e mês saem do
+ * produto e do dia na hora da consulta.
+ * <p>
+ * Carregado em segundo plano na subida, passando cada pedido do banco pelo mesmo acréscimo dos pedidos novos,
+ * que entram após o commit ({@link OrderCreatedEvent}). Como no {@link OrderColumnStore}, a consulta lê uma versão
+ * publicada e nunca segura o lock que o escritor usa: os agregados de uma versão não mudam mais, e os pedidos
+ * chegados depois dela ficam numa lista à parte, somada na consulta até ser juntada numa versão nova.
+ */
+@Service
+public class SalesCube {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesCube.class);
+
+    public enum State { DISABLED, LOADING, READY, OVER_BUDGET, FAILED }
+
+    /**
+     * Agregados mantidos, do menor para o maior. Os de hora e de cliente são por pedido; o de produtos é por item,
+     * e um pedido conta uma vez em cada produto que teve. O de produtos já tem perto de uma célula por item, então
+     * separar também por hora quase não pesa; o de clientes por hora teria uma célula por pedido.
+     */
+    private enum Cuboid {
+        HOURS(EnumSet.of(DAY, MONTH, HOUR, PAYMENT_METHOD)),
+        PRODUCTS(EnumSet.of(DAY, MONTH, HOUR, PAYMENT_METHOD, PRODUCT, BRAND)),
+        CUSTOMERS(EnumSet.of(DAY, MONTH, PAYMENT_METHOD, CUSTOMER));
+
+        final Set<CubeDimension> dimensions;
+
+        Cuboid(Set<CubeDimension> dimensions) {
+            this.dimensions = dimensions;
+        }
+    }
+
+    private static final Cuboid[] CUBOIDS = Cuboid.values();
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+
+    // Chave: dia (epoch day ou yyyymm) | hora | forma de pagamento | id (produto, marca ou cliente)
+    private static final int DAY_SHIFT = 43;
+    private static final int HOUR_SHIFT = 38;
+    private static final int METHOD_SHIFT = 35;
+    private static final long ID_MASK = (1L << METHOD_SHIFT) - 1;
+    private static final int DAY_LIMIT = 1 << (63 - DAY_SHIFT);
+
+    // Colunas das somas
+    private static final int ORDERS = 0;
+    private static final int QUANTITY = 1;
+    private static final int TOTAL = 2;
+
+    private static final int SECONDS_PER_DAY = TimeKeys.SECONDS_PER_HOUR * TimeKeys.HOURS_PER_DAY;
+    // Pedido sem cliente; ids gerados começam em 1
+    private static final long NO_CUSTOMER = 0;
+    // Ordinal da "marca" de produto sem marca ou fora do cadastro
+    private static final int NO_BRAND = 0;
+    // Ids por IN nas buscas de nomes, abaixo do limite de parâmetros do SQLite
+    private static final int NAMES_PER_QUERY = 500;
+    // Pedidos recentes a partir dos quais a consulta junta uma versão nova; o escritor só junta no limite maior,
+    // para a lista não crescer sem fim quando ninguém consulta o cubo
+    static final int FOLD_AT = 1024;
+    private static final int WRITER_FOLD_AT = 16 * FOLD_AT;
+
+    private static final String PRODUCTS_SQL = "SELECT id, name, brand FROM products";
+    private static final String CUSTOMER_NAMES = "SELECT id, name FROM customers WHERE id IN ";
+
+    private final DataSource readDataSource;
+    private final SalesCubeSettings settings;
+    private final ReportEngineSettings engineSettings;
+
+    private final Object lock = new Object();
+    // Versão publicada (trocada sob lock, lida sem ele); null fora de READY
+    private volatile Cells cells;
+    // Pedidos confirmados durante a carga; aplicados no fim, exceto os que a leitura já trouxe
+    private List<OrderColumnStore.Row> pending;
+    private volatile State state = State.DISABLED;
+    private volatile Thread loader;
+
+    public SalesCube(@Qualifier("readDataSource") DataSource readDataSource, SalesCubeSettings settings,
+                     ReportEngineSettings engineSettings) {
+        this.readDataSource = readDataSource;
+        this.settings = settings;
+        this.engineSettings = engineSettings;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        Thread thread = new Thread(this::load, "sales-cube-loader");
+        thread.setDaemon(true);
+        loader = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = loader;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Agrega todos os pedidos do banco numa transação somente leitura e passa a responder por eles.
+     * Síncrono; na subida roda na thread {@code sales-cube-loader}.
+     */
+    public synchronized void load() {
+        long started = System.nanoTime();
+        synchronized (lock) {
+            cells = null;
+            state = State.LOADING;
+            pending = new ArrayList<>();
+        }
+        LongSums[] loaded = newCells(4096);
+        long budget = settings.getMemoryBudget().toBytes();
+        long lastId;
+        try {
+            lastId = read(loaded, budget);
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Falha ao carregar o cubo de vendas", e);
+            synchronized (lock) {
+                pending = null;
+                state = State.FAILED;
+            }
+            return;
+        }
+        synchronized (lock) {
+            List<OrderColumnStore.Row> arrived = pending;
+            pending = null;
+            for (int i = 0; lastId >= 0 && i < arrived.size(); i++) {
+                // A leitura vê o banco de um instante só, em ordem de id: até lastId ela já trouxe
+                if (arrived.get(i).id() > lastId) {
+                    add(loaded, arrived.get(i));
+                }
+            }
+            if (lastId < 0 || bytes(loaded) > budget) {
+                log.warn("Cubo de vendas passaria de {}; consultas ao cubo desligadas", settings.getMemoryBudget());
+                state = State.OVER_BUDGET;
+                return;
+            }
+            cells = new Cells(loaded, new OrderColumnStore.Row[16], 0);
+            state = State.READY;
+        }
+        log.info("Cubo de vendas carregado em {} ms: {} células por hora, {} por produto, {} por cliente ({} MB)",
+                (System.nanoTime() - started) / 1_000_000, loaded[Cuboid.HOURS.ordinal()].size(),
+                loaded[Cuboid.PRODUCTS.ordinal()].size(), loaded[Cuboid.CUSTOMERS.ordinal()].size(),
+                bytes(loaded) / (1024 * 1024));
+    }
+
+    private static long bytes(LongSums[] cells) {
+        long bytes = 0;
+        for (LongSums sums : cells) {
+            bytes += sums.bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Versão do cubo: um LongSums por Cuboid (ordinal) que ninguém mais altera, e os {@code count} pedidos chegados
+     * depois dela. O array de pedidos é compartilhado entre versões: o escritor só acrescenta depois de
+     * {@code count}, e quem lê uma versão não passa dele.
+     */
+    private record Cells(LongSums[] sums, OrderColumnStore.Row[] recent, int count) {
+
+        Cells append(OrderColumnStore.Row row) {
+            OrderColumnStore.Row[] rows = count < recent.length ? recent : Arrays.copyOf(recent, count * 2);
+            rows[count] = row;
+            return new Cells(sums, rows, count + 1);
+        }
+
+        // Os agregados desta versão com os pedidos recentes já somados, em cópias novas
+        LongSums[] folded() {
+            LongSums[] folded = new LongSums[sums.length];
+            for (int i = 0; i < sums.length; i++) {
+                folded[i] = sums[i].copy();
+            }
+            for (int i = 0; i < count; i++) {
+                add(folded, recent[i]);
+            }
+            return folded;
+        }
+    }
+
+    private static LongSums[] newCells(int expected) {
+        LongSums[] cells = new LongSums[CUBOIDS.length];
+        for (Cuboid cuboid : CUBOIDS) {
+            cells[cuboid.ordinal()] = new LongSums(3, expected);
+        }
+        return cells;
+    }
+
+    // Devolve o maior id lido, ou -1 se as células passaram do orçamento
+    private long read(LongSums[] cells, long budget) throws SQLException {
+        long lastId = 0;
+        try (Connection connection = readDataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(OrderColumnStore.LOAD)) {
+                statement.setFetchSize(engineSettings.getFetchSize());
+                try (ResultSet rs = statement.executeQuery()) {
+                    OrderReader order = new OrderReader();
+                    while (rs.next()) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new IllegalStateException("Carga interrompida");
+                        }
+                        long id = rs.getLong(1);
+                        if (id != order.id) {
+                            order.flush(cells);
+                            if (bytes(cells) > budget) {
+                                return -1;
+                            }
+                            long customer = rs.getLong(4);
+                            order.start(id, rs.getLong(2), PaymentMethod.valueOf(rs.getString(3)).ordinal(),
+                                    rs.wasNull() ? NO_CUSTOMER : customer, Money.cents(rs.getDouble(5)));
+                            lastId = id;
+                        }
+                        long product = rs.getLong(6);
+                        if (!rs.wasNull()) {
+                            order.item(product, Math.round(rs.getDouble(7) * 1000), Money.cents(rs.getDouble(8)));
+                        }
+                    }
+                    order.flush(cells);
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+        return lastId;
+    }
+
+    // Junta as linhas de um pedido (um por vez, itens reaproveitados) antes de somar ao cubo
+    private static final class OrderReader {
+        long id = Long.MIN_VALUE;
+        private int day;
+        private int hour;
+        private int method;
+        private long customer;
+        private long total;
+        private int items;
+        private long[] products = new long[16];
+        private long[] quantities = new long[16];
+        private long[] subtotals = new long[16];
+
+        void start(long id, long epoch, int method, long customer, long total) {
+            this.id = id;
+            this.day = (int) Math.floorDiv(epoch, SECONDS_PER_DAY);
+            this.hour = (int) Math.floorMod(epoch / TimeKeys.SECONDS_PER_HOUR, TimeKeys.HOURS_PER_DAY);
+            this.method = method;
+            this.customer = customer;
+            this.total = total;
+            this.items = 0;
+        }
+
+        void item(long product, long quantity, long subtotal) {
+            if (items == products.length) {
+                products = Arrays.copyOf(products, items * 2);
+                quantities = Arrays.copyOf(quantities, items * 2);
+                subtotals = Arrays.copyOf(subtotals, items * 2);
+            }
+            products[items] = product;
+            quantities[items] = quantity;
+            subtotals[items] = subtotal;
+            items++;
+        }
+
+        void flush(LongSums[] cells) {
+            if (id != Long.MIN_VALUE) {
+                add(cells, day, hour, method, customer, total, products, quantities, subtotals, items);
+            }
+        }
+    }
+
+    // Antes do cache dos relatórios, como o OrderColumnStore
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        if (!settings.isEnabled() || event.order().getId() == null) {
+            return;
+        }
+        OrderColumnStore.Row row = OrderColumnStore.Row.of(event.order());
+        Cells appended = null;
+        synchronized (lock) {
+            if (pending != null) {
+                pending.add(row);
+            } else if (cells != null) {
+                appended = cells.append(row);
+                cells = appended;
+            }
+        }
+        if (appended != null && appended.count() >= WRITER_FOLD_AT) {
+            fold(appended);
+        }
+    }
+
+    /**
+     * Junta os pedidos recentes de {@code seen} numa versão nova, montada fora do lock; sob ele só troca a versão,
+     * levando os pedidos que chegaram enquanto isso. Devolve a versão montada (sem pedidos recentes), publicada ou
+     * não, ou null se o cubo ficou indisponível (recarga ou orçamento).
+     */
+    private Cells fold(Cells seen) {
+        LongSums[] folded = seen.folded();
+        long budget = settings.getMemoryBudget().toBytes();
+        synchronized (lock) {
+            Cells current = cells;
+            if (current == null) {
+                return null;
+            }
+            if (current.sums() == seen.sums()) {
+                if (bytes(folded) > budget) {
+                    log.warn("Cubo de vendas passou de {}; consultas ao cubo desligadas", settings.getMemoryBudget());
+                    cells = null;
+                    state = State.OVER_BUDGET;
+                    return null;
+                }
+                int rest = current.count() - seen.count();
+                OrderColumnStore.Row[] recent = new OrderColumnStore.Row[Math.max(16, rest * 2)];
+                System.arraycopy(current.recent(), seen.count(), recent, 0, rest);
+                cells = new Cells(folded, recent, rest);
+            }
+        }
+        // Outra consulta pode ter publicado antes; esta versão continua certa para quem a pediu
+        return new Cells(folded, new OrderColumnStore.Row[0], 0);
+    }
+
+    private static void add(LongSums[] cells, OrderColumnStore.Row row) {
+        add(cells, row.day(), row.hour(), row.method(), row.customer(), row.total(),
+                row.products(), row.quantities(), row.subtotals(), row.products().length);
+    }
+
+    private static void add(LongSums[] cells, int day, int hour, int method, long customer, long total,
+                            long[] products, long[] quantities, long[] subtotals, int items) {
+        long quantity = 0;
+        for (int k = 0; k < items; k++) {
+            quantity += quantities[k];
+        }
+        add(cells[Cuboid.HOURS.ordinal()], key(day, hour, method, 0), 1, quantity, total);
+        add(cells[Cuboid.CUSTOMERS.ordinal()], key(day, 0, method, customer), 1, quantity, total);
+        LongSums byProduct = cells[Cuboid.PRODUCTS.ordinal()];
+        for (int k = 0; k < items; k++) {
+            long key = key(day, hour, method, products[k]);
+            // O mesmo produto em dois itens do pedido conta um pedido só
+            boolean repeated = false;
+            for (int j = 0; j < k && !repeated; j++) {
+                repeated = products[j] == products[k];
+            }
+            add(byProduct, key, repeated ? 0 : 1, quantities[k], subtotals[k]);
+        }
+    }
+
+    private static void add(LongSums sums, long key, long orders, long quantity, long total) {
+        sums.add(key, ORDERS, orders);
+        sums.add(key, QUANTITY, quantity);
+        sums.add(key, TOTAL, total);
+    }
+
+    static long key(int day, int hour, int method, long id) {
+        if (day < 0 || day >= DAY_LIMIT || id < 0 || id > ID_MASK) {
+            throw new IllegalArgumentException("Fora do cubo: dia " + day + ", id " + id);
+        }
+        return (long) day << DAY_SHIFT | (long) hour << HOUR_SHIFT | (long) method << METHOD_SHIFT | id;
+    }
+
+    public State getState() { return state; }
+
+    public boolean isReady() { return state == State.READY; }
+
+    // ---- Consulta ----
+
+    /**
+     * Agrupa e filtra as células do menor agregado que tem todas as dimensões da consulta.
+     *
+     * @throws IllegalArgumentException se nenhum agregado tem todas as dimensões (ex.: produto e cliente juntos)
+     * @throws IllegalStateException se o cubo não está carregado
+     */
+    public List<CubeRow> query(CubeQuery query) {
+        Set<CubeDimension> used = query.dimensions();
+        Cuboid cuboid = Arrays.stream(CUBOIDS)
+                .filter(c -> c.dimensions.containsAll(used))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("O cubo não cruza " + used
+                        + "; combinações possíveis: " + Arrays.stream(CUBOIDS).map(c -> c.dimensions).toList()));
+
+        Catalog catalog = used.contains(PRODUCT) || used.contains(BRAND) ? catalog() : null;
+        Plan plan = new Plan(query, catalog);
+        Cells version = cells;
+        if (version != null && version.count() >= FOLD_AT) {
+            version = fold(version);
+        }
+        if (version == null) {
+            throw new IllegalStateException("Cubo de vendas indisponível (" + state + ")");
+        }
+        LongSums groups = new LongSums(3, 256);
+        group(version.sums()[cuboid.ordinal()], plan, groups);
+        if (version.count() > 0) {
+            // Pedidos ainda fora dos agregados da versão: somados à parte, pelo mesmo acréscimo da carga
+            LongSums[] recent = newCells(version.count());
+            for (int i = 0; i < version.count(); i++) {
+                add(recent, version.recent()[i]);
+            }
+            group(recent[cuboid.ordinal()], plan, groups);
+        }
+
+        long[] keys = query.limit() > 0 ? groups.top(TOTAL, query.limit()) : groups.keys();
+        Map<Long, String> customerNames = query.groupBy().contains(CUSTOMER) ? customerNames(keys) : Map.of();
+        List<CubeRow> rows = new ArrayList<>(keys.length);
+        for (long group : keys) {
+            List<Object> key = new ArrayList<>(query.groupBy().size());
+            List<String> labels = new ArrayList<>(query.groupBy().size());
+            for (CubeDimension dimension : query.groupBy()) {
+                Object value = plan.value(dimension, group);
+                key.add(value);
+                labels.add(label(dimension, value, catalog, customerNames));
+            }
+            rows.add(new CubeRow(key, labels, groups.get(group, ORDERS),
+                    BigDecimal.valueOf(groups.get(group, QUANTITY), 3),
+                    Money.of(groups.get(group, TOTAL))));
+        }
+        if (query.limit() == 0) {
+            rows.sort(Comparator.comparing(CubeRow::key, SalesCube::compareKeys));
+        }
+        return rows;
+    }
+
+    private static void group(LongSums cells, Plan plan, LongSums groups) {
+        cells.forEach((key, sums, offset) -> {
+            long group = plan.group(key);
+            if (group >= 0) {
+                groups.add(group, ORDERS, sums[offset + ORDERS]);
+                groups.add(group, QUANTITY, sums[offset + QUANTITY]);
+                groups.add(group, TOTAL, sums[offset + TOTAL]);
+            }
+        });
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(List<Object> a, List<Object> b) {
+        for (int i = 0; i < a.size(); i++) {
+            Comparable x = (Comparable) a.get(i);
+            Comparable y = (Comparable) b.get(i);
+            int c = x == null ? (y == null ? 0 : -1) : y == null ? 1 : x.compareTo(y);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Consulta traduzida para as chaves do cubo: filtros como conjuntos ordenados de valores de chave e o
+     * agrupamento como uma chave no mesmo formato, com zero nas partes não agrupadas.
+     */
+    private static final class Plan {
+        private final int from;
+        private final int to;
+        private final boolean byDay;
+        private final boolean byMonth;
+        private final boolean byHour;
+        private final boolean byMethod;
+        private final boolean byProduct;
+        private final boolean byBrand;
+        private final boolean byCustomer;
+        // Filtros: valores de chave aceitos, ordenados; null = sem filtro
+        private final long[] days;
+        private final long[] months;
+        private final long[] hours;
+        private final long[] methods;
+        private final long[] products;
+        private final long[] brands;
+        private final long[] customers;
+        private final Catalog catalog;
+        private final boolean needsBrand;
+        private final boolean needsMonth;
+
+        Plan(CubeQuery query, Catalog catalog) {
+            this.catalog = catalog;
+            from = query.start() == null ? 0 : (int) Math.max(0, query.start().toEpochDay());
+            to = query.end() == null ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, query.end().toEpochDay());
+            List<CubeDimension> groupBy = query.groupBy();
+            byDay = groupBy.contains(DAY);
+            byMonth = groupBy.contains(MONTH);
+            byHour = groupBy.contains(HOUR);
+            byMethod = groupBy.contains(PAYMENT_METHOD);
+            byProduct = groupBy.contains(PRODUCT);
+            byBrand = groupBy.contains(BRAND);
+            byCustomer = groupBy.contains(CUSTOMER);
+            Map<CubeDimension, Set<Object>> filters = query.filters();
+            days = filter(filters.get(DAY), v -> ((LocalDate) v).toEpochDay());
+            months = filter(filters.get(MONTH), v -> (long) monthKey((YearMonth) v));
+            hours = filter(filters.get(HOUR), v -> (long) (Integer) v);
+            methods = filter(filters.get(PAYMENT_METHOD), v -> (long) ((PaymentMethod) v).ordinal());
+            products = filter(filters.get(PRODUCT), v -> (Long) v);
+            brands = filter(filters.get(BRAND), v -> catalog.brandOrdinal((String) v));
+            customers = filter(filters.get(CUSTOMER), v -> v == null ? NO_CUSTOMER : (Long) v);
+            needsBrand = byBrand && !byProduct || brands != null;
+            needsMonth = byMonth && !byDay || months != null;
+        }
+
+        private static long[] filter(Set<Object> values, ToLongFunction<Object> keyPart) {
+            if (values == null) {
+                return null;
+            }
+            return values.stream().mapToLong(keyPart).sorted().toArray();
+        }
+
+        private static boolean accepts(long[] filter, long value) {
+            return filter == null || Arrays.binarySearch(filter, value) >= 0;
+        }
+
+        // Chave do grupo da célula, ou -1 se ela fica de fora
+        long group(long key) {
+            int day = (int) (key >>> DAY_SHIFT);
+            if (day < from || day > to || !accepts(days, day)) {
+                return -1;
+            }
+            int hour = (int) (key >>> HOUR_SHIFT) & 0x1F;
+            int method = (int) (key >>> METHOD_SHIFT) & 0x7;
+            long id = key & ID_MASK;
+            if (!accepts(hours, hour) || !accepts(methods, method)
+                    || !accepts(products, id) || !accepts(customers, id)) {
+                return -1;
+            }
+            long brand = needsBrand ? catalog.brandOf(id) : 0;
+            if (!accepts(brands, brand)) {
+                return -1;
+            }
+            int month = needsMonth ? monthKey(YearMonth.from(LocalDate.ofEpochDay(day))) : 0;
+            if (!accepts(months, month)) {
+                return -1;
+            }
+            return key(byDay ? day : byMonth ? month : 0,
+                    byHour ? hour : 0,
+                    byMethod ? method : 0,
+                    byProduct || byCustomer ? id : byBrand ? brand : 0);
+        }
+
+        // Valor da dimensão agrupada na chave do grupo
+        Object value(CubeDimension dimension, long group) {
+            int day = (int) (group >>> DAY_SHIFT);
+            long id = group & ID_MASK;
+            return switch (dimension) {
+                case DAY -> LocalDate.ofEpochDay(day);
+                case MONTH -> byDay ? YearMonth.from(LocalDate.ofEpochDay(day)) : TimeKeys.month(day);
+                case HOUR -> (int) (group >>> HOUR_SHIFT) & 0x1F;
+                case PAYMENT_METHOD -> METHODS[(int) (group >>> METHOD_SHIFT) & 0x7];
+                case PRODUCT -> id;
+                case BRAND -> catalog.brand(byProduct ? catalog.brandOf(id) : (int) id);
+                case CUSTOMER -> id == NO_CUSTOMER ? null : id;
+            };
+        }
+    }
+
+    private static int monthKey(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    // Produtos do cadastro atual: nome para exibir e marca (como ordinal, para caber na chave)
+    private record Catalog(Map<Long, String> names, LongSums brandOrdinals, List<String> brands) {
+
+        long brandOf(long product) {
+            // Sem marca, o produto não tem soma: get devolve 0 = NO_BRAND
+            return brandOrdinals.get(product, 0);
+        }
+
+        long brandOrdinal(String brand) {
+            int ordinal = brands.indexOf(brand);
+            // Marca que nenhum produto tem: nenhuma célula casa
+            return ordinal < 0 ? ID_MASK : ordinal;
+        }
+
+        String brand(long ordinal) {
+            return brands.get((int) ordinal);
+        }
+    }
+
+    private Catalog catalog() {
+        Map<Long, String> names = new HashMap<>();
+        LongSums brandOrdinals = new LongSums(1, 256);
+        List<String> brands = new ArrayList<>();
+        brands.add(NO_BRAND, null);
+        Map<String, Integer> ordinals = new HashMap<>();
+        try (Connection connection = readDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PRODUCTS_SQL);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                long id = rs.getLong(1);
+                String name = rs.getString(2);
+                String brand = rs.getString(3);
+                names.put(id, brand == null ? name : name + " (" + brand + ")");
+                if (brand != null) {
+                    int ordinal = ordinals.computeIfAbsent(brand, b -> {
+                        brands.add(b);
+                        return brands.size() - 1;
+                    });
+                    brandOrdinals.add(id, 0, ordinal);
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Falha ao ler o cadastro de produtos", e);
+        }
+        return new Catalog(names, brandOrdinals, brands);
+    }
+
+    private Map<Long, String> customerNames(long[] groups) {
+        long[] ids = Arrays.stream(groups).map(group -> group & ID_MASK).filter(id -> id != NO_CUSTOMER)
+                .distinct().toArray();
+        Map<Long, String> names = new HashMap<>();
+        try (Connection connection = readDataSource.getConnection()) {
+            for (int first = 0; first < ids.length; first += NAMES_PER_QUERY) {
+                int count = Math.min(NAMES_PER_QUERY, ids.length - first);
+                String placeholders = "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+                try (PreparedStatement statement = connection.prepareStatement(CUSTOMER_NAMES + placeholders)) {
+                    for (int i = 0; i < count; i++) {
+                        statement.setLong(i + 1, ids[first + i]);
+                    }
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            names.put(rs.getLong(1), rs.getString(2));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Falha ao ler os nomes dos clientes", e);
+        }
+        return names;
+    }
+
+    private static String label(CubeDimension dimension, Object value, Catalog catalog, Map<Long, String> customers) {
+        if (value == null) {
+            return null;
+        }
+        return switch (dimension) {
+            case PRODUCT -> catalog.names().get(value);
+            case CUSTOMER -> customers.get(value);
+            default -> value.toString();
+        };
+    }
+}
@@ -0,0 +1,307 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.TimeKeys;
+import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.MonthlySalesView;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import com.pedidofacil.repositories.projections.ProductSalesView;
+import com.pedidofacil.repositories.projections.Projections;
+import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TicketPercentileView;
+import com.pedidofacil.repositories.projections.TopCustomerView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monta todos os relatórios da tela com uma única leitura dos pedidos e itens do período, em vez de uma
+ * consulta por relatório. As somas ficam em centavos (quantidades em milésimos) em arrays e em {@link LongSums};
+ * nomes de produto e cliente são buscados no fim, só para os que entraram no ranking.
+ * <p>
+ * Lê direto do pool de leitura, numa transação só: somas e nomes saem do mesmo instante do banco.
+ */
+@Service
+public class SinglePassReportEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(SinglePassReportEngine.class);
+
+    // LEFT JOIN: o SQLite não inverte a ordem das tabelas, então orders fica no laço de fora e as linhas de
+    // um mesmo pedido chegam juntas (pedido sem item vem uma vez, com os campos do item nulos)
+    private static final String SCAN =
+            "SELECT o.id, o.day_key, o.created_epoch, o.payment_method, o.customer_id, o.total, " +
+            "i.product_id, i.quantity, i.subtotal FROM orders o LEFT JOIN order_items i ON i.order_id = o.id";
+    // Também usados pelo TopSellersSketch
+    static final String PRODUCT_NAMES =
+            "SELECT id, name || coalesce(' (' || brand || ')', '') FROM products WHERE id IN ";
+    static final String CUSTOMER_NAMES = "SELECT id, name FROM customers WHERE id IN ";
+
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+    // Mesma compressão padrão dos resumos de ticket por dia (app.ticket-digest.compression)
+    private static final double TICKET_COMPRESSION = 200;
+
+    private final DataSource readDataSource;
+    private final ReportEngineSettings settings;
+
+    public SinglePassReportEngine(@Qualifier("readDataSource") DataSource readDataSource, ReportEngineSettings settings) {
+        this.readDataSource = readDataSource;
+        this.settings = settings;
+    }
+
+    // Somas de uma leitura; colunas dos LongSums de produto: quantidade e total
+    private static final class Sums {
+        private static final int QUANTITY = 0;
+        private static final int TOTAL = 1;
+
+        final LongSums products = new LongSums(2, 1024);
+        final LongSums customers = new LongSums(1, 1024);
+        final LongSums days = new LongSums(1, 512);
+        final long[] paymentOrders = new long[METHODS.length];
+        final long[] paymentTotals = new long[METHODS.length];
+        final long[] hourOrders = new long[TimeKeys.HOURS_PER_DAY];
+        final long[] hourTotals = new long[TimeKeys.HOURS_PER_DAY];
+        final TDigest[] tickets = new TDigest[METHODS.length];
+        long rows;
+
+        Sums() {
+            for (int m = 0; m < METHODS.length; m++) {
+                tickets[m] = new TDigest(TICKET_COMPRESSION);
+            }
+        }
+    }
+
+    public ReportSnapshot snapshot(LocalDate start, LocalDate end, int limit) {
+        long started = System.nanoTime();
+        try (Connection connection = readDataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Sums sums = scan(connection, start, end);
+                Duration scanned = Duration.ofNanos(System.nanoTime() - started);
+
+                long[] topProducts = sums.products.top(Sums.TOTAL, limit);
+                long[] topCustomers = sums.customers.top(0, limit);
+                Map<Long, String> productNames = names(connection, PRODUCT_NAMES, topProducts);
+                Map<Long, String> customerNames = names(connection, CUSTOMER_NAMES, topCustomers);
+
+                Map<String, Duration> timings = new LinkedHashMap<>();
+                timings.put("scan", scanned);
+                timings.put("names", Duration.ofNanos(System.nanoTime() - started).minus(scanned));
+                ReportSnapshot snapshot = new ReportSnapshot(start, end,
+                        productSales(sums, topProducts, productNames), paymentDistribution(sums), ticketAverages(sums),
+                        ticketPercentiles(sums), topCustomers(sums, topCustomers, customerNames), dailySales(sums),
+                        monthlySales(sums), hourlySales(sums), timings, Duration.ofNanos(System.nanoTime() - started));
+                log.info("Relatórios de {} a {} em uma leitura: {} linhas em {} ms", start, end, sums.rows,
+                        snapshot.elapsed().toMillis());
+                return snapshot;
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Falha ao ler os pedidos do período", e);
+        }
+    }
+
+    private Sums scan(Connection connection, LocalDate start, LocalDate end) throws SQLException {
+        List<String> conditions = new ArrayList<>();
+        List<Integer> bounds = new ArrayList<>();
+        if (start != null) {
+            conditions.add("o.day_key >= ?");
+            bounds.add(TimeKeys.dayKey(start));
+        }
+        if (end != null) {
+            conditions.add("o.day_key <= ?");
+            bounds.add(TimeKeys.dayKey(end));
+        }
+        String sql = conditions.isEmpty() ? SCAN : SCAN + " WHERE " + String.join(" AND ", conditions);
+
+        Sums sums = new Sums();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < bounds.size(); i++) {
+                statement.setInt(i + 1, bounds.get(i));
+            }
+            statement.setFetchSize(settings.getFetchSize());
+            try (ResultSet rs = statement.executeQuery()) {
+                long current = Long.MIN_VALUE;
+                while (rs.next()) {
+                    sums.rows++;
+                    long orderId = rs.getLong(1);
+                    if (orderId != current) {
+                        current = orderId;
+                        long total = Money.cents(rs.getDouble(6));
+                        int method = PaymentMethod.valueOf(rs.getString(4)).ordinal();
+                        int hour = (int) (rs.getLong(3) / TimeKeys.SECONDS_PER_HOUR % TimeKeys.HOURS_PER_DAY);
+                        sums.days.add(rs.getInt(2), 0, total);
+                        sums.paymentOrders[method]++;
+                        sums.paymentTotals[method] += total;
+                        sums.tickets[method].add(total);
+                        sums.hourOrders[hour]++;
+                        sums.hourTotals[hour] += total;
+                        long customerId = rs.getLong(5);
+                        if (!rs.wasNull()) {
+                            sums.customers.add(customerId, 0, total);
+                        }
+                    }
+                    long productId = rs.getLong(7);
+                    if (!rs.wasNull()) {
+                        sums.products.add(productId, Sums.QUANTITY, Math.round(rs.getDouble(8) * 1000));
+                        sums.products.add(productId, Sums.TOTAL, Money.cents(rs.getDouble(9)));
+                    }
+                }
+            }
+        }
+        return sums;
+    }
+
+    static Map<Long, String> names(Connection connection, String sql, long[] ids) throws SQLException {
+        if (ids.length == 0) {
+            return Collections.emptyMap();
+        }
+        Map<Long, String> names = new HashMap<>();
+        String placeholders = "(" + String.join(", ", Collections.nCopies(ids.length, "?")) + ")";
+        try (PreparedStatement statement = connection.prepareStatement(sql + placeholders)) {
+            for (int i = 0; i < ids.length; i++) {
+                statement.setLong(i + 1, ids[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    names.put(rs.getLong(1), rs.getString(2));
+                }
+            }
+        }
+        return names;
+    }
+
+    private List<ProductSalesView> productSales(Sums sums, long[] top, Map<Long, String> names) {
+        List<ProductSalesView> views = new ArrayList<>(top.length);
+        for (long id : top) {
+            views.add(Projections.of(ProductSalesView.class,
+                    "productId", id,
+                    "productName", names.get(id),
+                    "quantity", BigDecimal.valueOf(sums.products.get(id, Sums.QUANTITY), 3),
+                    "total", Money.of(sums.products.get(id, Sums.TOTAL))));
+        }
+        return views;
+    }
+
+    private List<PaymentDistributionView> paymentDistribution(Sums sums) {
+        List<PaymentDistributionView> views = new ArrayList<>();
+        for (PaymentMethod method : METHODS) {
+            if (sums.paymentOrders[method.ordinal()] > 0) {
+                views.add(Projections.of(PaymentDistributionView.class,
+                        "paymentMethod", method,
+                        "total", Money.of(sums.paymentTotals[method.ordinal()])));
+            }
+        }
+        return views;
+    }
+
+    private List<TicketAverageView> ticketAverages(Sums sums) {
+        List<TicketAverageView> views = new ArrayList<>();
+        for (PaymentMethod method : METHODS) {
+            long orders = sums.paymentOrders[method.ordinal()];
+            if (orders > 0) {
+                views.add(Projections.of(TicketAverageView.class,
+                        "paymentMethod", method,
+                        "orders", orders,
+                        "average", sums.paymentTotals[method.ordinal()] / 100.0 / orders));
+            }
+        }
+        return views;
+    }
+
+    private List<TicketPercentileView> ticketPercentiles(Sums sums) {
+        List<TicketPercentileView> views = new ArrayList<>();
+        for (PaymentMethod method : METHODS) {
+            TDigest digest = sums.tickets[method.ordinal()];
+            if (digest.count() > 0) {
+                views.add(Projections.of(TicketPercentileView.class,
+                        "paymentMethod", method,
+                        "orders", digest.count(),
+                        "p50", Math.round(digest.quantile(0.5)) / 100.0,
+                        "p90", Math.round(digest.quantile(0.9)) / 100.0,
+                        "p99", Math.round(digest.quantile(0.99)) / 100.0));
+            }
+        }
+        return views;
+    }
+
+    private List<TopCustomerView> topCustomers(Sums sums, long[] top, Map<Long, String> names) {
+        List<TopCustomerView> views = new ArrayList<>(top.length);
+        for (long id : top) {
+            views.add(Projections.of(TopCustomerView.class,
+                    "customerId", id,
+                    "customerName", names.get(id),
+                    "total", Money.of(sums.customers.get(id, 0))));
+        }
+        return views;
+    }
+
+    private List<DailySalesView> dailySales(Sums sums) {
+        List<DailySalesView> views = new ArrayList<>(sums.days.size());
+        for (long day : sums.days.keys()) {
+            views.add(Projections.of(DailySalesView.class,
+                    "day", TimeKeys.day((int) day).toString(),
+                    "total", Money.of(sums.days.get(day, 0))));
+        }
+        return views;
+    }
+
+    // Dias em ordem crescente: os do mesmo mês (dayKey / 100) são vizinhos
+    private List<MonthlySalesView> monthlySales(Sums sums) {
+        List<MonthlySalesView> views = new ArrayList<>();
+        long month = -1;
+        long total = 0;
+        for (long day : sums.days.keys()) {
+            if (day / 100 != month) {
+                if (month >= 0) {
+                    views.add(month(month, total));
+                }
+                month = day / 100;
+                total = 0;
+            }
+            total += sums.days.get(day, 0);
+        }
+        if (month >= 0) {
+            views.add(month(month, total));
+        }
+        return views;
+    }
+
+    private MonthlySalesView month(long month, long total) {
+        return Projections.of(MonthlySalesView.class,
+                "month", TimeKeys.month((int) month).toString(),
+                "total", Money.of(total));
+    }
+
+    private List<HourlySalesView> hourlySales(Sums sums) {
+        List<HourlySalesView> views = new ArrayList<>();
+        for (int hour = 0; hour < TimeKeys.HOURS_PER_DAY; hour++) {
+            if (sums.hourOrders[hour] > 0) {
+                views.add(Projections.of(HourlySalesView.class,
+                        "hour", hour,
+                        "orders", sums.hourOrders[hour],
+                        "total", Money.of(sums.hourTotals[hour])));
+            }
+        }
+        return views;
+    }
+}
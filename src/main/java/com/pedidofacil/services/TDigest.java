@@ -0,0 +1,213 @@
+package com.pedidofacil.services;
+
+import java.util.Arrays;
+
+/**
+ * Resumo de uma distribuição para percentis (t-digest, variante por fusão): os valores viram centroides (média e
+ * peso), estreitos nas pontas e largos no meio, então p50, p90 e p99 saem com erro pequeno em memória limitada
+ * (uns {@code compression} centroides), qualquer que seja o número de valores. Dois resumos se fundem sem
+ * voltar aos valores: o resumo de um período é a fusão dos resumos dos seus dias. Não é thread-safe.
+ */
+final class TDigest {
+
+    private final double compression;
+    // Centroides ordenados pela média; os valores novos esperam no buffer até a próxima compressão
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    private int centroids;
+    private double[] buffer = new double[8];
+    private double[] bufferWeights = new double[8];
+    private int buffered;
+    private final int bufferLimit;
+    private double count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param compression quantos centroides, aproximadamente, o resumo guarda (mínimo 10); mais centroides,
+     *                    menos erro
+     */
+    TDigest(double compression) {
+        if (!(compression >= 10)) {
+            throw new IllegalArgumentException("Compressão inválida: " + compression);
+        }
+        this.compression = compression;
+        this.bufferLimit = (int) (compression * 4);
+    }
+
+    void add(double value) {
+        add(value, 1);
+    }
+
+    private void add(double value, double weight) {
+        if (buffered == buffer.length) {
+            if (buffered >= bufferLimit) {
+                compress();
+            } else {
+                buffer = Arrays.copyOf(buffer, Math.min(bufferLimit, Math.max(8, buffered * 2)));
+                bufferWeights = Arrays.copyOf(bufferWeights, buffer.length);
+            }
+        }
+        buffer[buffered] = value;
+        bufferWeights[buffered++] = weight;
+        count += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    // Soma os valores de other a este resumo; other não muda de conteúdo (só é compactado)
+    void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        if (other.count > 0) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    long count() {
+        return Math.round(count);
+    }
+
+    /**
+     * O valor abaixo do qual fica a fração {@code q} dos valores, interpolado entre os centroides vizinhos;
+     * NaN se o resumo está vazio.
+     */
+    double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantil fora de [0, 1]: " + q);
+        }
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        double target = q * count;
+        // Cada centroide fica no meio do seu peso; antes do primeiro e depois do último, interpola com min e max
+        if (target <= weights[0] / 2) {
+            return weights[0] == 1 ? min : interpolate(min, means[0], target / (weights[0] / 2));
+        }
+        double cumulative = 0;
+        for (int i = 0; i < centroids - 1; i++) {
+            double here = cumulative + weights[i] / 2;
+            double next = cumulative + weights[i] + weights[i + 1] / 2;
+            if (target <= next) {
+                return interpolate(means[i], means[i + 1], (target - here) / (next - here));
+            }
+            cumulative += weights[i];
+        }
+        double last = weights[centroids - 1];
+        double here = count - last / 2;
+        return last == 1 ? max : interpolate(means[centroids - 1], max, (target - here) / (last / 2));
+    }
+
+    private static double interpolate(double from, double to, double fraction) {
+        if (fraction <= 0) {
+            return from;
+        }
+        return fraction >= 1 ? to : from + (to - from) * fraction;
+    }
+
+    // Compacta e devolve o buffer de entrada: para resumos que não devem receber mais valores (dias passados)
+    void compact() {
+        compress();
+        buffer = new double[1];
+        bufferWeights = new double[1];
+    }
+
+    long bytes() {
+        return (long) (means.length + weights.length + buffer.length + bufferWeights.length) * Double.BYTES;
+    }
+
+    // Junta buffer e centroides em ordem e funde vizinhos enquanto o centroide couber no limite de k (escala k1)
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        sort(buffer, bufferWeights, 0, buffered - 1);
+        int size = centroids + buffered;
+        double[] sortedMeans = new double[size];
+        double[] sortedWeights = new double[size];
+        for (int i = 0, a = 0, b = 0; i < size; i++) {
+            if (b == buffered || (a < centroids && means[a] <= buffer[b])) {
+                sortedMeans[i] = means[a];
+                sortedWeights[i] = weights[a++];
+            } else {
+                sortedMeans[i] = buffer[b];
+                sortedWeights[i] = bufferWeights[b++];
+            }
+        }
+
+        int merged = 0;
+        double before = 0;
+        double limit = count * inverseScale(scale(0) + 1);
+        for (int i = 1; i < size; i++) {
+            double proposed = sortedWeights[merged] + sortedWeights[i];
+            if (before + proposed <= limit) {
+                sortedMeans[merged] += (sortedMeans[i] - sortedMeans[merged]) * sortedWeights[i] / proposed;
+                sortedWeights[merged] = proposed;
+            } else {
+                before += sortedWeights[merged];
+                limit = count * inverseScale(scale(before / count) + 1);
+                merged++;
+                sortedMeans[merged] = sortedMeans[i];
+                sortedWeights[merged] = sortedWeights[i];
+            }
+        }
+        centroids = merged + 1;
+        means = Arrays.copyOf(sortedMeans, centroids);
+        weights = Arrays.copyOf(sortedWeights, centroids);
+        buffered = 0;
+    }
+
+    // k1(q) = compression / 2π · asin(2q - 1): passos de k iguais dão centroides estreitos perto de 0 e de 1
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+    }
+
+    private double inverseScale(double k) {
+        if (k >= compression / 4) {
+            return 1;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    // Ordena values levando junto os pesos (quicksort; inserção nos trechos pequenos)
+    private static void sort(double[] values, double[] weights, int from, int to) {
+        while (to - from > 16) {
+            double pivot = values[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (values[i] < pivot) i++;
+                while (values[j] > pivot) j--;
+                if (i <= j) {
+                    swap(values, weights, i++, j--);
+                }
+            }
+            // Recursão no lado menor: a pilha fica em O(log n)
+            if (j - from < to - i) {
+                sort(values, weights, from, j);
+                from = i;
+            } else {
+                sort(values, weights, i, to);
+                to = j;
+            }
+        }
+        for (int i = from + 1; i <= to; i++) {
+            for (int j = i; j > from && values[j - 1] > values[j]; j--) {
+                swap(values, weights, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(double[] values, double[] weights, int a, int b) {
+        double value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+        double weight = weights[a];
+        weights[a] = weights[b];
+        weights[b] = weight;
+    }
+}
@@ -0,0 +1,303 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.config.TicketDigestSettings;
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.TimeKeys;
+import com.pedidofacil.repositories.projections.OrderPaymentTotal;
+import com.pedidofacil.repositories.projections.Projections;
+import com.pedidofacil.repositories.projections.TicketPercentileView;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Distribuição do valor dos pedidos (p50, p90, p99) por forma de pagamento em qualquer período, sem ordenar os
+ * totais: um {@link TDigest} por dia e forma de pagamento, e outro por mês. O período junta os resumos dos meses
+ * inteiros e, nas pontas, os dos dias.
+ * <p>
+ * Carregado em segundo plano na subida (uma leitura dos pedidos); pedidos novos entram após o commit
+ * ({@link OrderCreatedEvent}).
+ */
+@Service
+public class TicketDigests {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketDigests.class);
+
+    public enum State { DISABLED, LOADING, READY, FAILED }
+
+    private static final PaymentMethod[] METHODS = PaymentMethod.values();
+    private static final String MAX_ID = "SELECT coalesce(max(id), 0) FROM orders";
+    private static final String SCAN = "SELECT day_key, payment_method, total FROM orders";
+
+    private final DataSource readDataSource;
+    private final TicketDigestSettings settings;
+    private final ReportEngineSettings engineSettings;
+
+    // Tudo abaixo é guardado por this; null fora de READY
+    private Digests digests;
+    // Pedidos confirmados durante a carga; aplicados no fim, exceto os que a leitura já trouxe
+    private List<Order> pending;
+    private volatile State state = State.DISABLED;
+    private volatile Thread loader;
+
+    // Resumos por dia (yyyymmdd) e por mês (yyyymm), um por forma de pagamento (ordinal); valores em centavos
+    private static final class Digests {
+        final TreeMap<Integer, TDigest[]> days = new TreeMap<>();
+        final TreeMap<Integer, TDigest[]> months = new TreeMap<>();
+        final double compression;
+        long lastOrderId;
+
+        Digests(double compression) {
+            this.compression = compression;
+        }
+
+        void add(int dayKey, int method, long cents) {
+            digests(days, dayKey)[method].add(cents);
+            digests(months, dayKey / 100)[method].add(cents);
+        }
+
+        void add(Order order) {
+            if (order.getId() <= lastOrderId) {
+                return;
+            }
+            add(order.getDayKey(), order.getPaymentMethod().ordinal(), Money.cents(order.getTotal()));
+        }
+
+        private TDigest[] digests(TreeMap<Integer, TDigest[]> map, int key) {
+            return map.computeIfAbsent(key, k -> newDigests(compression));
+        }
+
+        long bytes() {
+            long bytes = 0;
+            for (TreeMap<Integer, TDigest[]> map : List.of(days, months)) {
+                for (TDigest[] digests : map.values()) {
+                    for (TDigest digest : digests) {
+                        bytes += digest.bytes();
+                    }
+                }
+            }
+            return bytes;
+        }
+    }
+
+    public TicketDigests(@Qualifier("readDataSource") DataSource readDataSource, TicketDigestSettings settings,
+                         ReportEngineSettings engineSettings) {
+        this.readDataSource = readDataSource;
+        this.settings = settings;
+        this.engineSettings = engineSettings;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        Thread thread = new Thread(this::load, "ticket-digest-loader");
+        thread.setDaemon(true);
+        loader = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = loader;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Lê forma de pagamento e total de todos os pedidos numa transação somente leitura e monta os resumos.
+     * Síncrono; na subida roda na thread {@code ticket-digest-loader}.
+     */
+    public void load() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            digests = null;
+            state = State.LOADING;
+            pending = new ArrayList<>();
+        }
+        Digests loaded = new Digests(settings.getCompression());
+        long orders;
+        try {
+            orders = read(loaded);
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Falha ao carregar os resumos de ticket; percentis seguem no banco", e);
+            synchronized (this) {
+                pending = null;
+                state = State.FAILED;
+            }
+            return;
+        }
+        // Quase todos os dias e meses não recebem mais pedidos: sem o buffer de entrada, ficam só os centroides
+        for (TreeMap<Integer, TDigest[]> map : List.of(loaded.days, loaded.months)) {
+            for (TDigest[] digests : map.values()) {
+                for (TDigest digest : digests) {
+                    digest.compact();
+                }
+            }
+        }
+        // Medidos antes de publicar: depois disso os resumos só mudam sob o lock
+        int days = loaded.days.size();
+        long bytes = loaded.bytes();
+        synchronized (this) {
+            for (Order order : pending) {
+                loaded.add(order);
+            }
+            pending = null;
+            digests = loaded;
+            state = State.READY;
+        }
+        log.info("Resumos de ticket carregados em {} ms: {} pedidos, {} dias, {} KB",
+                (System.nanoTime() - started) / 1_000_000, orders, days, bytes / 1024);
+    }
+
+    private long read(Digests loaded) throws SQLException {
+        long orders = 0;
+        try (Connection connection = readDataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                // Mesma transação: o último id é o do instante em que os pedidos são lidos
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery(MAX_ID)) {
+                    rs.next();
+                    loaded.lastOrderId = rs.getLong(1);
+                }
+                try (PreparedStatement statement = connection.prepareStatement(SCAN)) {
+                    statement.setFetchSize(engineSettings.getFetchSize());
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            if (Thread.currentThread().isInterrupted()) {
+                                throw new IllegalStateException("Carga interrompida");
+                            }
+                            loaded.add(rs.getInt(1), PaymentMethod.valueOf(rs.getString(2)).ordinal(),
+                                    Money.cents(rs.getDouble(3)));
+                            orders++;
+                        }
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+        return orders;
+    }
+
+    // Antes do cache dos relatórios, como o OrderColumnStore
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderCreated(OrderCreatedEvent event) {
+        Order order = event.order();
+        if (!settings.isEnabled() || order.getId() == null || order.getPaymentMethod() == null) {
+            return;
+        }
+        if (pending != null) {
+            pending.add(order);
+        } else if (digests != null) {
+            digests.add(order);
+        }
+    }
+
+    public State getState() { return state; }
+
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    /**
+     * p50, p90 e p99 do valor dos pedidos de cada forma de pagamento no período (datas nulas: sem limite).
+     *
+     * @throws IllegalStateException se os resumos não estão carregados
+     */
+    public synchronized List<TicketPercentileView> ticketPercentiles(LocalDate start, LocalDate end) {
+        if (digests == null) {
+            throw new IllegalStateException("Resumos de ticket indisponíveis (" + state + ")");
+        }
+        int from = start == null ? Integer.MIN_VALUE : TimeKeys.dayKey(start);
+        int to = end == null ? Integer.MAX_VALUE : TimeKeys.dayKey(end);
+        TDigest[] period = newDigests(digests.compression);
+        // Mês inteiro no período entra pelo resumo do mês; os das pontas, dia a dia
+        for (Map.Entry<Integer, TDigest[]> month : digests.months.subMap(from / 100, true, to / 100, true).entrySet()) {
+            int first = month.getKey() * 100 + 1;
+            int last = TimeKeys.dayKey(TimeKeys.month(month.getKey()).atEndOfMonth());
+            if (from <= first && last <= to) {
+                merge(period, month.getValue());
+            } else {
+                for (TDigest[] day : digests.days.subMap(Math.max(from, first), true, Math.min(to, last), true).values()) {
+                    merge(period, day);
+                }
+            }
+        }
+        return views(period);
+    }
+
+    /**
+     * Os mesmos percentis de {@link #ticketPercentiles}, a partir dos pedidos lidos em fluxo (quando os resumos
+     * não estão carregados): a memória fica num resumo por forma de pagamento, qualquer que seja o período.
+     */
+    public List<TicketPercentileView> ticketPercentiles(Iterator<OrderPaymentTotal> orders) {
+        TDigest[] digests = newDigests(settings.getCompression());
+        while (orders.hasNext()) {
+            OrderPaymentTotal order = orders.next();
+            if (order.paymentMethod() != null && order.total() != null) {
+                digests[order.paymentMethod().ordinal()].add(Money.cents(order.total()));
+            }
+        }
+        return views(digests);
+    }
+
+    private static void merge(TDigest[] into, TDigest[] from) {
+        for (int m = 0; m < METHODS.length; m++) {
+            into[m].merge(from[m]);
+        }
+    }
+
+    private List<TicketPercentileView> views(TDigest[] digests) {
+        List<TicketPercentileView> views = new ArrayList<>();
+        for (PaymentMethod method : METHODS) {
+            TDigest digest = digests[method.ordinal()];
+            if (digest.count() > 0) {
+                views.add(Projections.of(TicketPercentileView.class,
+                        "paymentMethod", method,
+                        "orders", digest.count(),
+                        "p50", reais(digest.quantile(0.5)),
+                        "p90", reais(digest.quantile(0.9)),
+                        "p99", reais(digest.quantile(0.99))));
+            }
+        }
+        return views;
+    }
+
+    private static TDigest[] newDigests(double compression) {
+        TDigest[] digests = new TDigest[METHODS.length];
+        for (int m = 0; m < METHODS.length; m++) {
+            digests[m] = new TDigest(compression);
+        }
+        return digests;
+    }
+
+    private static double reais(double cents) {
+        return Math.round(cents) / 100.0;
+    }
+}
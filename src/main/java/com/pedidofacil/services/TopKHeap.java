@@ -0,0 +1,179 @@
+package com.pedidofacil.services;
+
+import java.util.Arrays;
+
+/**
+ * As {@code limit} chaves de maior valor de um fluxo, num heap de mínimo de tamanho fixo: cada oferta custa
+ * O(log limit) e a memória não cresce com o número de chaves do fluxo. Empate no valor: fica a menor chave.
+ * <p>
+ * A mesma chave pode ser oferecida de novo; o valor dela só sobe (é o caso das estimativas do
+ * {@link CountMinSketch}, que crescem a cada soma). Cada chave leva um valor extra de carona (ex.: quantidade).
+ * Não é thread-safe.
+ */
+final class TopKHeap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    // Heap de mínimo: a raiz é a pior chave guardada, a primeira a sair
+    private final long[] keys;
+    private final long[] scores;
+    private final long[] extras;
+    private int size;
+
+    // Posição de cada chave no heap, em endereçamento aberto (sondagem linear)
+    private final long[] indexKeys;
+    private final int[] indexPositions;
+
+    TopKHeap(int limit) {
+        keys = new long[Math.max(0, limit)];
+        scores = new long[keys.length];
+        extras = new long[keys.length];
+        int capacity = Integer.highestOneBit(Math.max(8, keys.length * 2 - 1)) << 1;
+        indexKeys = new long[capacity];
+        indexPositions = new int[capacity];
+        Arrays.fill(indexKeys, EMPTY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Guarda a chave se ela ficar entre as {@code limit} maiores. Se já está guardada, só troca o valor quando o
+     * novo é maior (e o extra junto).
+     */
+    void offer(long key, long score, long extra) {
+        int position = position(key);
+        if (position >= 0) {
+            if (score > scores[position]) {
+                scores[position] = score;
+                extras[position] = extra;
+                siftDown(position);
+            }
+        } else if (size < keys.length) {
+            set(size, key, score, extra);
+            siftUp(size++);
+        } else if (size > 0 && worse(keys[0], scores[0], key, score)) {
+            unindex(keys[0]);
+            set(0, key, score, extra);
+            siftDown(0);
+        }
+    }
+
+    void offer(long key, long score) {
+        offer(key, score, 0);
+    }
+
+    // Chaves guardadas, da maior para a menor
+    long[] keys() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> worse(keys[a], scores[a], keys[b], scores[b]) ? 1
+                : worse(keys[b], scores[b], keys[a], scores[a]) ? -1 : 0);
+        long[] ranked = new long[size];
+        for (int i = 0; i < size; i++) {
+            ranked[i] = keys[order[i]];
+        }
+        return ranked;
+    }
+
+    // Valor e extra de uma chave guardada (0 se não está)
+    long score(long key) {
+        int position = position(key);
+        return position < 0 ? 0 : scores[position];
+    }
+
+    long extra(long key) {
+        int position = position(key);
+        return position < 0 ? 0 : extras[position];
+    }
+
+    private static boolean worse(long key, long score, long otherKey, long otherScore) {
+        return score < otherScore || score == otherScore && key > otherKey;
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (!worse(keys[position], scores[position], keys[parent], scores[parent])) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && worse(keys[child + 1], scores[child + 1], keys[child], scores[child])) {
+                child++;
+            }
+            if (!worse(keys[child], scores[child], keys[position], scores[position])) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        long score = scores[a];
+        long extra = extras[a];
+        set(a, keys[b], scores[b], extras[b]);
+        set(b, key, score, extra);
+    }
+
+    private void set(int position, long key, long score, long extra) {
+        keys[position] = key;
+        scores[position] = score;
+        extras[position] = extra;
+        index(key, position);
+    }
+
+    private int position(long key) {
+        int mask = indexKeys.length - 1;
+        for (int i = LongSums.mix(key) & mask; indexKeys[i] != EMPTY; i = (i + 1) & mask) {
+            if (indexKeys[i] == key) {
+                return indexPositions[i];
+            }
+        }
+        return -1;
+    }
+
+    private void index(long key, int position) {
+        int mask = indexKeys.length - 1;
+        int i = LongSums.mix(key) & mask;
+        while (indexKeys[i] != EMPTY && indexKeys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        indexKeys[i] = key;
+        indexPositions[i] = position;
+    }
+
+    // Remoção na sondagem linear: puxa para trás as chaves seguintes que dependiam do slot liberado
+    private void unindex(long key) {
+        int mask = indexKeys.length - 1;
+        int i = LongSums.mix(key) & mask;
+        while (indexKeys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        int hole = i;
+        for (int j = (hole + 1) & mask; indexKeys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = LongSums.mix(indexKeys[j]) & mask;
+            // A chave em j pode ir para o buraco se o slot de origem dela não está entre o buraco e j
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                indexKeys[hole] = indexKeys[j];
+                indexPositions[hole] = indexPositions[j];
+                hole = j;
+            }
+        }
+        indexKeys[hole] = EMPTY;
+    }
+}
@@ -0,0 +1,323 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.config.TopSellersSettings;
+import com.pedidofacil.repositories.projections.ProductSalesView;
+import com.pedidofacil.repositories.projections.Projections;
+import com.pedidofacil.repositories.projections.TopCustomerView;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top produtos e top clientes de todo o período em memória fixa: as somas por produto e por cliente ficam em
+ * {@link CountMinSketch}es, e os candidatos ao topo num {@link TopKHeap} atualizado a cada soma. O ranking sai
+ * sem ir ao banco, com um erro máximo (o mesmo para todas as linhas) que a tela mostra junto.
+ * <p>
+ * Carregado em segundo plano na subida e de novo a cada recálculo do resumo (resumo diário de produtos e
+ * totais dos pedidos com cliente); pedidos novos entram após o commit ({@link OrderCreatedEvent}).
+ */
+@Service
+public class TopSellersSketch {
+
+    private static final Logger log = LoggerFactory.getLogger(TopSellersSketch.class);
+
+    public enum State { DISABLED, LOADING, READY, FAILED }
+
+    private static final String MAX_ID = "SELECT coalesce(max(id), 0) FROM orders";
+    // Sem agrupar: o sketch soma as linhas de cada produto, e a leitura não precisa ordenar nada
+    private static final String PRODUCTS = "SELECT product_id, quantity, total FROM daily_product_summary";
+    private static final String CUSTOMERS = "SELECT customer_id, total FROM orders WHERE customer_id IS NOT NULL";
+
+    private final DataSource readDataSource;
+    private final TopSellersSettings settings;
+    private final ReportEngineSettings engineSettings;
+
+    // Tudo abaixo é guardado por this; null fora de READY
+    private Sketches sketches;
+    // Pedidos confirmados durante a carga; aplicados no fim, exceto os que a leitura já trouxe. Cada carga tem
+    // a sua lista: se outra começou depois, a lista já é outra e a mais antiga não publica nada
+    private List<OrderColumnStore.Row> pending;
+    private volatile State state = State.DISABLED;
+    private volatile Thread loader;
+
+    // Somas em centavos (quantidade em milésimos) e candidatos, de produtos e de clientes
+    private static final class Sketches {
+        final CountMinSketch productTotals;
+        final CountMinSketch productQuantities;
+        final CountMinSketch customerTotals;
+        final TopKHeap products;
+        final TopKHeap customers;
+        long lastOrderId;
+
+        Sketches(TopSellersSettings settings) {
+            productTotals = new CountMinSketch(settings.getSketchWidth(), settings.getSketchDepth());
+            productQuantities = new CountMinSketch(settings.getSketchWidth(), settings.getSketchDepth());
+            customerTotals = new CountMinSketch(settings.getSketchWidth(), settings.getSketchDepth());
+            products = new TopKHeap(settings.getCandidates());
+            customers = new TopKHeap(settings.getCandidates());
+        }
+
+        void product(long id, long quantity, long total) {
+            productTotals.add(id, total);
+            productQuantities.add(id, quantity);
+            products.offer(id, productTotals.estimate(id));
+        }
+
+        void customer(long id, long total) {
+            customerTotals.add(id, total);
+            customers.offer(id, customerTotals.estimate(id));
+        }
+
+        void add(OrderColumnStore.Row row) {
+            if (row.id() <= lastOrderId) {
+                return;
+            }
+            for (int i = 0; i < row.products().length; i++) {
+                product(row.products()[i], row.quantities()[i], row.subtotals()[i]);
+            }
+            if (row.customer() != 0) {
+                customer(row.customer(), row.total());
+            }
+        }
+    }
+
+    public TopSellersSketch(@Qualifier("readDataSource") DataSource readDataSource, TopSellersSettings settings,
+                            ReportEngineSettings engineSettings) {
+        this.readDataSource = readDataSource;
+        this.settings = settings;
+        this.engineSettings = engineSettings;
+    }
+
+    /**
+     * Inicia a carga em segundo plano; chamado na subida e depois de cada recálculo do resumo. Uma carga
+     * ainda em andamento é interrompida: a nova lê o resumo recalculado.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        if (!settings.isApproximate()) {
+            return;
+        }
+        stop();
+        Thread thread = new Thread(this::load, "top-sellers-loader");
+        thread.setDaemon(true);
+        loader = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread thread = loader;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Soma ao sketch o resumo de produtos e os pedidos com cliente, numa transação somente leitura.
+     * Síncrono; na subida roda na thread {@code top-sellers-loader}.
+     */
+    public void load() {
+        long started = System.nanoTime();
+        List<OrderColumnStore.Row> arrived = new ArrayList<>();
+        synchronized (this) {
+            sketches = null;
+            state = State.LOADING;
+            // Os pedidos da lista de uma carga anterior já estão no banco que esta vai ler
+            pending = arrived;
+        }
+        Sketches loaded = new Sketches(settings);
+        try {
+            read(loaded);
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Falha ao carregar o sketch de top produtos e clientes; rankings seguem no banco", e);
+            synchronized (this) {
+                if (pending == arrived) {
+                    pending = null;
+                    state = State.FAILED;
+                }
+            }
+            return;
+        }
+        synchronized (this) {
+            if (pending != arrived) {
+                return;
+            }
+            for (OrderColumnStore.Row row : arrived) {
+                loaded.add(row);
+            }
+            pending = null;
+            sketches = loaded;
+            state = State.READY;
+        }
+        log.info("Sketch de top produtos e clientes carregado em {} ms: erro máximo {} (produtos) e {} (clientes), {} KB",
+                (System.nanoTime() - started) / 1_000_000, Money.of(loaded.productTotals.errorBound()),
+                Money.of(loaded.customerTotals.errorBound()), (loaded.productTotals.bytes() * 3) / 1024);
+    }
+
+    private void read(Sketches loaded) throws SQLException {
+        try (Connection connection = readDataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                // Mesma transação: o último id é o do instante em que o resumo e os pedidos são lidos
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery(MAX_ID)) {
+                    rs.next();
+                    loaded.lastOrderId = rs.getLong(1);
+                }
+                try (PreparedStatement statement = connection.prepareStatement(PRODUCTS)) {
+                    statement.setFetchSize(engineSettings.getFetchSize());
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            interrupted();
+                            loaded.product(rs.getLong(1), Math.round(rs.getDouble(2) * 1000),
+                                    Money.cents(rs.getDouble(3)));
+                        }
+                    }
+                }
+                try (PreparedStatement statement = connection.prepareStatement(CUSTOMERS)) {
+                    statement.setFetchSize(engineSettings.getFetchSize());
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            interrupted();
+                            loaded.customer(rs.getLong(1), Money.cents(rs.getDouble(2)));
+                        }
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    private static void interrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new IllegalStateException("Carga interrompida");
+        }
+    }
+
+    // Antes do cache dos relatórios, como o OrderColumnStore
+    @org.springframework.core.annotation.Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderCreated(OrderCreatedEvent event) {
+        if (!settings.isApproximate() || event.order().getId() == null) {
+            return;
+        }
+        if (pending != null) {
+            pending.add(OrderColumnStore.Row.of(event.order()));
+        } else if (sketches != null) {
+            sketches.add(OrderColumnStore.Row.of(event.order()));
+        }
+    }
+
+    public State getState() { return state; }
+
+    // Se um ranking de {@code limit} linhas pode sair do sketch
+    public boolean canRank(int limit) {
+        return state == State.READY && limit <= settings.getCandidates();
+    }
+
+    /**
+     * Os {@code limit} produtos de maior total estimado. Total e quantidade nunca ficam abaixo do real e, com
+     * a probabilidade do sketch, passam dele em no máximo {@link ProductSalesView#getErrorBound()}.
+     *
+     * @throws IllegalStateException se o sketch não está carregado
+     */
+    public List<ProductSalesView> topProducts(int limit) {
+        long[] top;
+        long[] totals;
+        long[] quantities;
+        long errorBound;
+        synchronized (this) {
+            Sketches current = current();
+            top = head(current.products.keys(), limit);
+            totals = new long[top.length];
+            quantities = new long[top.length];
+            for (int i = 0; i < top.length; i++) {
+                totals[i] = current.productTotals.estimate(top[i]);
+                quantities[i] = current.productQuantities.estimate(top[i]);
+            }
+            errorBound = current.productTotals.errorBound();
+        }
+        Map<Long, String> names = names(SinglePassReportEngine.PRODUCT_NAMES, top);
+        List<ProductSalesView> views = new ArrayList<>(top.length);
+        for (int i = 0; i < top.length; i++) {
+            views.add(Projections.of(ProductSalesView.class,
+                    "productId", top[i],
+                    "productName", names.get(top[i]),
+                    "quantity", BigDecimal.valueOf(quantities[i], 3),
+                    "total", Money.of(totals[i]),
+                    "errorBound", Money.of(errorBound)));
+        }
+        return views;
+    }
+
+    /**
+     * Os {@code limit} clientes de maior total estimado, com o erro máximo em {@link TopCustomerView#getErrorBound()}.
+     *
+     * @throws IllegalStateException se o sketch não está carregado
+     */
+    public List<TopCustomerView> topCustomers(int limit) {
+        long[] top;
+        long[] totals;
+        long errorBound;
+        synchronized (this) {
+            Sketches current = current();
+            top = head(current.customers.keys(), limit);
+            totals = new long[top.length];
+            for (int i = 0; i < top.length; i++) {
+                totals[i] = current.customerTotals.estimate(top[i]);
+            }
+            errorBound = current.customerTotals.errorBound();
+        }
+        Map<Long, String> names = names(SinglePassReportEngine.CUSTOMER_NAMES, top);
+        List<TopCustomerView> views = new ArrayList<>(top.length);
+        for (int i = 0; i < top.length; i++) {
+            views.add(Projections.of(TopCustomerView.class,
+                    "customerId", top[i],
+                    "customerName", names.get(top[i]),
+                    "total", Money.of(totals[i]),
+                    "errorBound", Money.of(errorBound)));
+        }
+        return views;
+    }
+
+    private Sketches current() {
+        if (sketches == null) {
+            throw new IllegalStateException("Sketch de top produtos e clientes indisponível (" + state + ")");
+        }
+        return sketches;
+    }
+
+    private static long[] head(long[] ranked, int limit) {
+        long[] head = new long[Math.max(0, Math.min(limit, ranked.length))];
+        System.arraycopy(ranked, 0, head, 0, head.length);
+        return head;
+    }
+
+    private Map<Long, String> names(String sql, long[] ids) {
+        try (Connection connection = readDataSource.getConnection()) {
+            return SinglePassReportEngine.names(connection, sql, ids);
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Falha ao ler os nomes do ranking", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.pedidofacil.viewmodels;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Busca enquanto o usuário digita, fora da thread da tela: cada texto espera {@code delayMillis} sem tecla nova
+ * antes de rodar, numa thread própria, e só o resultado do texto mais recente é entregue. Texto novo cancela o
+ * que ainda estava esperando; o que já estava rodando termina, mas o resultado é descartado (na thread da busca e
+ * de novo na de quem recebe, pois outra tecla pode chegar entre uma e outra).
+ */
+public final class DebouncedSearch<R> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DebouncedSearch.class);
+
+    private final long delayMillis;
+    private final ScheduledExecutorService worker;
+    // Número do texto mais recente; cada busca guarda o seu e confere antes de rodar e de entregar
+    private final AtomicLong latest = new AtomicLong();
+    // Busca esperando o intervalo, guardada por this
+    private ScheduledFuture<?> pending;
+
+    public DebouncedSearch(String threadName, long delayMillis) {
+        this(delayMillis, Executors.newSingleThreadScheduledExecutor(work -> {
+            Thread thread = new Thread(work, threadName);
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    DebouncedSearch(long delayMillis, ScheduledExecutorService worker) {
+        this.delayMillis = delayMillis;
+        this.worker = worker;
+    }
+
+    /**
+     * Agenda a busca de {@code text}, substituindo a anterior. {@code onResult} roda em {@code publisher}
+     * (ex.: {@code Platform::runLater}) e só se nenhum texto mais novo tiver chegado até lá.
+     */
+    public synchronized void submit(String text, Function<String, ? extends R> query, Executor publisher,
+                                    Consumer<? super R> onResult) {
+        long ticket = latest.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = worker.schedule(() -> {
+            if (ticket != latest.get()) {
+                return;
+            }
+            R result;
+            try {
+                result = query.apply(text);
+            } catch (RuntimeException e) {
+                log.warn("Falha na busca por '{}'", text, e);
+                return;
+            }
+            if (ticket == latest.get()) {
+                publisher.execute(() -> {
+                    if (ticket == latest.get()) {
+                        onResult.accept(result);
+                    }
+                });
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Descarta a busca agendada ou em andamento sem agendar outra.
+     */
+    public synchronized void cancel() {
+        latest.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        cancel();
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,51 @@
+package com.pedidofacil.viewmodels;
+
+import com.pedidofacil.persistence.PragmaStatus;
+import com.pedidofacil.persistence.SqliteDiagnostics;
+import com.pedidofacil.services.IReportService;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class DiagnosticsViewModel {
+
+    private final SqliteDiagnostics diagnostics;
+    private final IReportService reportService;
+
+    public DiagnosticsViewModel(SqliteDiagnostics diagnostics, IReportService reportService) {
+        this.diagnostics = diagnostics;
+        this.reportService = reportService;
+    }
+
+    private List<PragmaStatus> pragmas = new ArrayList<>();
+    private String status = "";
+
+    public void refresh() {
+        try {
+            pragmas = diagnostics.check();
+            long divergent = pragmas.stream().filter(p -> !p.isMatching()).count();
+            status = divergent == 0
+                    ? "Todos os valores conferem com o perfil."
+                    : divergent + " valor(es) diferente(s) do perfil.";
+        } catch (Exception e) {
+            pragmas = new ArrayList<>();
+            status = "Falha ao ler o banco: " + e.getMessage();
+        }
+    }
+
+    public void rebuildSummary() {
+        try {
+            long started = System.nanoTime();
+            reportService.rebuildSummary();
+            status = "Resumo de vendas recalculado em " + (System.nanoTime() - started) / 1_000_000 + " ms.";
+        } catch (Exception e) {
+            status = "Falha ao recalcular o resumo: " + e.getMessage();
+        }
+    }
+
+    public String getProfileName() { return diagnostics.getProfile().name(); }
+    public List<PragmaStatus> getPragmas() { return pragmas; }
+    public String getStatus() { return status; }
+}
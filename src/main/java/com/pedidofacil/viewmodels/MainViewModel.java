@@ -6,23 +6,35 @@ import com.pedidofacil.models.PaymentMethod;
 import com.pedidofacil.models.Product;
 import com.pedidofacil.services.ICustomerService;
 import com.pedidofacil.services.IOrderService;
-import com.pedidofacil.services.IProductService;
+import com.pedidofacil.services.ProductCatalog;
+import com.pedidofacil.services.ProductSearch;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 @Component
 public class MainViewModel {
 
-    private final IProductService productService;
+    // Quantos produtos a busca mostra no seletor
+    static final int SEARCH_LIMIT = 100;
+    // Intervalo sem tecla nova antes de buscar: quem digita rápido dispara uma busca, não uma por letra
+    static final long SEARCH_DEBOUNCE_MILLIS = 120;
+
+    private final ProductCatalog catalog;
+    private final ProductSearch productSearch;
     private final IOrderService orderService;
     private final ICustomerService customerService;
+    private final DebouncedSearch<List<Product>> productSearches;
 
-    // Produtos e busca
+    // Produtos (cópia do catálogo compartilhado) e busca
     private List<Product> products = new ArrayList<>();
+    private long catalogVersion;
     private String searchQuery = "";
 
     // Seleção e item atual
@@ -45,19 +57,61 @@ public class MainViewModel {
     // Próximo número do pedido
     private Long nextOrderNumber;
 
-    public MainViewModel(IProductService productService, IOrderService orderService, ICustomerService customerService) {
-        this.productService = productService;
+    public MainViewModel(ProductCatalog catalog, ProductSearch productSearch, IOrderService orderService,
+                         ICustomerService customerService) {
+        this.catalog = catalog;
+        this.productSearch = productSearch;
         this.orderService = orderService;
         this.customerService = customerService;
+        this.productSearches = new DebouncedSearch<>("product-search", SEARCH_DEBOUNCE_MILLIS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        productSearches.close();
     }
 
     public void onLoaded() {
-        this.products = productService.findAll();
+        applyCatalog(catalog.snapshot());
         this.customers = customerService.findAll();
         refreshNextOrderNumber();
         setStatusMessage("Produtos carregados: " + products.size());
     }
 
+    /**
+     * Troca a lista de produtos pela cópia do catálogo, se for mais nova que a aplicada; devolve se trocou.
+     * Chamado na thread do JavaFX.
+     */
+    public boolean applyCatalog(ProductCatalog.Snapshot snapshot) {
+        if (snapshot == null || snapshot.version() <= catalogVersion) {
+            return false;
+        }
+        this.products = snapshot.products();
+        this.catalogVersion = snapshot.version();
+        return true;
+    }
+
+    // Avisado a cada troca do catálogo, na thread de quem gravou o produto; rodar o retorno cancela o aviso
+    public Runnable onCatalogChanged(Consumer<ProductCatalog.Snapshot> listener) {
+        catalog.addListener(listener);
+        return () -> catalog.removeListener(listener);
+    }
+
+    public long getCatalogVersion() { return catalogVersion; }
+
+    /**
+     * Produtos que casam com a busca (nome ou marca), os melhores primeiro; busca em branco devolve todos.
+     * Roda fora da thread do JavaFX: a busca começa depois de {@link #SEARCH_DEBOUNCE_MILLIS} sem busca nova e
+     * {@code onResult} recebe, em {@code fxThread}, só o resultado da mais recente. Chamado na thread do JavaFX.
+     */
+    public void searchProductsAsync(String query, Executor fxThread, Consumer<List<Product>> onResult) {
+        this.searchQuery = query == null ? "" : query;
+        // Lidos aqui, na thread do JavaFX; a busca só usa as cópias
+        List<Product> all = products;
+        productSearches.submit(searchQuery,
+                text -> text.isBlank() ? all : productSearch.search(text, SEARCH_LIMIT), fxThread, onResult);
+    }
+
     public Customer createOrFindCustomer(String name, String phone) {
         if (name == null || name.isBlank()) return null;
         Optional<Customer> existing = customerService.findByName(name.trim());
@@ -2,21 +2,33 @@ package com.pedidofacil.viewmodels;
 
 import com.pedidofacil.models.PaymentMethod;
 import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.MonthlySalesView;
 import com.pedidofacil.repositories.projections.PaymentDistributionView;
 import com.pedidofacil.repositories.projections.ProductSalesView;
 import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TicketPercentileView;
 import com.pedidofacil.repositories.projections.TopCustomerView;
 import com.pedidofacil.services.IReportService;
+import com.pedidofacil.services.IReportSnapshotService;
+import com.pedidofacil.services.ReportSnapshot;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 @Component
 public class ReportsViewModel {
 
+    private static final int TOP_LIMIT = 10;
+
     private final IReportService reportService;
+    private final IReportSnapshotService snapshotService;
 
     private LocalDate startDate;
     private LocalDate endDate;
@@ -24,23 +36,53 @@ public class ReportsViewModel {
     private List<ProductSalesView> productSales = Collections.emptyList();
     private List<PaymentDistributionView> paymentDistribution = Collections.emptyList();
     private List<TicketAverageView> ticketAverages = Collections.emptyList();
+    private List<TicketPercentileView> ticketPercentiles = Collections.emptyList();
     private List<TopCustomerView> topCustomers = Collections.emptyList();
     private List<DailySalesView> dailySales = Collections.emptyList();
+    private List<MonthlySalesView> monthlySales = Collections.emptyList();
+    private List<HourlySalesView> hourlySales = Collections.emptyList();
+    private ReportSnapshot snapshot;
 
-    public ReportsViewModel(IReportService reportService) {
+    public ReportsViewModel(IReportService reportService, IReportSnapshotService snapshotService) {
         this.reportService = reportService;
+        this.snapshotService = snapshotService;
     }
 
     public void refreshAll() {
-        this.productSales = reportService.topProducts(startDate, endDate, 10);
+        this.productSales = reportService.topProducts(startDate, endDate, TOP_LIMIT);
         this.paymentDistribution = reportService.paymentDistribution(startDate, endDate);
         this.ticketAverages = reportService.ticketAverage(startDate, endDate);
-        this.topCustomers = reportService.topCustomers(startDate, endDate, null, 10);
+        this.ticketPercentiles = reportService.ticketPercentiles(startDate, endDate);
+        this.topCustomers = reportService.topCustomers(startDate, endDate, null, TOP_LIMIT);
         this.dailySales = reportService.dailySales(startDate, endDate);
+        this.monthlySales = reportService.monthlySales(startDate, endDate);
+        this.hourlySales = reportService.hourlySales(startDate, endDate);
+    }
+
+    // Consultas em paralelo, fora da thread da tela; o resultado entra no view model por apply(snapshot)
+    public CompletableFuture<ReportSnapshot> loadAsync() {
+        return snapshotService.loadAsync(startDate, endDate, TOP_LIMIT);
+    }
+
+    // false se o período mudou enquanto as consultas rodavam: a resposta atrasada não sobrescreve a mais nova
+    public boolean apply(ReportSnapshot loaded) {
+        if (!Objects.equals(loaded.start(), startDate) || !Objects.equals(loaded.end(), endDate)) {
+            return false;
+        }
+        this.snapshot = loaded;
+        this.productSales = loaded.productSales();
+        this.paymentDistribution = loaded.paymentDistribution();
+        this.ticketAverages = loaded.ticketAverages();
+        this.ticketPercentiles = loaded.ticketPercentiles();
+        this.topCustomers = loaded.topCustomers();
+        this.dailySales = loaded.dailySales();
+        this.monthlySales = loaded.monthlySales();
+        this.hourlySales = loaded.hourlySales();
+        return true;
     }
 
     public void refreshTopCustomersFiado() {
-        this.topCustomers = reportService.topCustomers(startDate, endDate, PaymentMethod.CREDITSALE, 10);
+        this.topCustomers = reportService.topCustomers(startDate, endDate, PaymentMethod.CREDITSALE, TOP_LIMIT);
     }
 
     public LocalDate getStartDate() { return startDate; }
@@ -50,6 +92,18 @@ public class ReportsViewModel {
     public List<ProductSalesView> getProductSales() { return productSales; }
     public List<PaymentDistributionView> getPaymentDistribution() { return paymentDistribution; }
     public List<TicketAverageView> getTicketAverages() { return ticketAverages; }
+    public List<TicketPercentileView> getTicketPercentiles() { return ticketPercentiles; }
     public List<TopCustomerView> getTopCustomers() { return topCustomers; }
     public List<DailySalesView> getDailySales() { return dailySales; }
+    public List<MonthlySalesView> getMonthlySales() { return monthlySales; }
+    public List<HourlySalesView> getHourlySales() { return hourlySales; }
+    public ReportSnapshot getSnapshot() { return snapshot; }
+
+    // Erro máximo dos rankings aproximados (todo o período, ver TopSellersSketch); null quando exatos
+    public BigDecimal getProductSalesErrorBound() { return errorBound(productSales, ProductSalesView::getErrorBound); }
+    public BigDecimal getTopCustomersErrorBound() { return errorBound(topCustomers, TopCustomerView::getErrorBound); }
+
+    private static <T> BigDecimal errorBound(List<T> rows, Function<T, BigDecimal> bound) {
+        return rows.stream().filter(Objects::nonNull).map(bound).filter(Objects::nonNull).findFirst().orElse(null);
+    }
 }
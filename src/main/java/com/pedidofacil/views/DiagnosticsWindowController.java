@@ -0,0 +1,66 @@
+package com.pedidofacil.views;
+
+import com.pedidofacil.persistence.PragmaStatus;
+import com.pedidofacil.viewmodels.DiagnosticsViewModel;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.Stage;
+import org.springframework.stereotype.Component;
+
+import java.net.URL;
+import java.util.ResourceBundle;
+
+@Component
+public class DiagnosticsWindowController implements Initializable {
+
+    private final DiagnosticsViewModel vm;
+
+    public DiagnosticsWindowController(DiagnosticsViewModel vm) {
+        this.vm = vm;
+    }
+
+    @FXML private Label lblProfile;
+    @FXML private Label lblStatus;
+    @FXML private TableView<PragmaStatus> tblPragmas;
+    @FXML private TableColumn<PragmaStatus, String> colPool;
+    @FXML private TableColumn<PragmaStatus, String> colName;
+    @FXML private TableColumn<PragmaStatus, String> colExpected;
+    @FXML private TableColumn<PragmaStatus, String> colActual;
+    @FXML private TableColumn<PragmaStatus, String> colMatching;
+
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        colPool.setCellValueFactory(new PropertyValueFactory<>("pool"));
+        colName.setCellValueFactory(new PropertyValueFactory<>("name"));
+        colExpected.setCellValueFactory(new PropertyValueFactory<>("expected"));
+        colActual.setCellValueFactory(new PropertyValueFactory<>("actual"));
+        colMatching.setCellValueFactory(c -> new SimpleStringProperty(c.getValue().isMatching() ? "OK" : "Diferente"));
+        onRefresh();
+    }
+
+    @FXML
+    public void onRefresh() {
+        vm.refresh();
+        lblProfile.setText(vm.getProfileName());
+        tblPragmas.setItems(FXCollections.observableArrayList(vm.getPragmas()));
+        lblStatus.setText(vm.getStatus());
+    }
+
+    @FXML
+    public void onRebuildSummary() {
+        vm.rebuildSummary();
+        lblStatus.setText(vm.getStatus());
+    }
+
+    @FXML
+    public void onClose() {
+        Stage stage = (Stage) tblPragmas.getScene().getWindow();
+        stage.close();
+    }
+}
@@ -0,0 +1,44 @@
+package com.pedidofacil.views;
+
+import javafx.collections.ObservableList;
+
+import java.util.List;
+
+/**
+ * Troca o conteúdo de uma lista da tela pelo de outra mexendo só no trecho que mudou: o começo e o fim iguais
+ * (mesma instância) ficam, e o meio sai e entra em uma remoção e uma inclusão. Ao refinar uma busca, a lista do
+ * seletor perde alguns itens em vez de ser recriada inteira, e as células dos itens que ficaram não são refeitas.
+ */
+final class ListDiff {
+
+    private ListDiff() {
+    }
+
+    static <T> void apply(ObservableList<T> target, List<? extends T> next) {
+        int oldSize = target.size();
+        int newSize = next.size();
+        int prefix = 0;
+        while (prefix < oldSize && prefix < newSize && target.get(prefix) == next.get(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+                && target.get(oldSize - 1 - suffix) == next.get(newSize - 1 - suffix)) {
+            suffix++;
+        }
+        if (prefix == oldSize && prefix == newSize) {
+            return;
+        }
+        if (prefix == 0 && suffix == 0) {
+            // Nada em comum: um evento só
+            target.setAll(next);
+            return;
+        }
+        if (oldSize - suffix > prefix) {
+            target.remove(prefix, oldSize - suffix);
+        }
+        if (newSize - suffix > prefix) {
+            target.addAll(prefix, next.subList(prefix, newSize - suffix));
+        }
+    }
+}
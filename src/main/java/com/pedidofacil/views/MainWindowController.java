@@ -5,6 +5,7 @@ import com.pedidofacil.models.PaymentMethod;
 import com.pedidofacil.models.Product;
 import com.pedidofacil.viewmodels.MainViewModel;
 import com.pedidofacil.viewmodels.OrderItemView;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import com.pedidofacil.models.Customer;
 import javafx.collections.ObservableList;
@@ -30,7 +31,6 @@ import java.text.NumberFormat;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
-import java.util.stream.Collectors;
 
 @Component
 public class MainWindowController implements Initializable {
@@ -38,6 +38,8 @@ public class MainWindowController implements Initializable {
     private final MainViewModel vm;
     private final AppSettings settings;
     private final ApplicationContext context;
+    // Cancela o aviso de troca do catálogo; null com a janela fechada
+    private Runnable catalogSubscription;
 
     public MainWindowController(MainViewModel vm, AppSettings settings, ApplicationContext context) {
         this.vm = vm;
@@ -243,26 +245,34 @@ public class MainWindowController implements Initializable {
         btnNewCustomer.setVisible(true);
         btnNewCustomer.setManaged(true);
 
-        // Busca incremental de produtos
+        // Busca incremental de produtos, fora da thread da tela; só o resultado da última tecla chega ao seletor
         txtSearch.textProperty().addListener((obs, old, val) -> filterProducts(val));
+        // Produto salvo ou removido em outra tela: reaplica a busca sobre o catálogo novo, sem ir ao banco
+        catalogSubscription = vm.onCatalogChanged(snapshot -> Platform.runLater(() -> {
+            if (vm.applyCatalog(snapshot)) {
+                filterProducts(txtSearch.getText());
+            }
+        }));
     }
 
-    private void filterProducts(String query) {
-        List<Product> base = vm.getProducts();
-        if (query == null || query.isBlank()) {
-            cmbProducts.setItems(FXCollections.observableArrayList(base));
-            return;
+    /**
+     * Chamado quando a janela principal fecha: o catálogo deixa de avisar esta tela.
+     */
+    public void onWindowHidden() {
+        if (catalogSubscription != null) {
+            catalogSubscription.run();
+            catalogSubscription = null;
         }
-        String q = query.trim().toLowerCase();
-        List<Product> filtered = base.stream()
-                .filter(p -> {
-                    String name = p.getName() != null ? p.getName().toLowerCase() : "";
-                    String brand = p.getBrand() != null ? p.getBrand().toLowerCase() : "";
-                    return name.contains(q) || brand.contains(q);
-                })
-                .collect(Collectors.toList());
-        cmbProducts.setItems(FXCollections.observableArrayList(filtered));
-        if (!filtered.isEmpty()) {
+    }
+
+    private void filterProducts(String query) {
+        vm.searchProductsAsync(query, Platform::runLater, found -> showProducts(query, found));
+    }
+
+    // Na thread da tela; a lista do seletor muda só no trecho diferente da anterior
+    private void showProducts(String query, List<Product> found) {
+        ListDiff.apply(cmbProducts.getItems(), found);
+        if (query != null && !query.isBlank() && !found.isEmpty()) {
             cmbProducts.getSelectionModel().select(0);
         }
     }
@@ -340,6 +350,21 @@ public class MainWindowController implements Initializable {
         }
     }
 
+    @FXML
+    public void onOpenDiagnostics(ActionEvent e) {
+        try {
+            FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/DiagnosticsWindow.fxml"));
+            loader.setControllerFactory(context::getBean);
+            Stage stage = new Stage();
+            stage.setTitle("Diagnóstico do Banco");
+            stage.initModality(Modality.WINDOW_MODAL);
+            stage.setScene(new Scene(loader.load()));
+            stage.show();
+        } catch (Exception ex) {
+            lblStatus.setText("Falha ao abrir diagnóstico: " + ex.getMessage());
+        }
+    }
+
     private void updateTotalsAndStatus() {
         lblTotal.setText(currency.format(vm.getTotal() != null ? vm.getTotal() : BigDecimal.ZERO));
         lblSubtotal.setText(currency.format(vm.getSubtotal() != null ? vm.getSubtotal() : BigDecimal.ZERO));
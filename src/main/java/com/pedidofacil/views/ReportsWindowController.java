@@ -2,17 +2,22 @@ package com.pedidofacil.views;
 
 import com.pedidofacil.models.PaymentMethod;
 import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.MonthlySalesView;
 import com.pedidofacil.repositories.projections.PaymentDistributionView;
 import com.pedidofacil.repositories.projections.ProductSalesView;
 import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TicketPercentileView;
 import com.pedidofacil.repositories.projections.TopCustomerView;
 import com.pedidofacil.viewmodels.ReportsViewModel;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.chart.*;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
@@ -41,6 +46,7 @@ import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletionException;
 import java.util.prefs.Preferences;
 
 @Component
@@ -55,6 +61,11 @@ public class ReportsWindowController implements Initializable {
             PaymentMethod.CREDITSALE, "#EA4335" // Red
     );
 
+    // Agrupamentos do gráfico de evolução temporal
+    private static final String BY_DAY = "Por dia";
+    private static final String BY_MONTH = "Por mês";
+    private static final String BY_HOUR = "Por hora";
+
     private final ReportsViewModel vm;
     private Path lastExportDir;
     private final Preferences prefs = Preferences.userNodeForPackage(ReportsWindowController.class);
@@ -64,12 +75,19 @@ public class ReportsWindowController implements Initializable {
     @FXML private PieChart piePayments;
     @FXML private BarChart<String, Number> barProducts;
     @FXML private BarChart<String, Number> barDaily;
+    @FXML private ChoiceBox<String> cbTimeline;
 
     @FXML private TableView<TicketAverageView> tblTicket;
     @FXML private TableColumn<TicketAverageView, String> colPayMethod;
     @FXML private TableColumn<TicketAverageView, Number> colOrders;
     @FXML private TableColumn<TicketAverageView, Number> colAverage;
 
+    @FXML private TableView<TicketPercentileView> tblTicketPercentiles;
+    @FXML private TableColumn<TicketPercentileView, String> colPercentileMethod;
+    @FXML private TableColumn<TicketPercentileView, Number> colP50;
+    @FXML private TableColumn<TicketPercentileView, Number> colP90;
+    @FXML private TableColumn<TicketPercentileView, Number> colP99;
+
     @FXML private TableView<TopCustomerView> tblTopCustomers;
     @FXML private TableColumn<TopCustomerView, String> colCustomer;
     @FXML private TableColumn<TopCustomerView, Number> colCustomerTotal;
@@ -91,6 +109,20 @@ public class ReportsWindowController implements Initializable {
             }
         });
 
+        colPercentileMethod.setCellValueFactory(cd -> new SimpleStringProperty(pmLabel(cd.getValue().getPaymentMethod())));
+        colP50.setCellValueFactory(new PropertyValueFactory<>("p50"));
+        colP90.setCellValueFactory(new PropertyValueFactory<>("p90"));
+        colP99.setCellValueFactory(new PropertyValueFactory<>("p99"));
+        for (TableColumn<TicketPercentileView, Number> col : List.of(colP50, colP90, colP99)) {
+            col.setCellFactory(c -> new TableCell<>() {
+                @Override protected void updateItem(Number item, boolean empty) {
+                    super.updateItem(item, empty);
+                    if (empty || item == null) { setText(""); }
+                    else { setText(fmtDec(BigDecimal.valueOf(item.doubleValue())) + " R$"); }
+                }
+            });
+        }
+
         colCustomer.setCellValueFactory(new PropertyValueFactory<>("customerName"));
         colCustomerTotal.setCellValueFactory(new PropertyValueFactory<>("total"));
         colCustomerTotal.setCellFactory(col -> new TableCell<>() {
@@ -118,6 +150,10 @@ public class ReportsWindowController implements Initializable {
             cx.setTickLabelRotation(45);
         }
 
+        cbTimeline.setItems(FXCollections.observableArrayList(BY_DAY, BY_MONTH, BY_HOUR));
+        cbTimeline.setValue(BY_DAY);
+        cbTimeline.valueProperty().addListener((obs, old, value) -> renderTimeline());
+
         dpStart.setValue(vm.getStartDate());
         dpEnd.setValue(vm.getEndDate());
 
@@ -199,12 +235,31 @@ public class ReportsWindowController implements Initializable {
             }
             writeCsv(dir.resolve("daily_sales.csv"), daily);
 
-            // top_products.csv
+            // monthly_sales.csv
+            List<String> monthly = new ArrayList<>();
+            monthly.add("mes;total");
+            for (MonthlySalesView m : vm.getMonthlySales()) {
+                if (m == null || m.getMonth() == null || m.getTotal() == null) continue;
+                monthly.add(m.getMonth() + ";" + fmtDec(m.getTotal()) + " R$");
+            }
+            writeCsv(dir.resolve("monthly_sales.csv"), monthly);
+
+            // hourly_sales.csv
+            List<String> hourly = new ArrayList<>();
+            hourly.add("hora;pedidos;total");
+            for (HourlySalesView h : vm.getHourlySales()) {
+                if (h == null || h.getHour() == null || h.getTotal() == null) continue;
+                hourly.add(h.getHour() + ";" + h.getOrders() + ";" + fmtDec(h.getTotal()) + " R$");
+            }
+            writeCsv(dir.resolve("hourly_sales.csv"), hourly);
+
+            // top_products.csv (erro_maximo: ranking aproximado de todo o período)
             List<String> prods = new ArrayList<>();
-            prods.add("produto;quantidade;total");
+            prods.add("produto;quantidade;total;erro_maximo");
             for (ProductSalesView p : vm.getProductSales()) {
                 if (p == null || p.getProductName() == null) continue;
-                prods.add(p.getProductName() + ";" + fmtDec(p.getQuantity()) + ";" + fmtDec(p.getTotal()) + " R$");
+                prods.add(p.getProductName() + ";" + fmtDec(p.getQuantity()) + ";" + fmtDec(p.getTotal()) + " R$;" +
+                        (p.getErrorBound() == null ? "" : fmtDec(p.getErrorBound()) + " R$"));
             }
             writeCsv(dir.resolve("top_products.csv"), prods);
 
@@ -226,12 +281,24 @@ public class ReportsWindowController implements Initializable {
             }
             writeCsv(dir.resolve("ticket_average.csv"), tickets);
 
+            // ticket_percentiles.csv (aproximados, t-digest)
+            List<String> percentiles = new ArrayList<>();
+            percentiles.add("pagamento;pedidos;mediana;p90;p99");
+            for (TicketPercentileView t : vm.getTicketPercentiles()) {
+                if (t == null || t.getPaymentMethod() == null || t.getP50() == null) continue;
+                percentiles.add(pmLabel(t.getPaymentMethod()) + ";" + t.getOrders() + ";" +
+                        fmtDec(BigDecimal.valueOf(t.getP50())) + " R$;" + fmtDec(BigDecimal.valueOf(t.getP90())) + " R$;" +
+                        fmtDec(BigDecimal.valueOf(t.getP99())) + " R$");
+            }
+            writeCsv(dir.resolve("ticket_percentiles.csv"), percentiles);
+
             // top_customers.csv
             List<String> customers = new ArrayList<>();
-            customers.add("cliente;total");
+            customers.add("cliente;total;erro_maximo");
             for (TopCustomerView c : vm.getTopCustomers()) {
                 if (c == null || c.getCustomerName() == null || c.getTotal() == null) continue;
-                customers.add(c.getCustomerName() + ";" + fmtDec(c.getTotal()) + " R$");
+                customers.add(c.getCustomerName() + ";" + fmtDec(c.getTotal()) + " R$;" +
+                        (c.getErrorBound() == null ? "" : fmtDec(c.getErrorBound()) + " R$"));
             }
             writeCsv(dir.resolve("top_customers.csv"), customers);
 
@@ -362,9 +429,17 @@ public class ReportsWindowController implements Initializable {
     }
 
     private void refresh() {
-        try {
-            vm.refreshAll();
+        vm.loadAsync().whenComplete((snapshot, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                showLoadError(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else if (vm.apply(snapshot)) {
+                render();
+            }
+        }));
+    }
 
+    private void render() {
+        try {
             var paymentDistribution = vm.getPaymentDistribution();
             var pieData = paymentDistribution.stream()
                     .filter(p -> p != null && p.getPaymentMethod() != null && p.getTotal() != null)
@@ -393,47 +468,103 @@ public class ReportsWindowController implements Initializable {
                 prodSeries.getData().add(new XYChart.Data<>(p.getProductName(), p.getTotal().doubleValue()));
             }
             barProducts.getData().setAll(prodSeries);
+            barProducts.setTitle("Vendas por Produto" + approximateSuffix(vm.getProductSalesErrorBound()));
             addBarTooltips(barProducts);
 
-            var dailySeries = new XYChart.Series<String, Number>();
-            dailySeries.setName("Gráfico de Vendas");
-            var points = new LinkedHashMap<String, BigDecimal>();
-            for (DailySalesView d : vm.getDailySales()) {
-                if (d == null || d.getDay() == null) continue;
-                points.put(d.getDay(), d.getTotal() == null ? BigDecimal.ZERO : d.getTotal());
-            }
+            renderTimeline();
 
-            var df = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            LocalDate s = vm.getStartDate();
-            LocalDate e = vm.getEndDate();
+            tblTicket.setItems(FXCollections.observableArrayList(vm.getTicketAverages()));
+            tblTicketPercentiles.setItems(FXCollections.observableArrayList(vm.getTicketPercentiles()));
+            tblTopCustomers.setItems(FXCollections.observableArrayList(vm.getTopCustomers()));
+            colCustomerTotal.setText("Total" + approximateSuffix(vm.getTopCustomersErrorBound()));
+        } catch (Exception ex) {
+            showLoadError(ex);
+        }
+    }
+
+    private void showLoadError(Throwable ex) {
+        ex.printStackTrace();
+        System.err.println("Erro ao atualizar relatórios: " + ex.getMessage());
+
+        piePayments.setData(FXCollections.observableArrayList());
+        barProducts.getData().clear();
+        barDaily.getData().clear();
+        barDaily.setTitle("Erro ao carregar dados");
+    }
 
-            if (s != null && e != null) {
-                for (LocalDate d = s; !d.isAfter(e); d = d.plusDays(1)) {
-                    String dayStr = d.format(df);
-                    points.putIfAbsent(dayStr, BigDecimal.ZERO);
+    // Preenche com zero os dias, meses ou horas sem venda, para o eixo não pular períodos
+    private void renderTimeline() {
+        var points = new TreeMap<String, BigDecimal>();
+        LocalDate s = vm.getStartDate();
+        LocalDate e = vm.getEndDate();
+        String selected = cbTimeline.getValue() == null ? BY_DAY : cbTimeline.getValue();
+        String title;
+        String axis;
+        switch (selected) {
+            case BY_MONTH -> {
+                for (MonthlySalesView m : vm.getMonthlySales()) {
+                    if (m == null || m.getMonth() == null) continue;
+                    points.put(m.getMonth(), m.getTotal() == null ? BigDecimal.ZERO : m.getTotal());
+                }
+                if (s != null && e != null) {
+                    for (YearMonth ym = YearMonth.from(s); !ym.isAfter(YearMonth.from(e)); ym = ym.plusMonths(1)) {
+                        points.putIfAbsent(ym.toString(), BigDecimal.ZERO);
+                    }
+                }
+                title = "Vendas por Mês";
+                axis = "Mês";
+            }
+            case BY_HOUR -> {
+                for (HourlySalesView h : vm.getHourlySales()) {
+                    if (h == null || h.getHour() == null) continue;
+                    points.put(String.format("%02dh", h.getHour()), h.getTotal() == null ? BigDecimal.ZERO : h.getTotal());
+                }
+                for (int hour = 0; hour < 24; hour++) {
+                    points.putIfAbsent(String.format("%02dh", hour), BigDecimal.ZERO);
+                }
+                title = "Vendas por Hora do Dia";
+                axis = "Hora";
+            }
+            default -> {
+                for (DailySalesView d : vm.getDailySales()) {
+                    if (d == null || d.getDay() == null) continue;
+                    points.put(d.getDay(), d.getTotal() == null ? BigDecimal.ZERO : d.getTotal());
+                }
+                if (s != null && e != null) {
+                    for (LocalDate d = s; !d.isAfter(e); d = d.plusDays(1)) {
+                        points.putIfAbsent(d.format(DateTimeFormatter.ISO_LOCAL_DATE), BigDecimal.ZERO);
+                    }
                 }
+                title = "Vendas por Dia";
+                axis = "Dia";
             }
+        }
 
-            points.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .forEach(entry -> dailySeries.getData().add(new XYChart.Data<>(formatDateLabel(entry.getKey()), entry.getValue().doubleValue())));
+        var series = new XYChart.Series<String, Number>();
+        series.setName("Gráfico de Vendas");
+        points.forEach((key, total) -> series.getData().add(new XYChart.Data<>(
+                BY_DAY.equals(selected) ? formatDateLabel(key) : formatPeriodLabel(key), total.doubleValue())));
 
-            barDaily.getData().setAll(dailySeries);
-            barDaily.setTitle("Vendas por Dia");
-            addBarTooltips(barDaily);
+        barDaily.getData().setAll(series);
+        barDaily.setTitle(title);
+        barDaily.getXAxis().setLabel(axis);
+        addBarTooltips(barDaily);
+    }
 
-            tblTicket.setItems(FXCollections.observableArrayList(vm.getTicketAverages()));
-            tblTopCustomers.setItems(FXCollections.observableArrayList(vm.getTopCustomers()));
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            System.err.println("Erro ao atualizar relatórios: " + ex.getMessage());
-            
-            piePayments.setData(FXCollections.observableArrayList());
-            barProducts.getData().clear();
-            barDaily.getData().clear();
-            barDaily.setTitle("Erro ao carregar dados");
+    // Ranking aproximado: os totais podem passar do real em até errorBound (ver TopSellersSketch)
+    public String approximateSuffix(BigDecimal errorBound) {
+        return errorBound == null ? "" : " (aproximado, ± " + fmtDec(errorBound) + " R$)";
+    }
+
+    // yyyy-MM vira MM/yyyy; outros rótulos (horas) ficam como estão
+    public String formatPeriodLabel(String period) {
+        try {
+            return YearMonth.parse(period).format(DateTimeFormatter.ofPattern("MM/yyyy"));
+        } catch (Exception e) {
+            return period;
         }
     }
+
     // Método auxiliar para formatar labels de data
     public String formatDateLabel(String date) {
         try {
@@ -1,5 +1,6 @@
 package com.pedidooff;
 
+import com.pedidofacil.views.MainWindowController;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.stage.Stage;
@@ -51,6 +52,8 @@ public class MainApp extends Application {
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/MainWindow.fxml"));
         loader.setControllerFactory(springContext::getBean);
         Parent root = loader.load();
+        MainWindowController controller = loader.getController();
+        primaryStage.setOnHidden(event -> controller.onWindowHidden());
 
         primaryStage.setTitle("PedidoOff - Principal");
         primaryStage.setScene(new Scene(root, 900, 600));
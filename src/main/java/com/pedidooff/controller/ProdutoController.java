@@ -2,6 +2,8 @@ package com.pedidooff.controller;
 
 import com.pedidofacil.models.Product;
 import com.pedidofacil.services.IProductService;
+import com.pedidofacil.services.ProductCatalog;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -13,11 +15,13 @@ import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.util.Locale;
+import java.util.function.Consumer;
 
 @Component
 public class ProdutoController {
 
     private final IProductService service;
+    private final ProductCatalog catalog;
 
     @FXML private TextField txtNome;
     @FXML private TextField txtMarca;
@@ -31,9 +35,14 @@ public class ProdutoController {
     @FXML private TableColumn<Product, BigDecimal> colPreco;
 
     private final ObservableList<Product> dados = FXCollections.observableArrayList();
+    // Versão do catálogo mostrada na tabela
+    private long versaoCatalogo;
+    private final Consumer<ProductCatalog.Snapshot> aoMudarCatalogo =
+            snapshot -> Platform.runLater(() -> aplicarCatalogo(snapshot));
 
-    public ProdutoController(IProductService service) {
+    public ProdutoController(IProductService service, ProductCatalog catalog) {
         this.service = service;
+        this.catalog = catalog;
     }
 
     // Máscara de moeda
@@ -90,6 +99,8 @@ public class ProdutoController {
         txtPreco.setOnAction(e -> onAdicionar(null));
 
         recarregarTabela();
+        // Mudanças feitas em outras telas chegam pelo catálogo (registrado uma vez, mesmo se a tela reabrir)
+        catalog.addListener(aoMudarCatalogo);
     }
 
     @FXML
@@ -129,7 +140,7 @@ public class ProdutoController {
         }
 
         Product novo = new Product(nome.trim(), marca == null ? "" : marca.trim(), unidade.trim(), preco);
-        Product salvo = service.save(novo);
+        service.save(novo);
 
         // Limpar campos e reiniciar preço formatado
         txtNome.clear();
@@ -137,7 +148,8 @@ public class ProdutoController {
         txtUnidade.clear();
         txtPreco.setText(currency.format(BigDecimal.ZERO));
 
-        dados.add(salvo);
+        // O catálogo já foi trocado no commit do produto
+        recarregarTabela();
     }
 
     @FXML
@@ -148,11 +160,19 @@ public class ProdutoController {
             return;
         }
         service.delete(selecionado);
-        dados.remove(selecionado);
+        recarregarTabela();
     }
 
     private void recarregarTabela() {
-        dados.setAll(service.findAll());
+        aplicarCatalogo(catalog.snapshot());
+    }
+
+    private void aplicarCatalogo(ProductCatalog.Snapshot snapshot) {
+        if (snapshot.version() <= versaoCatalogo) {
+            return;
+        }
+        versaoCatalogo = snapshot.version();
+        dados.setAll(snapshot.products());
     }
 
     private void mostrarAlerta(Alert.AlertType tipo, String titulo, String mensagem) {
@@ -0,0 +1,15 @@
+-- Esquema como o ddl-auto=update do Hibernate o criava. IF NOT EXISTS para adotar bancos já existentes
+-- sem alterá-los; daqui em diante toda mudança de esquema entra num script novo.
+
+CREATE TABLE IF NOT EXISTS customers (id integer, name varchar(255) not null, phone varchar(255), primary key (id));
+
+CREATE TABLE IF NOT EXISTS products (id integer, brand varchar(255) not null, name varchar(255) not null, price numeric(19,2) not null, unit varchar(255) not null, primary key (id));
+
+CREATE TABLE IF NOT EXISTS orders (id integer, created_at timestamp not null, number bigint not null unique,
+    payment_method varchar(255) not null check (payment_method in ('CASH','PIX','DEBIT','CREDIT','CREDITSALE')),
+    total numeric(19,2) not null, customer_id bigint, primary key (id));
+
+CREATE TABLE IF NOT EXISTS order_items (id integer, quantity numeric(19,3) not null, subtotal numeric(19,2) not null,
+    unit_price numeric(19,2) not null, order_id bigint not null, product_id bigint not null, primary key (id));
+
+CREATE TABLE IF NOT EXISTS order_sequences (name varchar(64) not null, next_value bigint not null, primary key (name));
@@ -0,0 +1,20 @@
+-- Índices de consulta: histórico, relatórios e buscas por cliente/produto.
+-- Os de pedidos e itens são de cobertura: as agregações dos relatórios leem só o índice, sem tocar na tabela.
+
+-- Período (histórico, vendas por dia e relatórios com intervalo de datas)
+CREATE INDEX IF NOT EXISTS ix_orders_created_payment_total ON orders (created_at, payment_method, total);
+
+-- Agrupamento por forma de pagamento já na ordem do índice (distribuição, ticket médio, ranking filtrado por forma)
+CREATE INDEX IF NOT EXISTS ix_orders_payment_created ON orders (payment_method, created_at, customer_id, total);
+
+-- Histórico filtrado por cliente e ranking de clientes
+CREATE INDEX IF NOT EXISTS ix_orders_customer_created ON orders (customer_id, created_at, payment_method, total);
+
+-- Itens do pedido e vendas por produto
+CREATE INDEX IF NOT EXISTS ix_order_items_order_product ON order_items (order_id, product_id, quantity, subtotal);
+
+-- Chave estrangeira para produto (exclusão e consulta de itens de um produto)
+CREATE INDEX IF NOT EXISTS ix_order_items_product ON order_items (product_id);
+
+-- Busca de cliente pelo nome
+CREATE INDEX IF NOT EXISTS ix_customers_name ON customers (name);
@@ -0,0 +1,19 @@
+-- Chaves inteiras de tempo dos pedidos (ver TimeKeys): epoch do horário local em segundos e dia yyyymmdd.
+-- Os relatórios por dia, mês e hora agrupam direto nesses inteiros, sem DATE() por linha.
+
+ALTER TABLE orders ADD COLUMN created_epoch integer not null default 0;
+ALTER TABLE orders ADD COLUMN day_key integer not null default 0;
+
+-- created_at é gravado pelo driver em milissegundos UTC; bancos antigos podem ter texto ISO.
+-- 'localtime' devolve o horário de parede que o LocalDateTime tinha ao ser salvo.
+UPDATE orders SET created_epoch = CAST(strftime('%s', CASE typeof(created_at)
+        WHEN 'text' THEN created_at
+        ELSE datetime(created_at / 1000, 'unixepoch', 'localtime') END) AS integer);
+UPDATE orders SET day_key = CAST(strftime('%Y%m%d', created_epoch, 'unixepoch') AS integer);
+
+-- Vendas por dia, mês (day_key / 100) e hora ((created_epoch / 3600) % 24) num período de dias: só o índice é lido,
+-- já na ordem do dia
+CREATE INDEX IF NOT EXISTS ix_orders_day_key ON orders (day_key, created_epoch, total);
+
+-- Pedidos por instante (intervalos em horas, sem passar por created_at)
+CREATE INDEX IF NOT EXISTS ix_orders_created_epoch ON orders (created_epoch);
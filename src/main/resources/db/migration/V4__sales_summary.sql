@@ -0,0 +1,20 @@
+-- Resumo diário de vendas, mantido pelo checkout na mesma transação do pedido (SalesSummaryRepository).
+-- Os relatórios leem daqui: o custo passa a depender dos dias do período, não da quantidade de pedidos.
+-- WITHOUT ROWID: a tabela é a própria árvore da chave, então o período vira uma busca por intervalo em day_key.
+
+-- Dia x forma de pagamento: pedidos e faturamento (distribuição por forma, ticket médio, vendas por dia)
+CREATE TABLE IF NOT EXISTS daily_payment_summary (day_key integer not null, payment_method varchar(255) not null,
+    orders integer not null, total numeric(19,2) not null, primary key (day_key, payment_method)) WITHOUT ROWID;
+
+-- Dia x forma de pagamento x produto: quantidade e faturamento dos itens (produtos mais vendidos).
+-- A contagem de pedidos fica só na tabela acima: um pedido com vários produtos não pode ser somado por produto
+CREATE TABLE IF NOT EXISTS daily_product_summary (day_key integer not null, payment_method varchar(255) not null,
+    product_id bigint not null, quantity numeric(19,3) not null, total numeric(19,2) not null,
+    primary key (day_key, payment_method, product_id)) WITHOUT ROWID;
+
+INSERT INTO daily_payment_summary (day_key, payment_method, orders, total)
+SELECT day_key, payment_method, count(*), sum(total) FROM orders GROUP BY day_key, payment_method;
+
+INSERT INTO daily_product_summary (day_key, payment_method, product_id, quantity, total)
+SELECT o.day_key, o.payment_method, i.product_id, sum(i.quantity), sum(i.subtotal)
+FROM order_items i JOIN orders o ON o.id = i.order_id GROUP BY o.day_key, o.payment_method, i.product_id;
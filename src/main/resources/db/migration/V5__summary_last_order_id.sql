@@ -0,0 +1,14 @@
+-- Maior id de pedido somado em cada linha do resumo de formas de pagamento. O índice em memória
+-- (PaymentRangeIndex) lê essa marca junto com as linhas, na mesma leitura, e depois só soma os pedidos acima dela.
+ALTER TABLE daily_payment_summary ADD COLUMN last_order_id bigint not null default 0;
+
+-- Recalcula o resumo: numa instalação nova os pedidos de exemplo eram gravados depois da V4 e ficavam fora dele
+DELETE FROM daily_payment_summary;
+DELETE FROM daily_product_summary;
+
+INSERT INTO daily_payment_summary (day_key, payment_method, orders, total, last_order_id)
+SELECT day_key, payment_method, count(*), sum(total), max(id) FROM orders GROUP BY day_key, payment_method;
+
+INSERT INTO daily_product_summary (day_key, payment_method, product_id, quantity, total)
+SELECT o.day_key, o.payment_method, i.product_id, sum(i.quantity), sum(i.subtotal)
+FROM order_items i JOIN orders o ON o.id = i.order_id GROUP BY o.day_key, o.payment_method, i.product_id;
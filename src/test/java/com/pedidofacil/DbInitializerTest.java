@@ -0,0 +1,81 @@
+package com.pedidofacil;
+
+import com.pedidooff.PedidoOffApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sobe o aplicativo num banco vazio: os pedidos de exemplo entram no resumo diário como os do checkout,
+ * então os relatórios lidos do resumo batem com os lidos de orders.
+ */
+class DbInitializerTest {
+
+    @TempDir
+    static Path home;
+
+    private static ConfigurableApplicationContext context;
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void start() throws Exception {
+        Files.createDirectories(home.resolve("PedidoFacil"));
+        context = new SpringApplicationBuilder(PedidoOffApplication.class)
+                .web(WebApplicationType.NONE)
+                .headless(true)
+                .run("--user.home=" + home.toAbsolutePath().toString().replace('\\', '/'),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--spring.main.banner-mode=off");
+        jdbc = new JdbcTemplate(context.getBean(DataSource.class));
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void seed_emptyDatabase_recordsOrdersInThePaymentSummary() {
+        List<String> fromOrders = jdbc.queryForList(
+                "SELECT day_key || '|' || payment_method || '|' || count(*) || '|' || printf('%.2f', sum(total)) " +
+                "FROM orders GROUP BY day_key, payment_method ORDER BY day_key, payment_method", String.class);
+        List<String> fromSummary = jdbc.queryForList(
+                "SELECT day_key || '|' || payment_method || '|' || orders || '|' || printf('%.2f', total) " +
+                "FROM daily_payment_summary ORDER BY day_key, payment_method", String.class);
+
+        assertEquals(60L, jdbc.queryForObject("SELECT count(*) FROM orders", Long.class).longValue());
+        assertEquals(fromOrders, fromSummary);
+    }
+
+    @Test
+    void seed_emptyDatabase_recordsItemsInTheProductSummary() {
+        List<String> fromItems = jdbc.queryForList(
+                "SELECT o.day_key || '|' || o.payment_method || '|' || i.product_id || '|' || " +
+                "printf('%.3f', sum(i.quantity)) || '|' || printf('%.2f', sum(i.subtotal)) " +
+                "FROM order_items i JOIN orders o ON o.id = i.order_id " +
+                "GROUP BY o.day_key, o.payment_method, i.product_id " +
+                "ORDER BY o.day_key, o.payment_method, i.product_id", String.class);
+        List<String> fromSummary = jdbc.queryForList(
+                "SELECT day_key || '|' || payment_method || '|' || product_id || '|' || " +
+                "printf('%.3f', quantity) || '|' || printf('%.2f', total) " +
+                "FROM daily_product_summary ORDER BY day_key, payment_method, product_id", String.class);
+
+        assertFalse(fromItems.isEmpty());
+        assertEquals(fromItems, fromSummary);
+    }
+}
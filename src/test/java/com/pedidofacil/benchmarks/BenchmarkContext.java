@@ -0,0 +1,74 @@
+package com.pedidofacil.benchmarks;
+
+import com.pedidooff.PedidoOffApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Contexto Spring completo sobre um banco SQLite temporário, usado pelos benchmarks JMH.
+ * Cada instância cria seu próprio diretório (user.home falso) e o apaga no {@link #close()}.
+ */
+final class BenchmarkContext implements AutoCloseable {
+
+    private final Path home;
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkContext(Path home, ConfigurableApplicationContext context) {
+        this.home = home;
+        this.context = context;
+    }
+
+    static BenchmarkContext start(String... properties) {
+        Path home;
+        try {
+            home = Files.createTempDirectory("pedidofacil-bench");
+            Files.createDirectories(home.resolve("PedidoFacil"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Passados como argumentos de linha de comando para terem precedência sobre o application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "--user.home=" + home.toAbsolutePath().toString().replace('\\', '/'),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql=WARN",
+                "--spring.main.banner-mode=off"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PedidoOffApplication.class)
+                .web(WebApplicationType.NONE)
+                .headless(true)
+                .run(args.toArray(String[]::new));
+        return new BenchmarkContext(home, context);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    <T> T bean(String name, Class<T> type) {
+        return context.getBean(name, type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        try (Stream<Path> files = Files.walk(home)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException ignored) {
+            // diretório temporário: o SO limpa depois
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.pedidofacil.benchmarks;
+
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.OrderItem;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.Product;
+import com.pedidofacil.repositories.ProductRepository;
+import com.pedidofacil.services.IOrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão de pedidos gravados por 8 threads ao mesmo tempo, pela fila de escrita. Com
+ * {@code app.write-queue.enabled=false} o mesmo cenário esbarra em SQLITE_BUSY, por isso
+ * ele não entra nos parâmetros; a comparação é entre a janela de agrupamento 0 e 2 ms.
+ *
+ * <pre>mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=GroupCommitBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class GroupCommitBenchmark {
+
+    @Param({"0ms", "2ms"})
+    public String window;
+
+    private BenchmarkContext context;
+    private IOrderService orderService;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("app.write-queue.window=" + window);
+        orderService = context.bean(IOrderService.class);
+        products = context.bean(ProductRepository.class).findAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        List<OrderItem> items = new ArrayList<>(5);
+        for (int i = 0; i < 5; i++) {
+            Product p = products.get(i % products.size());
+            items.add(new OrderItem(p, BigDecimal.ONE, p.getPrice()));
+        }
+        return orderService.createOrder(items, PaymentMethod.CASH, null);
+    }
+}
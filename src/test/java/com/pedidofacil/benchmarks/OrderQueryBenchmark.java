@@ -0,0 +1,206 @@
+package com.pedidofacil.benchmarks;
+
+import com.pedidofacil.models.Customer;
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.TimeKeys;
+import com.pedidofacil.repositories.CustomerRepository;
+import com.pedidofacil.repositories.OrderRepository;
+import com.pedidofacil.repositories.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Filtros opcionais escritos como "(:x is null or ...)" contra as consultas montadas só com os filtros
+ * informados, num banco de 1 milhão de pedidos distribuídos em um ano.
+ *
+ * <pre>mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=OrderQueryBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderQueryBenchmark {
+
+    private static final int CUSTOMERS = 200;
+    private static final int ROWS_PER_INSERT = 500;
+    private static final int DAYS = 365;
+
+    // Formas antigas do OrderRepository
+    private static final String OPTIONAL_PAYMENT =
+            "select o.paymentMethod, sum(o.total) from Order o where (:start is null or o.createdAt >= :start) " +
+            "and (:end is null or o.createdAt <= :end) group by o.paymentMethod";
+    private static final String OPTIONAL_HISTORY =
+            "select o from Order o left join fetch o.customer where (:start is null or o.createdAt >= :start) " +
+            "and (:end is null or o.createdAt <= :end) and (:customer is null or o.customer = :customer) order by o.createdAt desc";
+    private static final String OPTIONAL_DAILY =
+            "SELECT DATE(o.created_at) as day, SUM(o.total) as total FROM orders o " +
+            "WHERE (:start IS NULL OR o.created_at >= :start) AND (:end IS NULL OR o.created_at <= :end) " +
+            "GROUP BY DATE(o.created_at) ORDER BY day";
+
+    public enum Form { OPTIONAL_PARAMS, DYNAMIC }
+
+    @Param({"OPTIONAL_PARAMS", "DYNAMIC"})
+    public Form form;
+
+    // Tamanho do período consultado, terminando no pedido mais recente
+    @Param({"1", "30"})
+    public int days;
+
+    @Param({"1000000"})
+    public int orders;
+
+    private BenchmarkContext context;
+    private OrderRepository orderRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private Customer customer;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        context = BenchmarkContext.start();
+        orderRepository = context.bean(OrderRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.bean(EntityManagerFactory.class));
+        readOnly = new TransactionTemplate(context.bean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        end = LocalDateTime.now().withNano(0);
+        seed(context.bean("writeDataSource", DataSource.class), end);
+        customer = context.bean(CustomerRepository.class).findByName("Cliente 1").orElseThrow();
+        start = end.minusDays(days);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // INSERTs de várias linhas direto no JDBC: passar 1M de pedidos pelo Hibernate levaria minutos
+    private void seed(DataSource dataSource, LocalDateTime last) throws SQLException {
+        long productId = context.bean(ProductRepository.class).findAll().get(0).getId();
+        Random random = new Random(42);
+        PaymentMethod[] methods = PaymentMethod.values();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            // Continua depois dos registros criados pelo DbInitializer
+            long customerBase = max(connection, "SELECT coalesce(max(id), 0) FROM customers");
+            long orderBase = max(connection, "SELECT coalesce(max(max(id), max(number)), 0) FROM orders");
+            long itemBase = max(connection, "SELECT coalesce(max(id), 0) FROM order_items");
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO customers (id, name, phone) VALUES (?, ?, '')")) {
+                for (int c = 1; c <= CUSTOMERS; c++) {
+                    insert.setLong(1, customerBase + c);
+                    insert.setString(2, "Cliente " + c);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            long millisPerOrder = DAYS * 86_400_000L / orders;
+            for (int first = 1; first <= orders; first += ROWS_PER_INSERT) {
+                int count = Math.min(ROWS_PER_INSERT, orders - first + 1);
+                try (PreparedStatement orderInsert = connection.prepareStatement(rows(
+                             "INSERT INTO orders (id, number, created_at, created_epoch, day_key, payment_method, total, customer_id) VALUES ",
+                             8, count));
+                     PreparedStatement itemInsert = connection.prepareStatement(rows(
+                             "INSERT INTO order_items (id, order_id, product_id, quantity, unit_price, subtotal) VALUES ", 6, count))) {
+                    for (int row = 0; row < count; row++) {
+                        long id = first + row;
+                        int p = row * 8;
+                        int q = row * 6;
+                        long total = 10 + random.nextInt(990);
+                        LocalDateTime createdAt = last.minusNanos((orders - id) * millisPerOrder * 1_000_000L);
+                        orderInsert.setLong(p + 1, orderBase + id);
+                        orderInsert.setLong(p + 2, orderBase + id);
+                        orderInsert.setTimestamp(p + 3, Timestamp.valueOf(createdAt));
+                        orderInsert.setLong(p + 4, TimeKeys.epochSecond(createdAt));
+                        orderInsert.setInt(p + 5, TimeKeys.dayKey(createdAt.toLocalDate()));
+                        orderInsert.setString(p + 6, methods[random.nextInt(methods.length)].name());
+                        orderInsert.setLong(p + 7, total);
+                        // Um terço dos pedidos sem cliente, como no balcão
+                        if (random.nextInt(3) == 0) {
+                            orderInsert.setNull(p + 8, Types.BIGINT);
+                        } else {
+                            orderInsert.setLong(p + 8, customerBase + 1 + random.nextInt(CUSTOMERS));
+                        }
+                        itemInsert.setLong(q + 1, itemBase + id);
+                        itemInsert.setLong(q + 2, orderBase + id);
+                        itemInsert.setLong(q + 3, productId);
+                        itemInsert.setLong(q + 4, 1);
+                        itemInsert.setLong(q + 5, total);
+                        itemInsert.setLong(q + 6, total);
+                    }
+                    orderInsert.executeUpdate();
+                    itemInsert.executeUpdate();
+                }
+            }
+            connection.commit();
+        }
+    }
+
+    private static long max(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(sql);
+             ResultSet rs = query.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // INSERT com "count" linhas de "columns" colunas
+    private static String rows(String insert, int columns, int count) {
+        String row = "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+        return insert + String.join(", ", Collections.nCopies(count, row));
+    }
+
+    private <T> T read(Supplier<T> query) {
+        return readOnly.execute(status -> query.get());
+    }
+
+    @Benchmark
+    public List<?> paymentDistribution() {
+        if (form == Form.DYNAMIC) {
+            return read(() -> orderRepository.sumByPaymentMethod(start, end));
+        }
+        return read(() -> entityManager.createQuery(OPTIONAL_PAYMENT, Tuple.class)
+                .setParameter("start", start).setParameter("end", end).getResultList());
+    }
+
+    @Benchmark
+    public List<Order> customerHistory() {
+        if (form == Form.DYNAMIC) {
+            return read(() -> orderRepository.findHistory(start, end, customer));
+        }
+        return read(() -> entityManager.createQuery(OPTIONAL_HISTORY, Order.class)
+                .setParameter("start", start).setParameter("end", end).setParameter("customer", customer)
+                .getResultList());
+    }
+
+    @Benchmark
+    public List<?> dailySales() {
+        if (form == Form.DYNAMIC) {
+            return read(() -> orderRepository.dailySales(start.toLocalDate(), end.toLocalDate()));
+        }
+        return read(() -> entityManager.createNativeQuery(OPTIONAL_DAILY, Tuple.class)
+                .setParameter("start", start).setParameter("end", end).getResultList());
+    }
+}
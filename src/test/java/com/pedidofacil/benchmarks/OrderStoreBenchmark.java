@@ -0,0 +1,106 @@
+package com.pedidofacil.benchmarks;
+
+import com.pedidofacil.config.DatasetSettings;
+import com.pedidofacil.persistence.DatasetGenerator;
+import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import com.pedidofacil.repositories.projections.ProductSalesView;
+import com.pedidofacil.repositories.projections.TopCustomerView;
+import com.pedidofacil.services.IReportService;
+import com.pedidofacil.services.OrderColumnStore;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relatórios do {@code ReportService} respondidos pelo SQLite (consultas e resumo diário) contra as colunas
+ * em memória do {@link OrderColumnStore}, sobre 1 milhão de pedidos do {@link DatasetGenerator}.
+ * Cache dos relatórios desligado: cada chamada refaz o relatório.
+ *
+ * <pre>mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=OrderStoreBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderStoreBenchmark {
+
+    public enum Source { SQLITE, MEMORY }
+
+    private static final int LIMIT = 10;
+
+    @Param({"SQLITE", "MEMORY"})
+    public Source source;
+
+    // Tamanho do período consultado, terminando no último dia da massa
+    @Param({"1", "30", "365"})
+    public int days;
+
+    @Param({"1000000"})
+    public int orders;
+
+    private BenchmarkContext context;
+    private IReportService reports;
+    private LocalDate start;
+    private LocalDate end;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        // Sem o índice de formas de pagamento: distribuição e ticket médio também vêm da fonte comparada
+        context = BenchmarkContext.start("app.report-cache.enabled=false", "app.payment-index.enabled=false",
+                "app.order-store.enabled=" + (source == Source.MEMORY));
+        reports = context.bean("reportService", IReportService.class);
+
+        end = LocalDate.now();
+        DatasetSettings settings = new DatasetSettings();
+        settings.setOrders(orders);
+        settings.setEndDate(end);
+        new DatasetGenerator(context.bean("writeDataSource", DataSource.class), settings).generate();
+        if (source == Source.MEMORY) {
+            // A massa entra direto pelo banco, sem eventos: recarrega depois de gerar
+            OrderColumnStore store = context.bean(OrderColumnStore.class);
+            store.load();
+            if (!store.isReady()) {
+                throw new IllegalStateException("Pedidos em memória: " + store.getState());
+            }
+        }
+        start = end.minusDays(days - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<DailySalesView> dailySales() {
+        return reports.dailySales(start, end);
+    }
+
+    @Benchmark
+    public List<HourlySalesView> hourlySales() {
+        return reports.hourlySales(start, end);
+    }
+
+    @Benchmark
+    public List<PaymentDistributionView> paymentDistribution() {
+        return reports.paymentDistribution(start, end);
+    }
+
+    @Benchmark
+    public List<ProductSalesView> topProducts() {
+        return reports.topProducts(start, end, LIMIT);
+    }
+
+    @Benchmark
+    public List<TopCustomerView> topCustomers() {
+        return reports.topCustomers(start, end, null, LIMIT);
+    }
+}
@@ -0,0 +1,61 @@
+package com.pedidofacil.benchmarks;
+
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.OrderItem;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.Product;
+import com.pedidofacil.repositories.ProductRepository;
+import com.pedidofacil.services.IOrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gravação de um pedido com 1, 10 e 100 itens. {@code batchSize=1} equivale ao comportamento
+ * sem lote (um INSERT por item); {@code batchSize=50} é o valor do application.properties.
+ *
+ * <pre>mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=OrderWriteBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderWriteBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int items;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private BenchmarkContext context;
+    private IOrderService orderService;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        orderService = context.bean(IOrderService.class);
+        products = context.bean(ProductRepository.class).findAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order createOrder() {
+        List<OrderItem> orderItems = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            Product p = products.get(i % products.size());
+            orderItems.add(new OrderItem(p, BigDecimal.ONE, p.getPrice()));
+        }
+        return orderService.createOrder(orderItems, PaymentMethod.CASH, null);
+    }
+}
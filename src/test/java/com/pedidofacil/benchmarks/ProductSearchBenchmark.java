@@ -0,0 +1,127 @@
+package com.pedidofacil.benchmarks;
+
+import com.pedidofacil.models.Product;
+import com.pedidofacil.services.ProductCatalog;
+import com.pedidofacil.services.ProductSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca do seletor de produtos: o {@link ProductSearchIndex} (prefixos e trigramas) contra a varredura da lista
+ * com {@code contains} que a tela de pedido fazia a cada tecla, sobre um catálogo sintético. O modo
+ * {@code SampleTime} mostra, além da média, os percentis da latência de cada busca; as buscas com erro de
+ * digitação ("argamasa", "cimneto cp", "tijlo 6") passam pela BK-tree, e o índice desempata pelas vendas de cada
+ * produto. {@code update} mede a troca de um produto (o índice da versão seguinte do catálogo).
+ *
+ * <pre>mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=ProductSearchBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSearchBenchmark {
+
+    private static final String[] NAMES = {"Cimento", "Areia", "Brita", "Tijolo", "Argamassa", "Sifão", "Cal",
+            "Telha", "Bloco", "Tubo", "Cano", "Joelho", "Luva", "Registro", "Torneira", "Chuveiro", "Fio", "Cabo",
+            "Disjuntor", "Tomada", "Interruptor", "Lâmpada", "Tinta", "Massa", "Lixa", "Pincel", "Rolo", "Prego",
+            "Parafuso", "Bucha", "Broca", "Serra", "Martelo", "Trena", "Nível", "Esquadro", "Colher", "Desempenadeira",
+            "Vergalhão", "Arame", "Tela", "Manta", "Impermeabilizante", "Rejunte", "Piso", "Azulejo", "Porcelanato"};
+    private static final String[] DETAILS = {"CP II", "CP III", "PVC", "Galvanizado", "Inox", "Branco", "Cinza",
+            "Média", "Fina", "Grossa", "Flexível", "Rígido", "Acrílica", "Látex", "Esmalte", "Cerâmico", "Soldável",
+            "Roscável", "Bivolt", "20A", "10A", "Externo", "Interno"};
+    private static final String[] UNITS = {"mm", "cm", "m", "kg", "L", "pol"};
+    private static final String[] BRANDS = {"Votoran", "Tigre", "Amanco", "Quartzolit", "Eternit", "Deca", "Suvinil",
+            "Coral", "Tramontina", "Vonder", "Gerdau", "Pial", "Sil", "Lorenzetti", "Docol", "Portobello", "Eliane",
+            "Krona", "Fortlev", "Votomassa"};
+
+    private static final int LIMIT = 100;
+
+    @Param({"100000"})
+    public int products;
+
+    @Param({"c", "cim", "cimento cp", "soldável 25", "ento", "tigre joelho 50", "argamasa", "cimneto cp",
+            "tijlo 6"})
+    public String query;
+
+    private ProductCatalog.Snapshot snapshot;
+    private ProductCatalog.Snapshot changed;
+    private ProductSearchIndex index;
+    // Pedidos por produto (por id), concentrados em poucos produtos como numa loja de verdade
+    private long[] sales;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        snapshot = catalog(products, 1);
+        index = ProductSearchIndex.build(snapshot);
+        Random random = new Random(2);
+        sales = new long[products + 1];
+        for (int i = 1; i <= products; i++) {
+            sales[i] = (long) (1_000 / (1 + random.nextInt(products) / 100.0));
+        }
+        // Versão seguinte: um produto alterado, os demais são as mesmas instâncias
+        List<Product> next = new ArrayList<>(snapshot.products());
+        Product old = next.get(next.size() / 2);
+        Product edited = new Product(old.getName() + " Reforçado", old.getBrand(), old.getUnit(), old.getPrice());
+        edited.setId(old.getId());
+        next.set(next.size() / 2, edited);
+        changed = snapshot(2, next, edited.getId());
+    }
+
+    @Benchmark
+    public long[] index() {
+        return index.search(query, LIMIT, id -> sales[(int) id]);
+    }
+
+    // O filtro de antes: minúsculas e contains no nome e na marca de cada produto
+    @Benchmark
+    public List<Product> scan() {
+        String q = query.trim().toLowerCase();
+        List<Product> found = new ArrayList<>();
+        for (Product p : snapshot.products()) {
+            String name = p.getName() != null ? p.getName().toLowerCase() : "";
+            String brand = p.getBrand() != null ? p.getBrand().toLowerCase() : "";
+            if (name.contains(q) || brand.contains(q)) {
+                found.add(p);
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public ProductSearchIndex update() {
+        return index.update(changed);
+    }
+
+    // Catálogo sintético e determinístico: nome com detalhe e medida, marca sorteada
+    static ProductCatalog.Snapshot catalog(int size, long seed) {
+        Random random = new Random(seed);
+        List<Product> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String name = NAMES[random.nextInt(NAMES.length)] + " " + DETAILS[random.nextInt(DETAILS.length)] + " "
+                    + (5 + random.nextInt(200)) + UNITS[random.nextInt(UNITS.length)];
+            Product product = new Product(name, BRANDS[random.nextInt(BRANDS.length)], "un",
+                    BigDecimal.valueOf(100 + random.nextInt(100_000), 2));
+            product.setId(i + 1L);
+            list.add(product);
+        }
+        return snapshot(1, list, null);
+    }
+
+    private static ProductCatalog.Snapshot snapshot(long version, List<Product> list, Long changedId) {
+        Map<Long, Product> byId = new HashMap<>(list.size() * 2);
+        for (Product p : list) {
+            byId.put(p.getId(), p);
+        }
+        return new ProductCatalog.Snapshot(version, List.copyOf(list), byId, changedId);
+    }
+}
@@ -0,0 +1,72 @@
+package com.pedidofacil.benchmarks;
+
+import com.pedidofacil.config.DatasetSettings;
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.persistence.DatasetGenerator;
+import com.pedidofacil.services.IReportSnapshotService;
+import com.pedidofacil.services.PaymentRangeIndex;
+import com.pedidofacil.services.ReportSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tela de relatórios inteira (os sete relatórios) montada com uma consulta por relatório contra a leitura
+ * única do {@link com.pedidofacil.services.SinglePassReportEngine}, sobre a massa sintética do
+ * {@link DatasetGenerator} (1 milhão de pedidos em dois anos). Cache dos relatórios desligado.
+ *
+ * <pre>mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=ReportEngineBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportEngineBenchmark {
+
+    private static final int LIMIT = 10;
+
+    @Param({"QUERIES", "SINGLE_PASS"})
+    public ReportEngineSettings.Mode mode;
+
+    // Tamanho do período consultado, terminando no último dia da massa
+    @Param({"1", "30", "365"})
+    public int days;
+
+    @Param({"1000000"})
+    public int orders;
+
+    private BenchmarkContext context;
+    private IReportSnapshotService snapshots;
+    private LocalDate start;
+    private LocalDate end;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        context = BenchmarkContext.start("app.report-cache.enabled=false", "app.report-engine.mode=" + mode);
+        snapshots = context.bean(IReportSnapshotService.class);
+
+        end = LocalDate.now();
+        DatasetSettings settings = new DatasetSettings();
+        settings.setOrders(orders);
+        settings.setEndDate(end);
+        new DatasetGenerator(context.bean("writeDataSource", DataSource.class), settings).generate();
+        // A massa entra direto pelo banco, sem eventos: remonta o índice de formas de pagamento a partir do resumo
+        context.bean(PaymentRangeIndex.class).rebuild();
+        start = end.minusDays(days - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ReportSnapshot reports() {
+        return snapshots.loadAsync(start, end, LIMIT).join();
+    }
+}
@@ -0,0 +1,85 @@
+package com.pedidofacil.benchmarks;
+
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.OrderItem;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.Product;
+import com.pedidofacil.repositories.ProductRepository;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import com.pedidofacil.services.IOrderService;
+import com.pedidofacil.services.IReportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura e escrita concorrentes por perfil de PRAGMAs: uma thread grava pedidos (balcão) enquanto
+ * três consultam relatórios (retaguarda). No LEGACY (journal DELETE) leitores e escritor se bloqueiam;
+ * nos perfis WAL os leitores não esperam o commit.
+ *
+ * <pre>mvn -Pbenchmarks test-compile exec:exec -Dbenchmark=SqliteProfileBenchmark</pre>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqliteProfileBenchmark {
+
+    private static final int SEED_ORDERS = 5_000;
+
+    @Param({"LEGACY", "DURABLE", "BALANCED", "FAST"})
+    public String profile;
+
+    private BenchmarkContext context;
+    private IOrderService orderService;
+    private IReportService reportService;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("app.sqlite.profile=" + profile);
+        orderService = context.bean(IOrderService.class);
+        reportService = context.bean(IReportService.class);
+        products = context.bean(ProductRepository.class).findAll();
+        // Volume para os relatórios terem o que varrer
+        List<CompletableFuture<Order>> seed = new ArrayList<>(SEED_ORDERS);
+        for (int i = 0; i < SEED_ORDERS; i++) {
+            seed.add(orderService.createOrderAsync(items(), PaymentMethod.values()[i % 4], null));
+        }
+        seed.forEach(CompletableFuture::join);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private List<OrderItem> items() {
+        List<OrderItem> items = new ArrayList<>(3);
+        for (int i = 0; i < 3; i++) {
+            Product p = products.get(i % products.size());
+            items.add(new OrderItem(p, BigDecimal.ONE, p.getPrice()));
+        }
+        return items;
+    }
+
+    @Benchmark
+    @Group("counterAndBackOffice")
+    @GroupThreads(1)
+    public Order write() {
+        return orderService.createOrder(items(), PaymentMethod.PIX, null);
+    }
+
+    @Benchmark
+    @Group("counterAndBackOffice")
+    @GroupThreads(3)
+    public List<PaymentDistributionView> read() {
+        return reportService.paymentDistribution(null, null);
+    }
+}
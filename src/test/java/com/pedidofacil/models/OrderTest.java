@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -198,6 +199,35 @@ class OrderTest {
         assertEquals(existingDate, order.getCreatedAt());
     }
 
+    @Test
+    void prePersist_fillsTimeKeysFromCreatedAt() {
+        // Arrange
+        order.setCreatedAt(LocalDateTime.of(2023, 1, 15, 14, 30));
+
+        // Act
+        order.prePersist();
+
+        // Assert
+        assertEquals(20230115, order.getDayKey());
+        assertEquals(14, order.getCreatedEpoch() / 3600 % 24);
+        assertEquals(LocalDate.of(2023, 1, 15), TimeKeys.day(order.getDayKey()));
+    }
+
+    @Test
+    void preUpdate_followsChangedCreatedAt() {
+        // Arrange
+        order.setCreatedAt(LocalDateTime.of(2023, 1, 15, 14, 30));
+        order.prePersist();
+        order.setCreatedAt(LocalDateTime.of(2023, 2, 1, 8, 0));
+
+        // Act
+        order.preUpdate();
+
+        // Assert
+        assertEquals(20230201, order.getDayKey());
+        assertEquals(TimeKeys.epochSecond(LocalDateTime.of(2023, 2, 1, 8, 0)), order.getCreatedEpoch());
+    }
+
     @Test
     void preUpdate_recalculatesTotal() {
         // Arrange
@@ -0,0 +1,137 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.MigrationSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reservas de ids contra um arquivo SQLite de verdade: a conexão da sequência é outra que a das transações de
+ * escrita, como o pool "sqlite-sequence" no aplicativo, e a chave primária de orders confere os ids entregues.
+ */
+class BlockIdSequenceTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteDataSource writeDataSource;
+    private SQLiteDataSource sequenceDataSource;
+    private JdbcTemplate jdbc;
+    private final ExecutorService otherThread = Executors.newSingleThreadExecutor();
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:sqlite:" + dir.resolve("ids.db").toAbsolutePath();
+        writeDataSource = dataSource(url);
+        sequenceDataSource = dataSource(url);
+        new SchemaMigrationConfig().schemaMigrator(writeDataSource, new MigrationSettings()).migrate();
+        jdbc = new JdbcTemplate(writeDataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherThread.shutdownNow();
+    }
+
+    private static SQLiteDataSource dataSource(String url) {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl(url);
+        dataSource.setJournalMode("WAL");
+        return dataSource;
+    }
+
+    private BlockIdSequence newSequence(int blockSize, long lookahead) {
+        return new BlockIdSequence(sequenceDataSource, "orders", "id", blockSize, lookahead);
+    }
+
+    private void insertOrder(long id) {
+        jdbc.update("INSERT INTO orders (id, created_at, number, payment_method, total) " +
+                "VALUES (?, '2024-03-01 10:00:00', ?, 'PIX', 10)", id, id);
+    }
+
+    private long storedNextValue() {
+        return jdbc.queryForObject("SELECT next_value FROM order_sequences WHERE name = 'orders.id'", Long.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void next_handsOutConsecutiveIdsAndKeepsAGroupReserved() {
+        BlockIdSequence ids = newSequence(10, 25);
+
+        for (long expected = 1; expected <= 26; expected++) {
+            assertEquals(expected, ids.next());
+        }
+        // Fora de transação a reserva é reposta na hora: sempre ao menos um grupo à frente do último entregue
+        assertTrue(storedNextValue() - 27 >= 25);
+    }
+
+    @Test
+    void next_realignsWithIdsWrittenOutside() {
+        insertOrder(500);
+
+        assertEquals(501L, newSequence(10, 10).next());
+    }
+
+    @Test
+    void next_reservingTransactionRolledBack_neverHandsOutAHeldIdAgain() throws Exception {
+        BlockIdSequence ids = newSequence(2, 2);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(writeDataSource));
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch rolledBack = new CountDownLatch(1);
+        List<Future<Long>> other = new ArrayList<>();
+
+        // Arrange: a primeira transação reserva o bloco; a segunda pega um id dele e só grava depois que a
+        // primeira for desfeita
+        long first = transaction.execute(status -> {
+            long id = ids.next();
+            other.add(otherThread.submit(() -> transaction.execute(otherStatus -> {
+                long heldId = ids.next();
+                held.countDown();
+                await(rolledBack);
+                insertOrder(heldId);
+                return heldId;
+            })));
+            await(held);
+            insertOrder(id);
+            status.setRollbackOnly();
+            return id;
+        });
+
+        // Act: ids entregues depois do rollback, enquanto a segunda transação ainda não gravou o dela
+        List<Long> after = List.of(ids.next(), ids.next(), ids.next());
+        rolledBack.countDown();
+        long heldId = other.get(0).get(5, TimeUnit.SECONDS);
+        after.forEach(this::insertOrder);
+
+        // Assert: a reserva continua confirmada, e nenhum id entregue volta a ser entregue
+        assertEquals(first + 1, heldId);
+        assertFalse(after.contains(first));
+        assertFalse(after.contains(heldId));
+        assertEquals(4L, jdbc.queryForObject("SELECT count(DISTINCT id) FROM orders", Long.class).longValue());
+        assertTrue(storedNextValue() > after.get(after.size() - 1));
+    }
+}
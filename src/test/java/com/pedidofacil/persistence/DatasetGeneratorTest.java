@@ -0,0 +1,174 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.DatasetSettings;
+import com.pedidofacil.config.MigrationSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetGeneratorTest {
+
+    private static final LocalDate END = LocalDate.of(2024, 3, 31);
+
+    @TempDir
+    Path dir;
+
+    private DatasetSettings settings;
+
+    @BeforeEach
+    void setUp() {
+        settings = new DatasetSettings();
+        settings.setOrders(2_000);
+        settings.setCustomers(50);
+        settings.setProducts(30);
+        settings.setDays(60);
+        settings.setEndDate(END);
+        // Lotes pequenos e que não dividem o total: exercita os INSERTs parciais e vários commits
+        settings.setRowsPerInsert(7);
+        settings.setOrdersPerCommit(333);
+    }
+
+    private SQLiteDataSource database(String name) {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + dir.resolve(name).toAbsolutePath());
+        new SchemaMigrator(dataSource, new MigrationSettings(), SchemaMigrator.load(SchemaMigrator.LOCATION)).migrate();
+        return dataSource;
+    }
+
+    private static List<String> query(SQLiteDataSource dataSource, String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                    row.append(i > 1 ? "|" : "").append(rs.getString(i));
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+
+    private static long number(SQLiteDataSource dataSource, String sql) throws SQLException {
+        return Long.parseLong(query(dataSource, sql).get(0));
+    }
+
+    @Test
+    void generate_writesRequestedRowsWithConsistentTotals() throws SQLException {
+        SQLiteDataSource dataSource = database("a.db");
+
+        DatasetGenerator.Result result = new DatasetGenerator(dataSource, settings).generate();
+
+        assertEquals(2_000, number(dataSource, "SELECT count(*) FROM orders"));
+        assertEquals(50, number(dataSource, "SELECT count(*) FROM customers"));
+        assertEquals(30, number(dataSource, "SELECT count(*) FROM products"));
+        assertEquals(result.items(), number(dataSource, "SELECT count(*) FROM order_items"));
+        assertEquals(0, number(dataSource, "SELECT count(*) FROM orders o WHERE round(o.total, 2) <> " +
+                "(SELECT round(sum(i.subtotal), 2) FROM order_items i WHERE i.order_id = o.id)"));
+        assertEquals(List.of("20240201|20240331"), query(dataSource, "SELECT min(day_key), max(day_key) FROM orders"));
+        assertEquals(2_000 + result.items() + 80, result.rows());
+    }
+
+    @Test
+    void generate_creditSales_alwaysHaveACustomer() throws SQLException {
+        SQLiteDataSource dataSource = database("a.db");
+        settings.setAnonymousShare(0.9);
+
+        new DatasetGenerator(dataSource, settings).generate();
+
+        assertTrue(number(dataSource, "SELECT count(*) FROM orders WHERE payment_method = 'CREDITSALE'") > 0);
+        assertEquals(0, number(dataSource, "SELECT count(*) FROM orders WHERE payment_method = 'CREDITSALE' " +
+                "AND customer_id IS NULL"));
+        assertTrue(number(dataSource, "SELECT count(*) FROM orders WHERE customer_id IS NULL") > 0);
+    }
+
+    @Test
+    void generate_rebuildsSalesSummary() throws SQLException {
+        SQLiteDataSource dataSource = database("a.db");
+
+        new DatasetGenerator(dataSource, settings).generate();
+
+        assertEquals(query(dataSource, "SELECT count(*), round(sum(total), 2) FROM orders"),
+                query(dataSource, "SELECT sum(orders), round(sum(total), 2) FROM daily_payment_summary"));
+        assertEquals(query(dataSource, "SELECT product_id, sum(quantity), round(sum(subtotal), 2) FROM order_items " +
+                        "GROUP BY product_id ORDER BY product_id"),
+                query(dataSource, "SELECT product_id, sum(quantity), round(sum(total), 2) FROM daily_product_summary " +
+                        "GROUP BY product_id ORDER BY product_id"));
+    }
+
+    @Test
+    void generate_sameSeed_producesSameRows() throws SQLException {
+        String fingerprint = "SELECT count(*), sum(total), sum(created_epoch), sum(coalesce(customer_id, 0)), " +
+                "group_concat(DISTINCT payment_method) FROM orders";
+        SQLiteDataSource first = database("a.db");
+        SQLiteDataSource second = database("b.db");
+        SQLiteDataSource otherSeed = database("c.db");
+
+        new DatasetGenerator(first, settings).generate();
+        new DatasetGenerator(second, settings).generate();
+        settings.setSeed(7);
+        new DatasetGenerator(otherSeed, settings).generate();
+
+        assertEquals(query(first, fingerprint), query(second, fingerprint));
+        assertEquals(query(first, "SELECT name, price FROM products ORDER BY id"),
+                query(second, "SELECT name, price FROM products ORDER BY id"));
+        assertNotEquals(query(first, fingerprint), query(otherSeed, fingerprint));
+    }
+
+    @Test
+    void generate_advancesSequencesPastGeneratedRows() throws SQLException {
+        SQLiteDataSource dataSource = database("a.db");
+
+        new DatasetGenerator(dataSource, settings).generate();
+
+        assertTrue(number(dataSource, "SELECT next_value FROM order_sequences WHERE name = 'orders.id'")
+                > number(dataSource, "SELECT max(id) FROM orders"));
+        assertTrue(number(dataSource, "SELECT next_value FROM order_sequences WHERE name = 'orders'")
+                > number(dataSource, "SELECT max(number) FROM orders"));
+        assertTrue(number(dataSource, "SELECT next_value FROM order_sequences WHERE name = 'order_items.id'")
+                > number(dataSource, "SELECT max(id) FROM order_items"));
+    }
+
+    @Test
+    void generate_deferredIndexes_areRecreated() throws SQLException {
+        SQLiteDataSource dataSource = database("a.db");
+        String indexes = "SELECT name FROM sqlite_master WHERE type = 'index' ORDER BY name";
+        List<String> before = query(dataSource, indexes);
+
+        new DatasetGenerator(dataSource, settings).generate();
+
+        assertEquals(before, query(dataSource, indexes));
+    }
+
+    @Test
+    void ordersPerDay_followsWeightsAndAddsUpToTotal() {
+        settings.setWeekdayWeights(List.of(1, 1, 1, 1, 1, 1, 0));
+        DatasetGenerator generator = new DatasetGenerator(null, settings);
+        LocalDate first = END.minusDays(settings.getDays() - 1L);
+
+        long[] perDay = generator.ordersPerDay(first);
+
+        assertEquals(2_000, Arrays.stream(perDay).sum());
+        for (int d = 0; d < perDay.length; d++) {
+            if (first.plusDays(d).getDayOfWeek() == DayOfWeek.SUNDAY) {
+                assertEquals(0, perDay[d]);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.DatasetSettings;
+import com.pedidofacil.config.MigrationSettings;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Banco SQLite migrado e preenchido pelo {@link DatasetGenerator}, o mesmo para todos os testes que comparam as
+ * estruturas em memória dos relatórios com o SQL: 3.000 pedidos de 40 clientes e 25 produtos em 60 dias.
+ */
+public final class GeneratedDatabase {
+
+    public static final LocalDate END_DATE = LocalDate.of(2024, 3, 31);
+
+    private GeneratedDatabase() {
+    }
+
+    public static SQLiteDataSource create(Path dir) throws SQLException {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + dir.resolve("a.db").toAbsolutePath());
+        new SchemaMigrationConfig().schemaMigrator(dataSource, new MigrationSettings()).migrate();
+
+        DatasetSettings dataset = new DatasetSettings();
+        dataset.setOrders(3_000);
+        dataset.setCustomers(40);
+        dataset.setProducts(25);
+        dataset.setDays(60);
+        dataset.setEndDate(END_DATE);
+        new DatasetGenerator(dataSource, dataset).generate();
+        return dataSource;
+    }
+}
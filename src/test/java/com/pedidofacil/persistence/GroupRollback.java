@@ -0,0 +1,42 @@
+package com.pedidofacil.persistence;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Desfaz de propósito um grupo da fila de escrita: segura o escritor, deixa as escritas do teste entrarem num
+ * mesmo grupo seguidas de uma que falha e libera tudo. A fila então repete cada escrita sozinha, como em produção.
+ */
+public final class GroupRollback {
+
+    private GroupRollback() {
+    }
+
+    /**
+     * Enfileira o que {@code enqueue} enviar à fila num grupo que é desfeito e espera as repetições terminarem.
+     */
+    public static void force(WriteQueue writeQueue, Runnable enqueue) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writeQueue.submit(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        if (!started.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("O escritor não começou");
+        }
+        enqueue.run();
+        CompletableFuture<Object> failing = writeQueue.submit(() -> {
+            throw new IllegalStateException("escrita que desfaz o grupo");
+        });
+        release.countDown();
+        // A que falha é a última do grupo: quando ela termina, as outras já foram repetidas
+        failing.handle((result, error) -> null).join();
+    }
+}
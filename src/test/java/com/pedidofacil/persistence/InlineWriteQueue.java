@@ -0,0 +1,24 @@
+package com.pedidofacil.persistence;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Fila de escrita para testes de unidade: executa o trabalho na hora, na thread de quem chamou.
+ */
+public class InlineWriteQueue implements IWriteQueue {
+
+    @Override
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.completedFuture(work.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public <T> T execute(Supplier<T> work) {
+        return work.get();
+    }
+}
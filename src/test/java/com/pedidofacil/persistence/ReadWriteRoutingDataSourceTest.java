@@ -0,0 +1,36 @@
+package com.pedidofacil.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadWriteRoutingDataSourceTest {
+
+    private final ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyTransaction_routesToReadPool() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReadWriteRoutingDataSource.Route.READ, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void writeTransaction_routesToWritePool() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+
+        assertEquals(ReadWriteRoutingDataSource.Route.WRITE, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void noTransaction_routesToWritePool() {
+        assertEquals(ReadWriteRoutingDataSource.Route.WRITE, routing.determineCurrentLookupKey());
+    }
+}
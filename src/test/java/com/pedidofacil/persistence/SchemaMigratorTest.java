@@ -0,0 +1,166 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.MigrationSettings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteDataSource dataSource;
+    private MigrationSettings settings;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + dir.resolve("test.db").toAbsolutePath());
+        settings = new MigrationSettings();
+    }
+
+    private static SchemaMigrator.Migration script(int version, String sql) {
+        return new SchemaMigrator.Migration(version, "teste " + version, new ByteArrayResource(sql.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private List<SchemaMigrator.Migration> bundled(SchemaMigrator.Migration... extra) {
+        List<SchemaMigrator.Migration> migrations = new ArrayList<>(SchemaMigrator.load(SchemaMigrator.LOCATION));
+        migrations.addAll(List.of(extra));
+        return migrations;
+    }
+
+    private List<String> names(String type) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT name FROM sqlite_master WHERE type = '" + type + "' ORDER BY name")) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    private int userVersion() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return SchemaMigrator.userVersion(connection);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    @Test
+    void migrate_newDatabase_createsSchemaAndRecordsVersion() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, settings, bundled());
+
+        migrator.migrate();
+
+        assertTrue(names("table").containsAll(List.of("customers", "products", "orders", "order_items",
+                "order_sequences", "schema_migrations")));
+        assertTrue(names("index").contains("ix_orders_created_payment_total"));
+        assertEquals(migrator.latestVersion(), userVersion());
+    }
+
+    @Test
+    void migrate_upToDate_onlyReadsUserVersion() throws SQLException {
+        new SchemaMigrator(dataSource, settings, bundled()).migrate();
+        execute("DROP TABLE schema_migrations");
+
+        new SchemaMigrator(dataSource, settings, bundled()).migrate();
+
+        // Versão em dia: nem o histórico foi consultado (senão a tabela teria sido recriada)
+        assertFalse(names("table").contains("schema_migrations"));
+    }
+
+    @Test
+    void migrate_existingHibernateSchema_isAdopted() throws SQLException {
+        execute("CREATE TABLE customers (id integer, name varchar(255) not null, phone varchar(255), primary key (id))");
+        execute("INSERT INTO customers (id, name) VALUES (1, 'João')");
+
+        new SchemaMigrator(dataSource, settings, bundled()).migrate();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT name FROM customers")) {
+            assertTrue(rs.next());
+            assertEquals("João", rs.getString(1));
+        }
+    }
+
+    @Test
+    void migrate_failingScript_rollsBackAllPending() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, settings,
+                bundled(script(90, "CREATE TABLE ok (id integer);\nCREATE TABLE quebrado (;")));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, migrator::migrate);
+
+        assertTrue(e.getMessage().contains("V90"));
+        assertEquals(List.of(), names("table"));
+        assertEquals(0, userVersion());
+    }
+
+    @Test
+    void migrate_newScript_appliesOnlyPending() throws SQLException {
+        new SchemaMigrator(dataSource, settings, bundled()).migrate();
+
+        new SchemaMigrator(dataSource, settings, bundled(script(90, "CREATE TABLE extra (id integer);"))).migrate();
+
+        assertTrue(names("table").contains("extra"));
+        assertEquals(90, userVersion());
+    }
+
+    @Test
+    void validate_scriptChangedAfterApplied_fails() throws SQLException {
+        new SchemaMigrator(dataSource, settings, bundled(script(90, "CREATE TABLE extra (id integer);"))).migrate();
+        List<SchemaMigrator.Migration> edited = bundled(script(90, "CREATE TABLE extra (id integer, nome text);"));
+
+        // Sem validação o script editado passa despercebido
+        assertDoesNotThrow(() -> new SchemaMigrator(dataSource, settings, edited).migrate());
+
+        settings.setValidate(true);
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new SchemaMigrator(dataSource, settings, edited).migrate());
+        assertTrue(e.getMessage().contains("V90"));
+    }
+
+    @Test
+    void checksum_ignoresLineEndings() {
+        assertEquals(script(1, "CREATE TABLE a (id integer);\nCREATE TABLE b (id integer);").checksum(),
+                script(1, "CREATE TABLE a (id integer);\r\nCREATE TABLE b (id integer);").checksum());
+    }
+
+    @Test
+    void statements_splitsOnSemicolonAndKeepsTriggerBody() {
+        List<String> statements = SchemaMigrator.statements("""
+                -- comentário
+                CREATE INDEX a ON t (x);
+
+                CREATE TRIGGER t_ai AFTER INSERT ON t
+                BEGIN
+                    UPDATE s SET n = n + 1;
+                END;
+                """);
+
+        assertEquals(List.of("CREATE INDEX a ON t (x)",
+                "CREATE TRIGGER t_ai AFTER INSERT ON t BEGIN UPDATE s SET n = n + 1; END"), statements);
+    }
+}
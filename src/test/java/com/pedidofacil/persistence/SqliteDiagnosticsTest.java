@@ -0,0 +1,117 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.SqliteSettings;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqliteDiagnosticsTest {
+
+    @TempDir
+    Path dir;
+
+    private HikariDataSource writePool;
+    private HikariDataSource readPool;
+
+    @AfterEach
+    void tearDown() {
+        if (writePool != null) {
+            writePool.close();
+        }
+        if (readPool != null) {
+            readPool.close();
+        }
+    }
+
+    // Mesmos pools que SqliteDataSourceConfig monta, sobre um arquivo temporário
+    private void pools(SqliteProfile profile) {
+        writePool = pool(profile);
+        readPool = pool(profile);
+        readPool.setConnectionInitSql("PRAGMA query_only = 1");
+    }
+
+    private HikariDataSource pool(SqliteProfile profile) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setJdbcUrl("jdbc:sqlite:" + dir.resolve("test.db").toAbsolutePath());
+        ds.setMaximumPoolSize(2);
+        if (profile != null) {
+            profile.pragmas().forEach(ds::addDataSourceProperty);
+        }
+        return ds;
+    }
+
+    private SqliteSettings settings(SqliteProfile profile, SqliteSettings.Validation validation) {
+        SqliteSettings settings = new SqliteSettings();
+        settings.setProfile(profile);
+        settings.setValidation(validation);
+        return settings;
+    }
+
+    @ParameterizedTest
+    @EnumSource(SqliteProfile.class)
+    void check_profileAppliedByDriver_allMatching(SqliteProfile profile) {
+        pools(profile);
+        SqliteDiagnostics diagnostics = new SqliteDiagnostics(writePool, readPool, settings(profile, SqliteSettings.Validation.FAIL));
+
+        List<PragmaStatus> pragmas = diagnostics.check();
+
+        // 6 PRAGMAs do perfil em cada pool, mais query_only no de leitura
+        assertEquals(13, pragmas.size());
+        pragmas.forEach(p -> assertTrue(p.isMatching(), p.getPool() + "." + p.getName() + ": " + p.getActual()));
+        assertDoesNotThrow(diagnostics::validate);
+    }
+
+    @Test
+    void validate_bareConnection_failsWithDivergentValues() {
+        writePool = pool(null);
+        readPool = pool(null);
+        SqliteDiagnostics diagnostics = new SqliteDiagnostics(writePool, readPool,
+                settings(SqliteProfile.BALANCED, SqliteSettings.Validation.FAIL));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, diagnostics::validate);
+
+        assertTrue(e.getMessage().contains("escrita.journal_mode = DELETE (esperado WAL)"));
+        assertTrue(e.getMessage().contains("escrita.synchronous = FULL (esperado NORMAL)"));
+        assertTrue(e.getMessage().contains("leitura.query_only = OFF (esperado ON)"));
+    }
+
+    @Test
+    void validate_warnMode_doesNotFail() {
+        writePool = pool(null);
+        readPool = pool(null);
+        SqliteDiagnostics diagnostics = new SqliteDiagnostics(writePool, readPool,
+                settings(SqliteProfile.BALANCED, SqliteSettings.Validation.WARN));
+
+        assertDoesNotThrow(diagnostics::validate);
+    }
+
+    @Test
+    void describe_translatesNumericPragmas() {
+        assertEquals("NORMAL", SqliteDiagnostics.describe("synchronous", "1"));
+        assertEquals("MEMORY", SqliteDiagnostics.describe("temp_store", "2"));
+        assertEquals("WAL", SqliteDiagnostics.describe("journal_mode", "wal"));
+        assertEquals("-32000", SqliteDiagnostics.describe("cache_size", "-32000"));
+        assertEquals("ON", SqliteDiagnostics.describe("query_only", "1"));
+    }
+
+    @Test
+    void readPool_rejectsWrites() throws Exception {
+        pools(SqliteProfile.BALANCED);
+        try (var c = writePool.getConnection(); var st = c.createStatement()) {
+            st.executeUpdate("CREATE TABLE t (id INTEGER PRIMARY KEY)");
+        }
+
+        try (var c = readPool.getConnection(); var st = c.createStatement()) {
+            assertThrows(java.sql.SQLException.class, () -> st.executeUpdate("INSERT INTO t (id) VALUES (1)"));
+            assertDoesNotThrow(() -> st.executeQuery("SELECT count(*) FROM t").close());
+        }
+    }
+}
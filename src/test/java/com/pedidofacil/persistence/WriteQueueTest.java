@@ -0,0 +1,141 @@
+package com.pedidofacil.persistence;
+
+import com.pedidofacil.config.WriteQueueSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WriteQueueTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private WriteQueueSettings settings;
+    private WriteQueue writeQueue;
+
+    @BeforeEach
+    void setUp() {
+        settings = new WriteQueueSettings();
+        settings.setWindow(Duration.ZERO);
+        writeQueue = new WriteQueue(transactionManager, settings);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeQueue.stop();
+    }
+
+    // Ocupa o escritor até o latch ser liberado, para as próximas escritas se acumularem na fila
+    private CompletableFuture<String> blockWriter(CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> first = writeQueue.submit(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "first";
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return first;
+    }
+
+    @Test
+    void submit_writesQueuedTogether_shareOneCommit() throws Exception {
+        writeQueue.start();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = blockWriter(release);
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            futures.add(writeQueue.submit(() -> value));
+        }
+        release.countDown();
+
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, writeQueue.getCommits());
+        assertEquals(11, writeQueue.getWrites());
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void submit_failingWrite_onlyFailsItself() throws Exception {
+        writeQueue.start();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = blockWriter(release);
+
+        AtomicInteger okRuns = new AtomicInteger();
+        CompletableFuture<String> ok1 = writeQueue.submit(() -> { okRuns.incrementAndGet(); return "ok1"; });
+        CompletableFuture<String> bad = writeQueue.submit(() -> { throw new IllegalStateException("constraint"); });
+        CompletableFuture<String> ok2 = writeQueue.submit(() -> { okRuns.incrementAndGet(); return "ok2"; });
+        release.countDown();
+
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("ok1", ok1.get(5, TimeUnit.SECONDS));
+        assertEquals("ok2", ok2.get(5, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertEquals("constraint", e.getCause().getMessage());
+        // ok1 rodou no grupo desfeito e de novo sozinho; ok2 nem chegou a rodar no grupo
+        assertEquals(3, okRuns.get());
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    @Test
+    void execute_rethrowsWriteException() {
+        writeQueue.start();
+        IllegalArgumentException error = new IllegalArgumentException("inválido");
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> writeQueue.execute(() -> { throw error; }));
+
+        assertSame(error, thrown);
+    }
+
+    @Test
+    void execute_fromWriterThread_runsInline() {
+        writeQueue.start();
+
+        Integer result = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> writeQueue.submit(() -> writeQueue.execute(() -> 21) * 2).join());
+
+        assertEquals(42, result);
+        assertEquals(1, writeQueue.getCommits());
+    }
+
+    @Test
+    void disabled_runsOnCallerThread() {
+        settings.setEnabled(false);
+        writeQueue.start();
+        Thread caller = Thread.currentThread();
+
+        Thread writer = writeQueue.execute(Thread::currentThread);
+
+        assertSame(caller, writer);
+        assertEquals(0, writeQueue.getCommits());
+        verify(transactionManager, times(1)).commit(any());
+    }
+}
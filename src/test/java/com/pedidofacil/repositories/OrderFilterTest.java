@@ -0,0 +1,46 @@
+package com.pedidofacil.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderFilterTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private final LocalDateTime end = LocalDateTime.of(2024, 1, 31, 23, 59);
+
+    @Test
+    void where_noValues_isEmpty() {
+        OrderFilter filter = new OrderFilter()
+                .atLeast("o.createdAt", null)
+                .atMost("o.createdAt", null)
+                .equalTo("o.customer.id", null);
+
+        assertEquals("", filter.where());
+        assertTrue(filter.parameters().isEmpty());
+    }
+
+    @Test
+    void where_onlyGivenValues_becomePredicates() {
+        OrderFilter filter = new OrderFilter()
+                .atLeast("o.createdAt", start)
+                .atMost("o.createdAt", null)
+                .equalTo("o.customer.id", 7L);
+
+        assertEquals(" where o.createdAt >= :p1 and o.customer.id = :p2", filter.where());
+        assertEquals(Map.of("p1", start, "p2", 7L), filter.parameters());
+    }
+
+    @Test
+    void where_fixedConditionKeepsOrder() {
+        OrderFilter filter = new OrderFilter()
+                .atLeast("o.createdAt", start)
+                .atMost("o.createdAt", end)
+                .condition("o.customer is not null");
+
+        assertEquals(" where o.createdAt >= :p1 and o.createdAt <= :p2 and o.customer is not null", filter.where());
+    }
+}
@@ -0,0 +1,18 @@
+package com.pedidofacil.repositories;
+
+import com.pedidofacil.models.Customer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRepositoryImplTest {
+
+    @Test
+    void findHistory_unsavedCustomer_isRejected() {
+        OrderRepositoryImpl repository = new OrderRepositoryImpl();
+        Customer unsaved = new Customer("Cliente Novo", "");
+
+        // Antes de montar a consulta: sem id, o filtro por cliente seria ignorado
+        assertThrows(IllegalArgumentException.class, () -> repository.findHistory(null, null, unsaved));
+    }
+}
@@ -0,0 +1,34 @@
+package com.pedidofacil.repositories;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Guarda os SELECTs que o Hibernate prepara, para o teste de plano de consulta.
+ * O Hibernate instancia a classe pelo nome, por isso o registro é estático.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> SELECTS = new ArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        if (sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select")) {
+            synchronized (SELECTS) {
+                SELECTS.add(sql);
+            }
+        }
+        return sql;
+    }
+
+    static List<String> drain() {
+        synchronized (SELECTS) {
+            List<String> result = List.copyOf(SELECTS);
+            SELECTS.clear();
+            return result;
+        }
+    }
+}
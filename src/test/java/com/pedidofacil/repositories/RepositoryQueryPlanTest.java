@@ -0,0 +1,149 @@
+package com.pedidofacil.repositories;
+
+import com.pedidofacil.models.Customer;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidooff.PedidoOffApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Named;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roda cada consulta dos repositórios num banco temporário, captura o SQL gerado pelo Hibernate e
+ * confere com EXPLAIN QUERY PLAN que nenhuma tabela é lida por inteiro (SCAN sem índice).
+ */
+class RepositoryQueryPlanTest {
+
+    @TempDir
+    static Path home;
+
+    private static ConfigurableApplicationContext context;
+    private static Customer customer;
+
+    @BeforeAll
+    static void start() throws Exception {
+        Files.createDirectories(home.resolve("PedidoFacil"));
+        context = new SpringApplicationBuilder(PedidoOffApplication.class)
+                .web(WebApplicationType.NONE)
+                .headless(true)
+                .run("--user.home=" + home.toAbsolutePath().toString().replace('\\', '/'),
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql=WARN",
+                        "--spring.main.banner-mode=off",
+                        "--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                                + RecordingStatementInspector.class.getName());
+        customer = context.getBean(CustomerRepository.class).save(new Customer("Cliente Plano", ""));
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    static Stream<Named<Consumer<ConfigurableApplicationContext>>> queries() {
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        LocalDateTime end = LocalDateTime.now();
+        Stream<Named<Consumer<ConfigurableApplicationContext>>> lookups = Stream.of(
+                Named.of("findMaxNumber", ctx -> orders(ctx).findMaxNumber()),
+                Named.of("findMaxId", ctx -> orders(ctx).findMaxId()),
+                Named.of("findByName", ctx -> ctx.getBean(CustomerRepository.class).findByName("Cliente")));
+        // Cada combinação de filtros gera um SQL diferente; sem nenhum filtro a leitura completa é esperada
+        return Stream.of(lookups, period("período", start, end), period("desde", start, null), period("até", null, end))
+                .flatMap(Function.identity());
+    }
+
+    private static Stream<Named<Consumer<ConfigurableApplicationContext>>> period(String label, LocalDateTime start, LocalDateTime end) {
+        PageRequest page = PageRequest.of(0, 10);
+        return Stream.of(
+                Named.of("findHistory " + label, ctx -> orders(ctx).findHistory(start, end, null)),
+                Named.of("findHistory por cliente " + label, ctx -> orders(ctx).findHistory(start, end, customer)),
+                Named.of("sumByPaymentMethod " + label, ctx -> orders(ctx).sumByPaymentMethod(start, end)),
+                Named.of("ticketAverageByPayment " + label, ctx -> orders(ctx).ticketAverageByPayment(start, end)),
+                Named.of("topCustomers " + label, ctx -> orders(ctx).topCustomers(start, end, null, page)),
+                Named.of("topCustomers por forma " + label, ctx -> orders(ctx).topCustomers(start, end, PaymentMethod.PIX, page)),
+                Named.of("dailySales " + label, ctx -> orders(ctx).dailySales(day(start), day(end))),
+                Named.of("monthlySales " + label, ctx -> orders(ctx).monthlySales(day(start), day(end))),
+                Named.of("hourlySales " + label, ctx -> orders(ctx).hourlySales(day(start), day(end))),
+                // O SELECT é preparado ao abrir o stream; ler as linhas exigiria uma transação aberta
+                Named.of("streamOrderTotals " + label, ctx -> orders(ctx).streamOrderTotals(start, end, 100).close()),
+                Named.of("streamPaymentTotals " + label, ctx -> orders(ctx).streamPaymentTotals(day(start), day(end), 100).close()),
+                Named.of("productSales " + label, ctx -> orders(ctx).productSales(start, end, page)),
+                Named.of("resumo dailySales " + label, ctx -> summary(ctx).dailySales(day(start), day(end))),
+                Named.of("resumo sumByPaymentMethod " + label, ctx -> summary(ctx).sumByPaymentMethod(day(start), day(end))),
+                Named.of("resumo ticketAverageByPayment " + label, ctx -> summary(ctx).ticketAverageByPayment(day(start), day(end))),
+                Named.of("resumo productSales " + label, ctx -> summary(ctx).productSales(day(start), day(end), page)));
+    }
+
+    private static LocalDate day(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.toLocalDate();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void query_usesIndexes(Consumer<ConfigurableApplicationContext> query) throws SQLException {
+        RecordingStatementInspector.drain();
+
+        query.accept(context);
+
+        List<String> selects = RecordingStatementInspector.drain();
+        assertFalse(selects.isEmpty(), "nenhum SELECT capturado");
+        for (String sql : selects) {
+            List<String> plan = plan(sql);
+            List<String> scans = plan.stream().filter(RepositoryQueryPlanTest::isTableScan).toList();
+            assertTrue(scans.isEmpty(), "varredura de tabela " + scans + " em: " + sql + "\nplano: " + plan);
+        }
+    }
+
+    // "SCAN t" sem "USING ... INDEX" é leitura da tabela inteira; SEARCH e SCAN por índice são aceitos
+    static boolean isTableScan(String detail) {
+        return detail.startsWith("SCAN ") && !detail.contains(" USING ") && !detail.startsWith("SCAN CONSTANT ROW");
+    }
+
+    private static List<String> plan(String sql) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        DataSource dataSource = context.getBean("writeDataSource", DataSource.class);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (rs.next()) {
+                plan.add(rs.getString("detail"));
+            }
+        }
+        return plan;
+    }
+
+    private static OrderRepository orders(ConfigurableApplicationContext ctx) {
+        return ctx.getBean(OrderRepository.class);
+    }
+
+    private static SalesSummaryRepository summary(ConfigurableApplicationContext ctx) {
+        return ctx.getBean(SalesSummaryRepository.class);
+    }
+}
@@ -0,0 +1,179 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportCacheSettings;
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingReportServiceTest {
+
+    private static final LocalDate JAN_1 = LocalDate.of(2024, 1, 1);
+    private static final LocalDate JAN_31 = LocalDate.of(2024, 1, 31);
+    private static final LocalDate FEB_1 = LocalDate.of(2024, 2, 1);
+    private static final LocalDate FEB_29 = LocalDate.of(2024, 2, 29);
+
+    @Mock
+    private IReportService delegate;
+
+    private ReportCacheSettings settings;
+    private CachingReportService cache;
+
+    @BeforeEach
+    void setUp() {
+        settings = new ReportCacheSettings();
+        cache = new CachingReportService(delegate, settings);
+    }
+
+    private static OrderCreatedEvent orderOn(LocalDate day) {
+        Order order = new Order();
+        order.setCreatedAt(day.atTime(10, 30));
+        return new OrderCreatedEvent(order);
+    }
+
+    @Test
+    void repeatedQuery_isServedFromMemory() {
+        DailySalesView view = mock(DailySalesView.class);
+        when(delegate.dailySales(JAN_1, JAN_31)).thenReturn(List.of(view));
+
+        List<DailySalesView> first = cache.dailySales(JAN_1, JAN_31);
+        List<DailySalesView> second = cache.dailySales(JAN_1, JAN_31);
+
+        assertEquals(List.of(view), second);
+        assertSame(first, second);
+        verify(delegate, times(1)).dailySales(JAN_1, JAN_31);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void keys_separateReportPeriodAndParameters() {
+        when(delegate.topProducts(any(), any(), anyInt())).thenReturn(List.of());
+        when(delegate.topCustomers(any(), any(), any(), anyInt())).thenReturn(List.of());
+
+        cache.topProducts(JAN_1, JAN_31, 10);
+        cache.topProducts(JAN_1, JAN_31, 5);
+        cache.topProducts(FEB_1, FEB_29, 10);
+        cache.topCustomers(JAN_1, JAN_31, null, 10);
+        cache.topCustomers(JAN_1, JAN_31, PaymentMethod.CREDITSALE, 10);
+        cache.topCustomers(JAN_1, JAN_31, PaymentMethod.CREDITSALE, 10);
+
+        assertEquals(5, cache.size());
+        verify(delegate, times(1)).topCustomers(JAN_1, JAN_31, PaymentMethod.CREDITSALE, 10);
+    }
+
+    @Test
+    void openPeriod_nullBoundsShareOneEntry() {
+        when(delegate.paymentDistribution(null, null)).thenReturn(List.of());
+
+        cache.paymentDistribution(null, null);
+        cache.paymentDistribution(null, null);
+
+        verify(delegate, times(1)).paymentDistribution(null, null);
+    }
+
+    @Test
+    void orderCreated_discardsOnlyPeriodsContainingItsDay() {
+        when(delegate.paymentDistribution(any(), any())).thenReturn(List.of());
+        cache.paymentDistribution(JAN_1, JAN_31);
+        cache.paymentDistribution(FEB_1, FEB_29);
+        cache.paymentDistribution(JAN_1, null);
+
+        cache.onOrderCreated(orderOn(LocalDate.of(2024, 2, 10)));
+        cache.paymentDistribution(JAN_1, JAN_31);
+        cache.paymentDistribution(FEB_1, FEB_29);
+        cache.paymentDistribution(JAN_1, null);
+
+        verify(delegate, times(1)).paymentDistribution(JAN_1, JAN_31);
+        verify(delegate, times(2)).paymentDistribution(FEB_1, FEB_29);
+        verify(delegate, times(2)).paymentDistribution(JAN_1, null);
+    }
+
+    @Test
+    void orderCreated_periodBoundsAreInclusive() {
+        when(delegate.ticketAverage(any(), any())).thenReturn(List.of());
+        cache.ticketAverage(JAN_1, JAN_31);
+
+        cache.onOrderCreated(orderOn(JAN_31));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void orderCreatedDuringQuery_resultIsNotKept() {
+        PaymentDistributionView stale = mock(PaymentDistributionView.class);
+        when(delegate.paymentDistribution(JAN_1, JAN_31)).thenAnswer(inv -> {
+            // O pedido é confirmado enquanto a consulta lê o banco
+            cache.onOrderCreated(orderOn(JAN_1));
+            return List.of(stale);
+        });
+
+        assertEquals(List.of(stale), cache.paymentDistribution(JAN_1, JAN_31));
+        cache.paymentDistribution(JAN_1, JAN_31);
+
+        verify(delegate, times(2)).paymentDistribution(JAN_1, JAN_31);
+    }
+
+    @Test
+    void maxEntries_evictsLeastRecentlyUsed() {
+        settings.setMaxEntries(2);
+        when(delegate.monthlySales(any(), any())).thenReturn(List.of());
+        LocalDate mar1 = LocalDate.of(2024, 3, 1);
+
+        cache.monthlySales(JAN_1, JAN_31);
+        cache.monthlySales(FEB_1, FEB_29);
+        cache.monthlySales(JAN_1, JAN_31);
+        cache.monthlySales(mar1, mar1);
+        cache.monthlySales(JAN_1, JAN_31);
+        cache.monthlySales(FEB_1, FEB_29);
+
+        assertEquals(2, cache.size());
+        verify(delegate, times(1)).monthlySales(JAN_1, JAN_31);
+        verify(delegate, times(2)).monthlySales(FEB_1, FEB_29);
+    }
+
+    @Test
+    void disabled_alwaysQueriesDelegate() {
+        settings.setEnabled(false);
+        when(delegate.hourlySales(JAN_1, JAN_31)).thenReturn(List.of());
+
+        cache.hourlySales(JAN_1, JAN_31);
+        cache.hourlySales(JAN_1, JAN_31);
+
+        verify(delegate, times(2)).hourlySales(JAN_1, JAN_31);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void rebuildSummary_clearsEverything() {
+        when(delegate.dailySales(any(), any())).thenReturn(List.of());
+        cache.dailySales(JAN_1, JAN_31);
+
+        cache.rebuildSummary();
+
+        verify(delegate, times(1)).rebuildSummary();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void orderWithoutDate_clearsEverything() {
+        when(delegate.dailySales(any(), any())).thenReturn(List.of());
+        cache.dailySales(JAN_1, JAN_31);
+
+        cache.onOrderCreated(new OrderCreatedEvent(new Order()));
+
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,53 @@
+package com.pedidofacil.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountMinSketchTest {
+
+    @Test
+    void estimate_neverBelowRealSumAndMostlyWithinBound() {
+        Random random = new Random(3);
+        CountMinSketch sketch = new CountMinSketch(1_000, 4);
+        long[] sums = new long[20_000];
+
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(sums.length);
+            long weight = random.nextInt(5_000);
+            sums[key] += weight;
+            sketch.add(key, weight);
+        }
+
+        int outside = 0;
+        for (int key = 0; key < sums.length; key++) {
+            long estimate = sketch.estimate(key);
+            assertTrue(estimate >= sums[key], "chave " + key);
+            if (estimate - sums[key] > sketch.errorBound()) {
+                outside++;
+            }
+        }
+        assertTrue(outside <= sums.length * (1 - sketch.confidence()), outside + " fora do erro máximo");
+    }
+
+    @Test
+    void width_isRoundedUpToPowerOfTwo() {
+        CountMinSketch sketch = new CountMinSketch(1_000, 2);
+
+        sketch.add(42, 1_024);
+
+        assertEquals(2 * 1_024 * Long.BYTES, sketch.bytes());
+        assertEquals(1_024, sketch.total());
+        assertEquals(3, sketch.errorBound());
+        assertEquals(1_024, sketch.estimate(42));
+    }
+
+    @Test
+    void invalidArguments_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 2));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(64, 9));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(64, 2).add(1, -1));
+    }
+}
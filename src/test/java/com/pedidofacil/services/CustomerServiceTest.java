@@ -1,17 +1,29 @@
 package com.pedidofacil.services;
 
+import com.pedidofacil.config.WriteQueueSettings;
 import com.pedidofacil.models.Customer;
+import com.pedidofacil.persistence.GroupRollback;
+import com.pedidofacil.persistence.IWriteQueue;
+import com.pedidofacil.persistence.InlineWriteQueue;
+import com.pedidofacil.persistence.WriteQueue;
 import com.pedidofacil.repositories.CustomerRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,6 +33,9 @@ class CustomerServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Spy
+    private IWriteQueue writeQueue = new InlineWriteQueue();
+
     @InjectMocks
     private CustomerService customerService;
 
@@ -232,4 +247,38 @@ class CustomerServiceTest {
         assertTrue(foundCustomers.isEmpty());
         verify(customerRepository, times(1)).findAll();
     }
-}
\ No newline at end of file
+
+    @Test
+    void save_retriedAfterGroupRollback_doesNotKeepRolledBackId() throws Exception {
+        // Arrange: o repositório gera o id como o IDENTITY do banco e anota o id recebido em cada tentativa
+        List<Long> idsReceived = new CopyOnWriteArrayList<>();
+        AtomicLong identity = new AtomicLong(100);
+        when(customerRepository.save(any(Customer.class))).thenAnswer(invocation -> {
+            Customer c = invocation.getArgument(0);
+            idsReceived.add(c.getId());
+            if (c.getId() == null) {
+                c.setId(identity.incrementAndGet());
+            }
+            return c;
+        });
+        WriteQueueSettings settings = new WriteQueueSettings();
+        settings.setWindow(Duration.ZERO);
+        WriteQueue queue = new WriteQueue(mock(PlatformTransactionManager.class), settings);
+        queue.start();
+        CustomerService service = new CustomerService(customerRepository, queue);
+        Customer customer = new Customer("Cliente Novo", "");
+        List<CompletableFuture<Customer>> saved = new ArrayList<>();
+
+        // Act
+        try {
+            GroupRollback.force(queue, () -> saved.add(service.saveAsync(customer)));
+            saved.get(0).get(5, TimeUnit.SECONDS);
+        } finally {
+            queue.stop();
+        }
+
+        // Assert: a repetição grava um cliente novo, não uma atualização do id desfeito
+        assertEquals(Arrays.asList(null, null), idsReceived);
+        assertEquals(102L, customer.getId());
+    }
+}
@@ -0,0 +1,64 @@
+package com.pedidofacil.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FenwickTreeTest {
+
+    @Test
+    void sum_matchesNaiveSumForEveryRange() {
+        Random random = new Random(7);
+        long[] values = new long[37];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1_000);
+        }
+        FenwickTree tree = FenwickTree.of(values);
+
+        for (int from = 0; from < values.length; from++) {
+            long expected = 0;
+            for (int to = from; to < values.length; to++) {
+                expected += values[to];
+                assertEquals(expected, tree.sum(from, to), from + ".." + to);
+            }
+        }
+    }
+
+    @Test
+    void add_updatesEveryRangeThatContainsThePosition() {
+        FenwickTree tree = new FenwickTree(10);
+
+        tree.add(3, 500);
+        tree.add(9, 7);
+        tree.add(3, -200);
+
+        assertEquals(300, tree.sum(0, 3));
+        assertEquals(0, tree.sum(4, 8));
+        assertEquals(307, tree.sum(3, 9));
+        assertEquals(7, tree.prefix(9) - tree.prefix(8));
+    }
+
+    @Test
+    void sum_clampsRangesOutsideTheTree() {
+        FenwickTree tree = FenwickTree.of(new long[] {1, 2, 3, 4});
+
+        assertEquals(10, tree.sum(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(7, tree.sum(2, 100));
+        assertEquals(3, tree.sum(-5, 1));
+        assertEquals(0, tree.sum(-5, -1));
+        assertEquals(0, tree.sum(4, 100));
+        assertEquals(0, tree.sum(3, 2));
+    }
+
+    @Test
+    void values_undoesTheBuild() {
+        long[] values = {5, 0, 12, 7, 0, 0, 3, 9, 1};
+        FenwickTree tree = FenwickTree.of(values);
+        tree.add(4, 10);
+        values[4] += 10;
+
+        assertArrayEquals(values, tree.values());
+    }
+}
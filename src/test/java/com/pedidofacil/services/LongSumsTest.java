@@ -0,0 +1,91 @@
+package com.pedidofacil.services;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongSumsTest {
+
+    @Test
+    void add_keepsOneSumPerKeyAndColumn() {
+        LongSums sums = new LongSums(2, 4);
+
+        sums.add(7, 0, 10);
+        sums.add(7, 1, 250);
+        sums.add(7, 0, 5);
+        sums.add(20240131, 1, 99);
+
+        assertEquals(2, sums.size());
+        assertEquals(15, sums.get(7, 0));
+        assertEquals(250, sums.get(7, 1));
+        assertEquals(99, sums.get(20240131, 1));
+        assertEquals(0, sums.get(8, 0));
+    }
+
+    @Test
+    void add_beyondInitialCapacity_keepsEverySum() {
+        LongSums sums = new LongSums(1, 4);
+
+        for (long key = 1; key <= 10_000; key++) {
+            sums.add(key, 0, key);
+            sums.add(key, 0, 1);
+        }
+
+        assertEquals(10_000, sums.size());
+        for (long key = 1; key <= 10_000; key++) {
+            assertEquals(key + 1, sums.get(key, 0));
+        }
+        assertEquals(10_000, sums.keys()[sums.keys().length - 1]);
+    }
+
+    @Test
+    void top_ordersBySumThenKey() {
+        LongSums sums = new LongSums(2, 16);
+        sums.add(3, 1, 50);
+        sums.add(1, 1, 80);
+        sums.add(2, 1, 50);
+        sums.add(4, 1, 10);
+        sums.add(4, 0, 1_000);
+
+        assertArrayEquals(new long[] {1, 2, 3}, sums.top(1, 3));
+        assertArrayEquals(new long[] {4, 1, 2, 3}, sums.top(0, 10));
+        assertArrayEquals(new long[] {1, 2, 3, 4}, sums.keys());
+    }
+
+    @Test
+    void copy_isIndependentOfTheOriginal() {
+        LongSums sums = new LongSums(1, 4);
+        sums.add(1, 0, 10);
+        LongSums copy = sums.copy();
+
+        sums.add(1, 0, 5);
+        for (long key = 2; key <= 100; key++) {
+            sums.add(key, 0, 1);
+        }
+        copy.add(1, 0, 1);
+
+        assertEquals(15, sums.get(1, 0));
+        assertEquals(11, copy.get(1, 0));
+        assertEquals(0, copy.get(2, 0));
+        assertEquals(1, copy.size());
+    }
+
+    @Test
+    void forEach_visitsEveryKeyWithItsSums() {
+        LongSums sums = new LongSums(2, 4);
+        for (long key = 1; key <= 100; key++) {
+            sums.add(key, 0, key);
+            sums.add(key, 1, 2 * key);
+        }
+
+        long[] seen = new long[3];
+        sums.forEach((key, values, offset) -> {
+            seen[0]++;
+            seen[1] += values[offset] - key;
+            seen[2] += values[offset + 1] - 2 * key;
+        });
+
+        assertArrayEquals(new long[] {100, 0, 0}, seen);
+        assertTrue(sums.bytes() >= 100 * 8 * 3);
+    }
+}
@@ -0,0 +1,162 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.OrderStoreSettings;
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.models.Customer;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.persistence.GeneratedDatabase;
+import com.pedidofacil.repositories.CustomerRepository;
+import com.pedidofacil.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.pedidofacil.services.SampleOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class OrderColumnStoreTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 2, 10);
+    private static final LocalDate END = LocalDate.of(2024, 3, 5);
+
+    @TempDir
+    Path dir;
+
+    private OrderStoreSettings settings;
+    private SinglePassReportEngine engine;
+    private OrderColumnStore store;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        SQLiteDataSource dataSource = GeneratedDatabase.create(dir);
+
+        settings = new OrderStoreSettings();
+        settings.setEnabled(true);
+        ReportEngineSettings engineSettings = new ReportEngineSettings();
+        engineSettings.setFetchSize(100);
+        engine = new SinglePassReportEngine(dataSource, engineSettings);
+        // Sem nomes: os repositórios simulados devolvem listas vazias; aqui só somas e ids importam
+        store = new OrderColumnStore(dataSource, settings, engineSettings,
+                mock(ProductRepository.class), mock(CustomerRepository.class));
+    }
+
+    @Test
+    void load_answersLikeTheDatabase() {
+        store.load();
+        ReportSnapshot expected = engine.snapshot(START, END, 5);
+
+        assertTrue(store.isReady());
+        assertEquals(3_000, store.getOrderCount());
+        assertEquals(expected.dailySales().stream().map(v -> v.getDay() + "|" + v.getTotal()).toList(),
+                store.dailySales(START, END).stream().map(v -> v.getDay() + "|" + v.getTotal()).toList());
+        assertEquals(expected.monthlySales().stream().map(v -> v.getMonth() + "|" + v.getTotal()).toList(),
+                store.monthlySales(START, END).stream().map(v -> v.getMonth() + "|" + v.getTotal()).toList());
+        assertEquals(expected.hourlySales().stream().map(v -> v.getHour() + "|" + v.getOrders() + "|" + v.getTotal()).toList(),
+                store.hourlySales(START, END).stream().map(v -> v.getHour() + "|" + v.getOrders() + "|" + v.getTotal()).toList());
+        assertEquals(expected.paymentDistribution().stream().map(v -> v.getPaymentMethod() + "|" + v.getTotal()).toList(),
+                store.paymentDistribution(START, END).stream().map(v -> v.getPaymentMethod() + "|" + v.getTotal()).toList());
+        assertEquals(expected.ticketAverages().stream().map(v -> v.getPaymentMethod() + "|" + v.getOrders()).toList(),
+                store.ticketAverage(START, END).stream().map(v -> v.getPaymentMethod() + "|" + v.getOrders()).toList());
+        assertEquals(expected.productSales().stream().map(v -> v.getProductId() + "|" + v.getQuantity() + "|" + v.getTotal()).toList(),
+                store.topProducts(START, END, 5).stream().map(v -> v.getProductId() + "|" + v.getQuantity() + "|" + v.getTotal()).toList());
+        assertEquals(expected.topCustomers().stream().map(v -> v.getCustomerId() + "|" + v.getTotal()).toList(),
+                store.topCustomers(START, END, null, 5).stream().map(v -> v.getCustomerId() + "|" + v.getTotal()).toList());
+    }
+
+    @Test
+    void topCustomers_filtersByPaymentMethod() {
+        store.load();
+        Customer customer = new Customer("Cliente Fiado", "");
+        customer.setId(900_001L);
+        store.onOrderCreated(new OrderCreatedEvent(order(900_001, START.atTime(9, 0), PaymentMethod.CREDITSALE, customer, "100000")));
+        store.onOrderCreated(new OrderCreatedEvent(order(900_002, START.atTime(9, 5), PaymentMethod.PIX, customer, "100000")));
+
+        assertEquals(900_001L, store.topCustomers(START, END, PaymentMethod.CREDITSALE, 1).get(0).getCustomerId());
+        assertEquals(new BigDecimal("3990000.00"), store.topCustomers(START, END, PaymentMethod.CREDITSALE, 1).get(0).getTotal());
+        assertEquals(new BigDecimal("7980000.00"), store.topCustomers(START, END, null, 1).get(0).getTotal());
+    }
+
+    @Test
+    void orderCreated_isAppendedAndCounted() {
+        store.load();
+        LocalDate day = LocalDate.of(2024, 6, 1);
+
+        store.onOrderCreated(new OrderCreatedEvent(order(900_001, day.atTime(14, 30), PaymentMethod.CASH, null, "2.5")));
+
+        assertEquals(3_001, store.getOrderCount());
+        assertEquals(List.of("2024-06-01|99.75"),
+                store.dailySales(day, day).stream().map(v -> v.getDay() + "|" + v.getTotal()).toList());
+        assertEquals(List.of("14|1|99.75"),
+                store.hourlySales(day, day).stream().map(v -> v.getHour() + "|" + v.getOrders() + "|" + v.getTotal()).toList());
+        assertEquals(List.of("1|2.500|99.75"),
+                store.topProducts(day, day, 5).stream().map(v -> v.getProductId() + "|" + v.getQuantity() + "|" + v.getTotal()).toList());
+        assertTrue(store.topCustomers(day, day, null, 5).isEmpty());
+    }
+
+    @Test
+    void orderCreated_beyondInitialCapacity_growsTheColumns() {
+        store.load();
+        LocalDate day = LocalDate.of(2024, 6, 1);
+
+        for (int i = 1; i <= 5_000; i++) {
+            store.onOrderCreated(new OrderCreatedEvent(order(900_000 + i, day.atTime(10, 0), PaymentMethod.PIX, null, "1")));
+        }
+
+        assertEquals(8_000, store.getOrderCount());
+        assertEquals(List.of("2024-06-01|199500.00"),
+                store.dailySales(day, day).stream().map(v -> v.getDay() + "|" + v.getTotal()).toList());
+    }
+
+    @Test
+    void orderCreated_beforeLoad_isIgnored() {
+        store.onOrderCreated(new OrderCreatedEvent(order(900_001, START.atTime(9, 0), PaymentMethod.CASH, null, "1")));
+
+        assertEquals(OrderColumnStore.State.DISABLED, store.getState());
+        assertFalse(store.isReady());
+        assertEquals(0, store.getOrderCount());
+    }
+
+    @Test
+    void load_overMemoryBudget_staysOnDatabase() {
+        settings.setMemoryBudget(DataSize.ofKilobytes(64));
+
+        store.load();
+
+        assertEquals(OrderColumnStore.State.OVER_BUDGET, store.getState());
+        assertFalse(store.isReady());
+        assertEquals(0, store.getMemoryBytes());
+        assertThrows(IllegalStateException.class, () -> store.dailySales(START, END));
+    }
+
+    @Test
+    void orderCreated_pastMemoryBudget_dropsTheStore() {
+        store.load();
+        settings.setMemoryBudget(DataSize.ofBytes(store.getMemoryBytes()));
+
+        for (int i = 1; i <= 5_000 && store.isReady(); i++) {
+            store.onOrderCreated(new OrderCreatedEvent(order(900_000 + i, START.atTime(10, 0), PaymentMethod.PIX, null, "1")));
+        }
+
+        assertEquals(OrderColumnStore.State.OVER_BUDGET, store.getState());
+        assertEquals(0, store.getOrderCount());
+    }
+
+    @Test
+    void disabled_ignoresOrders() {
+        settings.setEnabled(false);
+
+        store.startLoading();
+        store.onOrderCreated(new OrderCreatedEvent(order(900_001, START.atTime(9, 0), PaymentMethod.CASH, null, "1")));
+
+        assertEquals(OrderColumnStore.State.DISABLED, store.getState());
+    }
+}
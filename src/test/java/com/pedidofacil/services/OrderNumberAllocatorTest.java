@@ -0,0 +1,228 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.MigrationSettings;
+import com.pedidofacil.config.OrderNumberSettings;
+import com.pedidofacil.config.WriteQueueSettings;
+import com.pedidofacil.persistence.GroupRollback;
+import com.pedidofacil.persistence.SchemaMigrationConfig;
+import com.pedidofacil.persistence.WriteQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Alocador contra um arquivo SQLite de verdade: a conexão da reserva é outra que a da transação de escrita, como o
+ * pool "sqlite-sequence" no aplicativo, e a restrição UNIQUE de orders.number confere os números entregues.
+ */
+class OrderNumberAllocatorTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteDataSource writeDataSource;
+    private SQLiteDataSource sequenceDataSource;
+    private JdbcTemplate jdbc;
+    private OrderNumberSettings settings;
+    private WriteQueueSettings writeQueueSettings;
+
+    @BeforeEach
+    void setUp() {
+        String url = "jdbc:sqlite:" + dir.resolve("a.db").toAbsolutePath();
+        writeDataSource = dataSource(url);
+        sequenceDataSource = dataSource(url);
+        new SchemaMigrationConfig().schemaMigrator(writeDataSource, new MigrationSettings()).migrate();
+        jdbc = new JdbcTemplate(writeDataSource);
+
+        settings = new OrderNumberSettings();
+        settings.setBlockSize(50);
+        writeQueueSettings = new WriteQueueSettings();
+        writeQueueSettings.setMaxBatch(1);
+    }
+
+    private static SQLiteDataSource dataSource(String url) {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl(url);
+        dataSource.setJournalMode("WAL");
+        return dataSource;
+    }
+
+    private OrderNumberAllocator newAllocator() {
+        return new OrderNumberAllocator(sequenceDataSource, settings, writeQueueSettings);
+    }
+
+    private void insertOrder(long number) {
+        jdbc.update("INSERT INTO orders (created_at, number, payment_method, total) VALUES ('2024-03-01 10:00:00', ?, 'PIX', 10)",
+                number);
+    }
+
+    private Long storedNextValue() {
+        List<Long> values = jdbc.queryForList(
+                "SELECT next_value FROM order_sequences WHERE name = ?", Long.class, OrderNumberAllocator.SEQUENCE_NAME);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    private void storeNextValue(long value) {
+        jdbc.update("INSERT INTO order_sequences (name, next_value) VALUES (?, ?)", OrderNumberAllocator.SEQUENCE_NAME, value);
+    }
+
+    @Test
+    void next_firstRun_startsAfterMaxNumber() {
+        insertOrder(120);
+        OrderNumberAllocator allocator = newAllocator();
+
+        assertEquals(121L, allocator.next());
+        assertEquals(122L, allocator.next());
+        // O bloco em uso e um de reserva
+        assertEquals(221L, storedNextValue().longValue());
+    }
+
+    @Test
+    void next_handsOutConsecutiveNumbersAcrossBlocks() {
+        settings.setBlockSize(10);
+        OrderNumberAllocator allocator = newAllocator();
+
+        for (long expected = 1; expected <= 25; expected++) {
+            assertEquals(expected, allocator.next());
+        }
+        assertEquals(41L, storedNextValue().longValue());
+    }
+
+    @Test
+    void reserveAhead_coversAWholeWriteGroup() {
+        settings.setBlockSize(10);
+        writeQueueSettings.setMaxBatch(64);
+        OrderNumberAllocator allocator = newAllocator();
+
+        allocator.reserveAhead();
+
+        assertEquals(71L, storedNextValue().longValue());
+        assertEquals(1L, allocator.peek());
+    }
+
+    @Test
+    void peek_doesNotConsumeNumbers() {
+        storeNextValue(7);
+        OrderNumberAllocator allocator = newAllocator();
+
+        assertEquals(7L, allocator.peek());
+        assertEquals(7L, allocator.next());
+        assertEquals(8L, allocator.peek());
+        assertEquals(8L, allocator.peek());
+    }
+
+    @Test
+    void peek_emptyDatabase_returnsOne() {
+        OrderNumberAllocator allocator = newAllocator();
+
+        assertEquals(1L, allocator.peek());
+        assertNull(storedNextValue());
+    }
+
+    @Test
+    void release_returnsUnusedNumbersToSequence() {
+        settings.setGapPolicy(OrderNumberSettings.GapPolicy.RELEASE_ON_SHUTDOWN);
+        OrderNumberAllocator allocator = newAllocator();
+        allocator.next();
+        allocator.next();
+
+        allocator.release();
+
+        assertEquals(3L, storedNextValue().longValue());
+    }
+
+    @Test
+    void release_allowGaps_keepsSequenceAhead() {
+        settings.setGapPolicy(OrderNumberSettings.GapPolicy.ALLOW_GAPS);
+        OrderNumberAllocator allocator = newAllocator();
+        allocator.next();
+
+        allocator.release();
+
+        assertEquals(101L, storedNextValue().longValue());
+    }
+
+    @Test
+    void resyncOnStartup_reclaimsNumbersLostInCrash() {
+        storeNextValue(301); // bloco reservado antes de uma queda, só até o 260 foi usado
+        insertOrder(260);
+        settings.setRecovery(OrderNumberSettings.Recovery.RESYNC_ON_STARTUP);
+        OrderNumberAllocator allocator = newAllocator();
+
+        assertEquals(261L, allocator.next());
+    }
+
+    @Test
+    void rollbackOfCallingTransaction_keepsReservation() {
+        OrderNumberAllocator allocator = newAllocator();
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(writeDataSource));
+
+        long handedOut = transaction.execute(status -> {
+            long number = allocator.next();
+            insertOrder(number);
+            status.setRollbackOnly();
+            return number;
+        });
+
+        // A reserva foi confirmada na conexão dela: o número desfeito vira lacuna, não volta a ser entregue
+        assertTrue(storedNextValue() > handedOut);
+        assertEquals(handedOut + 1, allocator.next());
+    }
+
+    @Test
+    void groupRollback_neverHandsOutANumberTwice() throws InterruptedException {
+        settings.setBlockSize(10);
+        writeQueueSettings.setMaxBatch(64);
+        writeQueueSettings.setWindow(Duration.ZERO);
+        OrderNumberAllocator allocator = newAllocator();
+        WriteQueue writeQueue = new WriteQueue(new DataSourceTransactionManager(writeDataSource), writeQueueSettings);
+        writeQueue.start();
+        List<Long> handedOut = new CopyOnWriteArrayList<>();
+        Supplier<Long> order = () -> {
+            long number = allocator.next();
+            handedOut.add(number);
+            insertOrder(number);
+            return number;
+        };
+        List<CompletableFuture<Long>> orders = new ArrayList<>();
+        try {
+            // Mais pedidos que um bloco, e o grupo só é desfeito depois de todos terem gravado
+            GroupRollback.force(writeQueue, () -> {
+                for (int i = 0; i < 30; i++) {
+                    orders.add(writeQueue.submit(order));
+                }
+            });
+            for (int i = 0; i < 30; i++) {
+                orders.add(writeQueue.submit(order));
+            }
+            Set<Long> saved = new HashSet<>();
+            for (CompletableFuture<Long> future : orders) {
+                assertTrue(saved.add(future.join()), "número de pedido duplicado");
+            }
+        } finally {
+            writeQueue.stop();
+        }
+
+        // 30 entregues no grupo desfeito, 30 nas repetições e 30 depois: nenhum repetido
+        assertEquals(90, handedOut.size());
+        assertEquals(90, new HashSet<>(handedOut).size());
+        assertEquals(60, jdbc.queryForObject("SELECT count(*) FROM orders", Long.class).longValue());
+        long maxNumber = jdbc.queryForObject("SELECT max(number) FROM orders", Long.class);
+        assertTrue(storedNextValue() > maxNumber);
+    }
+}
@@ -5,7 +5,10 @@ import com.pedidofacil.models.Order;
 import com.pedidofacil.models.OrderItem;
 import com.pedidofacil.models.PaymentMethod;
 import com.pedidofacil.models.Product;
+import com.pedidofacil.persistence.IWriteQueue;
+import com.pedidofacil.persistence.InlineWriteQueue;
 import com.pedidofacil.repositories.OrderRepository;
+import com.pedidofacil.repositories.SalesSummaryRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,7 +16,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
@@ -25,6 +30,8 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +42,18 @@ class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private IOrderNumberAllocator orderNumberAllocator;
+
+    @Mock
+    private SalesSummaryRepository salesSummary;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Spy
+    private IWriteQueue writeQueue = new InlineWriteQueue();
+
     @InjectMocks
     private OrderService orderService;
 
@@ -56,7 +75,7 @@ class OrderServiceTest {
             savedOrder.setNumber(1L);
             return savedOrder;
         });
-        when(orderRepository.findMaxNumber()).thenReturn(0L);
+        when(orderNumberAllocator.next()).thenReturn(1L);
 
         Order createdOrder = orderService.createOrder(items, paymentMethod, customer);
 
@@ -79,7 +98,7 @@ class OrderServiceTest {
             savedOrder.setNumber(1L);
             return savedOrder;
         });
-        when(orderRepository.findMaxNumber()).thenReturn(0L);
+        when(orderNumberAllocator.next()).thenReturn(1L);
 
         Order createdOrder = orderService.createOrder(items, paymentMethod, customer);
 
@@ -103,23 +122,71 @@ class OrderServiceTest {
     }
 
     @Test
-    void nextOrderNumber_returnsNextNumber() {
-        when(orderRepository.findMaxNumber()).thenReturn(5L);
+    void createOrder_usesAllocatorNumber() {
+        List<OrderItem> items = new ArrayList<>();
+        when(orderNumberAllocator.next()).thenReturn(42L);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
-        Long nextNumber = orderService.nextOrderNumber();
+        Order createdOrder = orderService.createOrder(items, PaymentMethod.PIX, null);
 
-        assertEquals(6L, nextNumber);
-        verify(orderRepository, times(1)).findMaxNumber();
+        assertEquals(42L, createdOrder.getNumber());
+        verify(orderNumberAllocator, times(1)).next();
+        verify(orderRepository, never()).findMaxNumber();
+    }
+
+    @Test
+    void createOrder_goesThroughWriteQueue() {
+        when(orderNumberAllocator.next()).thenReturn(1L);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.createOrder(new ArrayList<>(), PaymentMethod.CASH, null);
+
+        verify(writeQueue, times(1)).execute(any());
+    }
+
+    @Test
+    void createOrder_recordsSavedOrderInSalesSummary() {
+        Order saved = new Order();
+        when(orderNumberAllocator.next()).thenReturn(1L);
+        when(orderRepository.save(any(Order.class))).thenReturn(saved);
+
+        orderService.createOrder(new ArrayList<>(), PaymentMethod.PIX, null);
+
+        verify(salesSummary, times(1)).record(saved);
+        verify(events, times(1)).publishEvent(new OrderCreatedEvent(saved));
     }
 
     @Test
-    void nextOrderNumber_noExistingOrders_returnsOne() {
-        when(orderRepository.findMaxNumber()).thenReturn(null);
+    void createOrder_saveFails_doesNotRecordSummary() {
+        when(orderNumberAllocator.next()).thenReturn(1L);
+        when(orderRepository.save(any(Order.class))).thenThrow(new IllegalStateException("disco cheio"));
+
+        assertThrows(IllegalStateException.class,
+                () -> orderService.createOrder(new ArrayList<>(), PaymentMethod.PIX, null));
+        verify(salesSummary, never()).record(any());
+        verify(events, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void createOrderAsync_creditSale_noCustomer_failsBeforeQueue() {
+        CompletableFuture<Order> future = orderService.createOrderAsync(new ArrayList<>(), PaymentMethod.CREDITSALE, null);
+
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        verify(writeQueue, never()).submit(any());
+        verify(orderNumberAllocator, never()).next();
+    }
+
+    @Test
+    void nextOrderNumber_returnsNextNumber() {
+        when(orderNumberAllocator.peek()).thenReturn(6L);
 
         Long nextNumber = orderService.nextOrderNumber();
 
-        assertEquals(1L, nextNumber);
-        verify(orderRepository, times(1)).findMaxNumber();
+        assertEquals(6L, nextNumber);
+        verify(orderNumberAllocator, times(1)).peek();
+        verify(orderNumberAllocator, never()).next();
+        verify(orderRepository, never()).findMaxNumber();
     }
 
     @Test
@@ -0,0 +1,197 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.PaymentIndexSettings;
+import com.pedidofacil.config.WriteQueueSettings;
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.TimeKeys;
+import com.pedidofacil.repositories.SalesSummaryRepository;
+import com.pedidofacil.repositories.projections.DailyPaymentTotal;
+import com.pedidofacil.repositories.projections.PaymentDistributionView;
+import com.pedidofacil.repositories.projections.TicketAverageView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentRangeIndexTest {
+
+    @Mock
+    private SalesSummaryRepository salesSummary;
+
+    private PaymentIndexSettings settings;
+    private WriteQueueSettings writeQueueSettings;
+    private PaymentRangeIndex index;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        settings = new PaymentIndexSettings();
+        writeQueueSettings = new WriteQueueSettings();
+        index = new PaymentRangeIndex(salesSummary, settings, writeQueueSettings);
+    }
+
+    private DailyPaymentTotal row(LocalDate day, PaymentMethod method, long orders, String total, long lastOrderId) {
+        return new DailyPaymentTotal(TimeKeys.dayKey(day), method, orders, new BigDecimal(total), lastOrderId);
+    }
+
+    private static Order order(long id, LocalDateTime createdAt, PaymentMethod method, String total) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCreatedAt(createdAt);
+        order.setPaymentMethod(method);
+        order.prePersist();
+        order.setTotal(new BigDecimal(total));
+        return order;
+    }
+
+    private static List<String> totals(List<PaymentDistributionView> views) {
+        return views.stream().map(v -> v.getPaymentMethod() + "|" + v.getTotal()).toList();
+    }
+
+    private void rebuildWith(DailyPaymentTotal... rows) {
+        when(salesSummary.dailyPaymentTotals()).thenReturn(List.of(rows));
+        index.rebuild();
+    }
+
+    @Test
+    void rebuild_answersAnyRangeFromTheSummary() {
+        rebuildWith(
+                row(today.minusDays(40), PaymentMethod.PIX, 2, "100.10", 2),
+                row(today.minusDays(40), PaymentMethod.CASH, 1, "20.00", 3),
+                row(today.minusDays(6), PaymentMethod.PIX, 3, "30.30", 6),
+                row(today, PaymentMethod.CASH, 4, "80.00", 10));
+
+        assertTrue(index.isReady());
+        assertEquals(List.of("CASH|100.00", "PIX|130.40"), totals(index.paymentDistribution(null, null)));
+        assertEquals(List.of("CASH|80.00", "PIX|30.30"), totals(index.paymentDistribution(today.minusDays(6), today)));
+        assertEquals(List.of("CASH|20.00", "PIX|100.10"),
+                totals(index.paymentDistribution(today.minusDays(60), today.minusDays(7))));
+        assertTrue(index.paymentDistribution(today.minusDays(5), today.minusDays(1)).isEmpty());
+
+        List<TicketAverageView> tickets = index.ticketAverage(today.minusDays(6), today);
+        assertEquals(PaymentMethod.CASH, tickets.get(0).getPaymentMethod());
+        assertEquals(4L, tickets.get(0).getOrders());
+        assertEquals(20.0, tickets.get(0).getAverage(), 1e-9);
+        assertEquals(3L, tickets.get(1).getOrders());
+        assertEquals(10.1, tickets.get(1).getAverage(), 1e-9);
+    }
+
+    @Test
+    void orderCreated_isAddedToItsDay() {
+        rebuildWith(row(today, PaymentMethod.CASH, 1, "10.00", 10));
+
+        index.onOrderCreated(new OrderCreatedEvent(order(11, today.atTime(10, 0), PaymentMethod.CASH, "2.50")));
+        index.onOrderCreated(new OrderCreatedEvent(order(12, today.atTime(11, 0), PaymentMethod.DEBIT, "7.00")));
+
+        assertEquals(List.of("CASH|12.50", "DEBIT|7.00"), totals(index.paymentDistribution(today, today)));
+        assertEquals(2L, index.ticketAverage(today, today).get(0).getOrders());
+    }
+
+    @Test
+    void orderCreated_alreadyInTheSummary_isNotCountedTwice() {
+        rebuildWith(row(today, PaymentMethod.CASH, 1, "10.00", 10));
+
+        index.onOrderCreated(new OrderCreatedEvent(order(10, today.atTime(10, 0), PaymentMethod.CASH, "10.00")));
+
+        assertEquals(List.of("CASH|10.00"), totals(index.paymentDistribution(today, today)));
+    }
+
+    @Test
+    void orderCreated_aboveTheSummaryMark_isAdded() {
+        // Arrange: o pedido 11 já pode estar em orders; a marca é a do resumo lido, que só tem até o 7
+        rebuildWith(
+                row(today.minusDays(1), PaymentMethod.CASH, 1, "10.00", 7),
+                row(today, PaymentMethod.PIX, 1, "4.00", 5));
+
+        // Act
+        index.onOrderCreated(new OrderCreatedEvent(order(11, today.atTime(10, 0), PaymentMethod.CASH, "3.00")));
+
+        // Assert
+        assertEquals(List.of("CASH|3.00", "PIX|4.00"), totals(index.paymentDistribution(today, today)));
+    }
+
+    @Test
+    void orderCreated_outsideTheReservedDays_growsTheIndex() {
+        rebuildWith(row(today, PaymentMethod.PIX, 1, "10.00", 10));
+        LocalDate past = today.minusYears(3);
+        LocalDate future = today.plusYears(2);
+
+        index.onOrderCreated(new OrderCreatedEvent(order(11, past.atTime(9, 0), PaymentMethod.PIX, "1.00")));
+        index.onOrderCreated(new OrderCreatedEvent(order(12, future.atTime(9, 0), PaymentMethod.PIX, "2.00")));
+
+        assertEquals(List.of("PIX|1.00"), totals(index.paymentDistribution(past, past)));
+        assertEquals(List.of("PIX|10.00"), totals(index.paymentDistribution(today, today)));
+        assertEquals(List.of("PIX|2.00"), totals(index.paymentDistribution(future, future)));
+        assertEquals(List.of("PIX|13.00"), totals(index.paymentDistribution(null, null)));
+    }
+
+    @Test
+    void orderCreated_beforeRebuild_isIgnored() {
+        index.onOrderCreated(new OrderCreatedEvent(order(1, today.atTime(10, 0), PaymentMethod.CASH, "2.50")));
+
+        assertFalse(index.isReady());
+    }
+
+    @Test
+    void rebuild_overlappingRebuild_onlyTheLatestPublishes() {
+        // Arrange: o recálculo do resumo começa enquanto a montagem da subida ainda lê o banco; o recálculo
+        // lê o resumo primeiro, já com o pedido 11, e a montagem antiga lê depois o resumo de antes dele
+        when(salesSummary.dailyPaymentTotals()).thenAnswer(first -> {
+            index.onOrderCreated(new OrderCreatedEvent(order(11, today.atTime(9, 0), PaymentMethod.PIX, "5.00")));
+            when(salesSummary.dailyPaymentTotals()).thenReturn(List.of(row(today, PaymentMethod.PIX, 2, "15.00", 11)));
+            index.rebuild();
+            return List.of(row(today, PaymentMethod.PIX, 1, "10.00", 10));
+        });
+
+        // Act
+        index.rebuild();
+        index.onOrderCreated(new OrderCreatedEvent(order(12, today.atTime(10, 0), PaymentMethod.PIX, "1.00")));
+
+        // Assert: a montagem antiga não sobrescreve a nova nem perde o pedido confirmado depois
+        assertTrue(index.isReady());
+        assertEquals(List.of("PIX|16.00"), totals(index.paymentDistribution(today, today)));
+    }
+
+    @Test
+    void rebuild_failure_leavesTheIndexOff() {
+        when(salesSummary.dailyPaymentTotals()).thenThrow(new DataAccessResourceFailureException("banco indisponível"));
+
+        index.rebuild();
+
+        assertFalse(index.isReady());
+    }
+
+    @Test
+    void disabled_neverReadsTheSummary() {
+        settings.setEnabled(false);
+
+        index.rebuild();
+
+        assertFalse(index.isReady());
+        verifyNoInteractions(salesSummary);
+    }
+
+    @Test
+    void writeQueueDisabled_neverReadsTheSummary() {
+        // Sem a fila, um id menor pode ser confirmado depois da montagem e seria descartado pela marca
+        writeQueueSettings.setEnabled(false);
+
+        index.rebuild();
+
+        assertFalse(index.isReady());
+        verifyNoInteractions(salesSummary);
+    }
+}
@@ -0,0 +1,140 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.models.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCatalogTest {
+
+    private StubProductService products;
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        products = new StubProductService();
+        products.rows.add(product(1L, "Cimento", "Votoran"));
+        products.rows.add(product(2L, "Areia", "Lavada"));
+        catalog = new ProductCatalog(products);
+    }
+
+    @Test
+    void snapshot_readsRepositoryOnce() {
+        ProductCatalog.Snapshot first = catalog.snapshot();
+        ProductCatalog.Snapshot second = catalog.snapshot();
+
+        assertSame(first, second);
+        assertEquals(1, products.reads);
+        assertEquals(1, first.version());
+        assertEquals("Areia", first.find(2L).getName());
+        assertThrows(UnsupportedOperationException.class, () -> first.products().add(product(9L, "X", "Y")));
+    }
+
+    @Test
+    void onProductChanged_swapsSnapshotAndKeepsOldCopyIntact() {
+        ProductCatalog.Snapshot before = catalog.snapshot();
+
+        catalog.onProductChanged(new ProductChangedEvent(product(3L, "Brita", "Nº 1"), false));
+        catalog.onProductChanged(new ProductChangedEvent(product(1L, "Cimento CP II", "Votoran"), false));
+        catalog.onProductChanged(new ProductChangedEvent(product(2L, "Areia", "Lavada"), true));
+
+        ProductCatalog.Snapshot after = catalog.snapshot();
+        assertEquals(4, after.version());
+        assertEquals(List.of(1L, 3L), after.products().stream().map(Product::getId).toList());
+        assertEquals("Cimento CP II", after.find(1L).getName());
+        assertNull(after.find(2L));
+        // Quem guardou a cópia anterior continua vendo o catálogo como era
+        assertEquals(2, before.size());
+        assertEquals("Cimento", before.find(1L).getName());
+        assertEquals(1, products.reads);
+    }
+
+    @Test
+    void onProductChanged_alreadyLoadedProductIsNotDuplicated() {
+        catalog.snapshot();
+
+        catalog.onProductChanged(new ProductChangedEvent(product(2L, "Areia", "Lavada"), false));
+
+        assertEquals(2, catalog.snapshot().size());
+    }
+
+    @Test
+    void onProductChanged_beforeLoad_isLeftToFirstRead() {
+        catalog.onProductChanged(new ProductChangedEvent(product(3L, "Brita", "Nº 1"), false));
+        products.rows.add(product(3L, "Brita", "Nº 1"));
+
+        assertEquals(3, catalog.snapshot().size());
+        assertEquals(1, catalog.version());
+    }
+
+    @Test
+    void listeners_notifiedOncePerSwapAndFailuresIsolated() {
+        catalog.snapshot();
+        List<Long> versions = new ArrayList<>();
+        Consumer<ProductCatalog.Snapshot> listener = snapshot -> versions.add(snapshot.version());
+        catalog.addListener(snapshot -> {
+            throw new IllegalStateException("tela com defeito");
+        });
+        catalog.addListener(listener);
+        catalog.addListener(listener);
+
+        catalog.onProductChanged(new ProductChangedEvent(product(3L, "Brita", "Nº 1"), false));
+        catalog.removeListener(listener);
+        catalog.onProductChanged(new ProductChangedEvent(product(3L, "Brita", "Nº 1"), true));
+
+        assertEquals(List.of(2L), versions);
+        assertEquals(3, catalog.version());
+    }
+
+    @Test
+    void load_rereadsAndBumpsVersion() {
+        catalog.snapshot();
+        products.rows.remove(0);
+
+        catalog.load();
+
+        assertEquals(2, catalog.version());
+        assertEquals(1, catalog.snapshot().size());
+        assertEquals(2, products.reads);
+    }
+
+    private static Product product(Long id, String name, String brand) {
+        Product p = new Product(name, brand, "un", new BigDecimal("10.00"));
+        p.setId(id);
+        return p;
+    }
+
+    // Só a leitura do cadastro importa ao catálogo; as escritas chegam pelos eventos
+    private static class StubProductService implements IProductService {
+        final List<Product> rows = new ArrayList<>();
+        int reads;
+
+        @Override
+        public List<Product> findAll() {
+            reads++;
+            return new ArrayList<>(rows);
+        }
+
+        @Override
+        public Product save(Product p) { throw new UnsupportedOperationException(); }
+
+        @Override
+        public void delete(Product p) { throw new UnsupportedOperationException(); }
+
+        @Override
+        public CompletableFuture<Product> saveAsync(Product p) { throw new UnsupportedOperationException(); }
+
+        @Override
+        public CompletableFuture<List<Product>> findAllAsync() { throw new UnsupportedOperationException(); }
+
+        @Override
+        public CompletableFuture<Void> deleteAsync(Product p) { throw new UnsupportedOperationException(); }
+    }
+}
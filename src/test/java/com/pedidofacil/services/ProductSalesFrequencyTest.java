@@ -0,0 +1,113 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.OrderItem;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.Product;
+import com.pedidofacil.persistence.GeneratedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSalesFrequencyTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteDataSource dataSource;
+    private ProductSalesFrequency frequency;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = GeneratedDatabase.create(dir);
+
+        frequency = new ProductSalesFrequency(dataSource);
+    }
+
+    private Map<Long, Long> itemsByProduct() throws SQLException {
+        Map<Long, Long> counts = new HashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT product_id, count(*) FROM order_items GROUP BY product_id")) {
+            while (rs.next()) {
+                counts.put(rs.getLong(1), rs.getLong(2));
+            }
+        }
+        return counts;
+    }
+
+    private static Order order(long id, long... productIds) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCreatedAt(LocalDate.of(2024, 6, 1).atTime(10, 0));
+        order.setPaymentMethod(PaymentMethod.PIX);
+        for (long productId : productIds) {
+            Product product = new Product("Cimento", "Votoran", "SC", new BigDecimal("39.90"));
+            product.setId(productId);
+            order.addItem(new OrderItem(product, BigDecimal.ONE, product.getPrice()));
+        }
+        order.prePersist();
+        return order;
+    }
+
+    @Test
+    void count_isZeroBeforeLoad() {
+        assertEquals(0, frequency.count(1));
+    }
+
+    @Test
+    void load_countsOrderItemsPerProduct() throws SQLException {
+        frequency.load();
+
+        Map<Long, Long> expected = itemsByProduct();
+        assertFalse(expected.isEmpty());
+        expected.forEach((product, orders) ->
+                assertEquals(orders.longValue(), frequency.count(product), "produto " + product));
+        assertEquals(0, frequency.count(999_999));
+    }
+
+    @Test
+    void orderCreated_countsItemsOfNewOrders() throws SQLException {
+        frequency.load();
+        long before = itemsByProduct().getOrDefault(1L, 0L);
+
+        // O pedido 1 já veio na carga; o evento dele não conta de novo
+        frequency.onOrderCreated(new OrderCreatedEvent(order(1, 1L)));
+        frequency.onOrderCreated(new OrderCreatedEvent(order(900_001, 1L, 1L, 999_999L)));
+        frequency.onOrderCreated(new OrderCreatedEvent(order(900_002, 1L)));
+
+        assertEquals(before + 3, frequency.count(1));
+        assertEquals(1, frequency.count(999_999));
+    }
+
+    @Test
+    void orderCreated_productIdPastTheLimit_countsZero() {
+        frequency.load();
+
+        frequency.onOrderCreated(new OrderCreatedEvent(order(900_001, ProductSalesFrequency.MAX_PRODUCT_ID, 2L)));
+
+        assertEquals(0, frequency.count(ProductSalesFrequency.MAX_PRODUCT_ID));
+        assertTrue(frequency.count(2) > 0);
+    }
+
+    @Test
+    void orderCreated_beforeLoadIsIgnored() {
+        frequency.onOrderCreated(new OrderCreatedEvent(order(900_001, 1L)));
+
+        assertEquals(0, frequency.count(1));
+    }
+}
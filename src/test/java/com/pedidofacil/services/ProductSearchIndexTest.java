@@ -0,0 +1,200 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.models.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    private static final String[] NAMES = {"Cimento", "Areia", "Brita", "Tijolo", "Argamassa", "Sifão", "Cal",
+            "Telha", "Bloco", "Tubo", "Cano", "Joelho", "Luva", "Registro", "Torneira"};
+    private static final String[] BRANDS = {"Votoran", "Tigre", "Amanco", "Quartzolit", "Eternit", "Deca"};
+
+    @Test
+    void search_ranksExactThenPrefixThenSubstring() {
+        ProductSearchIndex index = ProductSearchIndex.build(snapshot(1,
+                product(1L, "Cimentolux", "Deca"),
+                product(2L, "Cimento CP II", "Votoran"),
+                product(3L, "Argamassa", "Cimentolar"),
+                product(4L, "Supercimento", "Tigre"),
+                product(5L, "Areia", "Lavada")));
+
+        assertArrayEquals(new long[]{2, 3, 1, 4}, index.search("cimento", 10));
+        assertArrayEquals(new long[]{2, 3}, index.search("cimento", 2));
+        assertArrayEquals(new long[]{5}, index.search("AREIA", 10));
+    }
+
+    @Test
+    void search_everyWordMustMatch() {
+        ProductSearchIndex index = ProductSearchIndex.build(snapshot(1,
+                product(1L, "Tubo PVC 100mm", "Tigre"),
+                product(2L, "Tubo PVC 50mm", "Amanco"),
+                product(3L, "Joelho PVC 100mm", "Tigre")));
+
+        assertArrayEquals(new long[]{1}, index.search("tubo tigre", 10));
+        assertArrayEquals(new long[]{3, 1}, index.search("100 tig", 10));
+        assertArrayEquals(new long[0], index.search("tubo deca", 10));
+        assertArrayEquals(new long[0], index.search("  ", 10));
+        assertArrayEquals(new long[0], index.search("tubo", 0));
+    }
+
+    @Test
+    void search_shortMiddleOfWordIsNotMatched() {
+        ProductSearchIndex index = ProductSearchIndex.build(snapshot(1, product(1L, "Argamassa", "Quartzolit")));
+
+        // Menos de três letras só casa com começo de palavra
+        assertArrayEquals(new long[0], index.search("ga", 10));
+        assertArrayEquals(new long[]{1}, index.search("gam", 10));
+        assertArrayEquals(new long[]{1}, index.search("ar", 10));
+    }
+
+    @Test
+    void search_ignoresAccentsAndCase() {
+        ProductSearchIndex index = ProductSearchIndex.build(snapshot(1,
+                product(1L, "Cimento Itaú", "Votoran"),
+                product(2L, "Sifão Branco", "Tigre"),
+                product(3L, "Areia Média", "Lavada")));
+
+        assertArrayEquals(new long[]{1}, index.search("itau", 10));
+        assertArrayEquals(new long[]{1}, index.search("ITAÚ", 10));
+        assertArrayEquals(new long[]{2}, index.search("sifao br", 10));
+        assertArrayEquals(new long[]{3}, index.search("média", 10));
+        assertArrayEquals(new long[]{3}, index.search("EDIA", 10));
+    }
+
+    @Test
+    void fold_stripsDiacriticsAndFoldsCase() {
+        assertEquals("sifao", ProductSearchIndex.fold("Sifão"));
+        assertEquals("acucar e cafe", ProductSearchIndex.fold("AÇÚCAR e Café"));
+        assertEquals("tubo 100mm", ProductSearchIndex.fold("Tubo 100mm"));
+        assertArrayEquals(new Object[]{"lampada", "led", "9w"}, ProductSearchIndex.words("Lâmpada LED-9W"));
+    }
+
+    @Test
+    void search_toleratesTyposBelowExactMatches() {
+        ProductSearchIndex index = ProductSearchIndex.build(snapshot(1,
+                product(1L, "Argamassa AC-I", "Quartzolit"),
+                product(2L, "Tijolo 6 furos", "Cerâmica Norte"),
+                product(3L, "Cimento CP II", "Votoran"),
+                product(4L, "Tubo 100mm", "Tigre"),
+                product(5L, "Massa corrida", "Suvinil")));
+
+        assertArrayEquals(new long[]{1}, index.search("argamasa", 10));
+        assertArrayEquals(new long[]{2}, index.search("tijolo 6 furo", 10));
+        assertArrayEquals(new long[]{2}, index.search("tijlo", 10));
+        // Troca de duas letras vizinhas são duas edições: só a partir de sete letras
+        assertArrayEquals(new long[]{3}, index.search("cimneto", 10));
+        assertArrayEquals(new long[0], index.search("tiolj", 10));
+        // Números e medidas não são corrigidos
+        assertArrayEquals(new long[0], index.search("tubo 150mm", 10));
+        // "massa" é igual em massa corrida e trecho de argamassa; "masa" só é correção de massa
+        assertArrayEquals(new long[]{5, 1}, index.search("massa", 10));
+        assertArrayEquals(new long[]{5}, index.search("masa", 10));
+        // Correção fica abaixo do casamento no meio da palavra
+        assertArrayEquals(new long[]{1, 5}, index.search("amassa", 10));
+    }
+
+    @Test
+    void search_ranksBySalesWithinSamePoints() {
+        ProductSearchIndex index = ProductSearchIndex.build(snapshot(1,
+                product(1L, "Cimento CP II", "Votoran"),
+                product(2L, "Cimento CP III", "Itambé"),
+                product(3L, "Cimento Branco", "Votoran"),
+                product(4L, "Cimentolar", "Deca")));
+        Map<Long, Long> sales = Map.of(3L, 40L, 2L, 7L, 4L, 500L);
+
+        assertArrayEquals(new long[]{3, 1, 2, 4}, index.search("cimento", 10));
+        // Exatos por vendas; o que só começa com a palavra fica atrás mesmo vendendo mais
+        assertArrayEquals(new long[]{3, 2, 1, 4}, index.search("cimento", 10, id -> sales.getOrDefault(id, 0L)));
+        assertEquals(List.of(3L, 2L), index.find("cimento", 2, id -> sales.getOrDefault(id, 0L)).stream()
+                .map(Product::getId).toList());
+    }
+
+    @Test
+    void distance_countsInsertionsDeletionsAndSubstitutions() {
+        int[] row = new int[16];
+
+        assertEquals(0, ProductSearchIndex.distance("tigre", "tigre", row));
+        assertEquals(1, ProductSearchIndex.distance("argamasa", "argamassa", row));
+        assertEquals(1, ProductSearchIndex.distance("tijlo", "tijolo", row));
+        assertEquals(2, ProductSearchIndex.distance("cimneto", "cimento", row));
+        assertEquals(3, ProductSearchIndex.distance("cal", "", row));
+        assertEquals(5, ProductSearchIndex.distance("", "areia", row));
+    }
+
+    @Test
+    void update_matchesFullRebuild() {
+        Random random = new Random(5);
+        Map<Long, Product> current = new HashMap<>();
+        for (long id = 1; id <= 500; id++) {
+            current.put(id, randomProduct(random, id));
+        }
+        long version = 1;
+        ProductCatalog.Snapshot snapshot = snapshot(version, current);
+        ProductSearchIndex index = ProductSearchIndex.build(snapshot);
+        long nextId = 501;
+
+        // Trocas de um produto por vez, como as do catálogo: inclusão, alteração e remoção
+        for (int step = 0; step < 300; step++) {
+            int kind = random.nextInt(3);
+            if (kind == 0 || current.isEmpty()) {
+                current.put(nextId, randomProduct(random, nextId));
+                nextId++;
+            } else {
+                List<Long> ids = new ArrayList<>(current.keySet());
+                long id = ids.get(random.nextInt(ids.size()));
+                if (kind == 1) {
+                    current.put(id, randomProduct(random, id));
+                } else {
+                    current.remove(id);
+                }
+            }
+            // Como no catálogo, produtos que não mudaram continuam a mesma instância
+            snapshot = snapshot(++version, current);
+            index = index.update(snapshot);
+
+            if (step % 25 == 0 || step == 299) {
+                ProductSearchIndex rebuilt = ProductSearchIndex.build(snapshot);
+                assertEquals(rebuilt.size(), index.size());
+                for (String query : List.of("ci", "cimento", "tigre", "ento", "ar vo", "lha", "tubo 3", "zzz",
+                        "cimneto", "tigr", "areai", "joelo 2")) {
+                    assertArrayEquals(rebuilt.search(query, 20), index.search(query, 20), query + " no passo " + step);
+                }
+            }
+        }
+        assertEquals(version, index.version());
+        assertSame(index, index.update(snapshot(version - 1, current)));
+    }
+
+    private static Product randomProduct(Random random, long id) {
+        return product(id, NAMES[random.nextInt(NAMES.length)] + " " + random.nextInt(10),
+                BRANDS[random.nextInt(BRANDS.length)]);
+    }
+
+    private static Product product(Long id, String name, String brand) {
+        Product p = new Product(name, brand, "un", BigDecimal.ONE);
+        p.setId(id);
+        return p;
+    }
+
+    private static ProductCatalog.Snapshot snapshot(long version, Product... products) {
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product p : products) {
+            byId.put(p.getId(), p);
+        }
+        return new ProductCatalog.Snapshot(version, List.of(products), byId);
+    }
+
+    private static ProductCatalog.Snapshot snapshot(long version, Map<Long, Product> products) {
+        return snapshot(version, products.values().stream()
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId())).toArray(Product[]::new));
+    }
+}
@@ -1,18 +1,31 @@
 package com.pedidofacil.services;
 
+import com.pedidofacil.config.WriteQueueSettings;
 import com.pedidofacil.models.Product;
+import com.pedidofacil.persistence.GroupRollback;
+import com.pedidofacil.persistence.IWriteQueue;
+import com.pedidofacil.persistence.InlineWriteQueue;
+import com.pedidofacil.persistence.WriteQueue;
 import com.pedidofacil.repositories.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,6 +35,12 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Spy
+    private IWriteQueue writeQueue = new InlineWriteQueue();
+
+    @Mock
+    private ApplicationEventPublisher events;
+
     @InjectMocks
     private ProductService productService;
 
@@ -40,6 +59,7 @@ class ProductServiceTest {
         assertNotNull(savedProduct);
         assertEquals("Test Product", savedProduct.getName());
         verify(productRepository, times(1)).save(product);
+        verify(events, times(1)).publishEvent(new ProductChangedEvent(product, false));
     }
 
     @Test
@@ -64,6 +84,7 @@ class ProductServiceTest {
         productService.delete(product);
 
         verify(productRepository, times(1)).delete(product);
+        verify(events, times(1)).publishEvent(new ProductChangedEvent(product, true));
     }
 
     @Test
@@ -166,6 +187,7 @@ class ProductServiceTest {
             future.get();
         });
         verify(productRepository, times(1)).delete(product);
+        verify(events, never()).publishEvent(any(Object.class));
     }
 
     @Test
@@ -227,4 +249,38 @@ class ProductServiceTest {
         assertEquals(new BigDecimal("123.456789"), savedProduct.getPrice());
         verify(productRepository, times(1)).save(product);
     }
-}
\ No newline at end of file
+
+    @Test
+    void save_retriedAfterGroupRollback_doesNotKeepRolledBackId() throws Exception {
+        // Arrange: o repositório gera o id como o IDENTITY do banco e anota o id recebido em cada tentativa
+        List<Long> idsReceived = new CopyOnWriteArrayList<>();
+        AtomicLong identity = new AtomicLong(100);
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> {
+            Product p = invocation.getArgument(0);
+            idsReceived.add(p.getId());
+            if (p.getId() == null) {
+                p.setId(identity.incrementAndGet());
+            }
+            return p;
+        });
+        WriteQueueSettings settings = new WriteQueueSettings();
+        settings.setWindow(Duration.ZERO);
+        WriteQueue queue = new WriteQueue(mock(PlatformTransactionManager.class), settings);
+        queue.start();
+        ProductService service = new ProductService(productRepository, queue, events);
+        Product product = new Product("Cimento CP II", "Votoran", "SC", new BigDecimal("39.90"));
+        List<CompletableFuture<Product>> saved = new ArrayList<>();
+
+        // Act
+        try {
+            GroupRollback.force(queue, () -> saved.add(service.saveAsync(product)));
+            saved.get(0).get(5, TimeUnit.SECONDS);
+        } finally {
+            queue.stop();
+        }
+
+        // Assert: a repetição grava um produto novo, não uma atualização do id desfeito
+        assertEquals(Arrays.asList(null, null), idsReceived);
+        assertEquals(102L, product.getId());
+    }
+}
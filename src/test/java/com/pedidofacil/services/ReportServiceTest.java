@@ -1,18 +1,27 @@
 package com.pedidofacil.services;
 
-import com.pedidofacil.models.Order;
+import com.pedidofacil.config.ReportEngineSettings;
 import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.persistence.IWriteQueue;
+import com.pedidofacil.persistence.InlineWriteQueue;
 import com.pedidofacil.repositories.OrderRepository;
+import com.pedidofacil.repositories.SalesSummaryRepository;
 import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.HourlySalesView;
+import com.pedidofacil.repositories.projections.MonthlySalesView;
+import com.pedidofacil.repositories.projections.OrderPaymentTotal;
+import com.pedidofacil.repositories.projections.OrderTotal;
 import com.pedidofacil.repositories.projections.PaymentDistributionView;
 import com.pedidofacil.repositories.projections.ProductSalesView;
 import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TicketPercentileView;
 import com.pedidofacil.repositories.projections.TopCustomerView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 
@@ -22,6 +31,7 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -32,6 +42,34 @@ class ReportServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private SalesSummaryRepository salesSummary;
+
+    @Spy
+    private IWriteQueue writeQueue = new InlineWriteQueue();
+
+    @Spy
+    private ReportEngineSettings engineSettings = new ReportEngineSettings();
+
+    // Não carregado: os relatórios seguem pelos repositórios
+    @Mock
+    private OrderColumnStore orderStore;
+
+    // Não montado: formas de pagamento e ticket médio seguem pelo resumo
+    @Mock
+    private PaymentRangeIndex paymentIndex;
+
+    @Mock
+    private SalesCube salesCube;
+
+    // Não carregado: top produtos e clientes de todo o período seguem pelo banco
+    @Mock
+    private TopSellersSketch topSellers;
+
+    // Não carregados: percentis do ticket saem dos pedidos lidos em fluxo
+    @Mock
+    private TicketDigests ticketDigests;
+
     @InjectMocks
     private ReportService reportService;
 
@@ -53,7 +91,7 @@ class ReportServiceTest {
         when(mockView.getTotal()).thenReturn(new BigDecimal("100.00"));
         
         List<ProductSalesView> expectedViews = Arrays.asList(mockView);
-        when(orderRepository.productSales(any(LocalDateTime.class), any(LocalDateTime.class), any(PageRequest.class)))
+        when(salesSummary.productSales(any(LocalDate.class), any(LocalDate.class), any(PageRequest.class)))
                 .thenReturn(expectedViews);
 
         // Act
@@ -63,13 +101,13 @@ class ReportServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("Produto Teste", result.get(0).getProductName());
-        verify(orderRepository, times(1)).productSales(any(LocalDateTime.class), any(LocalDateTime.class), any(PageRequest.class));
+        verify(salesSummary, times(1)).productSales(any(LocalDate.class), any(LocalDate.class), any(PageRequest.class));
     }
 
     @Test
     void topProducts_withNullDates_handlesCorrectly() {
         // Arrange
-        when(orderRepository.productSales(isNull(), isNull(), any(PageRequest.class)))
+        when(salesSummary.productSales(isNull(), isNull(), any(PageRequest.class)))
                 .thenReturn(Collections.emptyList());
 
         // Act
@@ -78,7 +116,32 @@ class ReportServiceTest {
         // Assert
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(orderRepository, times(1)).productSales(isNull(), isNull(), any(PageRequest.class));
+        verify(salesSummary, times(1)).productSales(isNull(), isNull(), any(PageRequest.class));
+    }
+
+    @Test
+    void topProducts_allTimeWithSketchLoaded_usesSketch() {
+        // Arrange
+        List<ProductSalesView> ranked = List.of(mock(ProductSalesView.class));
+        when(topSellers.canRank(10)).thenReturn(true);
+        when(topSellers.topProducts(10)).thenReturn(ranked);
+
+        // Act
+        List<ProductSalesView> result = reportService.topProducts(null, null, 10);
+
+        // Assert
+        assertSame(ranked, result);
+        verifyNoInteractions(salesSummary);
+    }
+
+    @Test
+    void topCustomers_allTimeByMethod_staysExact() {
+        // Act
+        reportService.topCustomers(null, null, PaymentMethod.CREDITSALE, 10);
+
+        // Assert
+        verify(orderRepository).topCustomers(isNull(), isNull(), eq(PaymentMethod.CREDITSALE), any(PageRequest.class));
+        verifyNoInteractions(topSellers);
     }
 
     @Test
@@ -89,7 +152,7 @@ class ReportServiceTest {
         when(mockView.getTotal()).thenReturn(new BigDecimal("500.00"));
         
         List<PaymentDistributionView> expectedViews = Arrays.asList(mockView);
-        when(orderRepository.sumByPaymentMethod(any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(salesSummary.sumByPaymentMethod(any(LocalDate.class), any(LocalDate.class)))
                 .thenReturn(expectedViews);
 
         // Act
@@ -99,7 +162,7 @@ class ReportServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(PaymentMethod.CASH, result.get(0).getPaymentMethod());
-        verify(orderRepository, times(1)).sumByPaymentMethod(any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(salesSummary, times(1)).sumByPaymentMethod(any(LocalDate.class), any(LocalDate.class));
     }
 
     @Test
@@ -110,7 +173,7 @@ class ReportServiceTest {
         when(mockView.getAverage()).thenReturn(25.50);
         
         List<TicketAverageView> expectedViews = Arrays.asList(mockView);
-        when(orderRepository.ticketAverageByPayment(any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(salesSummary.ticketAverageByPayment(any(LocalDate.class), any(LocalDate.class)))
                 .thenReturn(expectedViews);
 
         // Act
@@ -120,7 +183,7 @@ class ReportServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(PaymentMethod.CASH, result.get(0).getPaymentMethod());
-        verify(orderRepository, times(1)).ticketAverageByPayment(any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(salesSummary, times(1)).ticketAverageByPayment(any(LocalDate.class), any(LocalDate.class));
     }
 
     @Test
@@ -152,7 +215,7 @@ class ReportServiceTest {
         when(mockView.getTotal()).thenReturn(new BigDecimal("150.00"));
         
         List<DailySalesView> expectedViews = Arrays.asList(mockView);
-        when(orderRepository.dailySales(any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(salesSummary.dailySales(any(LocalDate.class), any(LocalDate.class)))
                 .thenReturn(expectedViews);
 
         // Act
@@ -162,27 +225,51 @@ class ReportServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("2023-01-15", result.get(0).getDay());
-        verify(orderRepository, times(1)).dailySales(any(LocalDateTime.class), any(LocalDateTime.class));
-        verify(orderRepository, never()).findOrdersInPeriod(any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(salesSummary, times(1)).dailySales(any(LocalDate.class), any(LocalDate.class));
+        verify(orderRepository, never()).streamOrderTotals(any(), any(), anyInt());
     }
 
     @Test
-    void dailySales_withNativeQueryFailure_fallsBackToManualProcessing() {
+    void ticketPercentiles_withDigestsLoaded_usesDigests() {
         // Arrange
-        when(orderRepository.dailySales(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenThrow(new RuntimeException("Query nativa falhou"));
+        List<TicketPercentileView> expected = List.of(mock(TicketPercentileView.class));
+        when(ticketDigests.isReady()).thenReturn(true);
+        when(ticketDigests.ticketPercentiles(startDate, endDate)).thenReturn(expected);
 
-        Order order1 = new Order();
-        order1.setCreatedAt(LocalDateTime.of(2023, 1, 15, 10, 0));
-        order1.setTotal(new BigDecimal("100.00"));
+        // Act
+        List<TicketPercentileView> result = reportService.ticketPercentiles(startDate, endDate);
 
-        Order order2 = new Order();
-        order2.setCreatedAt(LocalDateTime.of(2023, 1, 15, 14, 0));
-        order2.setTotal(new BigDecimal("50.00"));
+        // Assert
+        assertSame(expected, result);
+        verifyNoInteractions(orderRepository);
+    }
 
-        List<Order> orders = Arrays.asList(order1, order2);
-        when(orderRepository.findOrdersInPeriod(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(orders);
+    @Test
+    void ticketPercentiles_withoutDigests_streamsOrderTotals() {
+        // Arrange
+        List<TicketPercentileView> expected = List.of(mock(TicketPercentileView.class));
+        when(orderRepository.streamPaymentTotals(startDate, endDate, 10_000))
+                .thenReturn(Stream.of(new OrderPaymentTotal(PaymentMethod.PIX, new BigDecimal("10.00"))));
+        when(ticketDigests.ticketPercentiles(any())).thenReturn(expected);
+
+        // Act
+        List<TicketPercentileView> result = reportService.ticketPercentiles(startDate, endDate);
+
+        // Assert
+        assertSame(expected, result);
+        verify(orderRepository, times(1)).streamPaymentTotals(startDate, endDate, 10_000);
+    }
+
+    @Test
+    void dailySales_withNativeQueryFailure_fallsBackToManualProcessing() {
+        // Arrange
+        when(salesSummary.dailySales(any(LocalDate.class), any(LocalDate.class)))
+                .thenThrow(new RuntimeException("Resumo diário falhou"));
+
+        when(orderRepository.streamOrderTotals(any(LocalDateTime.class), any(LocalDateTime.class), anyInt()))
+                .thenReturn(Stream.of(
+                        new OrderTotal(LocalDateTime.of(2023, 1, 15, 10, 0), new BigDecimal("100.00")),
+                        new OrderTotal(LocalDateTime.of(2023, 1, 15, 14, 0), new BigDecimal("50.00"))));
 
         // Act
         List<DailySalesView> result = reportService.dailySales(startDate, endDate);
@@ -192,23 +279,18 @@ class ReportServiceTest {
         assertEquals(1, result.size());
         assertEquals("2023-01-15", result.get(0).getDay());
         assertEquals(new BigDecimal("150.00"), result.get(0).getTotal());
-        verify(orderRepository, times(1)).dailySales(any(LocalDateTime.class), any(LocalDateTime.class));
-        verify(orderRepository, times(1)).findOrdersInPeriod(any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(salesSummary, times(1)).dailySales(any(LocalDate.class), any(LocalDate.class));
+        verify(orderRepository, times(1)).streamOrderTotals(any(LocalDateTime.class), any(LocalDateTime.class), eq(10_000));
     }
 
     @Test
     void dailySales_withEmptyNativeResult_fallsBackToManualProcessing() {
         // Arrange
-        when(orderRepository.dailySales(any(LocalDateTime.class), any(LocalDateTime.class)))
+        when(salesSummary.dailySales(any(LocalDate.class), any(LocalDate.class)))
                 .thenReturn(Collections.emptyList());
 
-        Order order = new Order();
-        order.setCreatedAt(LocalDateTime.of(2023, 1, 15, 10, 0));
-        order.setTotal(new BigDecimal("100.00"));
-
-        List<Order> orders = Arrays.asList(order);
-        when(orderRepository.findOrdersInPeriod(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(orders);
+        when(orderRepository.streamOrderTotals(any(LocalDateTime.class), any(LocalDateTime.class), anyInt()))
+                .thenReturn(Stream.of(new OrderTotal(LocalDateTime.of(2023, 1, 15, 10, 0), new BigDecimal("100.00"))));
 
         // Act
         List<DailySalesView> result = reportService.dailySales(startDate, endDate);
@@ -218,17 +300,17 @@ class ReportServiceTest {
         assertEquals(1, result.size());
         assertEquals("2023-01-15", result.get(0).getDay());
         assertEquals(new BigDecimal("100.00"), result.get(0).getTotal());
-        verify(orderRepository, times(1)).dailySales(any(LocalDateTime.class), any(LocalDateTime.class));
-        verify(orderRepository, times(1)).findOrdersInPeriod(any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(salesSummary, times(1)).dailySales(any(LocalDate.class), any(LocalDate.class));
+        verify(orderRepository, times(1)).streamOrderTotals(any(LocalDateTime.class), any(LocalDateTime.class), eq(10_000));
     }
 
     @Test
     void dailySales_withNoOrders_returnsEmptyList() {
         // Arrange
-        when(orderRepository.dailySales(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenThrow(new RuntimeException("Query nativa falhou"));
-        when(orderRepository.findOrdersInPeriod(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
+        when(salesSummary.dailySales(any(LocalDate.class), any(LocalDate.class)))
+                .thenThrow(new RuntimeException("Resumo diário falhou"));
+        when(orderRepository.streamOrderTotals(any(LocalDateTime.class), any(LocalDateTime.class), anyInt()))
+                .thenReturn(Stream.empty());
 
         // Act
         List<DailySalesView> result = reportService.dailySales(startDate, endDate);
@@ -236,31 +318,21 @@ class ReportServiceTest {
         // Assert
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(orderRepository, times(1)).dailySales(any(LocalDateTime.class), any(LocalDateTime.class));
-        verify(orderRepository, times(1)).findOrdersInPeriod(any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(salesSummary, times(1)).dailySales(any(LocalDate.class), any(LocalDate.class));
+        verify(orderRepository, times(1)).streamOrderTotals(any(LocalDateTime.class), any(LocalDateTime.class), eq(10_000));
     }
 
     @Test
     void dailySales_withOrdersHavingNullValues_handlesCorrectly() {
         // Arrange
-        when(orderRepository.dailySales(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenThrow(new RuntimeException("Query nativa falhou"));
-
-        Order order1 = new Order();
-        order1.setCreatedAt(LocalDateTime.of(2023, 1, 15, 10, 0));
-        order1.setTotal(new BigDecimal("100.00"));
-
-        Order order2 = new Order();
-        order2.setCreatedAt(null); // Data nula
-        order2.setTotal(new BigDecimal("50.00"));
+        when(salesSummary.dailySales(any(LocalDate.class), any(LocalDate.class)))
+                .thenThrow(new RuntimeException("Resumo diário falhou"));
 
-        Order order3 = new Order();
-        order3.setCreatedAt(LocalDateTime.of(2023, 1, 15, 14, 0));
-        order3.setTotal(null); // Total nulo
-
-        List<Order> orders = Arrays.asList(order1, order2, order3);
-        when(orderRepository.findOrdersInPeriod(any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(orders);
+        when(orderRepository.streamOrderTotals(any(LocalDateTime.class), any(LocalDateTime.class), anyInt()))
+                .thenReturn(Stream.of(
+                        new OrderTotal(LocalDateTime.of(2023, 1, 15, 10, 0), new BigDecimal("100.00")),
+                        new OrderTotal(null, new BigDecimal("50.00")), // Data nula
+                        new OrderTotal(LocalDateTime.of(2023, 1, 15, 14, 0), null))); // Total nulo
 
         // Act
         List<DailySalesView> result = reportService.dailySales(startDate, endDate);
@@ -271,4 +343,87 @@ class ReportServiceTest {
         assertEquals("2023-01-15", result.get(0).getDay());
         assertEquals(new BigDecimal("100.00"), result.get(0).getTotal());
     }
-}
\ No newline at end of file
+
+    @Test
+    void dailySales_fallback_sumsPerDayInOrderAndClosesStream() {
+        // Arrange
+        when(salesSummary.dailySales(any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(Collections.emptyList());
+        boolean[] closed = {false};
+        when(orderRepository.streamOrderTotals(any(LocalDateTime.class), any(LocalDateTime.class), anyInt()))
+                .thenReturn(Stream.of(
+                        new OrderTotal(LocalDateTime.of(2023, 1, 20, 9, 0), new BigDecimal("10.10")),
+                        new OrderTotal(LocalDateTime.of(2023, 1, 3, 23, 59), new BigDecimal("0.05")),
+                        new OrderTotal(LocalDateTime.of(2023, 1, 20, 18, 0), new BigDecimal("0.90")),
+                        new OrderTotal(LocalDateTime.of(2023, 1, 3, 8, 0), new BigDecimal("7")))
+                        .onClose(() -> closed[0] = true));
+
+        // Act
+        List<DailySalesView> result = reportService.dailySales(startDate, endDate);
+
+        // Assert
+        assertEquals(List.of("2023-01-03", "2023-01-20"), result.stream().map(DailySalesView::getDay).toList());
+        assertEquals(new BigDecimal("7.05"), result.get(0).getTotal());
+        assertEquals(new BigDecimal("11.00"), result.get(1).getTotal());
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    void monthlySales_passesDaysToRepository() {
+        // Arrange
+        MonthlySalesView mockView = mock(MonthlySalesView.class);
+        when(mockView.getMonth()).thenReturn("2023-01");
+        when(orderRepository.monthlySales(startDate, endDate)).thenReturn(List.of(mockView));
+
+        // Act
+        List<MonthlySalesView> result = reportService.monthlySales(startDate, endDate);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals("2023-01", result.get(0).getMonth());
+        verify(orderRepository, times(1)).monthlySales(startDate, endDate);
+    }
+
+    @Test
+    void hourlySales_passesDaysToRepository() {
+        // Arrange
+        HourlySalesView mockView = mock(HourlySalesView.class);
+        when(mockView.getHour()).thenReturn(14);
+        when(orderRepository.hourlySales(startDate, endDate)).thenReturn(List.of(mockView));
+
+        // Act
+        List<HourlySalesView> result = reportService.hourlySales(startDate, endDate);
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(14, result.get(0).getHour());
+        verify(orderRepository, times(1)).hourlySales(startDate, endDate);
+    }
+
+    @Test
+    void rebuildSummary_runsThroughWriteQueue() {
+        // Act
+        reportService.rebuildSummary();
+
+        // Assert
+        verify(writeQueue, times(1)).execute(any());
+        verify(salesSummary, times(1)).rebuild();
+        verify(paymentIndex).rebuild();
+        verify(topSellers).startLoading();
+    }
+
+    @Test
+    void cube_delegatesToSalesCube() {
+        // Arrange
+        CubeQuery query = CubeQuery.of(startDate, endDate, CubeDimension.PAYMENT_METHOD);
+        CubeRow row = new CubeRow(List.of(PaymentMethod.PIX), List.of("PIX"), 3, new BigDecimal("5.000"), new BigDecimal("30.00"));
+        when(salesCube.query(query)).thenReturn(List.of(row));
+
+        // Act
+        List<CubeRow> result = reportService.cube(query);
+
+        // Assert
+        assertEquals(List.of(row), result);
+        verifyNoInteractions(orderRepository);
+    }
+}
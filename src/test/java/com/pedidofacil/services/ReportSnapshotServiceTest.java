@@ -0,0 +1,136 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.repositories.projections.DailySalesView;
+import com.pedidofacil.repositories.projections.ProductSalesView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportSnapshotServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final LocalDate END = LocalDate.of(2024, 1, 31);
+
+    @Mock
+    private IReportService reportService;
+
+    private ExecutorService executor;
+    private ReportSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        service = new ReportSnapshotService(reportService, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void loadAsync_collectsEveryReportWithTimings() {
+        ProductSalesView product = mock(ProductSalesView.class);
+        DailySalesView day = mock(DailySalesView.class);
+        when(reportService.topProducts(START, END, 10)).thenReturn(List.of(product));
+        when(reportService.dailySales(START, END)).thenReturn(List.of(day));
+
+        ReportSnapshot snapshot = service.loadAsync(START, END, 10).join();
+
+        assertEquals(START, snapshot.start());
+        assertEquals(END, snapshot.end());
+        assertEquals(List.of(product), snapshot.productSales());
+        assertEquals(List.of(day), snapshot.dailySales());
+        assertTrue(snapshot.paymentDistribution().isEmpty());
+        assertEquals(List.of("topProducts", "paymentDistribution", "ticketAverage", "ticketPercentiles", "topCustomers",
+                "dailySales", "monthlySales", "hourlySales"), List.copyOf(snapshot.timings().keySet()));
+        assertNotNull(snapshot.slowest());
+        verify(reportService, times(1)).topCustomers(START, END, null, 10);
+        verify(reportService, times(1)).ticketPercentiles(START, END);
+        verify(reportService, times(1)).monthlySales(START, END);
+        verify(reportService, times(1)).hourlySales(START, END);
+    }
+
+    @Test
+    void loadAsync_runsQueriesConcurrently() {
+        // Cada consulta só termina quando a outra também começou: em sequência, nenhuma das duas passaria do await
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        when(reportService.paymentDistribution(START, END)).thenAnswer(inv -> {
+            bothRunning.countDown();
+            assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+        when(reportService.ticketAverage(START, END)).thenAnswer(inv -> {
+            bothRunning.countDown();
+            assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+
+        ReportSnapshot snapshot = service.loadAsync(START, END, 10).join();
+
+        assertEquals(0, bothRunning.getCount());
+        assertNotNull(snapshot);
+    }
+
+    @Test
+    void loadAsync_slowestQueryIsReported() {
+        when(reportService.dailySales(START, END)).thenAnswer(inv -> {
+            Thread.sleep(50);
+            return List.of();
+        });
+
+        ReportSnapshot snapshot = service.loadAsync(START, END, 10).join();
+
+        assertEquals("dailySales", snapshot.slowest());
+        assertTrue(snapshot.timings().get("dailySales").toMillis() >= 50);
+    }
+
+    @Test
+    void loadAsync_failingQuery_failsSnapshot() {
+        when(reportService.ticketAverage(START, END)).thenThrow(new IllegalStateException("banco bloqueado"));
+
+        CompletionException e = assertThrows(CompletionException.class, () -> service.loadAsync(START, END, 10).join());
+
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void snapshot_isImmutable() {
+        ReportSnapshot snapshot = service.loadAsync(START, END, 10).join();
+
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.dailySales().add(mock(DailySalesView.class)));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.timings().clear());
+    }
+
+    @Test
+    void singlePassMode_usesEngineInsteadOfQueries() {
+        SinglePassReportEngine engine = mock(SinglePassReportEngine.class);
+        ReportEngineSettings settings = new ReportEngineSettings();
+        settings.setMode(ReportEngineSettings.Mode.SINGLE_PASS);
+        ReportSnapshot expected = new ReportSnapshot(START, END, List.of(), List.of(), List.of(), List.of(), List.of(),
+                List.of(), List.of(), List.of(), Map.of("scan", Duration.ofMillis(5)), Duration.ofMillis(5));
+        when(engine.snapshot(START, END, 10)).thenReturn(expected);
+        service = new ReportSnapshotService(reportService, engine, settings, executor);
+
+        assertSame(expected, service.loadAsync(START, END, 10).join());
+        verifyNoInteractions(reportService);
+    }
+}
@@ -0,0 +1,152 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.config.SalesCubeSettings;
+import com.pedidofacil.models.Customer;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.persistence.GeneratedDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static com.pedidofacil.services.CubeDimension.*;
+import static com.pedidofacil.services.SampleOrders.order;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SalesCubeTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 2, 10);
+    private static final LocalDate END = LocalDate.of(2024, 3, 5);
+
+    @TempDir
+    Path dir;
+
+    private SalesCubeSettings settings;
+    private SinglePassReportEngine engine;
+    private SalesCube cube;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        SQLiteDataSource dataSource = GeneratedDatabase.create(dir);
+
+        settings = new SalesCubeSettings();
+        settings.setEnabled(true);
+        ReportEngineSettings engineSettings = new ReportEngineSettings();
+        engineSettings.setFetchSize(100);
+        engine = new SinglePassReportEngine(dataSource, engineSettings);
+        cube = new SalesCube(dataSource, settings, engineSettings);
+    }
+
+    private static List<String> rows(List<CubeRow> rows) {
+        return rows.stream().map(r -> r.key() + "|" + r.orders() + "|" + r.quantity() + "|" + r.total()).toList();
+    }
+
+    @Test
+    void load_answersLikeTheDatabase() {
+        cube.load();
+        ReportSnapshot expected = engine.snapshot(START, END, 5);
+
+        assertTrue(cube.isReady());
+        assertEquals(expected.paymentDistribution().stream().map(v -> v.getPaymentMethod() + "|" + v.getTotal()).sorted().toList(),
+                cube.query(CubeQuery.of(START, END, PAYMENT_METHOD)).stream().map(r -> r.key().get(0) + "|" + r.total()).sorted().toList());
+        assertEquals(expected.hourlySales().stream().map(v -> v.getHour() + "|" + v.getOrders() + "|" + v.getTotal()).toList(),
+                cube.query(CubeQuery.of(START, END, HOUR)).stream().map(r -> r.key().get(0) + "|" + r.orders() + "|" + r.total()).toList());
+        assertEquals(expected.monthlySales().stream().map(v -> v.getMonth() + "|" + v.getTotal()).toList(),
+                cube.query(CubeQuery.of(START, END, MONTH)).stream().map(r -> r.key().get(0) + "|" + r.total()).toList());
+        assertEquals(expected.productSales().stream().map(v -> v.getProductId() + "|" + v.getQuantity() + "|" + v.getTotal()).toList(),
+                cube.query(CubeQuery.of(START, END, PRODUCT).top(5)).stream().map(r -> r.key().get(0) + "|" + r.quantity() + "|" + r.total()).toList());
+        assertEquals(expected.topCustomers().stream().map(v -> v.getCustomerId() + "|" + v.getCustomerName() + "|" + v.getTotal()).toList(),
+                cube.query(CubeQuery.of(START, END, CUSTOMER).where(CUSTOMER, expected.topCustomers().stream().map(v -> (Object) v.getCustomerId()).toArray()).top(5))
+                        .stream().map(r -> r.key().get(0) + "|" + r.labels().get(0) + "|" + r.total()).toList());
+    }
+
+    @Test
+    void query_filtersAddUpToTheUnfilteredGroups() {
+        cube.load();
+
+        BigDecimal byMethod = cube.query(CubeQuery.of(START, END, PAYMENT_METHOD).where(PAYMENT_METHOD, PaymentMethod.PIX))
+                .get(0).total();
+        BigDecimal byBrand = cube.query(CubeQuery.of(START, END, BRAND, HOUR).where(PAYMENT_METHOD, PaymentMethod.PIX))
+                .stream().map(CubeRow::total).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        assertEquals(byMethod, byBrand);
+    }
+
+    @Test
+    void orderCreated_isAddedToEveryAggregate() {
+        cube.load();
+        LocalDate day = LocalDate.of(2024, 6, 1);
+        Customer customer = new Customer("Cliente Novo", "");
+        customer.setId(1L);
+
+        // Dois itens do mesmo produto: um pedido só na contagem por produto
+        cube.onOrderCreated(new OrderCreatedEvent(order(900_001, day.atTime(14, 30), PaymentMethod.CASH, customer, "2.5", "1")));
+
+        assertEquals(List.of("[2024-06-01, 14]|1|3.500|139.65"), rows(cube.query(CubeQuery.of(day, day, DAY, HOUR))));
+        assertEquals(List.of("[2024-06, CASH]|1|3.500|139.65"), rows(cube.query(CubeQuery.of(day, day, MONTH, PAYMENT_METHOD))));
+        assertEquals(List.of("[1]|1|3.500|139.65"), rows(cube.query(CubeQuery.of(day, day, PRODUCT))));
+        assertEquals(List.of("[1]|1|3.500|139.65"), rows(cube.query(CubeQuery.of(day, day, CUSTOMER))));
+        assertEquals(YearMonth.of(2024, 6), cube.query(CubeQuery.of(day, day, MONTH)).get(0).key().get(0));
+    }
+
+    @Test
+    void orderCreated_foldedIntoNewVersion_keepsEveryOrder() {
+        cube.load();
+        LocalDate day = LocalDate.of(2024, 6, 1);
+        BigDecimal before = cube.query(CubeQuery.of(START, END, PAYMENT_METHOD)).stream()
+                .map(CubeRow::total).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        // A consulta depois do limite junta os pedidos recentes numa versão nova; os seguintes vão para a lista dela
+        int orders = SalesCube.FOLD_AT + 5;
+        for (int i = 0; i < orders; i++) {
+            cube.onOrderCreated(new OrderCreatedEvent(order(900_001 + i, day.atTime(10, 0), PaymentMethod.PIX, null, "1")));
+        }
+        assertEquals(List.of("[2024-06-01]|" + orders + "|" + orders + ".000|" + new BigDecimal("39.90").multiply(BigDecimal.valueOf(orders))),
+                rows(cube.query(CubeQuery.of(day, day, DAY))));
+        cube.onOrderCreated(new OrderCreatedEvent(order(900_001 + orders, day.atTime(11, 0), PaymentMethod.PIX, null, "1")));
+
+        assertEquals(List.of("[10]|" + orders, "[11]|1"), cube.query(CubeQuery.of(day, day, HOUR)).stream()
+                .map(r -> r.key() + "|" + r.orders()).toList());
+        assertEquals(before, cube.query(CubeQuery.of(START, END, PAYMENT_METHOD)).stream()
+                .map(CubeRow::total).reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    @Test
+    void query_productByCustomer_isRejected() {
+        cube.load();
+
+        assertThrows(IllegalArgumentException.class, () -> cube.query(CubeQuery.of(START, END, PRODUCT, CUSTOMER)));
+        assertThrows(IllegalArgumentException.class,
+                () -> cube.query(CubeQuery.of(START, END, CUSTOMER).where(HOUR, 10)));
+    }
+
+    @Test
+    void load_overMemoryBudget_rejectsQueries() {
+        settings.setMemoryBudget(DataSize.ofKilobytes(64));
+
+        cube.load();
+
+        assertEquals(SalesCube.State.OVER_BUDGET, cube.getState());
+        assertThrows(IllegalStateException.class, () -> cube.query(CubeQuery.of(START, END, PAYMENT_METHOD)));
+    }
+
+    @Test
+    void disabled_ignoresOrders() {
+        settings.setEnabled(false);
+
+        cube.startLoading();
+        cube.onOrderCreated(new OrderCreatedEvent(order(900_001, START.atTime(9, 0), PaymentMethod.CASH, null, "1")));
+
+        assertEquals(SalesCube.State.DISABLED, cube.getState());
+        assertThrows(IllegalStateException.class, () -> cube.query(CubeQuery.of(START, END, PAYMENT_METHOD)));
+    }
+}
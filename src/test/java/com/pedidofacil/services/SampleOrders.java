@@ -0,0 +1,35 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.models.Customer;
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.OrderItem;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Pedidos como chegam em {@link OrderCreatedEvent}: com id e chaves de tempo já preenchidos. Os itens são todos
+ * do produto 1, que também existe no banco gerado pelos testes.
+ */
+final class SampleOrders {
+
+    private SampleOrders() {
+    }
+
+    static Order order(long id, LocalDateTime createdAt, PaymentMethod method, Customer customer, String... quantities) {
+        Product product = new Product("Cimento", "Votoran", "SC", new BigDecimal("39.90"));
+        product.setId(1L);
+        Order order = new Order();
+        order.setId(id);
+        order.setCreatedAt(createdAt);
+        order.setPaymentMethod(method);
+        order.setCustomer(customer);
+        for (String quantity : quantities) {
+            order.addItem(new OrderItem(product, new BigDecimal(quantity), product.getPrice()));
+        }
+        order.prePersist();
+        return order;
+    }
+}
@@ -0,0 +1,162 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.persistence.GeneratedDatabase;
+import com.pedidofacil.repositories.projections.TicketAverageView;
+import com.pedidofacil.repositories.projections.TicketPercentileView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SinglePassReportEngineTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 2, 10);
+    private static final LocalDate END = LocalDate.of(2024, 3, 5);
+    private static final String PERIOD = " WHERE o.day_key BETWEEN 20240210 AND 20240305";
+
+    @TempDir
+    Path dir;
+
+    private SQLiteDataSource dataSource;
+    private ReportEngineSettings settings;
+    private SinglePassReportEngine engine;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = GeneratedDatabase.create(dir);
+
+        settings = new ReportEngineSettings();
+        // Menor que o período: o driver busca as linhas em várias levas
+        settings.setFetchSize(100);
+        engine = new SinglePassReportEngine(dataSource, settings);
+    }
+
+    private List<String> query(String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                    row.append(i > 1 ? "|" : "").append(rs.getString(i));
+                }
+                rows.add(row.toString());
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void snapshot_paymentReportsMatchOrders() throws SQLException {
+        ReportSnapshot snapshot = engine.snapshot(START, END, 10);
+
+        assertEquals(query("SELECT payment_method, printf('%.2f', sum(total)) FROM orders o" + PERIOD +
+                        " GROUP BY payment_method ORDER BY payment_method"),
+                snapshot.paymentDistribution().stream().sorted(Comparator.comparing(v -> v.getPaymentMethod().name()))
+                        .map(v -> v.getPaymentMethod() + "|" + v.getTotal()).toList());
+        List<String> expected = query("SELECT payment_method, count(*), sum(total) / count(*) FROM orders o" + PERIOD +
+                " GROUP BY payment_method ORDER BY payment_method");
+        List<TicketAverageView> tickets = snapshot.ticketAverages().stream()
+                .sorted(Comparator.comparing(v -> v.getPaymentMethod().name())).toList();
+        assertEquals(expected.size(), tickets.size());
+        for (int i = 0; i < tickets.size(); i++) {
+            String[] row = expected.get(i).split("\\|");
+            assertEquals(row[0], tickets.get(i).getPaymentMethod().name());
+            assertEquals(Long.parseLong(row[1]), tickets.get(i).getOrders());
+            assertEquals(Double.parseDouble(row[2]), tickets.get(i).getAverage(), 1e-6);
+        }
+    }
+
+    // Fração dos pedidos da forma de pagamento abaixo do valor (empates contam pela metade)
+    private double rank(String method, double value) throws SQLException {
+        String[] row = query("SELECT sum(total < " + value + "), sum(total <= " + value + "), count(*) FROM orders o" +
+                PERIOD + " AND payment_method = '" + method + "'").get(0).split("\\|");
+        return (Double.parseDouble(row[0]) + Double.parseDouble(row[1])) / 2 / Double.parseDouble(row[2]);
+    }
+
+    @Test
+    void snapshot_ticketPercentilesMatchOrderRanks() throws SQLException {
+        ReportSnapshot snapshot = engine.snapshot(START, END, 10);
+
+        assertEquals(snapshot.ticketAverages().stream().map(v -> v.getPaymentMethod() + "|" + v.getOrders()).toList(),
+                snapshot.ticketPercentiles().stream().map(v -> v.getPaymentMethod() + "|" + v.getOrders()).toList());
+        for (TicketPercentileView view : snapshot.ticketPercentiles()) {
+            String method = view.getPaymentMethod().name();
+            assertEquals(0.5, rank(method, view.getP50()), 0.02, method);
+            assertEquals(0.9, rank(method, view.getP90()), 0.02, method);
+            assertEquals(0.99, rank(method, view.getP99()), 0.02, method);
+        }
+    }
+
+    @Test
+    void snapshot_timeReportsMatchOrders() throws SQLException {
+        ReportSnapshot snapshot = engine.snapshot(START, END, 10);
+
+        assertEquals(query("SELECT printf('%04d-%02d-%02d', day_key / 10000, day_key / 100 % 100, day_key % 100), " +
+                        "printf('%.2f', sum(total)) FROM orders o" + PERIOD + " GROUP BY day_key ORDER BY day_key"),
+                snapshot.dailySales().stream().map(v -> v.getDay() + "|" + v.getTotal()).toList());
+        assertEquals(List.of("2024-02", "2024-03"), snapshot.monthlySales().stream().map(v -> v.getMonth()).toList());
+        assertEquals(query("SELECT printf('%.2f', sum(total)) FROM orders o" + PERIOD + " GROUP BY day_key / 100 ORDER BY 1"),
+                snapshot.monthlySales().stream().map(v -> v.getTotal().toPlainString()).sorted().toList());
+        assertEquals(query("SELECT created_epoch / 3600 % 24, count(*), printf('%.2f', sum(total)) FROM orders o" + PERIOD +
+                        " GROUP BY 1 ORDER BY 1"),
+                snapshot.hourlySales().stream().map(v -> v.getHour() + "|" + v.getOrders() + "|" + v.getTotal()).toList());
+    }
+
+    @Test
+    void snapshot_rankingsMatchOrdersAndItems() throws SQLException {
+        ReportSnapshot snapshot = engine.snapshot(START, END, 5);
+
+        assertEquals(query("SELECT p.id, p.name || ' (' || p.brand || ')', printf('%.3f', sum(i.quantity)), " +
+                        "printf('%.2f', sum(i.subtotal)) FROM orders o JOIN order_items i ON i.order_id = o.id " +
+                        "JOIN products p ON p.id = i.product_id" + PERIOD +
+                        " GROUP BY p.id ORDER BY round(sum(i.subtotal), 2) DESC, p.id LIMIT 5"),
+                snapshot.productSales().stream().map(v -> v.getProductId() + "|" + v.getProductName() + "|" +
+                        v.getQuantity() + "|" + v.getTotal()).toList());
+        assertEquals(query("SELECT c.id, c.name, printf('%.2f', sum(o.total)) FROM orders o " +
+                        "JOIN customers c ON c.id = o.customer_id" + PERIOD +
+                        " GROUP BY c.id ORDER BY round(sum(o.total), 2) DESC, c.id LIMIT 5"),
+                snapshot.topCustomers().stream().map(v -> v.getCustomerId() + "|" + v.getCustomerName() + "|" +
+                        v.getTotal()).toList());
+    }
+
+    @Test
+    void snapshot_openPeriod_coversEveryOrder() throws SQLException {
+        ReportSnapshot snapshot = engine.snapshot(null, null, 10);
+
+        assertEquals(query("SELECT count(DISTINCT day_key) FROM orders"), List.of(String.valueOf(snapshot.dailySales().size())));
+        assertEquals(query("SELECT printf('%.2f', sum(total)) FROM orders"),
+                List.of(snapshot.dailySales().stream().map(v -> v.getTotal())
+                        .reduce(BigDecimal.ZERO, BigDecimal::add).toPlainString()));
+        assertEquals(List.of("scan", "names"), List.copyOf(snapshot.timings().keySet()));
+    }
+
+    @Test
+    void snapshot_periodWithoutOrders_isEmpty() {
+        ReportSnapshot snapshot = engine.snapshot(LocalDate.of(2030, 1, 1), LocalDate.of(2030, 1, 31), 10);
+
+        assertTrue(snapshot.productSales().isEmpty());
+        assertTrue(snapshot.paymentDistribution().isEmpty());
+        assertTrue(snapshot.ticketAverages().isEmpty());
+        assertTrue(snapshot.ticketPercentiles().isEmpty());
+        assertTrue(snapshot.topCustomers().isEmpty());
+        assertTrue(snapshot.dailySales().isEmpty());
+        assertTrue(snapshot.monthlySales().isEmpty());
+        assertTrue(snapshot.hourlySales().isEmpty());
+    }
+}
@@ -0,0 +1,103 @@
+package com.pedidofacil.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TDigestTest {
+
+    private static final double[] QUANTILES = {0.01, 0.1, 0.5, 0.9, 0.99, 0.999};
+
+    // Tickets de balcão: a maioria pequena, alguns pedidos de obra muito maiores
+    private static double[] tickets(Random random, int n) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = Math.round(Math.exp(random.nextGaussian() * 1.2 + 4.5) * 100) / 100.0;
+            if (random.nextInt(100) == 0) {
+                values[i] *= 40;
+            }
+        }
+        return values;
+    }
+
+    // Posição do valor retornado entre os valores reais ordenados, como fração
+    private static double rank(double[] sorted, double value) {
+        int below = 0;
+        while (below < sorted.length && sorted[below] < value) {
+            below++;
+        }
+        int upTo = below;
+        while (upTo < sorted.length && sorted[upTo] <= value) {
+            upTo++;
+        }
+        return (below + upTo) / 2.0 / sorted.length;
+    }
+
+    @Test
+    void quantile_rankErrorIsSmallEspeciallyInTheTails() {
+        double[] values = tickets(new Random(5), 100_000);
+        TDigest digest = new TDigest(100);
+        for (double value : values) {
+            digest.add(value);
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        assertEquals(100_000, digest.count());
+        for (double q : QUANTILES) {
+            double error = Math.abs(rank(sorted, digest.quantile(q)) - q);
+            assertTrue(error <= (q < 0.05 || q > 0.95 ? 0.001 : 0.005), "q=" + q + " erro=" + error);
+        }
+        assertEquals(sorted[0], digest.quantile(0));
+        assertEquals(sorted[sorted.length - 1], digest.quantile(1));
+        assertTrue(digest.bytes() < 20_000, digest.bytes() + " bytes");
+    }
+
+    @Test
+    void merge_ofDailyDigestsMatchesOneDigestOfEverything() {
+        Random random = new Random(9);
+        TDigest all = new TDigest(100);
+        TDigest merged = new TDigest(100);
+        double[] values = new double[0];
+        for (int day = 0; day < 90; day++) {
+            double[] daily = tickets(random, 50 + random.nextInt(400));
+            TDigest digest = new TDigest(100);
+            for (double value : daily) {
+                digest.add(value);
+                all.add(value);
+            }
+            merged.merge(digest);
+            values = concat(values, daily);
+        }
+        Arrays.sort(values);
+
+        assertEquals(all.count(), merged.count());
+        for (double q : QUANTILES) {
+            assertEquals(q, rank(values, merged.quantile(q)), 0.01, "q=" + q);
+        }
+    }
+
+    private static double[] concat(double[] a, double[] b) {
+        double[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+
+    @Test
+    void quantile_fewValuesAreExact() {
+        TDigest digest = new TDigest(100);
+        digest.add(30);
+        digest.add(10);
+        digest.add(20);
+
+        assertEquals(10, digest.quantile(0));
+        assertEquals(20, digest.quantile(0.5));
+        assertEquals(30, digest.quantile(1));
+        assertTrue(Double.isNaN(new TDigest(100).quantile(0.5)));
+        assertThrows(IllegalArgumentException.class, () -> digest.quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new TDigest(5));
+    }
+}
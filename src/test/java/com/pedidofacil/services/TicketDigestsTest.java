@@ -0,0 +1,160 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.config.TicketDigestSettings;
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.OrderItem;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.models.Product;
+import com.pedidofacil.models.TimeKeys;
+import com.pedidofacil.persistence.GeneratedDatabase;
+import com.pedidofacil.repositories.projections.OrderPaymentTotal;
+import com.pedidofacil.repositories.projections.TicketPercentileView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TicketDigestsTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteDataSource dataSource;
+    private TicketDigestSettings settings;
+    private TicketDigests digests;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = GeneratedDatabase.create(dir);
+
+        settings = new TicketDigestSettings();
+        ReportEngineSettings engineSettings = new ReportEngineSettings();
+        engineSettings.setFetchSize(100);
+        digests = new TicketDigests(dataSource, settings, engineSettings);
+    }
+
+    private List<String> query(String sql) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                rows.add(rs.getString(1) + "|" + rs.getString(2) + "|" + rs.getString(3));
+            }
+        }
+        return rows;
+    }
+
+    private static String period(LocalDate start, LocalDate end) {
+        return " WHERE day_key BETWEEN " + (start == null ? 0 : TimeKeys.dayKey(start)) +
+                " AND " + (end == null ? 99_999_999 : TimeKeys.dayKey(end));
+    }
+
+    // Fração dos pedidos da forma de pagamento abaixo do valor (empates contam pela metade)
+    private double rank(LocalDate start, LocalDate end, PaymentMethod method, double value) throws SQLException {
+        String[] row = query("SELECT sum(total < " + value + "), sum(total <= " + value + "), count(*) FROM orders" +
+                period(start, end) + " AND payment_method = '" + method + "'").get(0).split("\\|");
+        return (Double.parseDouble(row[0]) + Double.parseDouble(row[1])) / 2 / Double.parseDouble(row[2]);
+    }
+
+    private void assertMatchesOrders(LocalDate start, LocalDate end) throws SQLException {
+        List<TicketPercentileView> views = digests.ticketPercentiles(start, end);
+
+        assertEquals(query("SELECT payment_method, count(*), '' FROM orders" + period(start, end) +
+                        " GROUP BY payment_method").stream().sorted().toList(),
+                views.stream().map(v -> v.getPaymentMethod() + "|" + v.getOrders() + "|").sorted().toList());
+        for (TicketPercentileView view : views) {
+            String label = view.getPaymentMethod() + " " + start + ".." + end;
+            // Com poucos pedidos a posição anda de 1/pedidos em 1/pedidos
+            double tolerance = Math.max(0.02, 1.0 / view.getOrders());
+            assertEquals(0.5, rank(start, end, view.getPaymentMethod(), view.getP50()), tolerance, label);
+            assertEquals(0.9, rank(start, end, view.getPaymentMethod(), view.getP90()), tolerance, label);
+            assertEquals(0.99, rank(start, end, view.getPaymentMethod(), view.getP99()), tolerance, label);
+        }
+    }
+
+    @Test
+    void load_anyPeriodMatchesOrderRanks() throws SQLException {
+        digests.load();
+
+        assertEquals(TicketDigests.State.READY, digests.getState());
+        // Meses inteiros, pontas de mês, um dia só e período aberto
+        assertMatchesOrders(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+        assertMatchesOrders(LocalDate.of(2024, 2, 10), LocalDate.of(2024, 3, 5));
+        assertMatchesOrders(LocalDate.of(2024, 3, 15), LocalDate.of(2024, 3, 15));
+        assertMatchesOrders(null, null);
+        assertTrue(digests.ticketPercentiles(LocalDate.of(2030, 1, 1), null).isEmpty());
+    }
+
+    private static Order order(long id, LocalDate day, PaymentMethod method, String quantity) {
+        Product product = new Product("Cimento", "Votoran", "SC", new BigDecimal("39.90"));
+        product.setId(1L);
+        Order order = new Order();
+        order.setId(id);
+        order.setCreatedAt(day.atTime(10, 0));
+        order.setPaymentMethod(method);
+        order.addItem(new OrderItem(product, new BigDecimal(quantity), product.getPrice()));
+        order.prePersist();
+        return order;
+    }
+
+    @Test
+    void orderCreated_addsNewOrdersOnly() {
+        digests.load();
+        LocalDate day = LocalDate.of(2024, 6, 1);
+
+        // O pedido 1 já veio na carga; o evento dele não conta de novo
+        digests.onOrderCreated(new OrderCreatedEvent(order(1, day, PaymentMethod.PIX, "1")));
+        digests.onOrderCreated(new OrderCreatedEvent(order(900_001, day, PaymentMethod.PIX, "2")));
+        digests.onOrderCreated(new OrderCreatedEvent(order(900_002, day, PaymentMethod.PIX, "4")));
+
+        List<TicketPercentileView> views = digests.ticketPercentiles(day, day);
+        assertEquals(1, views.size());
+        assertEquals(2L, views.get(0).getOrders());
+        assertEquals(119.70, views.get(0).getP50(), 0.01);
+        assertEquals(159.60, views.get(0).getP99(), 0.01);
+    }
+
+    @Test
+    void ticketPercentiles_fromStreamedOrders() {
+        List<OrderPaymentTotal> orders = new ArrayList<>();
+        for (int i = 1; i <= 99; i++) {
+            orders.add(new OrderPaymentTotal(PaymentMethod.CASH, BigDecimal.valueOf(i)));
+        }
+        orders.add(new OrderPaymentTotal(PaymentMethod.CASH, new BigDecimal("10000.00")));
+        orders.add(new OrderPaymentTotal(null, BigDecimal.TEN));
+
+        List<TicketPercentileView> views = digests.ticketPercentiles(orders.iterator());
+
+        assertEquals(1, views.size());
+        assertEquals(100L, views.get(0).getOrders());
+        assertEquals(50.5, views.get(0).getP50(), 1);
+        assertEquals(90.5, views.get(0).getP90(), 1);
+        assertTrue(views.get(0).getP99() > 99);
+    }
+
+    @Test
+    void disabled_rejectsQueries() {
+        settings.setEnabled(false);
+
+        digests.startLoading();
+        digests.onOrderCreated(new OrderCreatedEvent(order(900_001, LocalDate.of(2024, 6, 1), PaymentMethod.PIX, "1")));
+
+        assertEquals(TicketDigests.State.DISABLED, digests.getState());
+        assertFalse(digests.isReady());
+        assertThrows(IllegalStateException.class, () -> digests.ticketPercentiles(null, null));
+    }
+}
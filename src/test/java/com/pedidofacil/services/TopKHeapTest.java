@@ -0,0 +1,64 @@
+package com.pedidofacil.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKHeapTest {
+
+    @Test
+    void keys_bestFirstWithTiesBySmallerKey() {
+        TopKHeap heap = new TopKHeap(3);
+
+        heap.offer(5, 100);
+        heap.offer(9, 300);
+        heap.offer(2, 100);
+        heap.offer(7, 50);
+        heap.offer(1, 100);
+
+        assertArrayEquals(new long[]{9, 1, 2}, heap.keys());
+        assertEquals(3, heap.size());
+        assertEquals(300, heap.score(9));
+    }
+
+    @Test
+    void offer_sameKey_raisesItsScoreInPlace() {
+        TopKHeap heap = new TopKHeap(2);
+
+        heap.offer(1, 10, 7);
+        heap.offer(2, 20);
+        heap.offer(1, 30, 8);
+        heap.offer(1, 5);
+
+        assertArrayEquals(new long[]{1, 2}, heap.keys());
+        assertEquals(30, heap.score(1));
+        assertEquals(8, heap.extra(1));
+    }
+
+    @Test
+    void offer_matchesFullSortOfFinalScores() {
+        Random random = new Random(11);
+        TopKHeap heap = new TopKHeap(25);
+        Map<Long, Long> sums = new HashMap<>();
+
+        // Somas que só crescem, como no sketch: cada oferta traz a soma atual da chave
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(2_000);
+            long sum = sums.merge(key, (long) random.nextInt(1_000), Long::sum);
+            heap.offer(key, sum);
+        }
+
+        long[] expected = sums.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(25)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+        assertArrayEquals(expected, heap.keys());
+    }
+}
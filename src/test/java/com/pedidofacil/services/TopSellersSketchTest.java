@@ -0,0 +1,138 @@
+package com.pedidofacil.services;
+
+import com.pedidofacil.config.ReportEngineSettings;
+import com.pedidofacil.config.TopSellersSettings;
+import com.pedidofacil.models.Customer;
+import com.pedidofacil.models.Order;
+import com.pedidofacil.models.PaymentMethod;
+import com.pedidofacil.persistence.GeneratedDatabase;
+import com.pedidofacil.repositories.projections.ProductSalesView;
+import com.pedidofacil.repositories.projections.TopCustomerView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopSellersSketchTest {
+
+    @TempDir
+    Path dir;
+
+    private SQLiteDataSource dataSource;
+    private TopSellersSettings settings;
+    private SinglePassReportEngine engine;
+    private TopSellersSketch sketch;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = GeneratedDatabase.create(dir);
+
+        settings = new TopSellersSettings();
+        settings.setApproximate(true);
+        settings.setCandidates(10);
+        ReportEngineSettings engineSettings = new ReportEngineSettings();
+        engineSettings.setFetchSize(100);
+        engine = new SinglePassReportEngine(dataSource, engineSettings);
+        sketch = new TopSellersSketch(dataSource, settings, engineSettings);
+    }
+
+    private static List<String> products(List<ProductSalesView> views) {
+        return views.stream().map(v -> v.getProductId() + "|" + v.getProductName() + "|" + v.getQuantity() + "|" + v.getTotal()).toList();
+    }
+
+    private static List<String> customers(List<TopCustomerView> views) {
+        return views.stream().map(v -> v.getCustomerId() + "|" + v.getCustomerName() + "|" + v.getTotal()).toList();
+    }
+
+    @Test
+    void load_ranksLikeTheDatabaseWithinTheErrorBound() {
+        sketch.load();
+        ReportSnapshot expected = engine.snapshot(null, null, 5);
+
+        List<ProductSalesView> products = sketch.topProducts(5);
+        List<TopCustomerView> customers = sketch.topCustomers(5);
+
+        // Poucas chaves para a largura do sketch: sem colisão, as estimativas são as somas reais
+        assertEquals(TopSellersSketch.State.READY, sketch.getState());
+        assertEquals(products(expected.productSales()), products(products));
+        assertEquals(customers(expected.topCustomers()), customers(customers));
+        assertTrue(products.get(0).getErrorBound().signum() > 0);
+        assertTrue(customers.get(0).getErrorBound().signum() > 0);
+        assertNull(expected.productSales().get(0).getErrorBound());
+    }
+
+    private static Order order(long id, Customer customer, String quantity) {
+        return SampleOrders.order(id, LocalDate.of(2024, 6, 1).atTime(10, 0), PaymentMethod.CASH, customer, quantity);
+    }
+
+    @Test
+    void orderCreated_addsNewOrdersOnly() {
+        sketch.load();
+        BigDecimal before = customerTotal(1L);
+        Customer customer = new Customer("Cliente Novo", "");
+        customer.setId(1L);
+
+        // O pedido 1 já veio na carga; o evento dele não soma de novo
+        sketch.onOrderCreated(new OrderCreatedEvent(order(1, customer, "100000")));
+        sketch.onOrderCreated(new OrderCreatedEvent(order(900_001, customer, "100000")));
+
+        ProductSalesView top = sketch.topProducts(1).get(0);
+        TopCustomerView topCustomer = sketch.topCustomers(1).get(0);
+        assertEquals(1L, top.getProductId());
+        assertEquals(1L, topCustomer.getCustomerId());
+        assertEquals(before.add(new BigDecimal("3990000.00")), topCustomer.getTotal());
+    }
+
+    private BigDecimal customerTotal(long id) {
+        return engine.snapshot(null, null, 40).topCustomers().stream()
+                .filter(v -> v.getCustomerId() == id).findFirst().map(TopCustomerView::getTotal).orElse(BigDecimal.ZERO);
+    }
+
+    @Test
+    void startLoading_afterSummaryRebuild_reloadsTheSummary() throws InterruptedException {
+        sketch.load();
+        ProductSalesView before = sketch.topProducts(1).get(0);
+        new JdbcTemplate(dataSource).update("UPDATE daily_product_summary SET total = total * 2 WHERE product_id = ?",
+                before.getProductId());
+
+        sketch.startLoading();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("top-sellers-loader")) {
+                thread.join(5_000);
+            }
+        }
+
+        assertEquals(TopSellersSketch.State.READY, sketch.getState());
+        ProductSalesView after = sketch.topProducts(1).get(0);
+        assertEquals(before.getProductId(), after.getProductId());
+        assertEquals(before.getTotal().multiply(BigDecimal.valueOf(2)), after.getTotal());
+    }
+
+    @Test
+    void disabled_rejectsRankings() {
+        settings.setApproximate(false);
+
+        sketch.startLoading();
+
+        assertEquals(TopSellersSketch.State.DISABLED, sketch.getState());
+        assertFalse(sketch.canRank(5));
+        assertThrows(IllegalStateException.class, () -> sketch.topProducts(5));
+    }
+
+    @Test
+    void canRank_onlyUpToTheTrackedCandidates() {
+        sketch.load();
+
+        assertTrue(sketch.canRank(10));
+        assertFalse(sketch.canRank(11));
+    }
+}
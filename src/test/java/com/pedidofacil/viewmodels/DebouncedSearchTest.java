@@ -0,0 +1,101 @@
+package com.pedidofacil.viewmodels;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DebouncedSearchTest {
+
+    private final DebouncedSearch<String> search =
+            new DebouncedSearch<>(50, Executors.newSingleThreadScheduledExecutor());
+    private final List<String> queried = new CopyOnWriteArrayList<>();
+    private final List<String> published = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        search.close();
+    }
+
+    private String query(String text) {
+        queried.add(text);
+        return text.toUpperCase();
+    }
+
+    private void awaitPublished(int count) throws InterruptedException {
+        for (int i = 0; i < 200 && published.size() < count; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void submit_runsOnlyTheLastTextOfABurst() throws InterruptedException {
+        for (String text : List.of("c", "ci", "cim", "cime")) {
+            search.submit(text, this::query, Runnable::run, published::add);
+        }
+
+        awaitPublished(1);
+        Thread.sleep(100);
+
+        assertEquals(List.of("cime"), queried);
+        assertEquals(List.of("CIME"), published);
+    }
+
+    @Test
+    void submit_discardsResultOfQueryOvertakenWhileRunning() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        search.submit("slow", text -> {
+            started.countDown();
+            try {
+                release.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "SLOW";
+        }, Runnable::run, published::add);
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        search.submit("fast", this::query, Runnable::run, published::add);
+        release.countDown();
+        awaitPublished(1);
+        Thread.sleep(100);
+
+        assertEquals(List.of("FAST"), published);
+    }
+
+    @Test
+    void submit_checksAgainWhenPublishing() throws InterruptedException {
+        // O resultado chega à "thread da tela" depois de outra tecla: não é entregue
+        CountDownLatch handedOver = new CountDownLatch(1);
+        List<Runnable> fxQueue = new CopyOnWriteArrayList<>();
+        search.submit("a", this::query, work -> {
+            fxQueue.add(work);
+            handedOver.countDown();
+        }, published::add);
+        assertTrue(handedOver.await(1, TimeUnit.SECONDS));
+
+        search.submit("ab", this::query, Runnable::run, published::add);
+        fxQueue.forEach(Runnable::run);
+        awaitPublished(1);
+
+        assertEquals(List.of("AB"), published);
+    }
+
+    @Test
+    void cancel_dropsPendingSearch() throws InterruptedException {
+        search.submit("tubo", this::query, Runnable::run, published::add);
+        search.cancel();
+
+        Thread.sleep(150);
+
+        assertTrue(queried.isEmpty());
+        assertTrue(published.isEmpty());
+    }
+}
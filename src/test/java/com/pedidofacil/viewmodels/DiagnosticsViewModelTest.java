@@ -0,0 +1,90 @@
+package com.pedidofacil.viewmodels;
+
+import com.pedidofacil.persistence.PragmaStatus;
+import com.pedidofacil.persistence.SqliteDiagnostics;
+import com.pedidofacil.persistence.SqliteProfile;
+import com.pedidofacil.services.IReportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DiagnosticsViewModelTest {
+
+    @Mock
+    private SqliteDiagnostics diagnostics;
+
+    @Mock
+    private IReportService reportService;
+
+    private DiagnosticsViewModel viewModel;
+
+    @BeforeEach
+    void setUp() {
+        viewModel = new DiagnosticsViewModel(diagnostics, reportService);
+    }
+
+    @Test
+    void refresh_allMatching() {
+        when(diagnostics.check()).thenReturn(List.of(
+                new PragmaStatus("escrita", "journal_mode", "WAL", "WAL"),
+                new PragmaStatus("escrita", "synchronous", "NORMAL", "NORMAL")));
+
+        viewModel.refresh();
+
+        assertEquals(2, viewModel.getPragmas().size());
+        assertEquals("Todos os valores conferem com o perfil.", viewModel.getStatus());
+    }
+
+    @Test
+    void refresh_divergentValue_reportsCount() {
+        when(diagnostics.check()).thenReturn(List.of(
+                new PragmaStatus("escrita", "journal_mode", "WAL", "DELETE"),
+                new PragmaStatus("escrita", "synchronous", "NORMAL", "NORMAL")));
+
+        viewModel.refresh();
+
+        assertEquals("1 valor(es) diferente(s) do perfil.", viewModel.getStatus());
+    }
+
+    @Test
+    void refresh_databaseError_clearsRows() {
+        when(diagnostics.check()).thenThrow(new IllegalStateException("banco bloqueado"));
+
+        viewModel.refresh();
+
+        assertTrue(viewModel.getPragmas().isEmpty());
+        assertTrue(viewModel.getStatus().contains("banco bloqueado"));
+    }
+
+    @Test
+    void rebuildSummary_success_reportsElapsedTime() {
+        viewModel.rebuildSummary();
+
+        verify(reportService, times(1)).rebuildSummary();
+        assertTrue(viewModel.getStatus().startsWith("Resumo de vendas recalculado"));
+    }
+
+    @Test
+    void rebuildSummary_failure_reportsError() {
+        doThrow(new IllegalStateException("banco bloqueado")).when(reportService).rebuildSummary();
+
+        viewModel.rebuildSummary();
+
+        assertTrue(viewModel.getStatus().contains("banco bloqueado"));
+    }
+
+    @Test
+    void getProfileName_returnsActiveProfile() {
+        when(diagnostics.getProfile()).thenReturn(SqliteProfile.DURABLE);
+
+        assertEquals("DURABLE", viewModel.getProfileName());
+    }
+}
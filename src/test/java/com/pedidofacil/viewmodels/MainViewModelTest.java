@@ -6,7 +6,8 @@ import com.pedidofacil.models.PaymentMethod;
 import com.pedidofacil.models.Product;
 import com.pedidofacil.services.ICustomerService;
 import com.pedidofacil.services.IOrderService;
-import com.pedidofacil.services.IProductService;
+import com.pedidofacil.services.ProductCatalog;
+import com.pedidofacil.services.ProductSearch;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,7 +18,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,7 +33,10 @@ import static org.mockito.Mockito.*;
 class MainViewModelTest {
 
     @Mock
-    private IProductService productService;
+    private ProductCatalog catalog;
+
+    @Mock
+    private ProductSearch productSearch;
 
     @Mock
     private IOrderService orderService;
@@ -54,7 +64,7 @@ class MainViewModelTest {
         // Arrange
         List<Product> products = Arrays.asList(testProduct);
         List<Customer> customers = Arrays.asList(testCustomer);
-        when(productService.findAll()).thenReturn(products);
+        when(catalog.snapshot()).thenReturn(new ProductCatalog.Snapshot(1, products, Map.of()));
         when(customerService.findAll()).thenReturn(customers);
         when(orderService.nextOrderNumber()).thenReturn(1L);
 
@@ -66,11 +76,89 @@ class MainViewModelTest {
         assertEquals(1, mainViewModel.getCustomers().size());
         assertEquals(1L, mainViewModel.getNextOrderNumber());
         assertEquals("Produtos carregados: 1", mainViewModel.getStatusMessage());
-        verify(productService, times(1)).findAll();
+        assertEquals(1L, mainViewModel.getCatalogVersion());
+        verify(catalog, times(1)).snapshot();
         verify(customerService, times(1)).findAll();
         verify(orderService, times(1)).nextOrderNumber();
     }
 
+    @Test
+    void onCatalogChanged_returnedHandle_removesTheListener() {
+        // Arrange
+        Consumer<ProductCatalog.Snapshot> listener = snapshot -> { };
+        Runnable subscription = mainViewModel.onCatalogChanged(listener);
+
+        // Act
+        subscription.run();
+
+        // Assert
+        verify(catalog, times(1)).addListener(listener);
+        verify(catalog, times(1)).removeListener(listener);
+    }
+
+    @Test
+    void applyCatalog_ignoresOlderSnapshots() {
+        // Arrange
+        Product other = new Product("Outro Produto", "Marca B", "UN", new BigDecimal("5.00"));
+        ProductCatalog.Snapshot v2 = new ProductCatalog.Snapshot(2, List.of(testProduct, other), Map.of());
+        ProductCatalog.Snapshot v1 = new ProductCatalog.Snapshot(1, List.of(testProduct), Map.of());
+
+        // Act
+        boolean appliedNew = mainViewModel.applyCatalog(v2);
+        boolean appliedOld = mainViewModel.applyCatalog(v1);
+
+        // Assert
+        assertTrue(appliedNew);
+        assertFalse(appliedOld);
+        assertEquals(2, mainViewModel.getProducts().size());
+        assertEquals(2L, mainViewModel.getCatalogVersion());
+        verifyNoInteractions(catalog);
+    }
+
+    @Test
+    void searchProductsAsync_blankQuery_publishesCatalogWithoutSearching() throws Exception {
+        // Arrange
+        mainViewModel.applyCatalog(new ProductCatalog.Snapshot(1, List.of(testProduct), Map.of()));
+        CompletableFuture<List<Product>> published = new CompletableFuture<>();
+
+        // Act
+        mainViewModel.searchProductsAsync("  ", Runnable::run, published::complete);
+        List<Product> all = published.get(2, TimeUnit.SECONDS);
+        mainViewModel.stop();
+
+        // Assert
+        assertEquals(List.of(testProduct), all);
+        assertEquals("  ", mainViewModel.getSearchQuery());
+        verifyNoInteractions(productSearch);
+    }
+
+    @Test
+    void searchProductsAsync_publishesOnlyLatestQuery() throws Exception {
+        // Arrange
+        Product other = new Product("Cimento CP II", "Votoran", "SC", new BigDecimal("39.90"));
+        when(productSearch.search("cime", MainViewModel.SEARCH_LIMIT)).thenReturn(List.of(other));
+        List<List<Product>> published = new CopyOnWriteArrayList<>();
+        CompletableFuture<Thread> publisherThread = new CompletableFuture<>();
+        Executor fxThread = work -> {
+            publisherThread.complete(Thread.currentThread());
+            work.run();
+        };
+
+        // Act
+        mainViewModel.searchProductsAsync("c", fxThread, published::add);
+        mainViewModel.searchProductsAsync("ci", fxThread, published::add);
+        mainViewModel.searchProductsAsync("cime", fxThread, published::add);
+        Thread searchThread = publisherThread.get(2, TimeUnit.SECONDS);
+        Thread.sleep(MainViewModel.SEARCH_DEBOUNCE_MILLIS * 2);
+        mainViewModel.stop();
+
+        // Assert
+        assertEquals(List.of(List.of(other)), published);
+        assertEquals("cime", mainViewModel.getSearchQuery());
+        assertNotSame(Thread.currentThread(), searchThread);
+        verify(productSearch, times(1)).search(anyString(), anyInt());
+    }
+
     @Test
     void createOrFindCustomer_withExistingCustomer_returnsExisting() {
         // Arrange
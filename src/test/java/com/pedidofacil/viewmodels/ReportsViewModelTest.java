@@ -7,6 +7,8 @@ import com.pedidofacil.repositories.projections.ProductSalesView;
 import com.pedidofacil.repositories.projections.TicketAverageView;
 import com.pedidofacil.repositories.projections.TopCustomerView;
 import com.pedidofacil.services.IReportService;
+import com.pedidofacil.services.IReportSnapshotService;
+import com.pedidofacil.services.ReportSnapshot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,9 +16,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,6 +33,9 @@ class ReportsViewModelTest {
     @Mock
     private IReportService reportService;
 
+    @Mock
+    private IReportSnapshotService snapshotService;
+
     @InjectMocks
     private ReportsViewModel reportsViewModel;
 
@@ -75,8 +84,11 @@ class ReportsViewModelTest {
         verify(reportService, times(1)).topProducts(startDate, endDate, 10);
         verify(reportService, times(1)).paymentDistribution(startDate, endDate);
         verify(reportService, times(1)).ticketAverage(startDate, endDate);
+        verify(reportService, times(1)).ticketPercentiles(startDate, endDate);
         verify(reportService, times(1)).topCustomers(startDate, endDate, null, 10);
         verify(reportService, times(1)).dailySales(startDate, endDate);
+        verify(reportService, times(1)).monthlySales(startDate, endDate);
+        verify(reportService, times(1)).hourlySales(startDate, endDate);
     }
 
     @Test
@@ -223,4 +235,58 @@ class ReportsViewModelTest {
         assertTrue(reportsViewModel.getTopCustomers().isEmpty());
         assertEquals(1, reportsViewModel.getDailySales().size());
     }
-}
\ No newline at end of file
+
+    private static ReportSnapshot snapshot(LocalDate start, LocalDate end, ProductSalesView product) {
+        return new ReportSnapshot(start, end, List.of(product), List.of(), List.of(), List.of(), List.of(), List.of(), List.of(), List.of(),
+                Map.of("topProducts", Duration.ofMillis(3)), Duration.ofMillis(3));
+    }
+
+    @Test
+    void loadAsync_requestsCurrentPeriod() {
+        // Arrange
+        ReportSnapshot loaded = snapshot(startDate, endDate, mock(ProductSalesView.class));
+        when(snapshotService.loadAsync(startDate, endDate, 10)).thenReturn(CompletableFuture.completedFuture(loaded));
+        reportsViewModel.setStartDate(startDate);
+        reportsViewModel.setEndDate(endDate);
+
+        // Act
+        ReportSnapshot result = reportsViewModel.loadAsync().join();
+
+        // Assert
+        assertSame(loaded, result);
+        verifyNoInteractions(reportService);
+    }
+
+    @Test
+    void apply_samePeriod_replacesData() {
+        // Arrange
+        ProductSalesView product = mock(ProductSalesView.class);
+        reportsViewModel.setStartDate(startDate);
+        reportsViewModel.setEndDate(endDate);
+
+        // Act
+        boolean applied = reportsViewModel.apply(snapshot(startDate, endDate, product));
+
+        // Assert
+        assertTrue(applied);
+        assertEquals(List.of(product), reportsViewModel.getProductSales());
+        assertNotNull(reportsViewModel.getSnapshot());
+    }
+
+    @Test
+    void apply_periodChangedMeanwhile_keepsCurrentData() {
+        // Arrange
+        reportsViewModel.setStartDate(startDate);
+        reportsViewModel.setEndDate(endDate);
+        ReportSnapshot stale = snapshot(startDate, endDate, mock(ProductSalesView.class));
+        reportsViewModel.setStartDate(endDate);
+
+        // Act
+        boolean applied = reportsViewModel.apply(stale);
+
+        // Assert
+        assertFalse(applied);
+        assertTrue(reportsViewModel.getProductSales().isEmpty());
+        assertNull(reportsViewModel.getSnapshot());
+    }
+}
@@ -0,0 +1,73 @@
+package com.pedidofacil.views;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListDiffTest {
+
+    // Itens removidos e incluídos em cada evento da lista
+    private static List<String> changes(ObservableList<String> list) {
+        List<String> changes = new ArrayList<>();
+        list.addListener((ListChangeListener<String>) change -> {
+            while (change.next()) {
+                changes.add("-" + change.getRemovedSize() + "+" + change.getAddedSize() + "@" + change.getFrom());
+            }
+        });
+        return changes;
+    }
+
+    @Test
+    void apply_touchesOnlyTheChangedMiddle() {
+        String a = "a", b = "b", c = "c", d = "d", e = "e";
+        ObservableList<String> list = FXCollections.observableArrayList(a, b, c, d, e);
+        List<String> changes = changes(list);
+
+        ListDiff.apply(list, List.of(a, b, e));
+        assertEquals(List.of(a, b, e), list);
+        assertEquals(List.of("-2+0@2"), changes);
+
+        changes.clear();
+        ListDiff.apply(list, List.of(a, b, e));
+        assertTrue(changes.isEmpty());
+
+        ListDiff.apply(list, List.of(a, c, e));
+        assertEquals(List.of(a, c, e), list);
+        assertEquals(List.of("-1+0@1", "-0+1@1"), changes);
+    }
+
+    @Test
+    void apply_withNothingInCommon_replacesInOneChange() {
+        ObservableList<String> list = FXCollections.observableArrayList("a", "b");
+        List<String> changes = changes(list);
+
+        ListDiff.apply(list, List.of("x", "y", "z"));
+
+        assertEquals(List.of("x", "y", "z"), list);
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    void apply_alwaysEndsEqualToNext() {
+        Random random = new Random(3);
+        String[] pool = {"a", "b", "c", "d", "e", "f"};
+        ObservableList<String> list = FXCollections.observableArrayList();
+        for (int step = 0; step < 500; step++) {
+            List<String> next = new ArrayList<>();
+            for (int i = random.nextInt(8); i > 0; i--) {
+                next.add(pool[random.nextInt(pool.length)]);
+            }
+
+            ListDiff.apply(list, next);
+
+            assertEquals(next, list, "passo " + step);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.pedidofacil.views;
 
 import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class ReportsWindowControllerTest {
@@ -11,4 +14,18 @@ public class ReportsWindowControllerTest {
         String formattedDate = controller.formatDateLabel("2023-01-15");
         assertEquals("15/01", formattedDate);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testFormatPeriodLabel() {
+        ReportsWindowController controller = new ReportsWindowController(null);
+        assertEquals("01/2023", controller.formatPeriodLabel("2023-01"));
+        assertEquals("14h", controller.formatPeriodLabel("14h"));
+    }
+
+    @Test
+    void testApproximateSuffix() {
+        ReportsWindowController controller = new ReportsWindowController(null);
+        assertEquals("", controller.approximateSuffix(null));
+        assertEquals(" (aproximado, ± 1234,50 R$)", controller.approximateSuffix(new BigDecimal("1234.5")));
+    }
+}